@@ -0,0 +1,90 @@
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Lớp BatchingResult chứa kết quả của một đợt gom lô và giải định tuyến: các lô đã giải,
+ * thời gian đã dùng và các chỉ số năng suất (số lần lấy trên quãng đường, số đơn mỗi giây)
+ */
+public final class BatchingResult {
+    private final List<OrderBatch> batches;
+    private final long elapsedMillis;
+    private final long seed;
+    private final int orderCount;
+    private final int pickCount;
+    private final double distance;
+
+    /**
+     * Tạo kết quả từ các lô đã giải
+     * @param batches Các lô, mỗi lô đã có lời giải
+     * @param elapsedMillis Thời gian gom lô và giải (mili giây)
+     * @param seed Hạt giống ngẫu nhiên của lần giải
+     */
+    public BatchingResult(List<OrderBatch> batches, long elapsedMillis, long seed) {
+        this.batches = Collections.unmodifiableList(batches);
+        this.elapsedMillis = elapsedMillis;
+        this.seed = seed;
+        int orders = 0;
+        int picks = 0;
+        double total = 0;
+        for (OrderBatch batch : batches) {
+            orders += batch.getOrders().size();
+            picks += batch.getPickCount();
+            total += batch.getDistance();
+        }
+        this.orderCount = orders;
+        this.pickCount = picks;
+        this.distance = total;
+    }
+
+    public List<OrderBatch> getBatches() {
+        return batches;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getOrderCount() {
+        return orderCount;
+    }
+
+    public int getPickCount() {
+        return pickCount;
+    }
+
+    /**
+     * Tổng quãng đường của mọi lô
+     * @return Quãng đường (đơn vị bước của bảng khoảng cách)
+     */
+    public double getDistance() {
+        return distance;
+    }
+
+    /**
+     * Số lần lấy hàng trên mỗi đơn vị quãng đường robot đi
+     * @return Số lần lấy trên một bước, 0 nếu không di chuyển
+     */
+    public double getPicksPerDistance() {
+        return distance > 0 ? pickCount / distance : 0;
+    }
+
+    /**
+     * Số đơn hàng được gom lô và định tuyến mỗi giây
+     * @return Số đơn mỗi giây
+     */
+    public double getOrdersPerSecond() {
+        return orderCount * 1000.0 / Math.max(1, elapsedMillis);
+    }
+
+    @Override
+    public String toString() {
+        return "BatchingResult{batches=" + batches.size() + ", orders=" + orderCount + ", picks=" + pickCount +
+                ", distance=" + distance + ", picksPerDistance=" + String.format("%.4f", getPicksPerDistance()) +
+                ", ordersPerSecond=" + String.format("%.1f", getOrdersPerSecond()) +
+                ", elapsed=" + elapsedMillis + "ms, seed=" + seed + "}";
+    }
+}
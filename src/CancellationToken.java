@@ -0,0 +1,19 @@
+/**
+ * Lớp CancellationToken cho phép hủy một lần giải đang chạy từ luồng khác
+ * (ví dụ khi đơn hàng bị hủy). Bộ giải chỉ kiểm tra token ở ranh giới vòng lặp và
+ * bước tìm kiếm cục bộ, rồi trả về lời giải tốt nhất đã tìm được
+ */
+public final class CancellationToken {
+    private volatile boolean cancelled;
+
+    /**
+     * Yêu cầu dừng lần giải đang dùng token này
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
@@ -0,0 +1,74 @@
+/**
+ * Lớp CandidateLists chứa danh sách k láng giềng gần nhất của mỗi mặt hàng cần lấy
+ * (theo số bước đi giữa hai vị trí trong bảng khoảng cách của bài toán)
+ *
+ * Tìm kiếm cục bộ dạng hạt (granular) chỉ xét các bước di chuyển tạo ra ít nhất một cạnh
+ * nối một mặt hàng với một láng giềng trong danh sách, thay vì mọi cặp vị trí.
+ * Đối tượng bất biến sau khi tạo, có thể dùng chung giữa nhiều luồng.
+ */
+public final class CandidateLists {
+    private final int itemCount;
+    private final int k;
+    // Láng giềng của mặt hàng u nằm ở [u * k, u * k + counts[u])
+    private final int[] neighbors;
+    private final int[] counts;
+
+    /**
+     * Tạo danh sách láng giềng cho đơn hàng của bài toán
+     * @param instance Bài toán
+     * @param k Số láng giềng tối đa của mỗi mặt hàng
+     */
+    public CandidateLists(ProblemInstance instance, int k) {
+        this.itemCount = instance.getRequire().size();
+        this.k = Math.max(0, Math.min(k, itemCount - 1));
+        this.neighbors = new int[itemCount * this.k];
+        this.counts = new int[itemCount];
+
+        float[] distances = new float[this.k];
+        for (int u = 0; u < itemCount; u++) {
+            int from = instance.requireLocation(u);
+            int base = u * this.k;
+            int count = 0;
+
+            // Giữ k láng giềng gần nhất bằng sắp xếp chèn trên mảng nhỏ
+            for (int v = 0; v < itemCount; v++) {
+                if (v == u) continue;
+                float distance = instance.steps(from, instance.requireLocation(v));
+                if (count == this.k && distance >= distances[count - 1]) continue;
+
+                int p = count < this.k ? count++ : count - 1;
+                while (p > 0 && distances[p - 1] > distance) {
+                    distances[p] = distances[p - 1];
+                    neighbors[base + p] = neighbors[base + p - 1];
+                    p--;
+                }
+                distances[p] = distance;
+                neighbors[base + p] = v;
+            }
+            counts[u] = count;
+        }
+    }
+
+    /**
+     * Số láng giềng của một mặt hàng
+     * @param item Chỉ số mặt hàng cần lấy
+     * @return Số láng giềng
+     */
+    public int count(int item) {
+        return counts[item];
+    }
+
+    /**
+     * Láng giềng thứ index của một mặt hàng (index = 0 là gần nhất)
+     * @param item Chỉ số mặt hàng cần lấy
+     * @param index Thứ tự láng giềng
+     * @return Chỉ số mặt hàng láng giềng
+     */
+    public int neighbor(int item, int index) {
+        return neighbors[item * k + index];
+    }
+
+    public int getItemCount() {
+        return itemCount;
+    }
+}
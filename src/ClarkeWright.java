@@ -0,0 +1,199 @@
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * Lớp ClarkeWright dựng lời giải ban đầu bằng thuật toán tiết kiệm Clarke-Wright (phiên bản song song)
+ *
+ * Mỗi mặt hàng bắt đầu là một tuyến riêng. Khoản tiết kiệm khi nối hai mặt hàng i, j là
+ * steps(counter, i) + steps(counter, j) - steps(i, j); các cặp được duyệt theo khoản tiết kiệm giảm dần
+ * và hai tuyến được nối tại i, j khi cả hai là đầu mút của hai tuyến khác nhau và tổng tải trọng không
+ * vượt sức chứa. Chỉ xét các cặp (i, j) với j thuộc danh sách láng giềng gần nhất của i (CandidateLists),
+ * nên danh sách tiết kiệm có O(n * k) cặp thay vì O(n^2). Danh sách được tính và sắp xếp một lần trong
+ * hàm dựng; mỗi lần dựng lời giải chỉ duyệt danh sách với các mảng cục bộ nên dùng chung được giữa nhiều luồng.
+ */
+public final class ClarkeWright {
+    // Xác suất bỏ qua một cặp ở lượt duyệt đầu của phiên bản ngẫu nhiên hóa
+    private static final double SKIP_PROBABILITY = 0.15;
+    // Số láng giềng gần nhất của mỗi mặt hàng được xét ghép cặp
+    private static final int CANDIDATE_NEIGHBORS = 30;
+
+    private final ProblemInstance instance;
+    private final int itemCount;
+    // Các cặp có tiết kiệm dương theo thứ tự tăng dần: 32 bit cao là bit của khoản tiết kiệm
+    // (float không âm nên thứ tự bit trùng thứ tự giá trị), 32 bit thấp là chỉ số cặp trong pairFirst/pairSecond
+    private final long[] savings;
+    private final int[] pairFirst;
+    private final int[] pairSecond;
+
+    /**
+     * Tính và sắp xếp danh sách tiết kiệm của một bài toán trên CANDIDATE_NEIGHBORS láng giềng gần nhất
+     * @param instance Bài toán
+     */
+    public ClarkeWright(ProblemInstance instance) {
+        this(instance, new CandidateLists(instance, CANDIDATE_NEIGHBORS));
+    }
+
+    /**
+     * Tính và sắp xếp danh sách tiết kiệm của một bài toán trên các cặp láng giềng cho trước
+     * @param instance Bài toán
+     * @param candidates Danh sách láng giềng gần nhất của các mặt hàng
+     */
+    public ClarkeWright(ProblemInstance instance, CandidateLists candidates) {
+        this.instance = instance;
+        this.itemCount = instance.getRequire().size();
+
+        int counter = instance.getCounterLocation();
+        float[] fromCounter = new float[itemCount];
+        for (int i = 0; i < itemCount; i++) {
+            fromCounter[i] = instance.steps(counter, instance.requireLocation(i));
+        }
+
+        int maxPairs = 0;
+        for (int i = 0; i < itemCount; i++) {
+            maxPairs += candidates.count(i);
+        }
+        long[] keys = new long[maxPairs];
+        int[] first = new int[maxPairs];
+        int[] second = new int[maxPairs];
+        int count = 0;
+        for (int i = 0; i < itemCount; i++) {
+            int from = instance.requireLocation(i);
+            for (int n = 0; n < candidates.count(i); n++) {
+                int j = candidates.neighbor(i, n);
+                // Cặp có ở cả hai danh sách chỉ được thêm từ phía mặt hàng có chỉ số nhỏ hơn
+                if (j < i && isNeighbor(candidates, j, i)) continue;
+                float saving = fromCounter[i] + fromCounter[j] - instance.steps(from, instance.requireLocation(j));
+                if (saving > 0) {
+                    first[count] = Math.min(i, j);
+                    second[count] = Math.max(i, j);
+                    keys[count] = ((long) Float.floatToIntBits(saving) << 32) | count;
+                    count++;
+                }
+            }
+        }
+        this.savings = Arrays.copyOf(keys, count);
+        Arrays.sort(savings);
+        this.pairFirst = Arrays.copyOf(first, count);
+        this.pairSecond = Arrays.copyOf(second, count);
+    }
+
+    private static boolean isNeighbor(CandidateLists candidates, int item, int other) {
+        for (int n = 0; n < candidates.count(item); n++) {
+            if (candidates.neighbor(item, n) == other) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Dựng lời giải Clarke-Wright vào một giải pháp
+     * Phiên bản ngẫu nhiên hóa bỏ qua ngẫu nhiên một số cặp ở lượt đầu rồi duyệt lại toàn bộ danh sách,
+     * nên các tuyến khác nhau nhưng vẫn giữ phần lớn các cặp có tiết kiệm lớn
+     * @param solution Giải pháp nhận kết quả
+     * @param random Bộ sinh số ngẫu nhiên, null cho phiên bản tất định
+     */
+    public void construct(Solution solution, RandomGenerator random) {
+        // Mỗi mặt hàng có tối đa hai láng giềng trong tuyến; đầu mút lưu đầu mút còn lại và tải trọng của tuyến
+        int[] link0 = new int[itemCount];
+        int[] link1 = new int[itemCount];
+        int[] otherEnd = new int[itemCount];
+        int[] load = new int[itemCount];
+        Arrays.fill(link0, -1);
+        Arrays.fill(link1, -1);
+        for (int i = 0; i < itemCount; i++) {
+            otherEnd[i] = i;
+            load[i] = instance.requireQuantity(i);
+        }
+
+        if (random != null) {
+            mergePass(link0, link1, otherEnd, load, random);
+        }
+        mergePass(link0, link1, otherEnd, load, null);
+
+        // Duyệt các tuyến từ một đầu mút, ghi liên tiếp vào mảng thứ tự
+        int[] tour = new int[itemCount];
+        int[] tourStart = new int[itemCount + 1];
+        int[] tourLoad = new int[itemCount];
+        boolean[] visited = new boolean[itemCount];
+        int routes = 0;
+        int position = 0;
+        for (int i = 0; i < itemCount; i++) {
+            if (visited[i] || link1[i] != -1) continue;
+            tourStart[routes] = position;
+            tourLoad[routes] = load[i];
+            int previous = -1;
+            int current = i;
+            while (current != -1) {
+                visited[current] = true;
+                tour[position++] = current;
+                int next = link0[current] != previous ? link0[current] : link1[current];
+                previous = current;
+                current = next;
+            }
+            routes++;
+        }
+        tourStart[routes] = position;
+
+        // Gán các tuyến cho robot; khi số tuyến nhiều hơn số robot, tuyến nặng được gán trước
+        // cho robot đang nhẹ nhất và các tuyến của cùng một robot được nối liên tiếp
+        int robotCount = solution.getRouteCount();
+        // Khóa sắp xếp: 32 bit cao là tải trọng đổi dấu (nặng trước), 32 bit thấp là chỉ số tuyến
+        long[] byLoad = new long[routes];
+        for (int r = 0; r < routes; r++) {
+            byLoad[r] = ((long) -tourLoad[r] << 32) | r;
+        }
+        Arrays.sort(byLoad);
+        int[] robotOf = new int[routes];
+        int[] robotLoad = new int[robotCount];
+        int[] sizes = new int[robotCount];
+        for (int k = 0; k < routes; k++) {
+            int route = (int) byLoad[k];
+            int robot = 0;
+            for (int r = 1; r < robotCount; r++) {
+                if (robotLoad[r] < robotLoad[robot]) robot = r;
+            }
+            robotOf[route] = robot;
+            robotLoad[robot] += tourLoad[route];
+            sizes[robot] += tourStart[route + 1] - tourStart[route];
+        }
+
+        int[] next = new int[robotCount];
+        for (int r = 1; r < robotCount; r++) {
+            next[r] = next[r - 1] + sizes[r - 1];
+        }
+        int[] order = new int[itemCount];
+        for (int route = 0; route < routes; route++) {
+            int length = tourStart[route + 1] - tourStart[route];
+            System.arraycopy(tour, tourStart[route], order, next[robotOf[route]], length);
+            next[robotOf[route]] += length;
+        }
+        solution.setRoutes(order, sizes);
+    }
+
+    /**
+     * Một lượt duyệt danh sách tiết kiệm theo thứ tự giảm dần, nối các tuyến thỏa điều kiện
+     * @param random Bộ sinh số ngẫu nhiên để bỏ qua cặp, null để xét mọi cặp
+     */
+    private void mergePass(int[] link0, int[] link1, int[] otherEnd, int[] load, RandomGenerator random) {
+        int capacity = instance.getCapacity();
+        for (int k = savings.length - 1; k >= 0; k--) {
+            if (random != null && random.nextDouble() < SKIP_PROBABILITY) continue;
+            int pair = (int) savings[k];
+            int i = pairFirst[pair];
+            int j = pairSecond[pair];
+
+            // Cả hai phải là đầu mút (còn chỗ nối) của hai tuyến khác nhau
+            if (link1[i] != -1 || link1[j] != -1 || otherEnd[i] == j) continue;
+            int total = load[i] + load[j];
+            if (total > capacity) continue;
+
+            int endI = otherEnd[i];
+            int endJ = otherEnd[j];
+            if (link0[i] == -1) link0[i] = j; else link1[i] = j;
+            if (link0[j] == -1) link0[j] = i; else link1[j] = i;
+            otherEnd[endI] = endJ;
+            otherEnd[endJ] = endI;
+            load[endI] = total;
+            load[endJ] = total;
+        }
+    }
+}
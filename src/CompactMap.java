@@ -0,0 +1,229 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Lớp CompactMap đọc/ghi bản đồ kho hàng ở định dạng nhị phân nén (.wmap)
+ * Dùng cho các kho rất lớn (ví dụ 2000x2000) thay cho khối MAP_START ... MAP_END dạng văn bản.
+ *
+ * Định dạng (little-endian):
+ * - 4 byte "WMAP", 1 byte phiên bản, 1 byte kiểu mã hóa, 2 byte dự phòng
+ * - int rows, int cols
+ * - Kiểu 0 (BITMAP): wordCount long, bit thứ row * cols + col bằng 1 nếu là kệ hàng
+ * - Kiểu 1 (RLE): với mỗi hàng: int số đoạn, sau đó các độ dài đoạn xen kẽ
+ *   ô đi được / kệ hàng, bắt đầu bằng ô đi được (có thể dài 0)
+ *
+ * File được đọc bằng memory-map và bitset của WarehouseMap được dựng trực tiếp từ đó.
+ */
+public final class CompactMap {
+    private static final byte[] MAGIC = {'W', 'M', 'A', 'P'};
+    private static final byte VERSION = 1;
+    public static final byte ENCODING_BITMAP = 0;
+    public static final byte ENCODING_RLE = 1;
+    private static final int HEADER_SIZE = 16;
+
+    private CompactMap() {
+    }
+
+    /**
+     * Đọc bản đồ nén bằng memory-map
+     * @param pathname Đường dẫn file .wmap
+     * @return Bản đồ kho hàng
+     * @throws IOException Nếu không đọc được file hoặc sai định dạng
+     */
+    public static WarehouseMap load(String pathname) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(pathname), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            return decode(buffer, pathname);
+        }
+    }
+
+    /**
+     * Dựng bản đồ từ bộ đệm chứa dữ liệu .wmap
+     */
+    private static WarehouseMap decode(ByteBuffer buffer, String source) throws IOException {
+        if (buffer.remaining() < HEADER_SIZE) {
+            throw new IOException("File bản đồ quá ngắn: " + source);
+        }
+        for (byte b : MAGIC) {
+            if (buffer.get() != b) {
+                throw new IOException("Không phải file bản đồ nén: " + source);
+            }
+        }
+        byte version = buffer.get();
+        if (version != VERSION) {
+            throw new IOException("Phiên bản bản đồ không hỗ trợ " + version + ": " + source);
+        }
+        byte encoding = buffer.get();
+        buffer.position(buffer.position() + 2);
+        int rows = buffer.getInt();
+        int cols = buffer.getInt();
+        // Chỉ số ô row * cols + col phải vừa một int
+        if (rows < 0 || cols < 0 || (long) rows * cols > Integer.MAX_VALUE) {
+            throw new IOException("Kích thước bản đồ không hợp lệ: " + source);
+        }
+
+        long[] blocked = new long[WarehouseMap.wordCount(rows, cols)];
+        if (encoding == ENCODING_BITMAP) {
+            if (buffer.remaining() < (long) blocked.length * Long.BYTES) {
+                throw new IOException("File bản đồ bị cắt cụt: cần " + (long) blocked.length * Long.BYTES +
+                        " byte bitmap, còn " + buffer.remaining() + " byte: " + source);
+            }
+            // Sao chép nguyên khối từ vùng nhớ đã map vào bitset
+            buffer.asLongBuffer().get(blocked);
+        } else if (encoding == ENCODING_RLE) {
+            for (int row = 0; row < rows; row++) {
+                if (buffer.remaining() < Integer.BYTES) {
+                    throw new IOException("File bản đồ bị cắt cụt ở hàng " + row + ": " + source);
+                }
+                int runs = buffer.getInt();
+                if (runs < 0 || buffer.remaining() < (long) runs * Integer.BYTES) {
+                    throw new IOException("File bản đồ bị cắt cụt hoặc số đoạn " + runs + " không hợp lệ ở hàng " +
+                            row + ": " + source);
+                }
+                int col = 0;
+                for (int r = 0; r < runs; r++) {
+                    int length = buffer.getInt();
+                    if (length < 0 || length > cols - col) {
+                        throw new IOException("Độ dài đoạn không hợp lệ ở hàng " + row + ": " + source);
+                    }
+                    // Đoạn lẻ (r = 1, 3, ...) là kệ hàng
+                    if ((r & 1) == 1) {
+                        setRange(blocked, row * cols + col, row * cols + col + length);
+                    }
+                    col += length;
+                }
+            }
+        } else {
+            throw new IOException("Kiểu mã hóa không hỗ trợ " + encoding + ": " + source);
+        }
+        return new WarehouseMap(rows, cols, blocked);
+    }
+
+    /**
+     * Ghi bản đồ ở định dạng nén, tự chọn kiểu mã hóa nhỏ hơn
+     * @param map Bản đồ kho hàng
+     * @param pathname Đường dẫn file .wmap
+     * @throws IOException Nếu không ghi được file
+     */
+    public static void save(WarehouseMap map, String pathname) throws IOException {
+        long bitmapSize = (long) WarehouseMap.wordCount(map.getRows(), map.getCols()) * Long.BYTES;
+        long rleSize = rleSize(map);
+        save(map, pathname, rleSize < bitmapSize ? ENCODING_RLE : ENCODING_BITMAP);
+    }
+
+    /**
+     * Ghi bản đồ ở định dạng nén với kiểu mã hóa chỉ định
+     * @param map Bản đồ kho hàng
+     * @param pathname Đường dẫn file .wmap
+     * @param encoding ENCODING_BITMAP hoặc ENCODING_RLE
+     * @throws IOException Nếu không ghi được file
+     */
+    public static void save(WarehouseMap map, String pathname, byte encoding) throws IOException {
+        int rows = map.getRows();
+        int cols = map.getCols();
+        long[] blocked = map.getBlockedBits();
+        int wordCount = WarehouseMap.wordCount(rows, cols);
+        long bodySize = encoding == ENCODING_RLE ? rleSize(map) : (long) wordCount * Long.BYTES;
+
+        Path path = Paths.get(pathname);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + bodySize);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            buffer.put(MAGIC).put(VERSION).put(encoding).putShort((short) 0);
+            buffer.putInt(rows).putInt(cols);
+
+            if (encoding == ENCODING_RLE) {
+                for (int row = 0; row < rows; row++) {
+                    int countPosition = buffer.position();
+                    buffer.putInt(0);
+                    int runs = 0;
+                    int col = 0;
+                    boolean blockedRun = false;
+                    while (col < cols) {
+                        int start = col;
+                        while (col < cols && (map.getCell(row, col) == 1) == blockedRun) {
+                            col++;
+                        }
+                        buffer.putInt(col - start);
+                        runs++;
+                        blockedRun = !blockedRun;
+                    }
+                    buffer.putInt(countPosition, runs);
+                }
+            } else {
+                buffer.asLongBuffer().put(blocked, 0, wordCount);
+            }
+            buffer.force();
+        }
+    }
+
+    /**
+     * Tính kích thước phần dữ liệu khi mã hóa RLE
+     * @param map Bản đồ kho hàng
+     * @return Số byte
+     */
+    private static long rleSize(WarehouseMap map) {
+        long size = 0;
+        for (int row = 0; row < map.getRows(); row++) {
+            int runs = 1;
+            int previous = 0; // Đoạn đầu tiên luôn là ô đi được
+            for (int col = 0; col < map.getCols(); col++) {
+                int cell = map.getCell(row, col);
+                if (cell != previous) {
+                    runs++;
+                    previous = cell;
+                }
+            }
+            size += (long) (runs + 1) * Integer.BYTES;
+        }
+        return size;
+    }
+
+    /**
+     * Đặt các bit trong khoảng [from, to) bằng 1, xử lý theo từng word
+     */
+    private static void setRange(long[] bits, int from, int to) {
+        if (from >= to) return;
+        int firstWord = from >>> 6;
+        int lastWord = (to - 1) >>> 6;
+        long firstMask = -1L << from;
+        long lastMask = -1L >>> -to;
+        if (firstWord == lastWord) {
+            bits[firstWord] |= firstMask & lastMask;
+            return;
+        }
+        bits[firstWord] |= firstMask;
+        for (int i = firstWord + 1; i < lastWord; i++) {
+            bits[i] = -1L;
+        }
+        bits[lastWord] |= lastMask;
+    }
+
+    /**
+     * Chuyển bản đồ trong file bài toán dạng văn bản sang file .wmap
+     * Cách dùng: java CompactMap <file bài toán> <file .wmap>
+     * @param args Tham số dòng lệnh
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Cách dùng: java CompactMap <file bài toán> <file .wmap>");
+            return;
+        }
+        InstanceData data = InstanceLoader.load(args[0]);
+        WarehouseMap map = data.toWarehouseMap();
+        if (map == null) {
+            System.out.println("File " + args[0] + " không có bản đồ");
+            return;
+        }
+        save(map, args[1]);
+        System.out.println("Đã ghi bản đồ " + map.getRows() + "x" + map.getCols() + " vào " + args[1]);
+    }
+}
@@ -30,6 +30,14 @@ public class DistanceCalculator {
         currentRobotPosition = null;
     }
 
+    /**
+     * Lấy bản đồ kho hàng đang dùng
+     * @return Bản đồ kho hàng
+     */
+    public static WarehouseMap getWarehouseMap() {
+        return warehouseMap;
+    }
+
     /**
      * Đặt vị trí hiện tại của robot
      * @param position Vị trí hiện tại
@@ -0,0 +1,278 @@
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Lớp DistanceTable lưu bảng khoảng cách giữa các vị trí trong kho (counter và các mặt hàng)
+ * theo chỉ số nguyên, dưới dạng mảng phẳng.
+ *
+ * Chi phí đi từ vị trí i đến vị trí j = steps(i, j) + pickCost(j)
+ * - steps: số bước giữa hai điểm tiếp cận (đối xứng)
+ * - pickCost: 0.5 nếu vị trí j nằm trên kệ (robot phải vươn tới kệ để lấy hàng)
+ *
+ * Mỗi phiên bản của bảng là bất biến. Khi nhập thêm hoặc di chuyển hàng (ProblemInstance.withLocationAdded,
+ * withLocationMoved), phiên bản mới chỉ tính hàng/cột của vị trí mới; các bộ giải đang giữ phiên bản cũ không
+ * bị ảnh hưởng.
+ */
+public final class DistanceTable {
+    /**
+     * Bộ nhớ dùng chung giữa các phiên bản. Phiên bản mới chỉ ghi vào vùng chỉ số >= size
+     * của phiên bản cũ, nên các phiên bản cũ không bao giờ thấy dữ liệu bị thay đổi
+     */
+    private static final class Storage {
+        final int stride;                 // Số vị trí tối đa trước khi phải cấp phát lại
+        final float[] steps;              // Ma trận stride x stride số bước
+        final Position[] locations;       // Vị trí theo chỉ số
+        final int[] accessCells;          // Ô tiếp cận (row * cols + col), -1 nếu không có bản đồ
+        final float[] pickCost;           // Chi phí lấy hàng tại vị trí
+        final HashMap<Long, Integer> index = new HashMap<>(); // Khóa vị trí -> chỉ số mới nhất
+        int committed;                    // Số vị trí đã được ghi
+
+        Storage(int stride) {
+            this.stride = stride;
+            this.steps = new float[stride * stride];
+            this.locations = new Position[stride];
+            this.accessCells = new int[stride];
+            this.pickCost = new float[stride];
+        }
+    }
+
+    private final WarehouseMap warehouseMap;
+    private final Storage storage;
+    private final int size;
+    private final long[] removed;         // Bitset các vị trí đã bị xóa khỏi kho
+
+    private DistanceTable(WarehouseMap warehouseMap, Storage storage, int size, long[] removed) {
+        this.warehouseMap = warehouseMap;
+        this.storage = storage;
+        this.size = size;
+        this.removed = removed;
+    }
+
+    /**
+     * Tạo bảng khoảng cách cho counter và danh sách vị trí
+     * @param warehouseMap Bản đồ kho hàng (có thể null, khi đó dùng khoảng cách Manhattan)
+     * @param counterPosition Vị trí counter, luôn có chỉ số 0
+     * @param positions Danh sách vị trí các mặt hàng
+     * @return Bảng khoảng cách
+     */
+    public static DistanceTable build(WarehouseMap warehouseMap, Position counterPosition, List<Position> positions) {
+        int stride = Math.max(16, Integer.highestOneBit(positions.size() + 1) << 1);
+        DistanceTable table = new DistanceTable(warehouseMap, new Storage(stride), 0, new long[0]);
+        table = table.withLocationAdded(counterPosition);
+        for (Position position : positions) {
+            table = table.withLocationAdded(position);
+        }
+        return table;
+    }
+
+    /**
+     * Lấy số vị trí trong bảng (kể cả các vị trí đã bị xóa)
+     * @return Số vị trí
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Lấy bản đồ kho hàng dùng để tính bảng
+     * @return Bản đồ kho hàng
+     */
+    public WarehouseMap getWarehouseMap() {
+        return warehouseMap;
+    }
+
+    /**
+     * Tìm chỉ số của một vị trí
+     * @param position Vị trí cần tìm
+     * @return Chỉ số, hoặc -1 nếu vị trí không có trong bảng
+     */
+    public int indexOf(Position position) {
+        if (position == null) return -1;
+        long key = position.packedKey();
+        Integer latest;
+        synchronized (storage) {
+            latest = storage.index.get(key);
+        }
+        if (latest != null && latest < size && isActive(latest)) {
+            return latest;
+        }
+        // Vị trí đã được thêm lại ở phiên bản mới hơn: tìm bản ghi cũ của phiên bản này
+        if (latest != null) {
+            for (int i = size - 1; i >= 0; i--) {
+                if (isActive(i) && storage.locations[i].packedKey() == key) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Lấy vị trí theo chỉ số
+     * @param index Chỉ số vị trí
+     * @return Vị trí
+     */
+    public Position getLocation(int index) {
+        return storage.locations[index];
+    }
+
+    /**
+     * Kiểm tra vị trí còn trong kho hay đã bị xóa
+     * @param index Chỉ số vị trí
+     * @return true nếu vị trí còn hiệu lực
+     */
+    public boolean isActive(int index) {
+        int word = index >>> 6;
+        return word >= removed.length || (removed[word] & (1L << index)) == 0;
+    }
+
+    /**
+     * Số bước đi giữa hai vị trí (đối xứng)
+     * @param from Chỉ số vị trí bắt đầu
+     * @param to Chỉ số vị trí kết thúc
+     * @return Số bước đi
+     */
+    public float steps(int from, int to) {
+        return storage.steps[from * storage.stride + to];
+    }
+
+    /**
+     * Chi phí lấy hàng tại một vị trí (0.5 nếu nằm trên kệ)
+     * @param index Chỉ số vị trí
+     * @return Chi phí lấy hàng
+     */
+    public float pickCost(int index) {
+        return storage.pickCost[index];
+    }
+
+    /**
+     * Chi phí đi từ vị trí này đến vị trí khác, giống cách DistanceCalculator tính khi
+     * robot đang đứng ở điểm tiếp cận của vị trí bắt đầu
+     * @param from Chỉ số vị trí bắt đầu
+     * @param to Chỉ số vị trí kết thúc
+     * @return Chi phí quãng đường
+     */
+    public float cost(int from, int to) {
+        return storage.steps[from * storage.stride + to] + storage.pickCost[to];
+    }
+
+    /**
+     * Tạo phiên bản mới có thêm một vị trí. Chỉ tính hàng và cột của vị trí mới
+     * @param position Vị trí mới
+     * @return Phiên bản mới của bảng (hoặc chính bảng này nếu vị trí đã tồn tại)
+     */
+    public DistanceTable withLocationAdded(Position position) {
+        if (indexOf(position) >= 0) {
+            return this;
+        }
+
+        synchronized (storage) {
+            Storage target = storage;
+            if (storage.committed != size || size == storage.stride) {
+                // Vùng sau size đã bị phiên bản khác dùng hoặc đã đầy: sao chép sang bộ nhớ mới
+                target = copyStorage(size == storage.stride ? storage.stride * 2 : storage.stride);
+            }
+
+            int n = size;
+            Position location = position.copy();
+            target.locations[n] = location;
+            target.accessCells[n] = accessCell(location);
+            target.pickCost[n] = isOnShelf(location) ? 0.5f : 0f;
+
+            // Một lần BFS cho ra cả hàng n; cột n bằng hàng n do số bước đối xứng
+            int[] cellSteps = null;
+            if (warehouseMap != null && target.accessCells[n] >= 0) {
+                int cell = target.accessCells[n];
+                cellSteps = warehouseMap.computeStepDistances(cell / warehouseMap.getCols(), cell % warehouseMap.getCols());
+            }
+            for (int j = 0; j < n; j++) {
+                float value = -1;
+                if (cellSteps != null && target.accessCells[j] >= 0) {
+                    value = cellSteps[target.accessCells[j]];
+                }
+                if (value < 0) {
+                    // Không có bản đồ hoặc không tìm được đường: dùng khoảng cách Manhattan
+                    value = DistanceCalculator.calculateManhattanDistance(location, target.locations[j]);
+                }
+                target.steps[n * target.stride + j] = value;
+                target.steps[j * target.stride + n] = value;
+            }
+            target.steps[n * target.stride + n] = 0;
+
+            target.index.put(location.packedKey(), n);
+            target.committed = n + 1;
+            return new DistanceTable(warehouseMap, target, n + 1, removed);
+        }
+    }
+
+    /**
+     * Tạo phiên bản mới trong đó một vị trí bị xóa. Không tính lại gì cả
+     * @param position Vị trí cần xóa
+     * @return Phiên bản mới của bảng (hoặc chính bảng này nếu vị trí không tồn tại)
+     */
+    public DistanceTable withLocationRemoved(Position position) {
+        int index = indexOf(position);
+        if (index <= 0) {
+            // Không xóa counter (chỉ số 0) và vị trí không tồn tại
+            return this;
+        }
+        long[] newRemoved = new long[Math.max(removed.length, (size + 63) >>> 6)];
+        System.arraycopy(removed, 0, newRemoved, 0, removed.length);
+        newRemoved[index >>> 6] |= 1L << index;
+        return new DistanceTable(warehouseMap, storage, size, newRemoved);
+    }
+
+    /**
+     * Tạo phiên bản mới trong đó một vị trí được chuyển sang chỗ khác.
+     * Vị trí cũ bị xóa, vị trí mới được thêm vào với hàng/cột mới
+     * @param from Vị trí cũ
+     * @param to Vị trí mới
+     * @return Phiên bản mới của bảng
+     */
+    public DistanceTable withLocationMoved(Position from, Position to) {
+        return withLocationRemoved(from).withLocationAdded(to);
+    }
+
+    /**
+     * Sao chép phần đã dùng của bộ nhớ sang bộ nhớ mới
+     * @param stride Kích thước mới
+     * @return Bộ nhớ mới
+     */
+    private Storage copyStorage(int stride) {
+        Storage copy = new Storage(stride);
+        for (int i = 0; i < size; i++) {
+            System.arraycopy(storage.steps, i * storage.stride, copy.steps, i * stride, size);
+        }
+        System.arraycopy(storage.locations, 0, copy.locations, 0, size);
+        System.arraycopy(storage.accessCells, 0, copy.accessCells, 0, size);
+        System.arraycopy(storage.pickCost, 0, copy.pickCost, 0, size);
+        for (int i = 0; i < size; i++) {
+            copy.index.put(copy.locations[i].packedKey(), i);
+        }
+        copy.committed = size;
+        return copy;
+    }
+
+    /**
+     * Tìm ô tiếp cận của một vị trí trên bản đồ
+     * @param position Vị trí
+     * @return Chỉ số ô (row * cols + col), hoặc -1 nếu không có bản đồ
+     */
+    private int accessCell(Position position) {
+        if (warehouseMap == null) return -1;
+        int[] coords = warehouseMap.positionToCoordinates(position);
+        if (!warehouseMap.isWalkable(coords[0], coords[1])) {
+            coords = warehouseMap.findNearestAccessPoint(coords[0], coords[1]);
+        }
+        return coords[0] * warehouseMap.getCols() + coords[1];
+    }
+
+    /**
+     * Kiểm tra vị trí có nằm trên kệ (ô không đi được) không
+     * @param position Vị trí
+     * @return true nếu nằm trên kệ
+     */
+    private boolean isOnShelf(Position position) {
+        return warehouseMap != null && !warehouseMap.isPositionWalkable(position);
+    }
+}
@@ -0,0 +1,200 @@
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lớp HeldKarpSequencer tìm thứ tự tối ưu của một tuyến ngắn bằng quy hoạch động trên tập con
+ * (Held-Karp): cost[mask][j] là số bước nhỏ nhất đi từ counter qua đúng các mặt hàng trong mask
+ * và dừng ở mặt hàng j (j thuộc mask). Độ phức tạp O(2^k * k^2) với k là số mặt hàng của tuyến.
+ *
+ * Chi phí lấy hàng không phụ thuộc thứ tự nên chỉ số bước đi được tối ưu. Bảng quy hoạch động được
+ * cấp phát sẵn một lần cho mỗi luồng; kết quả được ghi nhớ theo tập mặt hàng của tuyến nên một tập
+ * đã gặp được sắp xếp lại ngay. Đối tượng dùng chung được giữa nhiều luồng.
+ */
+public final class HeldKarpSequencer {
+    // Giới hạn cứng của kích thước tuyến (bảng 2^16 * 16 phần tử)
+    public static final int MAX_SUPPORTED_SIZE = 16;
+    // Số tập mặt hàng được ghi nhớ tối đa trước khi xóa bộ nhớ
+    private static final int MEMO_LIMIT = 100_000;
+
+    private final ProblemInstance instance;
+    private final int maxSize;
+    private final ConcurrentHashMap<RouteKey, int[]> memo;
+    private final ThreadLocal<Tables> tables;
+
+    /**
+     * Bảng quy hoạch động của một luồng
+     */
+    private static final class Tables {
+        final float[] cost;
+        final byte[] parent;
+        final float[] distance;
+        final float[] fromCounter;
+        final float[] toCounter;
+        final int[] sorted;
+
+        Tables(int maxSize) {
+            cost = new float[(1 << maxSize) * maxSize];
+            parent = new byte[(1 << maxSize) * maxSize];
+            distance = new float[maxSize * maxSize];
+            fromCounter = new float[maxSize];
+            toCounter = new float[maxSize];
+            sorted = new int[maxSize];
+        }
+    }
+
+    /**
+     * Khóa ghi nhớ: tập mặt hàng của tuyến dưới dạng mảng chỉ số đã sắp xếp
+     */
+    private static final class RouteKey {
+        final int[] items;
+        final int hash;
+
+        RouteKey(int[] items) {
+            this.items = items;
+            this.hash = Arrays.hashCode(items);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof RouteKey && Arrays.equals(items, ((RouteKey) o).items);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * Tạo bộ sắp xếp cho một bài toán
+     * @param instance Bài toán
+     * @param maxSize Số mặt hàng tối đa của tuyến được sắp xếp chính xác (tối đa MAX_SUPPORTED_SIZE)
+     */
+    public HeldKarpSequencer(ProblemInstance instance, int maxSize) {
+        this.instance = instance;
+        this.maxSize = Math.max(0, Math.min(maxSize, MAX_SUPPORTED_SIZE));
+        this.memo = new ConcurrentHashMap<>();
+        this.tables = ThreadLocal.withInitial(() -> new Tables(Math.max(1, this.maxSize)));
+    }
+
+    /**
+     * Tạo bộ sắp xếp cho bài toán nối thêm mặt hàng từ bài toán của bộ sắp xếp khác, dùng chung bảng quy hoạch
+     * động và bộ nhớ kết quả (mặt hàng cũ giữ chỉ số và vị trí nên kết quả đã ghi nhớ vẫn đúng)
+     * @param instance Bài toán nối thêm
+     * @param shared Bộ sắp xếp của bài toán trước
+     */
+    public HeldKarpSequencer(ProblemInstance instance, HeldKarpSequencer shared) {
+        this.instance = instance;
+        this.maxSize = shared.maxSize;
+        this.memo = shared.memo;
+        this.tables = shared.tables;
+    }
+
+    /**
+     * Sắp xếp lại các mặt hàng của một tuyến theo thứ tự có số bước nhỏ nhất
+     * @param items Mảng chứa tuyến
+     * @param offset Vị trí đầu tuyến trong mảng
+     * @param length Số mặt hàng của tuyến
+     * @return true nếu tuyến đã được sắp xếp, false nếu tuyến dài hơn giới hạn
+     */
+    public boolean sequence(int[] items, int offset, int length) {
+        if (length > maxSize) return false;
+        if (length <= 1) return true;
+
+        Tables t = tables.get();
+        int[] sorted = t.sorted;
+        System.arraycopy(items, offset, sorted, 0, length);
+        Arrays.sort(sorted, 0, length);
+
+        RouteKey key = new RouteKey(Arrays.copyOf(sorted, length));
+        int[] order = memo.get(key);
+        if (order == null) {
+            order = solve(t, key.items);
+            if (memo.size() >= MEMO_LIMIT) {
+                memo.clear();
+            }
+            memo.put(key, order);
+        }
+        System.arraycopy(order, 0, items, offset, length);
+        return true;
+    }
+
+    /**
+     * Giải quy hoạch động cho một tập mặt hàng
+     * @param t Bảng của luồng hiện tại
+     * @param items Các mặt hàng (đã sắp xếp)
+     * @return Các mặt hàng theo thứ tự tối ưu
+     */
+    private int[] solve(Tables t, int[] items) {
+        int k = items.length;
+        int counter = instance.getCounterLocation();
+        for (int j = 0; j < k; j++) {
+            int to = instance.requireLocation(items[j]);
+            t.fromCounter[j] = instance.steps(counter, to);
+            t.toCounter[j] = instance.steps(to, counter);
+            // distance[j * k + i] là số bước đi từ mặt hàng i đến mặt hàng j
+            for (int i = 0; i < k; i++) {
+                t.distance[j * k + i] = instance.steps(instance.requireLocation(items[i]), to);
+            }
+        }
+
+        // Dạng "kéo": cost[mask][j] = min cost[mask \ j][i] + distance(i, j), đọc liên tiếp theo i
+        int full = (1 << k) - 1;
+        float[] cost = t.cost;
+        byte[] parent = t.parent;
+        for (int j = 0; j < k; j++) {
+            cost[(1 << j) * k + j] = t.fromCounter[j];
+        }
+
+        for (int mask = 3; mask <= full; mask++) {
+            if ((mask & (mask - 1)) == 0) continue;
+            int members = mask;
+            while (members != 0) {
+                int j = Integer.numberOfTrailingZeros(members);
+                members &= members - 1;
+                int previous = mask ^ (1 << j);
+                int base = previous * k;
+                int column = j * k;
+                float best = Float.MAX_VALUE;
+                int bestParent = 0;
+                int candidates = previous;
+                while (candidates != 0) {
+                    int i = Integer.numberOfTrailingZeros(candidates);
+                    candidates &= candidates - 1;
+                    float value = cost[base + i] + t.distance[column + i];
+                    if (value < best) {
+                        best = value;
+                        bestParent = i;
+                    }
+                }
+                cost[mask * k + j] = best;
+                parent[mask * k + j] = (byte) bestParent;
+            }
+        }
+
+        // Chọn mặt hàng cuối tốt nhất (tính cả đường về counter) rồi lần ngược
+        int last = 0;
+        float best = Float.MAX_VALUE;
+        for (int j = 0; j < k; j++) {
+            float value = cost[full * k + j] + t.toCounter[j];
+            if (value < best) {
+                best = value;
+                last = j;
+            }
+        }
+
+        int[] order = new int[k];
+        int mask = full;
+        for (int p = k - 1; p >= 0; p--) {
+            order[p] = items[last];
+            int previous = parent[mask * k + last];
+            mask &= ~(1 << last);
+            last = previous;
+        }
+        return order;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+}
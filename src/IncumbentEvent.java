@@ -0,0 +1,53 @@
+/**
+ * Lớp IncumbentEvent mô tả một lời giải tốt nhất mới (incumbent) do bộ giải tìm được
+ * Lời giải trong sự kiện là bản chụp bất biến của bộ giải: bên nhận không được thay đổi nó,
+ * cần sao chép (new Solution(...)) trước khi chỉnh sửa
+ */
+public final class IncumbentEvent {
+    private final Solution solution;
+    private final double fitness;
+    private final long elapsedMillis;
+    private final long evaluations;
+    private final String source;
+
+    /**
+     * Tạo sự kiện
+     * @param solution Lời giải tốt nhất mới
+     * @param elapsedMillis Thời gian từ lúc bắt đầu lần giải (mili giây)
+     * @param evaluations Số lần đánh giá lời giải / bước di chuyển của bộ giải đến lúc này
+     * @param source Thành phần tìm ra lời giải (PSO, VNS, ...)
+     */
+    public IncumbentEvent(Solution solution, long elapsedMillis, long evaluations, String source) {
+        this.solution = solution;
+        this.fitness = solution.getFitness();
+        this.elapsedMillis = elapsedMillis;
+        this.evaluations = evaluations;
+        this.source = source;
+    }
+
+    public Solution getSolution() {
+        return solution;
+    }
+
+    public double getFitness() {
+        return fitness;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public long getEvaluations() {
+        return evaluations;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    @Override
+    public String toString() {
+        return "IncumbentEvent{fitness=" + fitness + ", elapsed=" + elapsedMillis + "ms, evaluations=" +
+                evaluations + ", source=" + source + "}";
+    }
+}
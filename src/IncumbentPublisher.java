@@ -0,0 +1,109 @@
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Lớp IncumbentPublisher phát các lời giải tốt nhất mới của bộ giải theo giao diện Flow
+ *
+ * Sự kiện được giao cho bên nhận trên executor riêng (mặc định là common pool), không phải trên
+ * luồng của bộ giải. Bộ giải chỉ gọi offer không chờ: khi bộ đệm của một bên nhận chậm đã đầy, sự
+ * kiện bị bỏ cho bên nhận đó (sự kiện sau luôn tốt hơn sự kiện trước nên không mất thông tin cần
+ * thiết). Việc so sánh ngưỡng và offer của lời giải thắng được thực hiện dưới một khóa ngắn (offer không
+ * chặn) nên bên nhận luôn nhận sự kiện theo thứ tự fitness giảm dần. Trong một lần giải, chỉ lời giải tốt hơn mọi lời giải đã phát mới được phát, nên nhiều đàn có
+ * thể dùng chung một publisher; ngưỡng được đặt lại khi bắt đầu lần giải mới (beginSolve) nên publisher
+ * dùng lại được cho lần giải sau, kể cả khi lần giải sau có chi phí cao hơn (ví dụ sau khi đơn hàng thêm dòng). Thời gian trong sự kiện do bộ giải truyền vào, tính từ lúc lần giải bắt đầu (theo
+ * SolveBudget của lần giải), không phải từ lúc tạo publisher.
+ */
+public final class IncumbentPublisher implements Flow.Publisher<IncumbentEvent>, AutoCloseable {
+    private final SubmissionPublisher<IncumbentEvent> publisher;
+    private final AtomicLong bestFitnessBits = new AtomicLong(Double.doubleToLongBits(Double.MAX_VALUE));
+    private final AtomicLong droppedEvents = new AtomicLong();
+    // Giữ so sánh ngưỡng và offer thành một bước, để sự kiện tốt hơn không bị giao trước sự kiện tệ hơn
+    private final Object offerLock = new Object();
+
+    /**
+     * Tạo publisher giao sự kiện trên common pool với bộ đệm mặc định
+     */
+    public IncumbentPublisher() {
+        this(ForkJoinPool.commonPool(), Flow.defaultBufferSize());
+    }
+
+    /**
+     * Tạo publisher
+     * @param executor Executor giao sự kiện cho bên nhận
+     * @param bufferSize Kích thước bộ đệm của mỗi bên nhận
+     */
+    public IncumbentPublisher(Executor executor, int bufferSize) {
+        this.publisher = new SubmissionPublisher<>(executor, bufferSize);
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super IncumbentEvent> subscriber) {
+        publisher.subscribe(subscriber);
+    }
+
+    /**
+     * Đăng ký một hàm nhận mọi sự kiện
+     * @param consumer Hàm nhận sự kiện
+     * @return Future hoàn thành khi publisher đóng
+     */
+    public CompletableFuture<Void> listen(Consumer<IncumbentEvent> consumer) {
+        return publisher.consume(consumer);
+    }
+
+    /**
+     * Bắt đầu một lần giải mới: lời giải đầu tiên của lần giải được phát dù tệ hơn lời giải của lần giải trước
+     * Bộ giải gọi khi bắt đầu solve; các đảo của cùng một lần giải dùng chung ngưỡng
+     */
+    public void beginSolve() {
+        synchronized (offerLock) {
+            bestFitnessBits.set(Double.doubleToLongBits(Double.MAX_VALUE));
+        }
+    }
+
+    /**
+     * Phát một lời giải nếu nó tốt hơn mọi lời giải đã phát trong lần giải hiện tại, không bao giờ chặn luồng gọi
+     * @param solution Lời giải, không được thay đổi sau lời gọi
+     * @param evaluations Số lần đánh giá của bộ giải đến lúc này
+     * @param elapsedMillis Thời gian từ lúc bắt đầu lần giải (mili giây), lấy từ SolveBudget của lần giải
+     * @param source Thành phần tìm ra lời giải
+     * @return true nếu lời giải được phát
+     */
+    public boolean publish(Solution solution, long evaluations, long elapsedMillis, String source) {
+        double fitness = solution.getFitness();
+        // Loại nhanh không cần khóa: phần lớn lời giải đề xuất không tốt hơn ngưỡng
+        if (fitness >= Double.longBitsToDouble(bestFitnessBits.get())) return false;
+
+        IncumbentEvent event = new IncumbentEvent(solution, elapsedMillis, evaluations, source);
+        synchronized (offerLock) {
+            if (fitness >= Double.longBitsToDouble(bestFitnessBits.get())) return false;
+            bestFitnessBits.set(Double.doubleToLongBits(fitness));
+            if (publisher.isClosed()) return false;
+            publisher.offer(event, (subscriber, dropped) -> {
+                droppedEvents.incrementAndGet();
+                return false;
+            });
+        }
+        return true;
+    }
+
+    /**
+     * Số sự kiện đã bị bỏ do bộ đệm của bên nhận đầy
+     * @return Số sự kiện
+     */
+    public long getDroppedEvents() {
+        return droppedEvents.get();
+    }
+
+    /**
+     * Đóng publisher, bên nhận được báo hoàn thành sau khi nhận hết sự kiện trong bộ đệm
+     */
+    @Override
+    public void close() {
+        publisher.close();
+    }
+}
@@ -1,19 +1,22 @@
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Lớp Individual đại diện cho một giải pháp của bài toán tìm đường đi
  * Sử dụng kết hợp PSO và VNS để tối ưu hóa
  */
 public class Individual {
-    ArrayList<Merchandise> require = Params.REQUIRE; // Sử dụng danh sách từ file input
+    List<Merchandise> require; // Danh sách mặt hàng cần lấy
     ArrayList<Robot> robots;
-    private PSO pso;
+    private ProblemInstance instance; // Bài toán cố định (null nếu đọc từ Params khi giải)
+    private IncumbentPublisher incumbentPublisher; // Nhận các lời giải tốt hơn trong lúc giải (có thể null)
     private static final Position DEFAULT_COUNTER_POSITION = new Position(0, 0, 0); // Vị trí mặc định [0,0,0]
 
     /**
-     * Khởi tạo một cá thể với các robot
+     * Khởi tạo một cá thể với các robot, dữ liệu lấy từ lớp Params
      */
     public Individual() {
+        require = Params.REQUIRE; // Sử dụng danh sách từ file input
         robots = new ArrayList<>();
 
         // Tạo danh sách robot theo tham số, đảm bảo ít nhất 1 robot
@@ -23,13 +26,25 @@ public class Individual {
             robot.setStartPosition(DEFAULT_COUNTER_POSITION.copy()); // Thiết lập vị trí xuất phát
             robots.add(robot);
         }
+    }
+
+    /**
+     * Khởi tạo một cá thể cho một bài toán cụ thể, không đọc các biến tĩnh trong Params
+     * @param instance Bài toán cần giải
+     */
+    public Individual(ProblemInstance instance) {
+        this.instance = instance;
+        this.require = instance.getRequire();
+        this.robots = instance.createFleet();
+    }
 
-        // Khởi tạo PSO với các tham số từ lớp Params
-        pso = new PSO(Params.PSO_SWARM_SIZE,
-                Params.PSO_MAX_ITERATIONS,
-                Params.PSO_INERTIA_WEIGHT,
-                Params.PSO_COGNITIVE_COEFFICIENT,
-                Params.PSO_SOCIAL_COEFFICIENT);
+    /**
+     * Đặt publisher nhận các lời giải tốt hơn ngay khi bộ giải tìm thấy, để có thể cho robot
+     * xuất phát với kế hoạch đủ tốt rồi thay bằng kế hoạch tốt hơn
+     * @param incumbentPublisher Publisher, null để tắt
+     */
+    public void setIncumbentPublisher(IncumbentPublisher incumbentPublisher) {
+        this.incumbentPublisher = incumbentPublisher;
     }
 
     /**
@@ -39,12 +54,62 @@ public class Individual {
      * @return Tổng chi phí quãng đường
      */
     public float solvePsoVns(Position positionCurrent, ArrayList<Merchandise> warehousing) {
+        return (float) solvePsoVns(positionCurrent, warehousing, SolveBudget.unlimited()).getSolution().getFitness();
+    }
+
+    /**
+     * Giải bài toán bằng PSO-VNS trong một giới hạn thời gian, có thể hủy từ luồng khác
+     * Luôn trả về lời giải tốt nhất tìm được đến lúc dừng
+     * @param positionCurrent Vị trí hiện tại (counter)
+     * @param warehousing Kho hàng
+     * @param budget Hạn chót và token hủy của lần giải
+     * @return Kết quả gồm lời giải, lý do dừng và thời gian đã dùng
+     */
+    public SolveResult solvePsoVns(Position positionCurrent, ArrayList<Merchandise> warehousing, SolveBudget budget) {
+        return solve(require, instance, positionCurrent, warehousing, budget, null);
+    }
+
+    /**
+     * Giải lại sau khi đơn hàng được sửa, khởi động đàn từ kế hoạch trước thay vì từ lời giải ngẫu nhiên
+     * Kế hoạch trước được điều chỉnh theo đơn mới (dòng bị bỏ được gỡ, dòng thêm được chèn vào vị trí rẻ nhất)
+     * và cùng các bản xáo trộn của nó làm vị trí ban đầu của một phần đàn.
+     * Đơn đã sửa và bài toán của nó trở thành đơn hàng và bài toán của cá thể cùng lúc với giỏ hàng của robot,
+     * nên lần sửa tiếp theo được áp dụng lên đơn đã sửa
+     * @param previous Lời giải của đơn hàng trước khi sửa
+     * @param delta Các dòng được thêm và bị bỏ
+     * @param positionCurrent Vị trí hiện tại (counter)
+     * @param warehousing Kho hàng
+     * @param budget Hạn chót và token hủy của lần giải
+     * @return Kết quả gồm lời giải, lý do dừng và thời gian đã dùng
+     */
+    public SolveResult solvePsoVns(Solution previous, OrderDelta delta, Position positionCurrent,
+                                   ArrayList<Merchandise> warehousing, SolveBudget budget) {
+        List<Merchandise> revised = delta.applyTo(require);
+        ProblemInstance revisedInstance = instance != null
+                ? instance.withRequire(revised, instance.getRobotCount())
+                : null;
+        System.out.println("Sửa đơn hàng: thêm " + delta.getAdded().size() + " dòng, bỏ " +
+                delta.getRemoved().size() + " dòng; khởi động lại từ kế hoạch có quãng đường " + previous.getFitness());
+        SolveResult result = solve(revised, revisedInstance, positionCurrent, warehousing, budget, previous);
+        require = revised;
+        instance = revisedInstance;
+        return result;
+    }
+
+    /**
+     * Giải bài toán bằng PSO-VNS, in kết quả và gán tuyến cho robot
+     * @param items Danh sách mặt hàng cần lấy của lần giải
+     * @param base Bài toán của lần giải (null nếu dựng từ kho hàng và Params)
+     * @param warmStart Kế hoạch trước để khởi động đàn, null để giải từ đầu
+     */
+    private SolveResult solve(List<Merchandise> items, ProblemInstance base, Position positionCurrent,
+                              ArrayList<Merchandise> warehousing, SolveBudget budget, Solution warmStart) {
         System.out.println("========= THUẬT TOÁN PSO-VNS =========");
-        System.out.println("Yêu cầu lấy " + require.size() + " món hàng");
-        for (Merchandise item : require) {
+        System.out.println("Yêu cầu lấy " + items.size() + " món hàng");
+        for (Merchandise item : items) {
             System.out.println("- " + item.getName() + ": " + item.getQuantity() + " đơn vị");
         }
-        System.out.println("Số robot: " + robots.size() + " (sức chứa mỗi robot: " + Params.CAPACITY + ")");
+        System.out.println("Số robot: " + robots.size() + " (sức chứa mỗi robot: " + robots.get(0).capacity + ")");
         System.out.println("Vị trí xuất phát: " + positionCurrent);
         System.out.println("======================================");
 
@@ -53,9 +118,29 @@ public class Individual {
             robot.setStartPosition(positionCurrent.copy());
         }
 
+        // Tạo bài toán với vị trí counter và kho hàng được truyền vào
+        ProblemInstance problem = base;
+        if (problem == null || !problem.getCounterPosition().equals(positionCurrent)) {
+            problem = new ProblemInstance(DistanceCalculator.getWarehouseMap(), warehousing, items,
+                    robots.size(), robots.get(0).capacity, positionCurrent,
+                    base != null ? base.getConfig() : SolverConfig.fromParams());
+        }
+
         // Thực hiện giải thuật PSO-VNS
         System.out.println("\nĐang thực hiện tối ưu hóa...");
-        Solution bestSolution = pso.solve(warehousing, require, robots);
+        SolveResult result;
+        if (problem.getConfig().getIslandCount() > 1) {
+            IslandPSO islandPso = new IslandPSO(problem);
+            islandPso.setIncumbentPublisher(incumbentPublisher);
+            islandPso.setWarmStart(warmStart);
+            result = islandPso.solve(budget);
+        } else {
+            PSO pso = new PSO(problem);
+            pso.setIncumbentPublisher(incumbentPublisher);
+            pso.setWarmStart(warmStart);
+            result = pso.solve(budget);
+        }
+        Solution bestSolution = result.getSolution();
 
         // Áp dụng lời giải cho robot
         for (int i = 0; i < robots.size() && i < bestSolution.getRobotRoutes().size(); i++) {
@@ -66,8 +151,15 @@ public class Individual {
         // In thông tin kết quả
         System.out.println("\n========= KẾT QUẢ TỐI ƯU =========");
         System.out.println("Tổng quãng đường: " + bestSolution.getFitness());
+        System.out.println("Hạt giống ngẫu nhiên: " + result.getSeed() + " (đặt randomSeed để chạy lại cho cùng kết quả)");
+        if (result.getStopReason() != SolveResult.StopReason.COMPLETED) {
+            System.out.println("Dừng sớm (" + result.getStopReason() + ") sau " + result.getIterations() +
+                    " vòng lặp, " + result.getElapsedMillis() + " ms");
+        }
 
-        // In chi tiết đường đi cho mỗi robot
+        // In chi tiết đường đi cho mỗi robot, tra vị trí bằng chỉ mục kho của bài toán
+        List<Merchandise> problemWarehousing = problem.getWarehousing();
+        InventoryStore inventory = problem.getInventory();
         for (int i = 0; i < robots.size(); i++) {
             Robot robot = robots.get(i);
             System.out.println("\nRobot " + robot.nameRobot + ":");
@@ -78,7 +170,7 @@ public class Individual {
 
             for (Merchandise item : robot.shoppingCart) {
                 // Tìm vị trí trong kho
-                Merchandise warehouseItem = findInWarehouse(item, warehousing);
+                Merchandise warehouseItem = findInWarehouse(item, problemWarehousing, inventory);
                 if (warehouseItem != null) {
                     // Tính khoảng cách từ vị trí hiện tại đến mặt hàng
                     float distance = calculateDistance(currentPos, warehouseItem.getPosition());
@@ -99,7 +191,7 @@ public class Individual {
             System.out.println("=> Tổng quãng đường của Robot " + robot.nameRobot + ": " + robotDistance);
         }
 
-        return (float) bestSolution.getFitness();
+        return result;
     }
 
     /**
@@ -124,7 +216,7 @@ public class Individual {
         for (Merchandise item : require) {
             System.out.println("- " + item.getName() + ": " + item.getQuantity() + " đơn vị");
         }
-        System.out.println("Số robot: " + robots.size() + " (sức chứa mỗi robot: " + Params.CAPACITY + ")");
+        System.out.println("Số robot: " + robots.size() + " (sức chứa mỗi robot: " + robots.get(0).capacity + ")");
         System.out.println("Vị trí xuất phát: " + positionCurrent);
         System.out.println("======================================");
 
@@ -175,6 +267,7 @@ public class Individual {
 
         // In chi tiết đường đi cho mỗi robot
         System.out.println("\n========= KẾT QUẢ GREEDY =========");
+        InventoryStore inventory = InventoryStore.fromMerchandise(warehousing);
         for (Robot robot : robots) {
             float robotDistance = 0;
             Position currentPos = positionCurrent;
@@ -184,7 +277,7 @@ public class Individual {
 
             for (Merchandise item : robot.shoppingCart) {
                 // Tìm vị trí trong kho
-                Merchandise warehouseItem = findInWarehouse(item, warehousing);
+                Merchandise warehouseItem = findInWarehouse(item, warehousing, inventory);
                 if (warehouseItem != null) {
                     // Tính khoảng cách từ vị trí hiện tại đến mặt hàng
                     float distance = calculateDistance(currentPos, warehouseItem.getPosition());
@@ -215,15 +308,13 @@ public class Individual {
      * Tìm mặt hàng trong kho
      * @param item Mặt hàng cần tìm
      * @param warehousing Kho hàng
+     * @param inventory Chỉ mục tên của kho hàng
      * @return Mặt hàng trong kho kèm vị trí, hoặc null nếu không tìm thấy
      */
-    private Merchandise findInWarehouse(Merchandise item, ArrayList<Merchandise> warehousing) {
-        for (Merchandise w : warehousing) {
-            if (w.getName().equals(item.getName())) {
-                return w;
-            }
-        }
-        return null;
+    private Merchandise findInWarehouse(Merchandise item, List<Merchandise> warehousing,
+                                        InventoryStore inventory) {
+        int sku = inventory.skuId(item.getName());
+        return sku >= 0 ? warehousing.get(inventory.getSourceIndex(sku)) : null;
     }
 
     /**
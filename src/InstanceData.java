@@ -0,0 +1,166 @@
+import java.util.ArrayList;
+
+/**
+ * Lớp InstanceData chứa dữ liệu bài toán đọc bởi InstanceLoader dưới dạng mảng nguyên thủy
+ * - Bản đồ: mảng byte phẳng rows * cols
+ * - Tồn kho: mỗi SKU có một chỉ số; mỗi dòng WAREHOUSE là một bản ghi vị trí
+ * - Đơn hàng: chỉ số SKU và số lượng cần lấy
+ */
+public final class InstanceData {
+    // Tham số dòng đầu tiên
+    int shelves;
+    int tiers;
+    int slots;
+    int requireMerchandise;
+    int robots;
+    int capacity;
+
+    // Bản đồ kho hàng (mapRows = 0 nếu file không có bản đồ)
+    int mapRows;
+    int mapCols;
+    byte[] mapCells;
+    // Bản đồ đọc từ file nén (dòng MAP_FILE), ưu tiên hơn khối MAP_START ... MAP_END
+    WarehouseMap compactMap;
+
+    // SKU: tên và tổng số lượng theo chỉ số SKU
+    int skuCount;
+    String[] skuNames;
+    int[] skuQuantity;
+
+    // Bản ghi vị trí theo thứ tự trong file (bản ghi đầu tiên của SKU là vị trí chính)
+    int locationCount;
+    int[] locationSku;
+    int[] locationShelf;
+    int[] locationTier;
+    int[] locationSlot;
+    int[] locationQuantity;
+
+    // Dòng đơn hàng hợp lệ
+    int requireCount;
+    int[] requireSku;
+    int[] requireQuantity;
+    // Số dòng đơn hàng bị bỏ qua vì không đủ hàng
+    int rejectedRequireLines;
+
+    // Thống kê tốc độ đọc
+    long bytesRead;
+    int lineCount;
+    long parseNanos;
+
+    /**
+     * Chuyển bản đồ sang ma trận 2 chiều như Params.WAREHOUSE_MAP
+     * @return Ma trận bản đồ, hoặc null nếu file không có bản đồ
+     */
+    public int[][] toMapMatrix() {
+        if (mapRows == 0) return null;
+
+        int[][] map = new int[mapRows][mapCols];
+        for (int i = 0; i < mapRows; i++) {
+            for (int j = 0; j < mapCols; j++) {
+                map[i][j] = mapCells[i * mapCols + j];
+            }
+        }
+        return map;
+    }
+
+    /**
+     * Lấy bản đồ kho hàng dạng bitset
+     * @return Bản đồ từ file nén nếu có, bản đồ dựng từ khối văn bản, hoặc null nếu file không có bản đồ
+     */
+    public WarehouseMap toWarehouseMap() {
+        if (compactMap != null) return compactMap;
+        if (mapRows == 0) return null;
+        return WarehouseMap.fromCells(mapRows, mapCols, mapCells);
+    }
+
+    /**
+     * Chuyển tồn kho sang danh sách Merchandise như Params.WAREHOUSE
+     * (mỗi SKU một phần tử, các vị trí sau vị trí đầu tiên là vị trí thay thế)
+     * @return Danh sách mặt hàng trong kho
+     */
+    public ArrayList<Merchandise> toWarehouseList() {
+        Merchandise[] bySku = new Merchandise[skuCount];
+        ArrayList<Merchandise> warehouse = new ArrayList<>(skuCount);
+        for (int sku = 0; sku < skuCount; sku++) {
+            bySku[sku] = new Merchandise(skuNames[sku], skuQuantity[sku]);
+            warehouse.add(bySku[sku]);
+        }
+
+        boolean[] hasPrimary = new boolean[skuCount];
+        for (int i = 0; i < locationCount; i++) {
+            int sku = locationSku[i];
+            Position position = new Position(locationShelf[i], locationTier[i], locationSlot[i]);
+            if (!hasPrimary[sku]) {
+                bySku[sku].setPosition(position);
+                hasPrimary[sku] = true;
+            } else {
+                bySku[sku].addAlternativePosition(position);
+            }
+        }
+        return warehouse;
+    }
+
+    /**
+     * Chuyển đơn hàng sang danh sách Merchandise như Params.REQUIRE
+     * @return Danh sách mặt hàng cần lấy
+     */
+    public ArrayList<Merchandise> toRequireList() {
+        ArrayList<Merchandise> require = new ArrayList<>(requireCount);
+        for (int i = 0; i < requireCount; i++) {
+            require.add(new Merchandise(skuNames[requireSku[i]], requireQuantity[i]));
+        }
+        return require;
+    }
+
+    /**
+     * Tốc độ đọc theo MB/s
+     * @return Số MB đọc được mỗi giây
+     */
+    public double getThroughputMBps() {
+        return parseNanos > 0 ? (bytesRead / (1024.0 * 1024.0)) / (parseNanos / 1e9) : 0;
+    }
+
+    /**
+     * Tốc độ đọc theo số dòng mỗi giây
+     * @return Số dòng đọc được mỗi giây
+     */
+    public double getLinesPerSecond() {
+        return parseNanos > 0 ? lineCount / (parseNanos / 1e9) : 0;
+    }
+
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    public long getParseNanos() {
+        return parseNanos;
+    }
+
+    public int getSkuCount() {
+        return skuCount;
+    }
+
+    public int getLocationCount() {
+        return locationCount;
+    }
+
+    public int getRequireCount() {
+        return requireCount;
+    }
+
+    /**
+     * In thống kê tốc độ đọc file
+     */
+    public void printStats() {
+        System.out.println("- Đọc " + lineCount + " dòng (" + bytesRead + " byte) trong " +
+                String.format("%.2f", parseNanos / 1e6) + " ms: " +
+                String.format("%.1f", getThroughputMBps()) + " MB/s, " +
+                String.format("%.0f", getLinesPerSecond()) + " dòng/s");
+        System.out.println("- " + skuCount + " SKU, " + locationCount + " vị trí, " +
+                requireCount + " dòng đơn hàng (" + rejectedRequireLines + " dòng bị bỏ qua)");
+    }
+}
@@ -0,0 +1,447 @@
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Lớp InstanceLoader đọc file bài toán (định dạng giống Params.ReadParams) với tốc độ cao.
+ * - Đọc từ đường dẫn bất kỳ hoặc từ InputStream
+ * - Tách token trực tiếp trên mảng byte, không dùng regex và không tạo String trung gian
+ * - Gộp SKU trùng tên bằng bảng băm (O(1) mỗi dòng thay vì duyệt lại cả kho)
+ * - Đọc các phần MAP, WAREHOUSE, REQUIRE trong một lần duyệt vào các mảng nguyên thủy
+ * - Dòng "MAP_FILE <đường dẫn>" thay khối MAP bằng file bản đồ nén (xem CompactMap)
+ */
+public final class InstanceLoader {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private static final int SECTION_NONE = 0;
+    private static final int SECTION_MAP = 1;
+    private static final int SECTION_WAREHOUSE = 2;
+    private static final int SECTION_REQUIRE = 3;
+
+    private static final byte[] MAP_START = ascii("MAP_START");
+    private static final byte[] MAP_END = ascii("MAP_END");
+    private static final byte[] MAP_FILE = ascii("MAP_FILE");
+    private static final byte[] WAREHOUSE_START = ascii("WAREHOUSE_START");
+    private static final byte[] WAREHOUSE_END = ascii("WAREHOUSE_END");
+    private static final byte[] REQUIRE_START = ascii("REQUIRE_START");
+    private static final byte[] REQUIRE_END = ascii("REQUIRE_END");
+
+    private final InputStream in;
+    // Thư mục chứa file bài toán, dùng để tìm file bản đồ nén (null nếu đọc từ luồng)
+    private final File baseDirectory;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int bufferLength;
+    private int bufferPos;
+
+    // Dòng hiện tại và vị trí các token trong dòng
+    private byte[] line = new byte[256];
+    private int lineLength;
+    private int[] tokenStart = new int[16];
+    private int[] tokenEnd = new int[16];
+    private int tokenCount;
+
+    // Bảng băm tên SKU -> chỉ số (địa chỉ mở, 0 là ô trống, lưu chỉ số + 1)
+    private int[] skuTable = new int[1024];
+    private int[] skuHash = new int[256];
+    private byte[] namePool = new byte[4096];
+    private int namePoolLength;
+    private int[] nameOffset = new int[256];
+    private int[] nameLength = new int[256];
+
+    private final InstanceData data = new InstanceData();
+
+    private InstanceLoader(InputStream in, File baseDirectory) {
+        this.in = in;
+        this.baseDirectory = baseDirectory;
+    }
+
+    /**
+     * Đọc bài toán từ file
+     * @param pathname Đường dẫn file
+     * @return Dữ liệu bài toán
+     * @throws IOException Nếu không đọc được file hoặc bản đồ có hàng sai số ô
+     * @throws NumberFormatException Nếu có giá trị số không hợp lệ (kể cả ô bản đồ khác 0 và 1)
+     */
+    public static InstanceData load(String pathname) throws IOException {
+        File file = new File(pathname);
+        try (InputStream in = new FileInputStream(file)) {
+            return new InstanceLoader(in, file.getAbsoluteFile().getParentFile()).parse();
+        }
+    }
+
+    /**
+     * Đọc bài toán từ một luồng dữ liệu (luồng không bị đóng)
+     * @param in Luồng dữ liệu
+     * @return Dữ liệu bài toán
+     * @throws IOException Nếu lỗi khi đọc hoặc bản đồ có hàng sai số ô
+     * @throws NumberFormatException Nếu có giá trị số không hợp lệ (kể cả ô bản đồ khác 0 và 1)
+     */
+    public static InstanceData load(InputStream in) throws IOException {
+        return new InstanceLoader(in, null).parse();
+    }
+
+    /**
+     * Duyệt toàn bộ dữ liệu một lần
+     */
+    private InstanceData parse() throws IOException {
+        long startTime = System.nanoTime();
+        InstanceData d = data;
+        d.skuNames = new String[256];
+        d.skuQuantity = new int[256];
+        d.locationSku = new int[256];
+        d.locationShelf = new int[256];
+        d.locationTier = new int[256];
+        d.locationSlot = new int[256];
+        d.locationQuantity = new int[256];
+        d.requireSku = new int[64];
+        d.requireQuantity = new int[64];
+        d.mapCells = new byte[0];
+
+        // Dòng đầu tiên chứa các tham số
+        if (readLine()) {
+            tokenize();
+            if (tokenCount > 2) {
+                d.shelves = parseInt(0);
+                d.tiers = parseInt(1);
+                d.slots = parseInt(2);
+                if (tokenCount > 3) d.requireMerchandise = parseInt(3);
+                if (tokenCount > 4) d.robots = parseInt(4);
+                if (tokenCount > 5) d.capacity = parseInt(5);
+            }
+        }
+
+        int section = SECTION_NONE;
+        while (readLine()) {
+            tokenize();
+            if (tokenCount == 0) continue;
+
+            // Kiểm tra các phần của file
+            if (tokenCount == 1 && line[tokenStart[0]] >= 'A' && line[tokenStart[0]] <= 'Z') {
+                if (tokenEquals(0, MAP_START)) { section = SECTION_MAP; continue; }
+                if (tokenEquals(0, WAREHOUSE_START)) { section = SECTION_WAREHOUSE; continue; }
+                if (tokenEquals(0, REQUIRE_START)) { section = SECTION_REQUIRE; continue; }
+                if (tokenEquals(0, MAP_END) || tokenEquals(0, WAREHOUSE_END) || tokenEquals(0, REQUIRE_END)) {
+                    section = SECTION_NONE;
+                    continue;
+                }
+            }
+            if (tokenCount == 2 && section == SECTION_NONE && tokenEquals(0, MAP_FILE)) {
+                loadCompactMap();
+                continue;
+            }
+
+            switch (section) {
+                case SECTION_MAP:
+                    parseMapRow();
+                    break;
+                case SECTION_WAREHOUSE:
+                    parseWarehouseLine();
+                    break;
+                case SECTION_REQUIRE:
+                    parseRequireLine();
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        d.parseNanos = System.nanoTime() - startTime;
+        return d;
+    }
+
+    /**
+     * Đọc một hàng của bản đồ: mọi hàng có cùng số ô với hàng đầu tiên, mỗi ô là 0 (lối đi) hoặc 1 (kệ)
+     * @throws IOException Nếu hàng có số ô khác hàng đầu tiên
+     */
+    private void parseMapRow() throws IOException {
+        InstanceData d = data;
+        if (d.mapRows == 0) {
+            d.mapCols = tokenCount;
+        } else if (tokenCount != d.mapCols) {
+            throw new IOException("Hàng bản đồ có " + tokenCount + " ô thay vì " + d.mapCols + " ô ở dòng " +
+                    d.lineCount);
+        }
+        int needed = (d.mapRows + 1) * d.mapCols;
+        if (needed > d.mapCells.length) {
+            d.mapCells = Arrays.copyOf(d.mapCells, Math.max(needed, d.mapCells.length * 2));
+        }
+        int base = d.mapRows * d.mapCols;
+        for (int i = 0; i < tokenCount; i++) {
+            int cell = parseInt(i);
+            if (cell != 0 && cell != 1) {
+                throw new NumberFormatException("Ô bản đồ phải là 0 hoặc 1, gặp \"" + cell + "\" ở dòng " +
+                        d.lineCount);
+            }
+            d.mapCells[base + i] = (byte) cell;
+        }
+        d.mapRows++;
+    }
+
+    /**
+     * Đọc một dòng tồn kho: tên số_lượng [kệ tầng ô]
+     */
+    private void parseWarehouseLine() {
+        if (tokenCount < 2) return;
+
+        InstanceData d = data;
+        int quantity = parseInt(1);
+        int sku = internSku(0, true);
+        d.skuQuantity[sku] += quantity;
+
+        // Nếu có thông tin vị trí
+        if (tokenCount >= 5) {
+            int n = d.locationCount;
+            if (n == d.locationSku.length) {
+                int capacity = n * 2;
+                d.locationSku = Arrays.copyOf(d.locationSku, capacity);
+                d.locationShelf = Arrays.copyOf(d.locationShelf, capacity);
+                d.locationTier = Arrays.copyOf(d.locationTier, capacity);
+                d.locationSlot = Arrays.copyOf(d.locationSlot, capacity);
+                d.locationQuantity = Arrays.copyOf(d.locationQuantity, capacity);
+            }
+            d.locationSku[n] = sku;
+            d.locationShelf[n] = parseInt(2);
+            d.locationTier[n] = parseInt(3);
+            d.locationSlot[n] = parseInt(4);
+            d.locationQuantity[n] = quantity;
+            d.locationCount = n + 1;
+        }
+    }
+
+    /**
+     * Đọc một dòng đơn hàng: tên số_lượng
+     */
+    private void parseRequireLine() {
+        if (tokenCount < 2) return;
+
+        InstanceData d = data;
+        int quantity = parseInt(1);
+        int sku = internSku(0, false);
+
+        // Kiểm tra xem có đủ số lượng không
+        if (sku < 0 || d.skuQuantity[sku] < quantity) {
+            d.rejectedRequireLines++;
+            System.out.println("Cảnh báo: Không đủ số lượng cho sản phẩm " +
+                    new String(line, tokenStart[0], tokenEnd[0] - tokenStart[0], StandardCharsets.UTF_8));
+            return;
+        }
+
+        int n = d.requireCount;
+        if (n == d.requireSku.length) {
+            d.requireSku = Arrays.copyOf(d.requireSku, n * 2);
+            d.requireQuantity = Arrays.copyOf(d.requireQuantity, n * 2);
+        }
+        d.requireSku[n] = sku;
+        d.requireQuantity[n] = quantity;
+        d.requireCount = n + 1;
+    }
+
+    /**
+     * Tìm chỉ số SKU theo tên (token) qua bảng băm, tạo mới nếu cần
+     * @param token Chỉ số token chứa tên
+     * @param create true để tạo SKU mới nếu chưa có
+     * @return Chỉ số SKU, hoặc -1 nếu không có và không tạo mới
+     */
+    private int internSku(int token, boolean create) {
+        int start = tokenStart[token];
+        int length = tokenEnd[token] - start;
+
+        // Băm FNV-1a trên các byte của tên
+        int hash = 0x811C9DC5;
+        for (int i = 0; i < length; i++) {
+            hash = (hash ^ (line[start + i] & 0xFF)) * 0x01000193;
+        }
+
+        int mask = skuTable.length - 1;
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        while (skuTable[slot] != 0) {
+            int sku = skuTable[slot] - 1;
+            if (skuHash[sku] == hash && nameLength[sku] == length &&
+                    Arrays.equals(namePool, nameOffset[sku], nameOffset[sku] + length, line, start, start + length)) {
+                return sku;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (!create) return -1;
+
+        // Tạo SKU mới, đây là lần duy nhất tạo String cho tên
+        InstanceData d = data;
+        int sku = d.skuCount;
+        if (sku == d.skuNames.length) {
+            int capacity = sku * 2;
+            d.skuNames = Arrays.copyOf(d.skuNames, capacity);
+            d.skuQuantity = Arrays.copyOf(d.skuQuantity, capacity);
+            skuHash = Arrays.copyOf(skuHash, capacity);
+            nameOffset = Arrays.copyOf(nameOffset, capacity);
+            nameLength = Arrays.copyOf(nameLength, capacity);
+        }
+        if (namePoolLength + length > namePool.length) {
+            namePool = Arrays.copyOf(namePool, Math.max(namePool.length * 2, namePoolLength + length));
+        }
+        System.arraycopy(line, start, namePool, namePoolLength, length);
+        nameOffset[sku] = namePoolLength;
+        nameLength[sku] = length;
+        namePoolLength += length;
+        skuHash[sku] = hash;
+        d.skuNames[sku] = new String(line, start, length, StandardCharsets.UTF_8);
+        d.skuCount = sku + 1;
+        skuTable[slot] = sku + 1;
+
+        // Giữ hệ số tải của bảng băm dưới 0.5
+        if (d.skuCount * 2 > skuTable.length) {
+            rehash();
+        }
+        return sku;
+    }
+
+    /**
+     * Tăng gấp đôi bảng băm SKU
+     */
+    private void rehash() {
+        int[] table = new int[skuTable.length * 2];
+        int mask = table.length - 1;
+        for (int sku = 0; sku < data.skuCount; sku++) {
+            int hash = skuHash[sku];
+            int slot = (hash ^ (hash >>> 16)) & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = sku + 1;
+        }
+        skuTable = table;
+    }
+
+    /**
+     * Đọc một dòng vào mảng line (không gồm ký tự xuống dòng)
+     * @return false nếu đã hết dữ liệu
+     */
+    private boolean readLine() throws IOException {
+        lineLength = 0;
+        boolean any = false;
+        while (true) {
+            if (bufferPos == bufferLength) {
+                bufferLength = in.read(buffer, 0, buffer.length);
+                bufferPos = 0;
+                if (bufferLength <= 0) {
+                    bufferLength = 0;
+                    if (any) data.lineCount++;
+                    return any;
+                }
+                data.bytesRead += bufferLength;
+            }
+            any = true;
+
+            // Tìm ký tự xuống dòng trong bộ đệm và sao chép cả đoạn một lần
+            int end = bufferPos;
+            while (end < bufferLength && buffer[end] != '\n') {
+                end++;
+            }
+            int chunk = end - bufferPos;
+            if (lineLength + chunk > line.length) {
+                line = Arrays.copyOf(line, Math.max(line.length * 2, lineLength + chunk));
+            }
+            System.arraycopy(buffer, bufferPos, line, lineLength, chunk);
+            lineLength += chunk;
+            bufferPos = end;
+
+            if (end < bufferLength) {
+                bufferPos++; // Bỏ qua '\n'
+                data.lineCount++;
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Tách dòng hiện tại thành các token theo khoảng trắng
+     */
+    private void tokenize() {
+        tokenCount = 0;
+        int i = 0;
+        while (i < lineLength) {
+            while (i < lineLength && isSeparator(line[i])) i++;
+            if (i >= lineLength) break;
+
+            int start = i;
+            while (i < lineLength && !isSeparator(line[i])) i++;
+
+            if (tokenCount == tokenStart.length) {
+                tokenStart = Arrays.copyOf(tokenStart, tokenCount * 2);
+                tokenEnd = Arrays.copyOf(tokenEnd, tokenCount * 2);
+            }
+            tokenStart[tokenCount] = start;
+            tokenEnd[tokenCount] = i;
+            tokenCount++;
+        }
+    }
+
+    private static boolean isSeparator(byte b) {
+        return b == ' ' || b == '\t' || b == '\r';
+    }
+
+    /**
+     * Đọc số nguyên từ token mà không tạo String
+     * @param token Chỉ số token
+     * @return Giá trị số
+     */
+    private int parseInt(int token) {
+        int i = tokenStart[token];
+        int end = tokenEnd[token];
+        boolean negative = false;
+        if (line[i] == '-' || line[i] == '+') {
+            negative = line[i] == '-';
+            i++;
+        }
+        if (i == end) {
+            throw invalidNumber(token);
+        }
+
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = line[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw invalidNumber(token);
+            }
+            value = value * 10 + digit;
+            if (value > Integer.MAX_VALUE + 1L) {
+                throw invalidNumber(token);
+            }
+        }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) {
+            throw invalidNumber(token);
+        }
+        return (int) value;
+    }
+
+    private NumberFormatException invalidNumber(int token) {
+        String text = new String(line, tokenStart[token], tokenEnd[token] - tokenStart[token], StandardCharsets.UTF_8);
+        return new NumberFormatException("Giá trị không hợp lệ \"" + text + "\" ở dòng " + data.lineCount);
+    }
+
+    /**
+     * Đọc bản đồ nén được khai báo bằng dòng "MAP_FILE <đường dẫn>"
+     * (đường dẫn tương đối tính từ thư mục chứa file bài toán)
+     */
+    private void loadCompactMap() throws IOException {
+        String name = new String(line, tokenStart[1], tokenEnd[1] - tokenStart[1], StandardCharsets.UTF_8);
+        File mapFile = new File(name);
+        if (!mapFile.isAbsolute() && baseDirectory != null) {
+            mapFile = new File(baseDirectory, name);
+        }
+        data.compactMap = CompactMap.load(mapFile.getPath());
+    }
+
+    private boolean tokenEquals(int token, byte[] literal) {
+        int start = tokenStart[token];
+        return tokenEnd[token] - start == literal.length &&
+                Arrays.equals(line, start, start + literal.length, literal, 0, literal.length);
+    }
+
+    private static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,396 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Lớp InventoryStore lưu tồn kho dạng cột (struct-of-arrays) thay cho danh sách Merchandise
+ * - SKU: chỉ số nguyên liên tiếp, tên, tổng số lượng
+ * - Vị trí: chỉ số nguyên liên tiếp, shelf/tier/slot
+ * - Bản ghi: (SKU, vị trí, số lượng), mỗi dòng WAREHOUSE là một bản ghi
+ *
+ * Tra cứu tên -> SKU và vị trí -> chỉ số bằng bảng băm địa chỉ mở, O(1) mỗi lần.
+ * Các bản ghi của cùng một SKU và tại cùng một vị trí được nối thành danh sách liên kết
+ * bằng mảng int, nên không có đối tượng nào được tạo cho từng bản ghi.
+ * Bản ghi đầu tiên của một SKU là vị trí chính, các bản ghi sau là vị trí thay thế.
+ *
+ * Lớp không an toàn khi ghi đồng thời; sau khi dựng xong có thể đọc từ nhiều luồng.
+ */
+public final class InventoryStore {
+    private static final int NONE = -1;
+
+    // Cột SKU
+    private int skuCount;
+    private String[] skuNames = new String[16];
+    private int[] skuHash = new int[16];
+    private int[] skuQuantity = new int[16];
+    private int[] skuFirstRecord = new int[16];
+    private int[] skuLastRecord = new int[16];
+    // Chỉ số mặt hàng trong danh sách nguồn đã tạo ra SKU (-1 nếu không có)
+    private int[] skuSourceIndex = new int[16];
+    // Bảng băm tên -> SKU (0 là ô trống, lưu chỉ số + 1)
+    private int[] skuTable = new int[32];
+
+    // Cột vị trí
+    private int locationCount;
+    private long[] locationKey = new long[16];
+    private int[] locationShelf = new int[16];
+    private int[] locationTier = new int[16];
+    private int[] locationSlot = new int[16];
+    private int[] locationFirstRecord = new int[16];
+    // Bảng băm khóa vị trí -> chỉ số vị trí
+    private int[] locationTable = new int[32];
+
+    // Cột bản ghi
+    private int recordCount;
+    private int[] recordSku = new int[16];
+    private int[] recordLocation = new int[16];
+    private int[] recordQuantity = new int[16];
+    private int[] recordNextOfSku = new int[16];
+    private int[] recordNextAtLocation = new int[16];
+
+    /**
+     * Khởi tạo kho rỗng
+     */
+    public InventoryStore() {
+    }
+
+    /**
+     * Dựng kho từ danh sách mặt hàng
+     * Vị trí chính nhận toàn bộ số lượng, các vị trí thay thế có số lượng 0.
+     * Nếu có nhiều mặt hàng trùng tên, SKU ghi nhận mặt hàng xuất hiện đầu tiên.
+     * @param items Danh sách mặt hàng
+     * @return Kho hàng
+     */
+    public static InventoryStore fromMerchandise(List<Merchandise> items) {
+        InventoryStore store = new InventoryStore();
+        store.ensureSkuCapacity(items.size());
+        store.ensureRecordCapacity(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            Merchandise item = items.get(i);
+            int before = store.skuCount;
+            int sku = store.internSku(item.getName());
+            if (sku == before) {
+                store.skuSourceIndex[sku] = i;
+            }
+
+            ArrayList<Position> positions = item.getAllPositions();
+            for (int p = 0; p < positions.size(); p++) {
+                Position position = positions.get(p);
+                if (position == null) continue;
+                store.addRecord(sku, store.internLocation(position), p == 0 ? item.getQuantity() : 0);
+            }
+        }
+        return store;
+    }
+
+    /**
+     * Lấy chỉ số SKU theo tên, tạo mới nếu chưa có
+     * @param name Tên mặt hàng
+     * @return Chỉ số SKU
+     */
+    public int internSku(String name) {
+        int hash = mix(name.hashCode());
+        int mask = skuTable.length - 1;
+        int slot = hash & mask;
+        while (skuTable[slot] != 0) {
+            int sku = skuTable[slot] - 1;
+            if (skuHash[sku] == hash && skuNames[sku].equals(name)) {
+                return sku;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        ensureSkuCapacity(skuCount + 1);
+        int sku = skuCount++;
+        skuNames[sku] = name;
+        skuHash[sku] = hash;
+        skuQuantity[sku] = 0;
+        skuFirstRecord[sku] = NONE;
+        skuLastRecord[sku] = NONE;
+        skuSourceIndex[sku] = NONE;
+        skuTable[slot] = sku + 1;
+        if (skuCount * 2 > skuTable.length) {
+            skuTable = rehash(skuTable, skuCount, skuHash);
+        }
+        return sku;
+    }
+
+    /**
+     * Tra cứu chỉ số SKU theo tên
+     * @param name Tên mặt hàng
+     * @return Chỉ số SKU, hoặc -1 nếu không có
+     */
+    public int skuId(String name) {
+        if (name == null) return NONE;
+        int hash = mix(name.hashCode());
+        int mask = skuTable.length - 1;
+        for (int slot = hash & mask; skuTable[slot] != 0; slot = (slot + 1) & mask) {
+            int sku = skuTable[slot] - 1;
+            if (skuHash[sku] == hash && skuNames[sku].equals(name)) {
+                return sku;
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * Lấy chỉ số vị trí, tạo mới nếu chưa có
+     * @param position Vị trí
+     * @return Chỉ số vị trí
+     */
+    public int internLocation(Position position) {
+        return internLocation(position.getShelf(), position.getTier(), position.getSlot());
+    }
+
+    /**
+     * Lấy chỉ số vị trí theo shelf/tier/slot, tạo mới nếu chưa có
+     */
+    public int internLocation(int shelf, int tier, int slot) {
+        long key = Position.packedKey(shelf, tier, slot);
+        int mask = locationTable.length - 1;
+        int index = mix(Long.hashCode(key)) & mask;
+        while (locationTable[index] != 0) {
+            int location = locationTable[index] - 1;
+            if (locationKey[location] == key) {
+                return location;
+            }
+            index = (index + 1) & mask;
+        }
+
+        if (locationCount == locationKey.length) {
+            int capacity = locationCount * 2;
+            locationKey = Arrays.copyOf(locationKey, capacity);
+            locationShelf = Arrays.copyOf(locationShelf, capacity);
+            locationTier = Arrays.copyOf(locationTier, capacity);
+            locationSlot = Arrays.copyOf(locationSlot, capacity);
+            locationFirstRecord = Arrays.copyOf(locationFirstRecord, capacity);
+        }
+        int location = locationCount++;
+        locationKey[location] = key;
+        locationShelf[location] = shelf;
+        locationTier[location] = tier;
+        locationSlot[location] = slot;
+        locationFirstRecord[location] = NONE;
+        locationTable[index] = location + 1;
+        if (locationCount * 2 > locationTable.length) {
+            int[] table = new int[locationTable.length * 2];
+            int newMask = table.length - 1;
+            for (int l = 0; l < locationCount; l++) {
+                int i = mix(Long.hashCode(locationKey[l])) & newMask;
+                while (table[i] != 0) {
+                    i = (i + 1) & newMask;
+                }
+                table[i] = l + 1;
+            }
+            locationTable = table;
+        }
+        return location;
+    }
+
+    /**
+     * Tra cứu chỉ số vị trí
+     * @param position Vị trí
+     * @return Chỉ số vị trí, hoặc -1 nếu không có
+     */
+    public int locationId(Position position) {
+        if (position == null) return NONE;
+        long key = position.packedKey();
+        int mask = locationTable.length - 1;
+        for (int i = mix(Long.hashCode(key)) & mask; locationTable[i] != 0; i = (i + 1) & mask) {
+            int location = locationTable[i] - 1;
+            if (locationKey[location] == key) {
+                return location;
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * Thêm một bản ghi tồn kho
+     * @param sku Chỉ số SKU
+     * @param location Chỉ số vị trí
+     * @param quantity Số lượng tại vị trí
+     * @return Chỉ số bản ghi
+     */
+    public int addRecord(int sku, int location, int quantity) {
+        ensureRecordCapacity(recordCount + 1);
+        int record = recordCount++;
+        recordSku[record] = sku;
+        recordLocation[record] = location;
+        recordQuantity[record] = quantity;
+
+        // Nối vào cuối danh sách của SKU để bản ghi đầu tiên luôn là vị trí chính
+        recordNextOfSku[record] = NONE;
+        if (skuLastRecord[sku] == NONE) {
+            skuFirstRecord[sku] = record;
+        } else {
+            recordNextOfSku[skuLastRecord[sku]] = record;
+        }
+        skuLastRecord[sku] = record;
+        skuQuantity[sku] += quantity;
+
+        recordNextAtLocation[record] = locationFirstRecord[location];
+        locationFirstRecord[location] = record;
+        return record;
+    }
+
+    /**
+     * Cập nhật số lượng của một bản ghi
+     * @param record Chỉ số bản ghi
+     * @param quantity Số lượng mới
+     */
+    public void setRecordQuantity(int record, int quantity) {
+        skuQuantity[recordSku[record]] += quantity - recordQuantity[record];
+        recordQuantity[record] = quantity;
+    }
+
+    /**
+     * Lấy danh sách SKU đang đặt tại một vị trí
+     * @param position Vị trí
+     * @return Mảng chỉ số SKU (rỗng nếu vị trí không có hàng)
+     */
+    public int[] skusAt(Position position) {
+        int location = locationId(position);
+        if (location == NONE) return new int[0];
+
+        int count = 0;
+        for (int r = locationFirstRecord[location]; r != NONE; r = recordNextAtLocation[r]) {
+            count++;
+        }
+        int[] skus = new int[count];
+        for (int r = locationFirstRecord[location]; r != NONE; r = recordNextAtLocation[r]) {
+            skus[--count] = recordSku[r];
+        }
+        return skus;
+    }
+
+    /**
+     * Lấy vị trí chính của một SKU
+     * @param sku Chỉ số SKU
+     * @return Chỉ số vị trí, hoặc -1 nếu SKU chưa có vị trí
+     */
+    public int primaryLocation(int sku) {
+        int record = skuFirstRecord[sku];
+        return record == NONE ? NONE : recordLocation[record];
+    }
+
+    /**
+     * Tạo đối tượng Merchandise cho một SKU (vị trí chính và các vị trí thay thế)
+     * @param sku Chỉ số SKU
+     * @return Mặt hàng
+     */
+    public Merchandise toMerchandise(int sku) {
+        Merchandise merchandise = new Merchandise(skuNames[sku], skuQuantity[sku]);
+        for (int r = skuFirstRecord[sku]; r != NONE; r = recordNextOfSku[r]) {
+            if (r == skuFirstRecord[sku]) {
+                merchandise.setPosition(getPosition(recordLocation[r]));
+            } else {
+                merchandise.addAlternativePosition(getPosition(recordLocation[r]));
+            }
+        }
+        return merchandise;
+    }
+
+    public Position getPosition(int location) {
+        return new Position(locationShelf[location], locationTier[location], locationSlot[location]);
+    }
+
+    public int getSkuCount() {
+        return skuCount;
+    }
+
+    public String getSkuName(int sku) {
+        return skuNames[sku];
+    }
+
+    public int getSkuQuantity(int sku) {
+        return skuQuantity[sku];
+    }
+
+    /**
+     * Chỉ số của mặt hàng trong danh sách nguồn đã tạo ra SKU (khi dựng bằng fromMerchandise)
+     * @param sku Chỉ số SKU
+     * @return Chỉ số trong danh sách, hoặc -1
+     */
+    public int getSourceIndex(int sku) {
+        return skuSourceIndex[sku];
+    }
+
+    public int getLocationCount() {
+        return locationCount;
+    }
+
+    public int getRecordCount() {
+        return recordCount;
+    }
+
+    public int firstRecordOfSku(int sku) {
+        return skuFirstRecord[sku];
+    }
+
+    public int nextRecordOfSku(int record) {
+        return recordNextOfSku[record];
+    }
+
+    public int firstRecordAt(int location) {
+        return locationFirstRecord[location];
+    }
+
+    public int nextRecordAt(int record) {
+        return recordNextAtLocation[record];
+    }
+
+    public int getRecordSku(int record) {
+        return recordSku[record];
+    }
+
+    public int getRecordLocation(int record) {
+        return recordLocation[record];
+    }
+
+    public int getRecordQuantity(int record) {
+        return recordQuantity[record];
+    }
+
+    private void ensureSkuCapacity(int capacity) {
+        if (capacity <= skuNames.length) return;
+        int newCapacity = Math.max(capacity, skuNames.length * 2);
+        skuNames = Arrays.copyOf(skuNames, newCapacity);
+        skuHash = Arrays.copyOf(skuHash, newCapacity);
+        skuQuantity = Arrays.copyOf(skuQuantity, newCapacity);
+        skuFirstRecord = Arrays.copyOf(skuFirstRecord, newCapacity);
+        skuLastRecord = Arrays.copyOf(skuLastRecord, newCapacity);
+        skuSourceIndex = Arrays.copyOf(skuSourceIndex, newCapacity);
+    }
+
+    private void ensureRecordCapacity(int capacity) {
+        if (capacity <= recordSku.length) return;
+        int newCapacity = Math.max(capacity, recordSku.length * 2);
+        recordSku = Arrays.copyOf(recordSku, newCapacity);
+        recordLocation = Arrays.copyOf(recordLocation, newCapacity);
+        recordQuantity = Arrays.copyOf(recordQuantity, newCapacity);
+        recordNextOfSku = Arrays.copyOf(recordNextOfSku, newCapacity);
+        recordNextAtLocation = Arrays.copyOf(recordNextAtLocation, newCapacity);
+    }
+
+    /**
+     * Dựng lại bảng băm SKU với kích thước gấp đôi
+     */
+    private static int[] rehash(int[] table, int count, int[] hashes) {
+        int[] newTable = new int[table.length * 2];
+        int mask = newTable.length - 1;
+        for (int id = 0; id < count; id++) {
+            int slot = hashes[id] & mask;
+            while (newTable[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            newTable[slot] = id + 1;
+        }
+        return newTable;
+    }
+
+    private static int mix(int hash) {
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+}
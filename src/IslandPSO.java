@@ -0,0 +1,304 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.random.RandomGenerator;
+
+/**
+ * Lớp IslandPSO chạy nhiều đàn PSO độc lập (mô hình đảo), mỗi đàn trên một luồng riêng
+ * với bộ tham số riêng, để tránh hội tụ sớm của một đàn duy nhất
+ *
+ * Sau mỗi migrationInterval vòng lặp (một kỳ), mỗi đảo công bố bản chụp các lời giải tốt nhất của mình
+ * vào ô của kỳ đó, rồi nhận bản chụp của kỳ trước từ một đảo nguồn chọn theo cấu hình vòng tròn hoặc ngẫu
+ * nhiên. Không có điểm hẹn chung và không có khóa: đảo chỉ đọc ô của đảo nguồn. Khi đảo nguồn chậm hơn
+ * cả một kỳ, đảo nhận dùng bản chụp mới nhất mà nó chưa nhận, hoặc bỏ qua lần trao đổi nếu không có, rồi
+ * chạy tiếp. Khi đó lời giải nhận được phụ thuộc vào tốc độ của các đảo; để cùng hạt giống cho cùng kết
+ * quả (khi dừng theo số vòng lặp), bật migrationWait để đảo nhận đợi đúng bản chụp của kỳ trước.
+ * Mỗi đảo có hạt giống riêng tách từ hạt giống của lần giải.
+ */
+public class IslandPSO {
+    private final ProblemInstance instance;
+    private final int islandCount;
+    private final int maxIterations;
+    private final int migrationInterval;
+    private final int migrationSize;
+    private final SolverConfig.MigrationTopology topology;
+    private final boolean migrationWait;
+    private final long seed;
+    private IncumbentPublisher publisher;
+    private Solution warmStart;
+
+    /**
+     * Khởi tạo mô hình đảo cho một bài toán, các tham số lấy từ cấu hình của bài toán
+     * @param instance Bài toán cần giải
+     */
+    public IslandPSO(ProblemInstance instance) {
+        SolverConfig config = instance.getConfig();
+        this.instance = instance;
+        this.islandCount = Math.max(1, config.getIslandCount());
+        this.maxIterations = config.getPsoMaxIterations();
+        this.migrationInterval = Math.max(1, config.getMigrationInterval());
+        this.migrationSize = Math.max(0, config.getMigrationSize());
+        this.topology = config.getMigrationTopology();
+        this.migrationWait = config.isMigrationWait();
+        this.seed = config.resolveSeed();
+    }
+
+    /**
+     * Đặt publisher dùng chung cho mọi đảo; chỉ lời giải tốt hơn mọi đảo mới được phát
+     * @param publisher Publisher, null để tắt
+     */
+    public void setIncumbentPublisher(IncumbentPublisher publisher) {
+        this.publisher = publisher;
+    }
+
+    /**
+     * Khởi động mọi đảo từ một kế hoạch trước (xem PSO.setWarmStart)
+     * @param previous Lời giải trước, null để giải từ đầu
+     */
+    public void setWarmStart(Solution previous) {
+        this.warmStart = previous;
+    }
+
+    /**
+     * Giải bài toán bằng các đàn chạy song song
+     * @return Giải pháp tốt nhất của mọi đảo
+     */
+    public Solution solve() {
+        return solve(SolveBudget.unlimited()).getSolution();
+    }
+
+    /**
+     * Giải bài toán bằng các đàn chạy song song trong một giới hạn thời gian chung
+     * @param budget Hạn chót và token hủy, dùng chung cho mọi đảo
+     * @return Kết quả với giải pháp tốt nhất của mọi đảo
+     */
+    public SolveResult solve(SolveBudget budget) {
+        if (publisher != null) {
+            publisher.beginSolve();
+        }
+        // Hạt giống của từng đảo và bộ sinh số chọn đảo nhận được tách theo chỉ số đảo
+        SplittableRandom root = new SplittableRandom(seed);
+        List<Outbox> outboxes = new ArrayList<>();
+        List<PSO> islands = new ArrayList<>();
+        List<SplittableRandom> islandRandoms = new ArrayList<>();
+        // Mỗi đảo chỉ ghi ô của mình; đọc sau Future.get nên không cần đồng bộ thêm
+        int[] skippedMigrations = new int[islandCount];
+        for (int i = 0; i < islandCount; i++) {
+            outboxes.add(new Outbox(maxIterations / migrationInterval));
+            SolverConfig config = islandConfig(instance.getConfig(), i, islandCount, root.nextLong());
+            PSO island = new PSO(instance.withConfig(config));
+            island.setIncumbentPublisher(publisher);
+            island.setWarmStart(warmStart);
+            islands.add(island);
+            islandRandoms.add(root.split());
+        }
+
+        System.out.println("Bắt đầu mô hình đảo với " + islandCount + " đàn, trao đổi " + migrationSize +
+                " lời giải mỗi " + migrationInterval + " vòng lặp (" + topology + ", hạt giống " + seed + ")");
+
+        ExecutorService pool = Executors.newFixedThreadPool(islandCount);
+        try {
+            List<Future<SolveResult>> results = new ArrayList<>();
+            for (int i = 0; i < islandCount; i++) {
+                final int index = i;
+                results.add(pool.submit(() -> runIsland(index, islands.get(index), outboxes, islandRandoms.get(index),
+                        budget, skippedMigrations)));
+            }
+
+            Solution bestSolution = null;
+            SolveResult.StopReason stopReason = SolveResult.StopReason.COMPLETED;
+            int iterations = 0;
+            for (int i = 0; i < islandCount; i++) {
+                SolveResult result = results.get(i).get();
+                Solution solution = result.getSolution();
+                System.out.println("Đảo " + i + ": quãng đường tốt nhất = " + solution.getFitness() +
+                        " sau " + result.getIterations() + " vòng lặp, bỏ qua " + skippedMigrations[i] +
+                        " lần trao đổi");
+                if (bestSolution == null || solution.getFitness() < bestSolution.getFitness()) {
+                    bestSolution = solution;
+                }
+                if (result.getStopReason() != SolveResult.StopReason.COMPLETED) {
+                    stopReason = result.getStopReason();
+                }
+                iterations = Math.max(iterations, result.getIterations());
+            }
+
+            System.out.println("Mô hình đảo đã hoàn thành. Quãng đường tốt nhất: " + bestSolution.getFitness());
+            return new SolveResult(bestSolution, stopReason, iterations, budget, seed);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Mô hình đảo bị ngắt khi đang giải", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Lỗi khi chạy một đảo PSO", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Vòng lặp của một đảo, chạy trên luồng riêng của đảo
+     * @param index Chỉ số đảo
+     * @param pso Đàn của đảo
+     * @param outboxes Bản chụp lời giải tốt nhất theo từng kỳ của mọi đảo
+     * @param random Bộ sinh số ngẫu nhiên của đảo (chọn đảo nguồn khi cấu hình ngẫu nhiên)
+     * @param budget Giới hạn chung của lần giải
+     * @param skippedMigrations Số lần trao đổi bị bỏ qua của từng đảo, đảo này ghi vào ô của mình
+     * @return Kết quả của đảo
+     */
+    private SolveResult runIsland(int index, PSO pso, List<Outbox> outboxes, RandomGenerator random,
+                                  SolveBudget budget, int[] skippedMigrations) {
+        Outbox outbox = outboxes.get(index);
+        boolean migrate = islandCount > 1 && migrationSize > 0;
+        // Kỳ mới nhất đã nhận từ mỗi đảo nguồn, để không nhận lại cùng một bản chụp
+        int[] lastTaken = new int[islandCount];
+        Arrays.fill(lastTaken, -1);
+        SolveResult.StopReason stopReason = SolveResult.StopReason.COMPLETED;
+        pso.start(budget);
+        try {
+            for (int iteration = 0; iteration < maxIterations; iteration++) {
+                stopReason = budget.stopReason();
+                if (stopReason != SolveResult.StopReason.COMPLETED) break;
+
+                pso.iterate(iteration);
+
+                if (migrate && (iteration + 1) % migrationInterval == 0) {
+                    int epoch = (iteration + 1) / migrationInterval - 1;
+                    // Bản chụp là bản sao nên đảo nhận đọc được trong khi đảo này chạy tiếp
+                    outbox.publish(pso.eliteSolutions(migrationSize));
+                    if (epoch > 0) {
+                        int source = sourceIsland(index, random);
+                        Outbox from = outboxes.get(source);
+                        int available = migrationWait ? from.await(epoch - 1) : from.latest(epoch - 1);
+                        if (available > lastTaken[source]) {
+                            lastTaken[source] = available;
+                            for (Solution migrant : from.get(available)) {
+                                pso.immigrate(migrant);
+                            }
+                        } else {
+                            skippedMigrations[index]++;
+                        }
+                    }
+                }
+            }
+        } finally {
+            // Đảo dừng sớm không còn gửi gì, đảo nhận không phải chờ nó
+            outbox.close();
+            pso.shutdown();
+        }
+        return new SolveResult(pso.finish(), stopReason, pso.getCompletedIterations(), budget, pso.getSeed());
+    }
+
+    /**
+     * Các bản chụp lời giải tốt nhất mà một đảo đã công bố, mỗi kỳ một ô
+     * Chỉ luồng của đảo sở hữu ghi; các đảo khác đọc không cần khóa
+     */
+    private static final class Outbox {
+        private static final long WAIT_NANOS = 100_000L;
+
+        private final AtomicReferenceArray<List<Solution>> snapshots;
+        // Số kỳ đã công bố, tăng sau khi ô của kỳ đã được ghi
+        private volatile int published;
+        private volatile boolean closed;
+
+        /**
+         * @param epochs Số kỳ tối đa của lần giải
+         */
+        Outbox(int epochs) {
+            this.snapshots = new AtomicReferenceArray<>(epochs);
+        }
+
+        /**
+         * Công bố bản chụp của kỳ kế tiếp
+         * @param elites Bản sao các lời giải tốt nhất, không bị thay đổi sau lời gọi
+         */
+        void publish(List<Solution> elites) {
+            int epoch = published;
+            snapshots.set(epoch, elites);
+            published = epoch + 1;
+        }
+
+        /**
+         * Đánh dấu đảo đã dừng, không còn kỳ nào được công bố thêm
+         */
+        void close() {
+            closed = true;
+        }
+
+        /**
+         * Kỳ mới nhất đã công bố không quá một kỳ cho trước, không chờ
+         * @param epoch Chỉ số kỳ cần
+         * @return Chỉ số kỳ, -1 nếu đảo chưa công bố kỳ nào
+         */
+        int latest(int epoch) {
+            return Math.min(epoch, published - 1);
+        }
+
+        /**
+         * Đợi đến khi kỳ cho trước được công bố hoặc đảo dừng (chế độ tái lập)
+         * @param epoch Chỉ số kỳ cần
+         * @return Chỉ số kỳ, nhỏ hơn kỳ cần nếu đảo đã dừng trước kỳ đó
+         */
+        int await(int epoch) {
+            while (published <= epoch && !closed) {
+                LockSupport.parkNanos(WAIT_NANOS);
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new RuntimeException("Đảo bị ngắt khi chờ lời giải trao đổi");
+                }
+            }
+            return latest(epoch);
+        }
+
+        /**
+         * @param epoch Chỉ số kỳ đã công bố
+         * @return Bản chụp của kỳ
+         */
+        List<Solution> get(int epoch) {
+            return snapshots.get(epoch);
+        }
+    }
+
+    /**
+     * Chọn đảo nguồn gửi lời giải cho một đảo theo cấu hình trao đổi
+     * Đảo nhận tự chọn nguồn bằng bộ sinh số của mình nên lựa chọn không phụ thuộc thứ tự chạy của các đảo
+     * @param index Chỉ số đảo nhận
+     * @param random Bộ sinh số ngẫu nhiên của đảo nhận
+     * @return Chỉ số đảo nguồn (khác đảo nhận)
+     */
+    private int sourceIsland(int index, RandomGenerator random) {
+        if (topology == SolverConfig.MigrationTopology.RANDOM) {
+            int source = random.nextInt(islandCount - 1);
+            return source >= index ? source + 1 : source;
+        }
+        return (index + islandCount - 1) % islandCount;
+    }
+
+    /**
+     * Tạo bộ tham số riêng cho một đảo
+     * Trọng số quán tính tăng dần từ đảo đầu đến đảo cuối, hệ số nhận thức giảm và hệ số xã hội
+     * tăng tương ứng, nên các đảo cân bằng giữa khám phá và khai thác theo những cách khác nhau.
+     * Mỗi đảo cập nhật đàn tuần tự trên luồng của mình
+     * @param base Cấu hình gốc
+     * @param index Chỉ số đảo
+     * @param count Số đảo
+     * @param seed Hạt giống ngẫu nhiên của đảo
+     * @return Cấu hình của đảo
+     */
+    static SolverConfig islandConfig(SolverConfig base, int index, int count, long seed) {
+        double t = count > 1 ? (double) index / (count - 1) : 0.5;
+        return base.toBuilder()
+                .inertiaWeight(Math.min(0.95, base.getInertiaWeight() * (0.7 + 0.6 * t)))
+                .cognitiveCoefficient(base.getCognitiveCoefficient() * (1.5 - t))
+                .socialCoefficient(base.getSocialCoefficient() * (0.5 + t))
+                .psoThreads(1)
+                .islandCount(1)
+                .randomSeed(seed)
+                .build();
+    }
+}
@@ -10,6 +10,19 @@ public class Merchandise {
     private Position position = new Position();
     private ArrayList<Position> alternativePositions = new ArrayList<>();
     private Position accessPoint; // Điểm tiếp cận gần nhất của mặt hàng này
+    private int requireId = -1; // Chỉ số trong đơn hàng của ProblemInstance (-1 nếu không thuộc đơn hàng)
+
+    /**
+     * Lấy chỉ số nguyên của mặt hàng trong đơn hàng, dùng thay cho so sánh tên trong bộ giải
+     * @return Chỉ số trong đơn hàng, hoặc -1
+     */
+    public int getRequireId() {
+        return requireId;
+    }
+
+    void setRequireId(int requireId) {
+        this.requireId = requireId;
+    }
 
     // Thêm getter/setter
     public Position getAccessPoint() {
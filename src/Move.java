@@ -0,0 +1,125 @@
+/**
+ * Lớp Move mô tả một bước di chuyển của tìm kiếm cục bộ trên Solution
+ * - TWO_OPT: đảo ngược đoạn [fromIndex, toIndex] của tuyến fromRoute
+ * - RELOCATE: chuyển đoạn dài length bắt đầu tại fromIndex của tuyến fromRoute
+ *   sang vị trí toIndex của tuyến toRoute (Or-opt khi length > 1, có thể đảo chiều)
+ *
+ * Chênh lệch chi phí được tính trong O(1) từ các cạnh ở hai đầu đoạn, lời giải chỉ
+ * bị thay đổi khi gọi apply. Một đối tượng Move được dùng lại cho nhiều lần đánh giá.
+ */
+public final class Move {
+    public static final int TWO_OPT = 0;
+    public static final int RELOCATE = 1;
+
+    int type;
+    int fromRoute;
+    int fromIndex;
+    int length;
+    int toRoute;
+    int toIndex;
+    boolean reversed;
+    double delta;
+
+    /**
+     * Mô tả bước 2-opt và tính chênh lệch chi phí
+     * @param solution Lời giải hiện tại
+     * @param route Chỉ số tuyến
+     * @param i Vị trí đầu đoạn
+     * @param j Vị trí cuối đoạn
+     * @return Chênh lệch chi phí
+     */
+    public double twoOpt(Solution solution, int route, int i, int j) {
+        this.type = TWO_OPT;
+        this.fromRoute = route;
+        this.fromIndex = i;
+        this.toRoute = route;
+        this.toIndex = j;
+        this.length = j - i + 1;
+        this.reversed = true;
+        this.delta = solution.twoOptDelta(route, i, j);
+        return delta;
+    }
+
+    /**
+     * Mô tả bước chuyển đoạn và tính chênh lệch chi phí
+     * @param solution Lời giải hiện tại
+     * @param fromRoute Tuyến nguồn
+     * @param fromIndex Vị trí đầu đoạn
+     * @param length Độ dài đoạn
+     * @param toRoute Tuyến đích
+     * @param toIndex Vị trí chèn, tính sau khi đã lấy đoạn ra
+     * @param reversed true nếu đoạn được chèn ngược chiều
+     * @return Chênh lệch chi phí
+     */
+    public double relocate(Solution solution, int fromRoute, int fromIndex, int length,
+                           int toRoute, int toIndex, boolean reversed) {
+        this.type = RELOCATE;
+        this.fromRoute = fromRoute;
+        this.fromIndex = fromIndex;
+        this.length = length;
+        this.toRoute = toRoute;
+        this.toIndex = toIndex;
+        this.reversed = reversed;
+        this.delta = solution.moveSegmentDelta(fromRoute, fromIndex, length, toRoute, toIndex, reversed);
+        return delta;
+    }
+
+    /**
+     * Thực hiện bước di chuyển trên lời giải
+     * @param solution Lời giải cần thay đổi
+     */
+    public void apply(Solution solution) {
+        if (type == TWO_OPT) {
+            solution.reverse(fromRoute, fromIndex, toIndex);
+        } else {
+            solution.moveSegment(fromRoute, fromIndex, length, toRoute, toIndex, reversed);
+        }
+    }
+
+    /**
+     * Thu thập các mặt hàng nằm ở hai đầu những cạnh bị bước di chuyển thay đổi
+     * Phải gọi trước apply, khi các vị trí trong mô tả còn đúng với lời giải
+     * @param solution Lời giải hiện tại
+     * @param items Mảng nhận kết quả (ít nhất 8 phần tử)
+     * @return Số mặt hàng đã ghi vào mảng
+     */
+    public int touchedItems(Solution solution, int[] items) {
+        int count = 0;
+        if (type == TWO_OPT) {
+            count = addItem(solution, fromRoute, fromIndex - 1, items, count);
+            count = addItem(solution, fromRoute, fromIndex, items, count);
+            count = addItem(solution, fromRoute, toIndex, items, count);
+            return addItem(solution, fromRoute, toIndex + 1, items, count);
+        }
+
+        // Hai đầu đoạn và hai mặt hàng kề đoạn ở tuyến nguồn
+        count = addItem(solution, fromRoute, fromIndex - 1, items, count);
+        count = addItem(solution, fromRoute, fromIndex, items, count);
+        count = addItem(solution, fromRoute, fromIndex + length - 1, items, count);
+        count = addItem(solution, fromRoute, fromIndex + length, items, count);
+
+        // Hai mặt hàng kề vị trí chèn ở tuyến đích, đổi chỉ số sau khi gỡ đoạn về chỉ số hiện tại
+        int before = toIndex - 1;
+        int after = toIndex;
+        if (toRoute == fromRoute) {
+            if (before >= fromIndex) before += length;
+            if (after >= fromIndex) after += length;
+        }
+        count = addItem(solution, toRoute, before, items, count);
+        return addItem(solution, toRoute, after, items, count);
+    }
+
+    private static int addItem(Solution solution, int route, int index, int[] items, int count) {
+        if (index < 0 || index >= solution.routeSize(route)) return count;
+        items[count] = solution.itemAt(route, index);
+        return count + 1;
+    }
+
+    @Override
+    public String toString() {
+        return type == TWO_OPT
+                ? "2-opt{route=" + fromRoute + " [" + fromIndex + ", " + toIndex + "] delta=" + delta + "}"
+                : "relocate{" + fromRoute + ":" + fromIndex + "+" + length + " -> " + toRoute + ":" + toIndex +
+                (reversed ? " reversed" : "") + " delta=" + delta + "}";
+    }
+}
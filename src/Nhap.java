@@ -4,12 +4,7 @@ import java.util.List;
 public class Nhap {
     public static void main(String[] args) {
         Params.ReadParams();
-        WarehouseMap warehouseMap;
-        if (Params.WAREHOUSE_MAP != null) {
-            warehouseMap = new WarehouseMap(Params.WAREHOUSE_MAP);
-        } else {
-            warehouseMap = WarehouseMap.createMapFromWarehouse(Params.SHELVES, Params.SLOTS);
-        }
+        WarehouseMap warehouseMap = Params.getWarehouseMap();
         if (Params.REQUIRE == null || Params.REQUIRE.isEmpty()) {
             System.out.println("CẢNH BÁO: Không có mặt hàng nào cần lấy. Hãy kiểm tra file input.");
             return;
@@ -0,0 +1,317 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Lớp OnlineDispatcher giữ một kế hoạch lấy hàng sống lâu và nhận đơn hàng mới theo luồng
+ *
+ * Đơn hàng được đưa vào hàng đợi trong tiến trình (thay cho luồng đơn của hệ thống quản lý kho) và một luồng
+ * tiếp nhận chèn từng mặt hàng vào vị trí rẻ nhất của kế hoạch ngay lập tức. Một luồng nền chạy các lượt VNS
+ * ngắn trên bản sao của kế hoạch rồi chỉ thay kế hoạch khi tốt hơn và kế hoạch chưa thay đổi trong lúc chạy,
+ * nên việc tiếp nhận không phải chờ tối ưu hóa. Tuyến đã giao cho robot được gỡ khỏi kế hoạch và không
+ * bị tối ưu lại. Độ trễ tiếp nhận của mỗi đơn được đo từ lúc đưa vào hàng đợi đến lúc có trong kế hoạch.
+ */
+public final class OnlineDispatcher implements AutoCloseable {
+    private final ProblemInstance base;
+    private final BlockingQueue<Submission> intake = new LinkedBlockingQueue<>();
+    private final CancellationToken token = new CancellationToken();
+    private final SplittableRandom random;
+    private final long seed;
+    private final long passMillis;
+    private final Thread intakeThread;
+    private final Thread optimizerThread;
+
+    // Kế hoạch hiện tại, chỉ được đọc và thay dưới khóa của đối tượng
+    private Solution plan;
+    // Tăng mỗi khi kế hoạch thay đổi do tiếp nhận hoặc giao tuyến
+    private long version;
+    // Phiên bản mới nhất mà lượt tối ưu nền không còn cải thiện được
+    private long optimizedVersion;
+    private boolean running;
+
+    // Thống kê độ trễ tiếp nhận (nano giây)
+    private long admittedOrders;
+    private long totalLatencyNanos;
+    private long maxLatencyNanos;
+
+    /**
+     * Đơn hàng đang chờ trong hàng đợi cùng thời điểm được đưa vào
+     */
+    private static final class Submission {
+        final Order order;
+        final long submittedNanos;
+
+        Submission(Order order, long submittedNanos) {
+            this.order = order;
+            this.submittedNanos = submittedNanos;
+        }
+    }
+
+    /**
+     * Tạo bộ điều phối với kế hoạch rỗng
+     * @param base Bài toán gốc cung cấp kho hàng, bảng khoảng cách, số robot, sức chứa và cấu hình
+     */
+    public OnlineDispatcher(ProblemInstance base) {
+        this.base = base;
+        this.seed = base.getConfig().resolveSeed();
+        this.random = new SplittableRandom(seed);
+        this.passMillis = base.getConfig().getOnlinePassMillis();
+        this.plan = new Solution(this.base.withRequire(new ArrayList<>(), base.getRobotCount()));
+        this.intakeThread = new Thread(this::runIntake, "online-intake");
+        this.optimizerThread = new Thread(this::runOptimizer, "online-optimizer");
+        intakeThread.setDaemon(true);
+        optimizerThread.setDaemon(true);
+    }
+
+    /**
+     * Khởi động luồng tiếp nhận và luồng tối ưu nền
+     */
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        System.out.println("Bắt đầu chế độ trực tuyến với " + base.getRobotCount() + " robot, lượt tối ưu " +
+                passMillis + " ms (hạt giống " + seed + ")");
+        intakeThread.start();
+        optimizerThread.start();
+    }
+
+    /**
+     * Đưa một đơn hàng vào hàng đợi tiếp nhận
+     * @param order Đơn hàng mới
+     */
+    public void submit(Order order) {
+        intake.add(new Submission(order, System.nanoTime()));
+    }
+
+    /**
+     * Bản sao của kế hoạch hiện tại
+     * @return Kế hoạch các tuyến chưa giao
+     */
+    public synchronized Solution getPlan() {
+        return new Solution(plan);
+    }
+
+    /**
+     * Giao tuyến hiện tại của một robot: tuyến được gỡ khỏi kế hoạch và robot nhận mặt hàng mới cho chuyến sau
+     * @param robot Chỉ số robot
+     * @return Các mặt hàng của tuyến theo thứ tự lấy
+     */
+    public synchronized List<Merchandise> dispatch(int robot) {
+        List<Merchandise> route = new ArrayList<>(plan.routeSize(robot));
+        List<Merchandise> remaining = new ArrayList<>(plan.getItemCount() - plan.routeSize(robot));
+        List<Merchandise> items = plan.getInstance().getRequire();
+
+        // Đánh lại chỉ số các mặt hàng còn lại, giữ nguyên thứ tự các tuyến khác
+        int[] newId = new int[plan.getItemCount()];
+        for (int item = 0; item < newId.length; item++) {
+            if (plan.routeOf(item) == robot) {
+                newId[item] = -1;
+            } else {
+                newId[item] = remaining.size();
+                remaining.add(items.get(item));
+            }
+        }
+        int[] order = new int[remaining.size()];
+        int[] sizes = new int[plan.getRouteCount()];
+        int position = 0;
+        for (int r = 0; r < plan.getRouteCount(); r++) {
+            for (int i = 0; i < plan.routeSize(r); i++) {
+                int item = plan.itemAt(r, i);
+                if (r == robot) {
+                    route.add(items.get(item));
+                } else {
+                    order[position++] = newId[item];
+                }
+            }
+            sizes[r] = r == robot ? 0 : plan.routeSize(r);
+        }
+
+        Solution next = new Solution(base.withRequire(remaining, plan.getRouteCount()));
+        next.setRoutes(order, sizes);
+        replacePlan(next);
+        return route;
+    }
+
+    /**
+     * Dừng các luồng nền; lượt tối ưu đang chạy bị hủy
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            running = false;
+            notifyAll();
+        }
+        token.cancel();
+        intakeThread.interrupt();
+        try {
+            intakeThread.join();
+            optimizerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Số đơn hàng đã được đưa vào kế hoạch
+     * @return Số đơn
+     */
+    public synchronized long getAdmittedOrders() {
+        return admittedOrders;
+    }
+
+    /**
+     * Độ trễ tiếp nhận trung bình, từ lúc đưa vào hàng đợi đến lúc có trong kế hoạch
+     * @return Số mili giây, 0 nếu chưa có đơn nào
+     */
+    public synchronized double getAverageLatencyMillis() {
+        return admittedOrders > 0 ? totalLatencyNanos / 1e6 / admittedOrders : 0;
+    }
+
+    /**
+     * Độ trễ tiếp nhận lớn nhất
+     * @return Số mili giây
+     */
+    public synchronized double getMaxLatencyMillis() {
+        return maxLatencyNanos / 1e6;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Vòng lặp của luồng tiếp nhận: lấy đơn khỏi hàng đợi và chèn vào kế hoạch
+     */
+    private void runIntake() {
+        try {
+            while (isRunning()) {
+                admit(intake.take());
+            }
+        } catch (InterruptedException e) {
+            // Bị ngắt khi đóng bộ điều phối
+        }
+    }
+
+    /**
+     * Chèn các mặt hàng của một đơn vào vị trí rẻ nhất của kế hoạch
+     * Mặt hàng mới được nối vào cuối bài toán (không dựng lại các mặt hàng cũ) nên các mặt hàng cũ giữ chỉ số
+     * và thứ tự tuyến
+     */
+    private synchronized void admit(Submission submission) {
+        int oldCount = plan.getItemCount();
+        ProblemInstance appended = plan.getInstance().withItemsAppended(submission.order.getItems());
+        // Mặt hàng mới tạm đặt cuối tuyến cuối rồi được chuyển từng cái đến vị trí rẻ nhất
+        Solution next = new Solution(plan, appended);
+        for (int item = oldCount; item < next.getItemCount(); item++) {
+            next.reinsertCheapest(item);
+        }
+        replacePlan(next);
+
+        long latency = System.nanoTime() - submission.submittedNanos;
+        admittedOrders++;
+        totalLatencyNanos += latency;
+        maxLatencyNanos = Math.max(maxLatencyNanos, latency);
+    }
+
+    /**
+     * Vòng lặp của luồng tối ưu nền: chạy VNS ngắn trên bản sao của kế hoạch khi kế hoạch còn có thể cải thiện
+     */
+    private void runOptimizer() {
+        VNS vns = null;
+        ProblemInstance vnsInstance = null;
+        while (true) {
+            Solution snapshot;
+            long snapshotVersion;
+            SplittableRandom passRandom;
+            synchronized (this) {
+                while (running && version == optimizedVersion) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (!running) return;
+                snapshot = new Solution(plan);
+                snapshotVersion = version;
+                passRandom = random.split();
+            }
+
+            // Bài toán đổi mỗi khi tiếp nhận hoặc giao tuyến; giữ VNS khi chỉ có lượt tối ưu thay kế hoạch
+            if (vnsInstance != snapshot.getInstance()) {
+                vnsInstance = snapshot.getInstance();
+                vns = new VNS(vnsInstance);
+            }
+            Solution improved = vns.improve(snapshot, SolveBudget.of(passMillis, token), passRandom, false);
+
+            synchronized (this) {
+                if (version != snapshotVersion) continue;
+                if (improved.getFitness() < plan.getFitness()) {
+                    // Kế hoạch không đổi trong lúc chạy nên thay được; lượt sau tiếp tục từ kế hoạch mới
+                    plan = improved;
+                } else {
+                    optimizedVersion = snapshotVersion;
+                }
+            }
+        }
+    }
+
+    /**
+     * Chạy thử chế độ trực tuyến trên kho hàng và tham số trong file input: gửi các đơn ngẫu nhiên theo nhịp,
+     * thỉnh thoảng giao tuyến cho robot, rồi in độ trễ tiếp nhận
+     * Cách dùng: java OnlineDispatcher [số đơn] [mili giây giữa hai đơn]
+     * @param args Tham số dòng lệnh
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int orders = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        long intervalMillis = args.length > 1 ? Long.parseLong(args[1]) : 5;
+
+        Params.ReadParams();
+        ArrayList<Merchandise> warehousing = WareHousing.setWareHousing();
+        if (warehousing.isEmpty()) {
+            System.out.println("Kho hàng rỗng, hãy kiểm tra file input");
+            return;
+        }
+        ProblemInstance base = ProblemInstance.fromParams(warehousing, new Position(0, 0, 0));
+        SplittableRandom random = new SplittableRandom(base.getConfig().resolveSeed());
+
+        try (OnlineDispatcher dispatcher = new OnlineDispatcher(base)) {
+            dispatcher.start();
+            int dispatched = 0;
+            for (int o = 0; o < orders; o++) {
+                List<Merchandise> items = new ArrayList<>();
+                int lines = 1 + random.nextInt(3);
+                for (int k = 0; k < lines; k++) {
+                    items.add(new Merchandise(warehousing.get(random.nextInt(warehousing.size())).getName(), 1));
+                }
+                dispatcher.submit(new Order("DH" + o, items));
+                // Mỗi 25 đơn một robot nhận tuyến hiện tại của nó, lần lượt theo vòng
+                if ((o + 1) % 25 == 0) {
+                    dispatched += dispatcher.dispatch((o / 25) % base.getRobotCount()).size();
+                }
+                Thread.sleep(intervalMillis);
+            }
+            while (dispatcher.getAdmittedOrders() < orders) {
+                Thread.sleep(1);
+            }
+
+            Solution plan = dispatcher.getPlan();
+            System.out.println("Đã tiếp nhận " + dispatcher.getAdmittedOrders() + " đơn, giao " + dispatched +
+                    " mặt hàng; kế hoạch còn " + plan.getItemCount() + " mặt hàng, quãng đường " + plan.getFitness());
+            System.out.println("Độ trễ tiếp nhận: trung bình " + String.format("%.3f", dispatcher.getAverageLatencyMillis()) +
+                    " ms, lớn nhất " + String.format("%.3f", dispatcher.getMaxLatencyMillis()) + " ms");
+        }
+    }
+
+    private void replacePlan(Solution next) {
+        plan = next;
+        version++;
+        notifyAll();
+    }
+
+    private synchronized boolean isRunning() {
+        return running;
+    }
+}
@@ -0,0 +1,49 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Lớp Order đại diện cho một đơn hàng trong đợt lấy hàng (wave picking)
+ * Một đơn hàng gồm mã đơn và danh sách mặt hàng cần lấy; mọi mặt hàng của một đơn luôn được giải trong cùng một lô
+ */
+public final class Order {
+    private final String id;
+    private final List<Merchandise> items;
+    private final int load;
+
+    /**
+     * Khởi tạo đơn hàng
+     * @param id Mã đơn hàng
+     * @param items Danh sách mặt hàng cần lấy (được sao chép danh sách, không sao chép mặt hàng)
+     */
+    public Order(String id, List<Merchandise> items) {
+        this.id = id;
+        this.items = Collections.unmodifiableList(new ArrayList<>(items));
+        int total = 0;
+        for (Merchandise item : items) {
+            total += item.getQuantity();
+        }
+        this.load = total;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public List<Merchandise> getItems() {
+        return items;
+    }
+
+    /**
+     * Tổng số lượng của các mặt hàng trong đơn (tải trọng robot cần chở)
+     * @return Tải trọng của đơn
+     */
+    public int getLoad() {
+        return load;
+    }
+
+    @Override
+    public String toString() {
+        return "Order{id=" + id + ", items=" + items.size() + ", load=" + load + "}";
+    }
+}
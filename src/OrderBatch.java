@@ -0,0 +1,85 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Lớp OrderBatch là một lô đơn hàng được gom để các robot lấy trong cùng một chuyến
+ * Lô giữ bài toán định tuyến riêng (dùng chung kho và bảng khoảng cách với bài toán gốc) và lời giải sau khi giải
+ */
+public final class OrderBatch {
+    private final List<Order> orders;
+    private final ProblemInstance instance;
+    private final int load;
+    private Solution solution;
+
+    /**
+     * Tạo lô từ các đơn hàng
+     * @param orders Các đơn hàng của lô
+     * @param base Bài toán gốc cung cấp kho hàng, sức chứa và số robot
+     */
+    OrderBatch(List<Order> orders, ProblemInstance base) {
+        this.orders = Collections.unmodifiableList(new ArrayList<>(orders));
+        List<Merchandise> items = new ArrayList<>();
+        int total = 0;
+        for (Order order : orders) {
+            items.addAll(order.getItems());
+            total += order.getLoad();
+        }
+        this.load = total;
+        // Đủ robot để chở toàn bộ lô; lô vượt sức chứa của đội robot chỉ xảy ra khi một đơn quá lớn
+        int capacity = Math.max(1, base.getCapacity());
+        int robots = Math.max(base.getRobotCount(), (total + capacity - 1) / capacity);
+        this.instance = base.withRequire(items, robots);
+    }
+
+    public List<Order> getOrders() {
+        return orders;
+    }
+
+    public ProblemInstance getInstance() {
+        return instance;
+    }
+
+    public int getLoad() {
+        return load;
+    }
+
+    /**
+     * Số lần lấy hàng của lô (mỗi mặt hàng trong đơn là một lần lấy)
+     * @return Số mặt hàng
+     */
+    public int getPickCount() {
+        return instance.getRequire().size();
+    }
+
+    /**
+     * Lời giải định tuyến của lô
+     * @return Lời giải, null nếu lô chưa được giải
+     */
+    public Solution getSolution() {
+        return solution;
+    }
+
+    void setSolution(Solution solution) {
+        this.solution = solution;
+    }
+
+    /**
+     * Tổng quãng đường các robot đi để lấy hàng của lô (không gồm phạt vượt sức chứa)
+     * @return Quãng đường, 0 nếu lô chưa được giải
+     */
+    public double getDistance() {
+        if (solution == null) return 0;
+        double distance = 0;
+        for (int r = 0; r < solution.getRouteCount(); r++) {
+            distance += solution.routeCost(r);
+        }
+        return distance;
+    }
+
+    @Override
+    public String toString() {
+        return "OrderBatch{orders=" + orders.size() + ", picks=" + getPickCount() + ", load=" + load +
+                ", robots=" + instance.getRobotCount() + ", distance=" + getDistance() + "}";
+    }
+}
@@ -0,0 +1,379 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.random.RandomGenerator;
+
+/**
+ * Lớp OrderBatcher gom nhiều đơn hàng thành các lô vừa sức chứa của đội robot rồi giải định tuyến
+ * các lô song song (wave picking)
+ *
+ * Mỗi đơn hàng được đại diện bởi vị trí trung tâm (medoid: vị trí mặt hàng có tổng khoảng cách nhỏ nhất
+ * đến các mặt hàng khác của đơn). Hai đơn gần nhau được gom theo khoản tiết kiệm kiểu Clarke-Wright
+ * steps(counter, a) + steps(counter, b) - steps(a, b) trên các vị trí trung tâm: các cặp được duyệt theo
+ * khoản tiết kiệm giảm dần và hai lô được hợp khi tổng tải trọng không vượt sức chứa của mọi robot.
+ * Chỉ xét cặp giữa mỗi đơn và CANDIDATE_ORDERS đơn gần nhất nên số cặp tuyến tính theo số đơn; các đơn
+ * gần được tìm trên lưới ô vuông theo tọa độ vị trí trung tâm (MedoidGrid), mở rộng dần từ ô của đơn,
+ * rồi xếp theo số bước đi thật nên không phải duyệt mọi cặp đơn.
+ * Mỗi lô được giải bằng Clarke-Wright rồi VNS; hạt giống của từng lô được tách theo thứ tự lô nên
+ * kết quả không phụ thuộc số luồng. Mỗi lô nhận một phần thời gian còn lại của lần giải khi bắt đầu
+ * (chia đều cho số đợt lô còn phải chạy trên các luồng), nên lô chạy sau không bị lô chạy trước dùng hết.
+ */
+public final class OrderBatcher {
+    // Số đơn gần nhất (theo vị trí trung tâm) được xét gom cùng mỗi đơn
+    private static final int CANDIDATE_ORDERS = 20;
+    // Số đơn trung bình trên một ô của lưới tìm đơn gần
+    private static final int ORDERS_PER_CELL = 2;
+
+    private final ProblemInstance instance;
+
+    /**
+     * Tạo bộ gom lô trên một kho hàng
+     * @param instance Bài toán gốc cung cấp kho hàng, bảng khoảng cách, số robot và sức chứa của mỗi lô
+     */
+    public OrderBatcher(ProblemInstance instance) {
+        this.instance = instance;
+    }
+
+    /**
+     * Gom các đơn hàng thành lô
+     * Đơn có tải trọng vượt sức chứa của cả đội robot được xếp thành lô riêng với số robot đủ chở
+     * @param orders Các đơn hàng
+     * @return Các lô theo thứ tự đơn đầu tiên của lô; đơn trong lô giữ thứ tự ban đầu
+     */
+    public List<OrderBatch> group(List<Order> orders) {
+        int orderCount = orders.size();
+        int batchCapacity = instance.getRobotCount() * instance.getCapacity();
+        int[] medoids = medoids(orders);
+
+        // Hợp lô bằng cấu trúc disjoint-set, tải trọng lưu tại gốc
+        int[] parent = new int[orderCount];
+        int[] load = new int[orderCount];
+        for (int o = 0; o < orderCount; o++) {
+            parent[o] = o;
+            load[o] = orders.get(o).getLoad();
+        }
+
+        CandidatePairs pairs = candidatePairs(orders, medoids, batchCapacity);
+        for (int k = pairs.savings.length - 1; k >= 0; k--) {
+            int pair = (int) pairs.savings[k];
+            int a = find(parent, pairs.first[pair]);
+            int b = find(parent, pairs.second[pair]);
+            if (a == b || load[a] + load[b] > batchCapacity) continue;
+            // Gốc là đơn đứng trước để thứ tự lô ổn định
+            int root = Math.min(a, b);
+            parent[Math.max(a, b)] = root;
+            load[root] = load[a] + load[b];
+        }
+
+        List<List<Order>> members = new ArrayList<>();
+        int[] batchOf = new int[orderCount];
+        Arrays.fill(batchOf, -1);
+        for (int o = 0; o < orderCount; o++) {
+            int root = find(parent, o);
+            if (batchOf[root] < 0) {
+                batchOf[root] = members.size();
+                members.add(new ArrayList<>());
+            }
+            members.get(batchOf[root]).add(orders.get(o));
+        }
+
+        List<OrderBatch> batches = new ArrayList<>(members.size());
+        for (List<Order> batchOrders : members) {
+            batches.add(new OrderBatch(batchOrders, instance));
+        }
+        return batches;
+    }
+
+    /**
+     * Gom lô rồi giải định tuyến các lô song song trên config.getBatchThreads() luồng
+     * @param orders Các đơn hàng
+     * @param budget Giới hạn chung của lần giải; mỗi lô nhận một phần thời gian còn lại khi bắt đầu
+     * @return Các lô đã giải cùng chỉ số năng suất
+     */
+    public BatchingResult solve(List<Order> orders, SolveBudget budget) {
+        long startTime = System.nanoTime();
+        long seed = instance.getConfig().resolveSeed();
+        List<OrderBatch> batches = group(orders);
+        System.out.println("Đã gom " + orders.size() + " đơn hàng thành " + batches.size() + " lô (hạt giống " +
+                seed + ")");
+
+        // Tách bộ sinh số ngẫu nhiên theo thứ tự lô trước khi giao cho các luồng
+        SplittableRandom root = new SplittableRandom(seed);
+        List<RandomGenerator> randoms = new ArrayList<>(batches.size());
+        for (int b = 0; b < batches.size(); b++) {
+            randoms.add(root.split());
+        }
+
+        int threads = Math.max(1, Math.min(instance.getConfig().getBatchThreads(), batches.size()));
+        AtomicInteger started = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Solution>> results = new ArrayList<>();
+            for (int b = 0; b < batches.size(); b++) {
+                OrderBatch batch = batches.get(b);
+                RandomGenerator random = randoms.get(b);
+                results.add(pool.submit(() -> {
+                    // Thời gian còn lại chia đều cho số đợt lô còn phải chạy, kể cả đợt của lô này
+                    int waiting = batches.size() - started.getAndIncrement();
+                    int waves = (waiting + threads - 1) / threads;
+                    return solveBatch(batch, budget.slice(1.0 / waves), random);
+                }));
+            }
+            for (int b = 0; b < batches.size(); b++) {
+                batches.get(b).setSolution(results.get(b).get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Gom lô bị ngắt khi đang giải", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Lỗi khi giải một lô đơn hàng", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+
+        BatchingResult result = new BatchingResult(batches, (System.nanoTime() - startTime) / 1_000_000L, seed);
+        System.out.println("Gom lô hoàn thành: quãng đường " + result.getDistance() + ", " +
+                String.format("%.4f", result.getPicksPerDistance()) + " lần lấy mỗi bước, " +
+                String.format("%.1f", result.getOrdersPerSecond()) + " đơn mỗi giây");
+        return result;
+    }
+
+    /**
+     * Giải định tuyến một lô: Clarke-Wright tất định, sắp xếp lại thứ tự nếu không làm tăng chi phí, rồi VNS
+     * @param batch Lô cần giải
+     * @param budget Giới hạn của lô
+     * @param random Bộ sinh số ngẫu nhiên riêng của lô
+     * @return Lời giải của lô
+     */
+    private Solution solveBatch(OrderBatch batch, SolveBudget budget, RandomGenerator random) {
+        ProblemInstance batchInstance = batch.getInstance();
+        Solution solution = new Solution(batchInstance);
+        new ClarkeWright(batchInstance).construct(solution, null);
+
+        Solution reordered = new Solution(solution);
+        for (int r = 0; r < reordered.getRouteCount(); r++) {
+            if (reordered.routeSize(r) > 1) {
+                reordered.optimizeRouteOrder(r);
+            }
+        }
+        if (reordered.getFitness() <= solution.getFitness()) {
+            solution = reordered;
+        }
+        return new VNS(batchInstance).improve(solution, budget, random, false);
+    }
+
+    /**
+     * Vị trí trung tâm của mỗi đơn hàng
+     * Vị trí mặt hàng được tra trực tiếp trong kho của bài toán gốc; mặt hàng không có trong kho được coi
+     * như nằm tại counter, giống cách ProblemInstance đánh chỉ số đơn hàng
+     * @return Chỉ số vị trí (theo bảng khoảng cách) của mỗi đơn; đơn rỗng lấy vị trí counter
+     */
+    private int[] medoids(List<Order> orders) {
+        int counter = instance.getCounterLocation();
+        int[] medoids = new int[orders.size()];
+        int[] locations = new int[0];
+        for (int o = 0; o < orders.size(); o++) {
+            List<Merchandise> items = orders.get(o).getItems();
+            if (locations.length < items.size()) {
+                locations = new int[items.size()];
+            }
+            for (int i = 0; i < items.size(); i++) {
+                int location = instance.locationOf(items.get(i));
+                locations[i] = location >= 0 ? location : counter;
+            }
+
+            int best = counter;
+            double bestSum = Double.MAX_VALUE;
+            for (int i = 0; i < items.size(); i++) {
+                double sum = 0;
+                for (int j = 0; j < items.size(); j++) {
+                    sum += instance.steps(locations[i], locations[j]);
+                }
+                if (sum < bestSum) {
+                    bestSum = sum;
+                    best = locations[i];
+                }
+            }
+            medoids[o] = best;
+        }
+        return medoids;
+    }
+
+    /**
+     * Các cặp (đơn, một trong CANDIDATE_ORDERS đơn gần nhất) có khoản tiết kiệm dương và tổng tải trọng
+     * không vượt sức chứa của lô
+     */
+    private static final class CandidatePairs {
+        // Theo thứ tự tăng dần: 32 bit cao là bit của khoản tiết kiệm, 32 bit thấp là chỉ số cặp
+        final long[] savings;
+        // Hai đơn của cặp, first < second
+        final int[] first;
+        final int[] second;
+
+        CandidatePairs(long[] savings, int[] first, int[] second) {
+            this.savings = savings;
+            this.first = first;
+            this.second = second;
+        }
+    }
+
+    /**
+     * Tìm các cặp ứng viên: đơn gần được lấy từ lưới theo tọa độ, xếp theo số bước đi giữa hai vị trí
+     * trung tâm; mỗi cặp chỉ giữ một lần dù được chọn từ cả hai phía
+     */
+    private CandidatePairs candidatePairs(List<Order> orders, int[] medoids, int batchCapacity) {
+        int orderCount = orders.size();
+        int counter = instance.getCounterLocation();
+        DistanceTable table = instance.getDistanceTable();
+        int[] xs = new int[orderCount];
+        int[] ys = new int[orderCount];
+        for (int o = 0; o < orderCount; o++) {
+            Position position = table.getLocation(medoids[o]);
+            xs[o] = position.x;
+            ys[o] = position.y;
+        }
+        MedoidGrid grid = new MedoidGrid(xs, ys);
+
+        // Cặp chuẩn hóa (đơn nhỏ << 32 | đơn lớn)
+        long[] nearest = new long[orderCount];
+        long[] keys = new long[orderCount * Math.min(CANDIDATE_ORDERS, Math.max(0, orderCount - 1))];
+        int count = 0;
+        for (int a = 0; a < orderCount; a++) {
+            int loadA = orders.get(a).getLoad();
+            if (loadA > batchCapacity) continue;
+
+            // Mở rộng từng vòng ô quanh đơn đến khi đủ CANDIDATE_ORDERS đơn ghép được, thêm một vòng
+            // để bù cho khác biệt giữa khoảng cách theo tọa độ và số bước đi thật
+            int candidates = 0;
+            int lastRing = Integer.MAX_VALUE;
+            for (int ring = 0; ring <= grid.maxRing() && ring <= lastRing; ring++) {
+                candidates = grid.collectRing(a, ring, nearest, candidates, orders, loadA, batchCapacity);
+                if (lastRing == Integer.MAX_VALUE && candidates >= CANDIDATE_ORDERS) {
+                    lastRing = ring + 1;
+                }
+            }
+            for (int k = 0; k < candidates; k++) {
+                int b = (int) nearest[k];
+                float distance = instance.steps(medoids[a], medoids[b]);
+                nearest[k] = ((long) Float.floatToIntBits(distance) << 32) | b;
+            }
+            Arrays.sort(nearest, 0, candidates);
+
+            for (int k = 0; k < Math.min(CANDIDATE_ORDERS, candidates); k++) {
+                int b = (int) nearest[k];
+                keys[count++] = ((long) Math.min(a, b) << 32) | Math.max(a, b);
+            }
+        }
+        Arrays.sort(keys, 0, count);
+
+        long[] savings = new long[count];
+        int[] first = new int[count];
+        int[] second = new int[count];
+        int unique = 0;
+        for (int k = 0; k < count; k++) {
+            if (k > 0 && keys[k] == keys[k - 1]) continue;
+            int a = (int) (keys[k] >>> 32);
+            int b = (int) keys[k];
+            float saving = instance.steps(counter, medoids[a]) + instance.steps(counter, medoids[b])
+                    - instance.steps(medoids[a], medoids[b]);
+            if (saving > 0) {
+                first[unique] = a;
+                second[unique] = b;
+                savings[unique] = ((long) Float.floatToIntBits(saving) << 32) | unique;
+                unique++;
+            }
+        }
+        savings = Arrays.copyOf(savings, unique);
+        Arrays.sort(savings);
+        return new CandidatePairs(savings, first, second);
+    }
+
+    /**
+     * Lưới ô vuông trên tọa độ (x, y) của vị trí trung tâm các đơn; mỗi ô chứa trung bình ORDERS_PER_CELL đơn
+     */
+    private static final class MedoidGrid {
+        private final int columns;
+        private final int rows;
+        // Đơn của ô c nằm ở members[cellStart[c], cellStart[c + 1])
+        private final int[] cellStart;
+        private final int[] members;
+        private final int[] cellOf;
+
+        MedoidGrid(int[] xs, int[] ys) {
+            int count = xs.length;
+            int minX = count > 0 ? xs[0] : 0;
+            int maxX = minX;
+            int minY = count > 0 ? ys[0] : 0;
+            int maxY = minY;
+            for (int o = 1; o < count; o++) {
+                minX = Math.min(minX, xs[o]);
+                maxX = Math.max(maxX, xs[o]);
+                minY = Math.min(minY, ys[o]);
+                maxY = Math.max(maxY, ys[o]);
+            }
+            double area = (double) (maxX - minX + 1) * (maxY - minY + 1);
+            int cellSize = (int) Math.max(1, Math.ceil(Math.sqrt(area * ORDERS_PER_CELL / Math.max(1, count))));
+            this.columns = (maxX - minX) / cellSize + 1;
+            this.rows = (maxY - minY) / cellSize + 1;
+
+            // Sắp các đơn theo ô bằng đếm phân phối
+            this.cellOf = new int[count];
+            this.cellStart = new int[columns * rows + 1];
+            for (int o = 0; o < count; o++) {
+                cellOf[o] = (ys[o] - minY) / cellSize * columns + (xs[o] - minX) / cellSize;
+                cellStart[cellOf[o] + 1]++;
+            }
+            for (int c = 0; c < columns * rows; c++) {
+                cellStart[c + 1] += cellStart[c];
+            }
+            this.members = new int[count];
+            int[] next = Arrays.copyOf(cellStart, columns * rows);
+            for (int o = 0; o < count; o++) {
+                members[next[cellOf[o]]++] = o;
+            }
+        }
+
+        int maxRing() {
+            return Math.max(columns, rows);
+        }
+
+        /**
+         * Thêm các đơn ghép được với đơn a nằm trong các ô cách ô của a đúng ring ô (khoảng cách Chebyshev)
+         * @return Số đơn trong mảng sau khi thêm
+         */
+        int collectRing(int a, int ring, long[] out, int count, List<Order> orders, int loadA, int batchCapacity) {
+            int column = cellOf[a] % columns;
+            int row = cellOf[a] / columns;
+            for (int r = Math.max(0, row - ring); r <= Math.min(rows - 1, row + ring); r++) {
+                boolean edgeRow = r == row - ring || r == row + ring;
+                // Hàng ở giữa vòng chỉ có hai ô ở hai đầu
+                int step = edgeRow ? 1 : Math.max(1, 2 * ring);
+                for (int c = column - ring; c <= column + ring; c += step) {
+                    if (c < 0 || c >= columns) continue;
+                    int cell = r * columns + c;
+                    for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) {
+                        int b = members[k];
+                        if (b != a && loadA + orders.get(b).getLoad() <= batchCapacity) {
+                            out[count++] = b;
+                        }
+                    }
+                }
+            }
+            return count;
+        }
+    }
+
+    private static int find(int[] parent, int node) {
+        while (parent[node] != node) {
+            parent[node] = parent[parent[node]];
+            node = parent[node];
+        }
+        return node;
+    }
+}
@@ -0,0 +1,54 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Lớp OrderDelta mô tả một lần sửa đơn hàng: các dòng được thêm và các dòng bị bỏ (theo tên mặt hàng)
+ * Dùng cùng lời giải trước để giải lại từ kế hoạch đã có thay vì từ đầu
+ */
+public final class OrderDelta {
+    private final List<Merchandise> added;
+    private final List<String> removed;
+
+    /**
+     * Tạo một lần sửa đơn hàng
+     * @param added Các dòng được thêm
+     * @param removed Tên mặt hàng của các dòng bị bỏ (mỗi tên bỏ một dòng)
+     */
+    public OrderDelta(List<Merchandise> added, List<String> removed) {
+        this.added = Collections.unmodifiableList(new ArrayList<>(added));
+        this.removed = Collections.unmodifiableList(new ArrayList<>(removed));
+    }
+
+    public List<Merchandise> getAdded() {
+        return added;
+    }
+
+    public List<String> getRemoved() {
+        return removed;
+    }
+
+    /**
+     * Áp dụng lần sửa lên một đơn hàng
+     * @param require Danh sách mặt hàng của đơn trước khi sửa, không bị thay đổi
+     * @return Danh sách mới: các dòng bị bỏ được gỡ (dòng đầu tiên cùng tên), các dòng thêm được nối vào cuối
+     */
+    public List<Merchandise> applyTo(List<Merchandise> require) {
+        List<Merchandise> result = new ArrayList<>(require);
+        for (String name : removed) {
+            for (int i = 0; i < result.size(); i++) {
+                if (result.get(i).getName().equals(name)) {
+                    result.remove(i);
+                    break;
+                }
+            }
+        }
+        result.addAll(added);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "OrderDelta{added=" + added.size() + ", removed=" + removed + "}";
+    }
+}
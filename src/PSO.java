@@ -1,468 +1,803 @@
 import java.util.ArrayList;
-import java.util.Random;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.random.RandomGenerator;
 
 /**
  * Lớp PSO thực hiện thuật toán Particle Swarm Optimization
  * để tìm đường đi tối ưu cho robot trong kho hàng
+ *
+ * Các hạt trong một vòng lặp độc lập với nhau nên được chia thành các đoạn liên tiếp cho
+ * một nhóm luồng cố định; mỗi luồng có bộ sinh số ngẫu nhiên riêng. Vị trí tốt nhất toàn cục
+ * là một bản chụp bất biến, được công bố bằng compare-and-set nên các luồng đọc mà không cần khóa.
+ * Mỗi hạt có bộ sinh số ngẫu nhiên riêng tách từ hạt giống của lần giải, các hạt trong một vòng lặp dẫn
+ * theo bản chụp đầu vòng và lời giải bằng fitness được chọn theo thứ tự toàn phần, nên cùng hạt giống
+ * cho cùng kết quả với mọi số luồng (trừ khi dừng do hết thời gian).
  */
 public class PSO {
-    private ArrayList<Particle> swarm;
-    private Particle globalBest;
+    // Giới hạn độ lớn vận tốc của mã hóa khóa ngẫu nhiên (khóa nằm trong [0, 1])
+    private static final double KEY_VELOCITY_LIMIT = 0.1;
+    // Tỉ lệ tối đa số mặt hàng bị chuyển chỗ khi xáo trộn kế hoạch trước cho một hạt khởi động
+    private static final double WARM_START_PERTURBATION = 0.2;
+
+    private final ProblemInstance instance;
+    private Particle[] swarm;
+    private final AtomicReference<BestSnapshot> globalBest = new AtomicReference<>();
     private int swarmSize;
     private int maxIterations;
+    private int threadCount;
+    private int vnsStarts;
+    // Số hạt đầu tiên được khởi tạo bằng Clarke-Wright và bộ dựng dùng chung (null nếu không dùng)
+    private int savingsSeeds;
+    private ClarkeWright savings;
+    // Kế hoạch trước khi giải lại và số hạt đầu tiên khởi tạo từ kế hoạch đó (0 nếu giải từ đầu)
+    private Solution warmStart;
+    private int warmSeeds;
+    // Cách mã hóa hạt; bộ chia tuyến khi hạt được mã hóa bằng hoán vị hoặc khóa (null với mã hóa theo tuyến)
+    private SolverConfig.ParticleEncoding encoding;
+    private SplitDecoder splitDecoder;
+    // Khóa của vị trí tốt nhất toàn cục theo thứ hạng của mặt hàng, làm mới đầu mỗi vòng lặp
+    private double[] globalKeys;
+    private BestSnapshot globalKeysSnapshot;
+    // Bản chụp vị trí tốt nhất toàn cục dùng để dẫn đường trong vòng lặp hiện tại
+    private BestSnapshot iterationBest;
     private double w; // trọng số quán tính
     private double c1; // hệ số nhận thức
     private double c2; // hệ số xã hội
-    private Random random;
+    // Hạt giống của lần giải; bộ sinh số của luồng điều khiển và của từng hạt được tách từ đó theo thứ tự cố định
+    private final long seed;
+    private SplittableRandom random;
+    private SplittableRandom[] particleRandoms;
     private VNS vns;
+    private List<SwarmWorker> workers;
+    private ExecutorService pool;
+    private SolveBudget budget = SolveBudget.unlimited();
+    private int completedIterations;
+    private IncumbentPublisher publisher;
+    // Số lần đánh giá lời giải của các hạt và số lần đánh giá bước di chuyển của VNS
+    private final LongAdder evaluations = new LongAdder();
+    private volatile long vnsEvaluations;
 
     /**
-     * Khởi tạo PSO với các tham số
-     * @param swarmSize Kích thước đàn
-     * @param maxIterations Số vòng lặp tối đa
-     * @param w Trọng số quán tính
-     * @param c1 Hệ số nhận thức
-     * @param c2 Hệ số xã hội
+     * Bản chụp bất biến của vị trí tốt nhất toàn cục
+     * Lời giải bên trong không bao giờ bị thay đổi sau khi bản chụp được công bố
      */
-    public PSO(int swarmSize, int maxIterations, double w, double c1, double c2) {
-        this.swarmSize = swarmSize;
-        this.maxIterations = maxIterations;
-        this.w = w;
-        this.c1 = c1;
-        this.c2 = c2;
-        this.random = new Random();
-        this.swarm = new ArrayList<>();
-        this.vns = new VNS();
+    private static final class BestSnapshot {
+        final Solution solution;
+        final double fitness;
+
+        BestSnapshot(Solution solution) {
+            this.solution = solution;
+            this.fitness = solution.getFitness();
+        }
+    }
+
+    /**
+     * Khởi tạo PSO cho một bài toán, các tham số lấy từ cấu hình của bài toán
+     * @param instance Bài toán cần giải
+     */
+    public PSO(ProblemInstance instance) {
+        SolverConfig config = instance.getConfig();
+        this.instance = instance;
+        this.swarmSize = config.getSwarmSize();
+        this.maxIterations = config.getPsoMaxIterations();
+        this.threadCount = Math.max(1, Math.min(config.getPsoThreads(), swarmSize));
+        this.vnsStarts = Math.max(1, config.getVnsStarts());
+        this.savingsSeeds = (int) Math.max(0, Math.min(swarmSize,
+                Math.round(swarmSize * config.getSavingsSeedFraction())));
+        this.savings = savingsSeeds > 0 ? new ClarkeWright(instance) : null;
+        this.encoding = config.getParticleEncoding();
+        this.splitDecoder = encoding != SolverConfig.ParticleEncoding.ROUTES ? new SplitDecoder(instance) : null;
+        this.w = config.getInertiaWeight();
+        this.c1 = config.getCognitiveCoefficient();
+        this.c2 = config.getSocialCoefficient();
+        this.seed = config.resolveSeed();
+        this.swarm = new Particle[swarmSize];
+        this.vns = new VNS(instance);
+        // Lời giải tốt hơn do VNS tìm thấy được công bố ngay, không chờ VNS kết thúc
+        this.vns.setImprovementListener(solution -> {
+            vnsEvaluations = vns.getMoveEvaluations();
+            offerGlobalBest(solution, true, "VNS");
+        });
+    }
+
+    /**
+     * Khởi động đàn từ một kế hoạch trước (ví dụ trước khi đơn hàng được sửa), phải gọi trước start
+     * Hạt đầu tiên nhận kế hoạch đã điều chỉnh theo đơn hàng hiện tại, các hạt khởi động sau nhận bản
+     * xáo trộn của kế hoạch; các hạt còn lại khởi tạo như bình thường để giữ độ đa dạng
+     * @param previous Lời giải trước, có thể thuộc bài toán khác; null để giải từ đầu
+     */
+    public void setWarmStart(Solution previous) {
+        if (previous == null) {
+            warmStart = null;
+            warmSeeds = 0;
+        } else {
+            warmStart = new Solution(instance);
+            warmStart.adaptFrom(previous);
+            warmSeeds = (int) Math.max(1, Math.min(swarmSize,
+                    Math.round(swarmSize * instance.getConfig().getWarmStartFraction())));
+        }
     }
 
     /**
      * Giải bài toán tìm đường đi tối ưu
-     * @param warehousing Kho hàng
-     * @param require Danh sách mặt hàng cần lấy
-     * @param robots Danh sách robot
      * @return Giải pháp tốt nhất
      */
-    public Solution solve(ArrayList<Merchandise> warehousing, ArrayList<Merchandise> require, ArrayList<Robot> robots) {
-        // Khởi tạo đàn
-        initializeSwarm(warehousing, require, robots);
+    public Solution solve() {
+        return solve(SolveBudget.unlimited()).getSolution();
+    }
 
-        System.out.println("Bắt đầu thuật toán PSO với " + swarmSize + " hạt và " + maxIterations + " vòng lặp");
+    /**
+     * Giải bài toán trong một giới hạn thời gian, có thể hủy từ luồng khác
+     * Giới hạn được kiểm tra trước mỗi vòng lặp, giữa các hạt và trong tìm kiếm cục bộ của VNS;
+     * lời giải tốt nhất tìm được đến lúc dừng luôn được trả về
+     * @param budget Hạn chót và token hủy
+     * @return Kết quả gồm lời giải, lý do dừng và thời gian đã dùng
+     */
+    public SolveResult solve(SolveBudget budget) {
+        SolveResult.StopReason stopReason = SolveResult.StopReason.COMPLETED;
+        if (publisher != null) {
+            publisher.beginSolve();
+        }
+        start(budget);
+        try {
+            // Vòng lặp chính của PSO
+            for (int iteration = 0; iteration < maxIterations; iteration++) {
+                stopReason = budget.stopReason();
+                if (stopReason != SolveResult.StopReason.COMPLETED) {
+                    System.out.println("PSO dừng sớm tại vòng lặp " + iteration + " (" + stopReason + ")");
+                    break;
+                }
+                iterate(iteration);
+            }
+        } finally {
+            shutdown();
+        }
+        return new SolveResult(finish(), stopReason, completedIterations, budget, seed);
+    }
 
-        // Vòng lặp chính của PSO
-        for (int iteration = 0; iteration < maxIterations; iteration++) {
-            // Cập nhật vị trí và vận tốc cho mỗi hạt
-            for (Particle particle : swarm) {
-                updateVelocityAndPosition(particle, warehousing);
+    /**
+     * Tạo các luồng và khởi tạo đàn, không giới hạn thời gian
+     * Sau start phải gọi shutdown để giải phóng nhóm luồng
+     */
+    public void start() {
+        start(SolveBudget.unlimited());
+    }
 
-                // Đặt lại vị trí hiện tại của robot trước khi đánh giá
-                for (Robot robot : particle.getSolution().getRobots()) {
-                    robot.setCurrentPosition(robot.getStartPosition().copy());
-                }
-                DistanceCalculator.setCurrentRobotPosition(particle.getSolution().getRobots().get(0).getStartPosition());
-
-                // Đánh giá độ thích nghi
-                double fitness = evaluateFitness(particle.getSolution(), warehousing);
-                particle.getSolution().setFitness(fitness);
-
-                // Cập nhật vị trí tốt nhất của hạt
-                boolean improved = false;
-                if (fitness < particle.getBestFitness()) {
-                    particle.setBestSolution(new Solution(particle.getSolution()));
-                    particle.setBestFitness(fitness);
-                    improved = true;
-
-                    // Cập nhật vị trí tốt nhất toàn cục nếu cần
-                    if (fitness < globalBest.getBestFitness()) {
-                        globalBest.setBestSolution(new Solution(particle.getSolution()));
-                        globalBest.setBestFitness(fitness);
-                    }
-                }
+    /**
+     * Tạo các luồng và khởi tạo đàn
+     * Việc khởi tạo đàn luôn chạy hết để mọi hạt có lời giải; sau start phải gọi shutdown
+     * @param budget Giới hạn dùng cho các vòng lặp và VNS sau đó
+     */
+    public void start(SolveBudget budget) {
+        this.budget = budget;
+        this.completedIterations = 0;
 
-                // In thông tin nếu có cải thiện đáng kể
-                if (improved && iteration % 5 == 0) {
-                    System.out.println("  Hạt cải thiện: " + fitness + " (giảm " +
-                            String.format("%.2f", (particle.getBestFitness() - fitness)) + " đơn vị)");
-                }
-            }
+        // Mỗi hạt có dãy số ngẫu nhiên riêng tách theo chỉ số hạt, nên kết quả không phụ thuộc số luồng
+        random = new SplittableRandom(seed);
+        particleRandoms = new SplittableRandom[swarmSize];
+        for (int i = 0; i < swarmSize; i++) {
+            particleRandoms[i] = random.split();
+        }
 
-            // Áp dụng VNS để cải thiện giải pháp tốt nhất toàn cục sau mỗi N vòng lặp
-            if (iteration % 5 == 0) {
-                double oldFitness = globalBest.getBestFitness();
-                Solution improvedSolution = vns.improve(globalBest.getBestSolution(), warehousing);
+        // Chia đàn thành các đoạn liên tiếp, mỗi đoạn do một luồng xử lý
+        workers = new ArrayList<>();
+        for (int t = 0; t < threadCount; t++) {
+            workers.add(new SwarmWorker(t * swarmSize / threadCount, (t + 1) * swarmSize / threadCount));
+        }
+        pool = threadCount > 1 ? Executors.newFixedThreadPool(threadCount) : null;
 
-                if (improvedSolution.getFitness() < oldFitness) {
-                    globalBest.setBestSolution(improvedSolution);
-                    globalBest.setBestFitness(improvedSolution.getFitness());
-                    System.out.println("  VNS cải thiện giải pháp: " + improvedSolution.getFitness() +
-                            " (giảm " + String.format("%.2f", (oldFitness - improvedSolution.getFitness())) + " đơn vị)");
-                }
+        // Khởi tạo đàn
+        runWorkers(-1);
+
+        System.out.println("Bắt đầu thuật toán PSO với " + swarmSize + " hạt, " + maxIterations +
+                " vòng lặp và " + threadCount + " luồng (" + (warmSeeds > 0 ? warmSeeds + " hạt khởi động từ kế hoạch trước, " : "") +
+                Math.min(savingsSeeds, swarmSize - warmSeeds) + " hạt khởi tạo bằng Clarke-Wright, mã hóa " + encoding + ", hạt giống " + seed + ")");
+    }
+
+    /**
+     * Thực hiện một vòng lặp của PSO
+     * @param iteration Chỉ số vòng lặp
+     */
+    public void iterate(int iteration) {
+        // Mọi hạt trong vòng lặp dẫn theo cùng một bản chụp (cập nhật đồng bộ), không theo thứ tự thực thi
+        iterationBest = globalBest.get();
+        if (encoding == SolverConfig.ParticleEncoding.RANDOM_KEYS) {
+            refreshGlobalKeys();
+        }
+
+        // Cập nhật vị trí và vận tốc cho mỗi hạt, song song theo từng đoạn của đàn
+        runWorkers(iteration);
+        completedIterations++;
+
+        // Áp dụng VNS để cải thiện giải pháp tốt nhất toàn cục sau mỗi N vòng lặp
+        if (iteration % 5 == 0) {
+            double oldFitness = globalBest.get().fitness;
+            Solution improvedSolution = vnsStarts > 1
+                    ? vns.improveMultiStart(diverseStarts(vnsStarts), budget, random)
+                    : vns.improve(globalBest.get().solution, budget, random);
+
+            vnsEvaluations = vns.getMoveEvaluations();
+            offerGlobalBest(improvedSolution, true, "VNS");
+            if (improvedSolution.getFitness() < oldFitness) {
+                System.out.println("  VNS cải thiện giải pháp: " + improvedSolution.getFitness() +
+                        " (giảm " + String.format("%.2f", (oldFitness - improvedSolution.getFitness())) + " đơn vị)");
             }
+        }
+
+        // In tiến độ
+        if (iteration % 10 == 0) {
+            System.out.println("Vòng lặp " + iteration + ": Quãng đường tốt nhất = " + globalBest.get().fitness);
+        }
+    }
 
-            // In tiến độ
-            if (iteration % 10 == 0) {
-                System.out.println("Vòng lặp " + iteration + ": Quãng đường tốt nhất = " + globalBest.getBestFitness());
+    /**
+     * Giải phóng nhóm luồng cập nhật đàn
+     */
+    public void shutdown() {
+        if (pool != null) {
+            pool.shutdownNow();
+            pool = null;
+        }
+    }
+
+    /**
+     * Kết thúc quá trình giải và trả về lời giải tốt nhất
+     * @return Giải pháp tốt nhất
+     */
+    public Solution finish() {
+        System.out.println("PSO đã hoàn thành. Quãng đường tốt nhất: " + globalBest.get().fitness);
+        System.out.println("  Bảng ghi nhớ chi phí tuyến: " + instance.getRouteCacheHits() + " lần trúng, " +
+                instance.getRouteCacheMisses() + " lần trượt (" +
+                String.format("%.1f", 100 * instance.getRouteCacheHitRate()) + "%)");
+
+        // Tối ưu hóa cuối cùng cho giải pháp tốt nhất (trên bản sao, bản chụp là bất biến)
+        // Chỉ giữ kết quả khi không làm tăng chi phí, vì thứ tự do VNS tìm được thường tốt hơn láng giềng gần nhất
+        Solution bestSolution = new Solution(globalBest.get().solution);
+        optimizeRouteOrders(bestSolution);
+        if (bestSolution.getFitness() > globalBest.get().fitness) {
+            bestSolution.copyFrom(globalBest.get().solution);
+        }
+
+        return bestSolution;
+    }
+
+    /**
+     * Lấy các lời giải tốt nhất cá nhân tốt nhất của đàn (bản sao) để gửi sang đàn khác
+     * @param count Số lời giải cần lấy
+     * @return Danh sách lời giải, tốt nhất trước
+     */
+    public List<Solution> eliteSolutions(int count) {
+        Particle[] sorted = swarm.clone();
+        Arrays.sort(sorted, Comparator.comparingDouble(Particle::getBestFitness));
+        List<Solution> elites = new ArrayList<>();
+        for (int i = 0; i < count && i < sorted.length; i++) {
+            elites.add(new Solution(sorted[i].getBestSolution()));
+        }
+        return elites;
+    }
+
+    /**
+     * Chọn các giải pháp xuất phát khác nhau cho VNS đa khởi đầu: giải pháp tốt nhất toàn cục
+     * và các vị trí tốt nhất cá nhân tốt nhất có chi phí khác nhau (bỏ qua các bản trùng lặp)
+     * Các giải pháp được dùng trực tiếp, không sao chép, vì VNS không thay đổi giải pháp xuất phát
+     * @param count Số giải pháp tối đa
+     * @return Danh sách giải pháp xuất phát
+     */
+    private List<Solution> diverseStarts(int count) {
+        Particle[] sorted = swarm.clone();
+        Arrays.sort(sorted, Comparator.comparingDouble(Particle::getBestFitness));
+
+        List<Solution> starts = new ArrayList<>();
+        Solution best = globalBest.get().solution;
+        starts.add(best);
+        double lastFitness = best.getFitness();
+        for (int i = 0; i < sorted.length && starts.size() < count; i++) {
+            if (sorted[i].getBestFitness() == lastFitness) continue;
+            starts.add(sorted[i].getBestSolution());
+            lastFitness = sorted[i].getBestFitness();
+        }
+        return starts;
+    }
+
+    /**
+     * Nhận một lời giải từ đàn khác: lời giải thay thế hạt có vị trí tốt nhất cá nhân kém nhất
+     * Chỉ được gọi giữa hai vòng lặp, trên luồng điều khiển đàn
+     * @param migrant Lời giải nhận được (không bị thay đổi)
+     */
+    public void immigrate(Solution migrant) {
+        Particle worst = swarm[0];
+        for (Particle particle : swarm) {
+            if (particle.getBestFitness() > worst.getBestFitness()) {
+                worst = particle;
             }
         }
+        if (migrant.getFitness() >= worst.getBestFitness()) return;
+
+        worst.getSolution().copyFrom(migrant);
+        worst.getBestSolution().copyFrom(migrant);
+        worst.setBestFitness(migrant.getFitness());
+        if (worst.getKeys() != null) {
+            rankKeys(migrant, worst.getKeys());
+            rankKeys(migrant, worst.getBestKeys());
+            Arrays.fill(worst.getVelocity(), 0);
+        }
+        offerGlobalBest(migrant, false, "MIGRATION");
+    }
 
-        System.out.println("PSO đã hoàn thành. Quãng đường tốt nhất: " + globalBest.getBestFitness());
+    /**
+     * Đặt publisher nhận mọi lời giải tốt nhất toàn cục mới, ngay khi chúng được công bố
+     * @param publisher Publisher, null để tắt
+     */
+    public void setIncumbentPublisher(IncumbentPublisher publisher) {
+        this.publisher = publisher;
+    }
 
-        // Tối ưu hóa cuối cùng cho giải pháp tốt nhất
-        optimizeRouteOrders(globalBest.getBestSolution(), warehousing);
+    /**
+     * Số lần đánh giá lời giải của các hạt cộng số lần đánh giá bước di chuyển của VNS
+     * @return Số lần đánh giá
+     */
+    public long getEvaluations() {
+        return evaluations.sum() + vnsEvaluations;
+    }
 
-        return globalBest.getBestSolution();
+    /**
+     * Hạt giống ngẫu nhiên của bộ giải, dùng lại trong cấu hình để tái lập kết quả
+     * @return Hạt giống
+     */
+    public long getSeed() {
+        return seed;
     }
 
     /**
-     * Khởi tạo đàn với các hạt ngẫu nhiên
-     * @param warehousing Kho hàng
-     * @param require Danh sách mặt hàng cần lấy
-     * @param robots Danh sách robot
+     * Số vòng lặp đã hoàn thành kể từ lần gọi start gần nhất
+     * @return Số vòng lặp
      */
-    private void initializeSwarm(ArrayList<Merchandise> warehousing, ArrayList<Merchandise> require, ArrayList<Robot> robots) {
-        // Tạo danh sách các robot với vị trí hiện tại được đặt
-        ArrayList<Robot> initializedRobots = new ArrayList<>();
-        for (Robot robot : robots) {
-            Robot newRobot = new Robot(robot.nameRobot, robot.getStartPosition());
-            newRobot.capacity = robot.capacity;
-            initializedRobots.add(newRobot);
+    public int getCompletedIterations() {
+        return completedIterations;
+    }
+
+    /**
+     * Lấy độ thích nghi của vị trí tốt nhất toàn cục
+     * @return Độ thích nghi tốt nhất
+     */
+    public double getBestFitness() {
+        return globalBest.get().fitness;
+    }
+
+    /**
+     * Chạy một pha trên mọi luồng và chờ tất cả hoàn thành (tuần tự khi chỉ có một luồng)
+     * @param iteration Vòng lặp hiện tại, -1 để khởi tạo đàn
+     */
+    private void runWorkers(int iteration) {
+        for (SwarmWorker worker : workers) {
+            worker.iteration = iteration;
+        }
+        if (pool == null) {
+            for (SwarmWorker worker : workers) {
+                worker.call();
+            }
+            return;
         }
 
-        // Tạo các hạt ban đầu
-        for (int i = 0; i < swarmSize; i++) {
-            Particle particle = new Particle();
-
-            // Tạo bản sao mới của danh sách robot cho mỗi giải pháp
-            ArrayList<Robot> particleRobots = new ArrayList<>();
-            for (Robot robot : initializedRobots) {
-                Robot robotCopy = new Robot(robot.nameRobot, robot.getStartPosition());
-                robotCopy.capacity = robot.capacity;
-                particleRobots.add(robotCopy);
+        try {
+            for (Future<Void> future : pool.invokeAll(workers)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("PSO bị ngắt khi đang cập nhật đàn", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Lỗi khi cập nhật đàn song song", e.getCause());
+        }
+    }
+
+    /**
+     * Đề xuất một lời giải làm vị trí tốt nhất toàn cục
+     * Bản chụp mới chỉ được công bố nếu tốt hơn bản chụp hiện tại; nếu luồng khác công bố trước
+     * thì so sánh lại với bản chụp mới nhất
+     * @param solution Lời giải đề xuất
+     * @param owned true nếu lời giải không còn bị thay đổi sau lời gọi (không cần sao chép)
+     * @param source Thành phần tìm ra lời giải, dùng cho sự kiện phát ra
+     * @return true nếu lời giải trở thành vị trí tốt nhất toàn cục
+     */
+    private boolean offerGlobalBest(Solution solution, boolean owned, String source) {
+        double fitness = solution.getFitness();
+        BestSnapshot candidate = null;
+        while (true) {
+            BestSnapshot current = globalBest.get();
+            // Khi bằng fitness, thứ tự toàn phần của lời giải quyết định để kết quả không phụ thuộc thứ tự đến
+            if (current != null && (fitness > current.fitness
+                    || (fitness == current.fitness && solution.compareRoutes(current.solution) >= 0))) {
+                return false;
+            }
+            if (candidate == null) {
+                candidate = new BestSnapshot(owned ? solution : new Solution(solution));
             }
+            if (globalBest.compareAndSet(current, candidate)) {
+                // Phát bản chụp bất biến, việc giao cho bên nhận diễn ra trên luồng khác
+                if (publisher != null) {
+                    publisher.publish(candidate.solution, evaluations.sum() + vnsEvaluations,
+                            budget.elapsedMillis(), source);
+                }
+                return true;
+            }
+        }
+    }
 
-            // Khởi tạo với một giải pháp ngẫu nhiên
-            Solution solution = new Solution(particleRobots);
-            solution.initializeRandomSolution(require);
+    /**
+     * Một đoạn liên tiếp [from, to) của đàn; mỗi hạt dùng bộ sinh số ngẫu nhiên riêng của nó
+     */
+    private final class SwarmWorker implements Callable<Void> {
+        private final int from;
+        private final int to;
+        // Bộ đệm sắp xếp khóa và hoán vị giải mã của mã hóa khóa ngẫu nhiên (null với mã hóa khác)
+        private final long[] sortedKeys;
+        private final int[] tour;
+        private int iteration;
+
+        SwarmWorker(int from, int to) {
+            this.from = from;
+            this.to = to;
+            boolean randomKeys = encoding == SolverConfig.ParticleEncoding.RANDOM_KEYS;
+            this.sortedKeys = randomKeys ? new long[instance.getRequire().size()] : null;
+            this.tour = randomKeys ? new int[instance.getRequire().size()] : null;
+        }
 
-            // Đặt vị trí hiện tại của tất cả robot về vị trí xuất phát
-            for (Robot robot : solution.getRobots()) {
-                robot.setCurrentPosition(robot.getStartPosition().copy());
+        @Override
+        public Void call() {
+            for (int i = from; i < to; i++) {
+                if (iteration < 0) {
+                    initializeParticle(i, particleRandoms[i]);
+                } else if (budget.isExhausted()) {
+                    // Hết giới hạn: các hạt còn lại giữ nguyên vị trí
+                    break;
+                } else {
+                    updateParticle(swarm[i], iteration, particleRandoms[i], this);
+                }
             }
+            return null;
+        }
+    }
 
-            // Đặt vị trí hiện tại cho DistanceCalculator
-            if (!solution.getRobots().isEmpty()) {
-                DistanceCalculator.setCurrentRobotPosition(solution.getRobots().get(0).getStartPosition());
+    /**
+     * Khởi tạo một hạt từ kế hoạch trước (warmSeeds hạt đầu tiên), bằng Clarke-Wright (savingsSeeds hạt
+     * tiếp theo) hoặc bằng giải pháp ngẫu nhiên
+     * @param index Vị trí của hạt trong đàn
+     * @param random Bộ sinh số ngẫu nhiên của hạt
+     */
+    private void initializeParticle(int index, RandomGenerator random) {
+        Particle particle = new Particle();
+
+        Solution solution = new Solution(instance);
+        int savingsIndex = index - warmSeeds;
+        if (index < warmSeeds) {
+            solution.copyFrom(warmStart);
+            if (index > 0) {
+                perturb(solution, random);
+            }
+        } else if (savingsIndex < savingsSeeds) {
+            // Hạt đầu tiên dùng phiên bản tất định, các hạt sau dùng phiên bản ngẫu nhiên hóa
+            savings.construct(solution, savingsIndex == 0 ? null : random);
+
+            // Thứ tự Clarke-Wright thường đã tốt, chỉ giữ thứ tự tối ưu lại khi không làm tăng chi phí
+            Solution reordered = new Solution(solution);
+            optimizeRouteOrders(reordered);
+            if (reordered.getFitness() <= solution.getFitness()) {
+                solution = reordered;
+            }
+        } else {
+            // Khởi tạo với một giải pháp ngẫu nhiên rồi tối ưu hóa thứ tự trong mỗi tuyến đường
+            solution.initializeRandomSolution(random);
+            optimizeRouteOrders(solution);
+        }
+        if (splitDecoder != null) {
+            // Cách chia hiện tại là một cách chia của hoán vị nên chia tối ưu không làm tăng chi phí
+            splitDecoder.decode(solution);
+        }
+        if (encoding == SolverConfig.ParticleEncoding.RANDOM_KEYS) {
+            // Khóa ban đầu theo thứ hạng trong hoán vị, vận tốc ngẫu nhiên trong giới hạn
+            double[] keys = new double[solution.getItemCount()];
+            double[] velocity = new double[keys.length];
+            rankKeys(solution, keys);
+            for (int i = 0; i < velocity.length; i++) {
+                velocity[i] = (2 * random.nextDouble() - 1) * KEY_VELOCITY_LIMIT;
             }
+            particle.setKeys(keys, velocity, keys.clone());
+        } else if (encoding == SolverConfig.ParticleEncoding.GIANT_TOUR) {
+            particle.setTourBuffers(new int[solution.getItemCount()], new int[solution.getItemCount()]);
+        }
 
-            // Tối ưu hóa thứ tự trong mỗi tuyến đường
-            optimizeRouteOrders(solution, warehousing);
+        particle.setSolution(solution);
+        particle.setBestSolution(new Solution(solution));
+        particle.setBestFitness(solution.getFitness());
+        swarm[index] = particle;
 
-            // Đánh giá độ thích nghi ban đầu
-            double fitness = evaluateFitness(solution, warehousing);
-            solution.setFitness(fitness);
+        // Cập nhật vị trí tốt nhất toàn cục nếu cần
+        evaluations.increment();
+        offerGlobalBest(solution, false, "PSO");
+    }
 
-            particle.setSolution(solution);
-            particle.setBestSolution(new Solution(solution));
-            particle.setBestFitness(fitness);
+    /**
+     * Cập nhật vị trí, vận tốc và vị trí tốt nhất của một hạt
+     * @param particle Hạt cần cập nhật
+     * @param iteration Vòng lặp hiện tại
+     * @param random Bộ sinh số ngẫu nhiên của hạt
+     * @param worker Luồng đang xử lý (bộ đệm riêng)
+     */
+    private void updateParticle(Particle particle, int iteration, RandomGenerator random, SwarmWorker worker) {
+        switch (encoding) {
+            case GIANT_TOUR:
+                updateGiantTour(particle, random);
+                break;
+            case RANDOM_KEYS:
+                updateRandomKeys(particle, random, worker);
+                break;
+            default:
+                updateVelocityAndPosition(particle, random);
+        }
+        evaluations.increment();
 
-            swarm.add(particle);
+        // Độ thích nghi được cập nhật dần theo từng thao tác trên lời giải
+        double fitness = particle.getSolution().getFitness();
 
-            // Khởi tạo vị trí tốt nhất toàn cục với hạt đầu tiên
-            if (i == 0) {
-                globalBest = new Particle();
-                globalBest.setBestSolution(new Solution(solution));
-                globalBest.setBestFitness(fitness);
-            } else if (fitness < globalBest.getBestFitness()) {
-                globalBest.setBestSolution(new Solution(solution));
-                globalBest.setBestFitness(fitness);
+        // Cập nhật vị trí tốt nhất của hạt
+        boolean improved = false;
+        if (fitness < particle.getBestFitness()) {
+            particle.getBestSolution().copyFrom(particle.getSolution());
+            particle.setBestFitness(fitness);
+            if (particle.getKeys() != null) {
+                System.arraycopy(particle.getKeys(), 0, particle.getBestKeys(), 0, particle.getKeys().length);
             }
+            improved = true;
+
+            // Cập nhật vị trí tốt nhất toàn cục nếu cần
+            offerGlobalBest(particle.getSolution(), false, "PSO");
+        }
+
+        // In thông tin nếu có cải thiện đáng kể
+        if (improved && iteration % 5 == 0) {
+            System.out.println("  Hạt cải thiện: " + fitness + " (giảm " +
+                    String.format("%.2f", (particle.getBestFitness() - fitness)) + " đơn vị)");
+        }
+    }
+
+    /**
+     * Xáo trộn một kế hoạch bằng cách chuyển ngẫu nhiên từ 1 đến WARM_START_PERTURBATION số mặt hàng
+     * đến vị trí ngẫu nhiên, để các hạt khởi động quanh kế hoạch trước mà không trùng nhau
+     * @param solution Kế hoạch cần xáo trộn
+     * @param random Bộ sinh số ngẫu nhiên của hạt
+     */
+    private void perturb(Solution solution, RandomGenerator random) {
+        int itemCount = solution.getItemCount();
+        if (itemCount == 0) return;
+        int moves = 1 + random.nextInt(Math.max(1, (int) (itemCount * WARM_START_PERTURBATION)));
+        for (int k = 0; k < moves; k++) {
+            int item = random.nextInt(itemCount);
+            int fromRoute = solution.routeOf(item);
+            int fromIndex = solution.positionOf(item) - solution.routeStart(fromRoute);
+            int toRoute = random.nextInt(solution.getRouteCount());
+            int positions = solution.routeSize(toRoute) - (toRoute == fromRoute ? 1 : 0);
+            solution.relocate(fromRoute, fromIndex, toRoute, random.nextInt(positions + 1));
         }
     }
 
     /**
      * Tối ưu hóa thứ tự các mặt hàng trong tất cả các tuyến đường robot
      * @param solution Giải pháp cần tối ưu hóa
-     * @param warehousing Kho hàng
      */
-    private void optimizeRouteOrders(Solution solution, ArrayList<Merchandise> warehousing) {
-        for (int i = 0; i < solution.getRobotRoutes().size(); i++) {
-            if (!solution.getRobotRoutes().get(i).isEmpty()) {
-                // Đặt vị trí hiện tại của robot về vị trí xuất phát
-                Robot robot = solution.getRobots().get(i);
-                robot.setCurrentPosition(robot.getStartPosition().copy());
-                DistanceCalculator.setCurrentRobotPosition(robot.getStartPosition());
-
+    private void optimizeRouteOrders(Solution solution) {
+        for (int i = 0; i < solution.getRouteCount(); i++) {
+            if (solution.routeSize(i) > 1) {
                 // Tối ưu thứ tự bằng phương pháp người láng giềng gần nhất
-                solution.optimizeRouteOrder(i, warehousing);
+                solution.optimizeRouteOrder(i);
             }
         }
-
-        // Cập nhật lại fitness
-        double newFitness = evaluateFitness(solution, warehousing);
-        solution.setFitness(newFitness);
     }
 
     /**
      * Cập nhật vận tốc và vị trí cho một hạt
+     * Mặt hàng lấy từ vị trí tốt nhất cá nhân / toàn cục được chuyển (không sao chép) vào tuyến
+     * đang xét, nên mỗi mặt hàng luôn nằm trong đúng một tuyến
      * @param particle Hạt cần cập nhật
-     * @param warehousing Kho hàng
+     * @param random Bộ sinh số ngẫu nhiên của hạt
      */
-    private void updateVelocityAndPosition(Particle particle, ArrayList<Merchandise> warehousing) {
+    private void updateVelocityAndPosition(Particle particle, RandomGenerator random) {
         Solution currentSolution = particle.getSolution();
         Solution personalBest = particle.getBestSolution();
-        Solution globalBestSolution = globalBest.getBestSolution();
-
-        // Tạo danh sách tạm thời các tuyến đường mới
-        ArrayList<ArrayList<Merchandise>> newRoutes = new ArrayList<>();
-        for (int i = 0; i < currentSolution.getRobotRoutes().size(); i++) {
-            ArrayList<Merchandise> currentRoute = currentSolution.getRobotRoutes().get(i);
-            ArrayList<Merchandise> newRoute = new ArrayList<>(currentRoute);
-            newRoutes.add(newRoute);
-        }
+        // Bản chụp của vòng lặp, lời giải bên trong không bị thay đổi nên dùng được không cần khóa
+        Solution globalBestSolution = iterationBest.solution;
 
         // Cho mỗi tuyến đường của robot trong giải pháp
-        for (int i = 0; i < newRoutes.size(); i++) {
-            ArrayList<Merchandise> currentRoute = newRoutes.get(i);
-
+        for (int i = 0; i < currentSolution.getRouteCount(); i++) {
             // Áp dụng các phép toán PSO để điều chỉnh tuyến đường
             // Với xác suất dựa trên w, giữ một số mặt hàng ở vị trí hiện tại
-            for (int j = 0; j < currentRoute.size(); j++) {
+            for (int j = 0; j < currentSolution.routeSize(i); j++) {
                 if (random.nextDouble() > w) {
                     // Với xác suất dựa trên c1, kết hợp thông tin từ vị trí tốt nhất cá nhân
-                    if (random.nextDouble() < c1 && i < personalBest.getRobotRoutes().size()) {
-                        ArrayList<Merchandise> personalBestRoute = personalBest.getRobotRoutes().get(i);
-                        if (!personalBestRoute.isEmpty()) {
-                            // Lấy một mặt hàng ngẫu nhiên từ vị trí tốt nhất cá nhân
-                            int randomIndex = random.nextInt(personalBestRoute.size());
-                            Merchandise itemFromPersonalBest = personalBestRoute.get(randomIndex);
-
-                            if (!containsMerchandise(currentRoute, itemFromPersonalBest)) {
-                                // Chèn mặt hàng vào vị trí ngẫu nhiên
-                                int insertPos = random.nextInt(currentRoute.size() + 1);
-                                if (insertPos < currentRoute.size()) {
-                                    currentRoute.add(insertPos, itemFromPersonalBest);
-                                } else {
-                                    currentRoute.add(itemFromPersonalBest);
-                                }
-                            }
-                        }
+                    if (random.nextDouble() < c1) {
+                        pullItem(currentSolution, personalBest, i, random);
                     }
 
                     // Với xác suất dựa trên c2, kết hợp thông tin từ vị trí tốt nhất toàn cục
-                    if (random.nextDouble() < c2 && i < globalBestSolution.getRobotRoutes().size()) {
-                        ArrayList<Merchandise> globalBestRoute = globalBestSolution.getRobotRoutes().get(i);
-                        if (!globalBestRoute.isEmpty()) {
-                            // Lấy một mặt hàng ngẫu nhiên từ vị trí tốt nhất toàn cục
-                            int randomIndex = random.nextInt(globalBestRoute.size());
-                            Merchandise itemFromGlobalBest = globalBestRoute.get(randomIndex);
-
-                            if (!containsMerchandise(currentRoute, itemFromGlobalBest)) {
-                                // Chèn mặt hàng vào vị trí ngẫu nhiên
-                                int insertPos = random.nextInt(currentRoute.size() + 1);
-                                if (insertPos < currentRoute.size()) {
-                                    currentRoute.add(insertPos, itemFromGlobalBest);
-                                } else {
-                                    currentRoute.add(itemFromGlobalBest);
-                                }
-                            }
-                        }
+                    if (random.nextDouble() < c2) {
+                        pullItem(currentSolution, globalBestSolution, i, random);
                     }
                 }
             }
-
-            // Đảm bảo ràng buộc về sức chứa
-            enforceCapacityConstraints(currentRoute, currentSolution.getRobots().get(i).capacity);
         }
 
-        // Cập nhật tuyến đường của giải pháp hiện tại
-        for (int i = 0; i < newRoutes.size(); i++) {
-            currentSolution.getRobotRoutes().set(i, newRoutes.get(i));
-        }
-
-        // Đảm bảo tất cả các mặt hàng yêu cầu đều được phân bổ
-        ensureAllItemsAllocated(currentSolution, globalBestSolution.getAllRequiredItems());
+        // Đảm bảo ràng buộc về sức chứa
+        currentSolution.repairCapacity();
 
         // Tối ưu hóa thứ tự các mặt hàng trong các tuyến đường sau khi cập nhật
         // Chỉ tối ưu thỉnh thoảng để tăng hiệu suất
         if (random.nextDouble() < 0.3) {
-            optimizeRouteOrders(currentSolution, warehousing);
+            optimizeRouteOrders(currentSolution);
         }
     }
 
     /**
-     * Kiểm tra xem danh sách đã chứa mặt hàng tương tự chưa
-     * @param list Danh sách cần kiểm tra
-     * @param item Mặt hàng cần tìm
-     * @return true nếu đã có mặt hàng tương tự, false nếu chưa
+     * Cập nhật vị trí của hạt mã hóa bằng hoán vị toàn bộ mặt hàng
+     * Tại mỗi vị trí, mặt hàng của lời giải dẫn đường ở cùng vị trí được hoán đổi vào; hoán vị mới
+     * được chia tối ưu thành các tuyến nên luôn thỏa sức chứa khi có thể, không cần bước sửa
+     * @param particle Hạt cần cập nhật
+     * @param random Bộ sinh số ngẫu nhiên của hạt
      */
-    private boolean containsMerchandise(ArrayList<Merchandise> list, Merchandise item) {
-        for (Merchandise m : list) {
-            if (m.getName().equals(item.getName()) && m.getQuantity() == item.getQuantity()) {
-                return true;
-            }
+    private void updateGiantTour(Particle particle, RandomGenerator random) {
+        Solution currentSolution = particle.getSolution();
+        Solution personalBest = particle.getBestSolution();
+        Solution globalBestSolution = iterationBest.solution;
+
+        // Bộ đệm riêng của hạt, được ghi đè hoàn toàn nên không cần xóa
+        int n = currentSolution.getItemCount();
+        int[] tour = particle.getTour();
+        int[] position = particle.getTourPositions();
+        for (int p = 0; p < n; p++) {
+            tour[p] = currentSolution.tourItem(p);
+            position[tour[p]] = p;
         }
-        return false;
-    }
 
-    /**
-     * Đảm bảo ràng buộc về sức chứa
-     * @param route Tuyến đường cần kiểm tra
-     * @param capacity Sức chứa của robot
-     */
-    private void enforceCapacityConstraints(ArrayList<Merchandise> route, int capacity) {
-        // Thực thi đơn giản: xóa các mặt hàng từ cuối nếu vượt quá sức chứa
-        int totalQuantity = 0;
-        for (Merchandise item : route) {
-            totalQuantity += item.getQuantity();
+        for (int p = 0; p < n; p++) {
+            if (random.nextDouble() > w) {
+                if (random.nextDouble() < c1) {
+                    pullPosition(tour, position, personalBest, p);
+                }
+                if (random.nextDouble() < c2) {
+                    pullPosition(tour, position, globalBestSolution, p);
+                }
+            }
         }
+        splitDecoder.decode(tour, currentSolution);
 
-        while (totalQuantity > capacity && !route.isEmpty()) {
-            Merchandise removedItem = route.remove(route.size() - 1);
-            totalQuantity -= removedItem.getQuantity();
+        // Tối ưu thứ tự trong tuyến thỉnh thoảng như mã hóa theo tuyến
+        if (random.nextDouble() < 0.3) {
+            optimizeRouteOrders(currentSolution);
         }
     }
 
     /**
-     * Đảm bảo tất cả các mặt hàng yêu cầu đều được phân bổ
-     * @param solution Giải pháp cần kiểm tra
-     * @param allRequiredItems Danh sách tất cả các mặt hàng yêu cầu
+     * Cập nhật hạt mã hóa khóa ngẫu nhiên bằng phương trình PSO chuẩn trên vector thực
+     * v = w * v + c1 * r1 * (pBest - x) + c2 * r2 * (gBest - x), x = x + v
+     * r1, r2 được rút một lần cho mỗi hạt nên vòng lặp chỉ gồm phép toán trên mảng nguyên thủy, không rẽ
+     * nhánh và không cấp phát (JIT có thể vector hóa). Sắp xếp khóa cho hoán vị, hoán vị được chia tối ưu
+     * thành các tuyến; sau khi tối ưu thứ tự, các khóa đã sắp xếp được gán lại theo thứ tự mới
+     * để vị trí luôn giải mã đúng thành lời giải của hạt
+     * @param particle Hạt cần cập nhật
+     * @param random Bộ sinh số ngẫu nhiên của hạt
+     * @param worker Luồng đang xử lý
      */
-    private void ensureAllItemsAllocated(Solution solution, ArrayList<Merchandise> allRequiredItems) {
-        // Kiểm tra mặt hàng nào đang thiếu trong giải pháp hiện tại
-        ArrayList<Merchandise> allocatedItems = new ArrayList<>();
-        for (ArrayList<Merchandise> route : solution.getRobotRoutes()) {
-            allocatedItems.addAll(route);
+    private void updateRandomKeys(Particle particle, RandomGenerator random, SwarmWorker worker) {
+        double[] x = particle.getKeys();
+        double[] v = particle.getVelocity();
+        double[] personal = particle.getBestKeys();
+        double[] global = globalKeys;
+        int n = x.length;
+
+        double a = c1 * random.nextDouble();
+        double b = c2 * random.nextDouble();
+        for (int i = 0; i < n; i++) {
+            double velocity = w * v[i] + a * (personal[i] - x[i]) + b * (global[i] - x[i]);
+            velocity = Math.max(-KEY_VELOCITY_LIMIT, Math.min(KEY_VELOCITY_LIMIT, velocity));
+            v[i] = velocity;
+            x[i] = Math.max(0.0, Math.min(1.0, x[i] + velocity));
         }
 
-        ArrayList<Merchandise> missingItems = new ArrayList<>();
-        for (Merchandise required : allRequiredItems) {
-            boolean found = false;
-            for (Merchandise allocated : allocatedItems) {
-                if (allocated.getName().equals(required.getName()) &&
-                        allocated.getQuantity() == required.getQuantity()) {
-                    found = true;
-                    break;
-                }
-            }
-            if (!found) {
-                missingItems.add(required);
-            }
+        // Sắp xếp khóa: bit thấp của khóa (không âm nên thứ tự bit trùng thứ tự giá trị) chứa chỉ số mặt hàng
+        long indexMask = (1L << (32 - Integer.numberOfLeadingZeros(Math.max(1, n - 1)))) - 1;
+        long[] sorted = worker.sortedKeys;
+        for (int i = 0; i < n; i++) {
+            sorted[i] = (Double.doubleToRawLongBits(x[i]) & ~indexMask) | i;
+        }
+        Arrays.sort(sorted);
+        int[] tour = worker.tour;
+        for (int p = 0; p < n; p++) {
+            tour[p] = (int) (sorted[p] & indexMask);
         }
 
-        // Phân bổ các mặt hàng còn thiếu cho robot có sức chứa còn trống
-        for (Merchandise missing : missingItems) {
-            boolean allocated = false;
-            for (int i = 0; i < solution.getRobots().size(); i++) {
-                Robot robot = solution.getRobots().get(i);
-                ArrayList<Merchandise> route = solution.getRobotRoutes().get(i);
-
-                int currentLoad = 0;
-                for (Merchandise item : route) {
-                    currentLoad += item.getQuantity();
-                }
-
-                if (currentLoad + missing.getQuantity() <= robot.capacity) {
-                    route.add(missing);
-                    allocated = true;
-                    break;
-                }
-            }
-
-            // Nếu tất cả robot đều đã đạt sức chứa tối đa, thử tạo không gian bằng cách xóa các mặt hàng ít quan trọng hơn
-            if (!allocated) {
-                // Tìm robot có mặt hàng ít quan trọng nhất
-                int robotIndex = findRobotWithLeastImportantItem(solution);
-                if (robotIndex >= 0) {
-                    ArrayList<Merchandise> route = solution.getRobotRoutes().get(robotIndex);
-                    // Xóa mặt hàng ít quan trọng nhất
-                    if (!route.isEmpty()) {
-                        route.remove(route.size() - 1);
-                        // Thêm mặt hàng còn thiếu
-                        route.add(missing);
-                    }
-                }
+        Solution currentSolution = particle.getSolution();
+        splitDecoder.decode(tour, currentSolution);
+        if (random.nextDouble() < 0.3) {
+            optimizeRouteOrders(currentSolution);
+            for (int p = 0; p < n; p++) {
+                x[currentSolution.tourItem(p)] = Double.longBitsToDouble(sorted[p] & ~indexMask);
             }
         }
     }
 
     /**
-     * Tìm robot có mặt hàng ít quan trọng nhất
-     * @param solution Giải pháp chứa các tuyến đường robot
-     * @return Chỉ số của robot
+     * Làm mới khóa của vị trí tốt nhất toàn cục nếu bản chụp đã thay đổi
+     * Chỉ gọi trên luồng điều khiển giữa hai vòng lặp nên các luồng cập nhật đọc mảng mà không cần khóa
      */
-    private int findRobotWithLeastImportantItem(Solution solution) {
-        int maxItems = -1;
-        int robotIndex = -1;
-
-        for (int i = 0; i < solution.getRobotRoutes().size(); i++) {
-            ArrayList<Merchandise> route = solution.getRobotRoutes().get(i);
-            if (!route.isEmpty() && route.size() > maxItems) {
-                maxItems = route.size();
-                robotIndex = i;
-            }
+    private void refreshGlobalKeys() {
+        BestSnapshot snapshot = globalBest.get();
+        if (snapshot == globalKeysSnapshot) return;
+        if (globalKeys == null) {
+            globalKeys = new double[snapshot.solution.getItemCount()];
         }
-
-        return robotIndex;
+        rankKeys(snapshot.solution, globalKeys);
+        globalKeysSnapshot = snapshot;
     }
 
     /**
-     * Đánh giá độ thích nghi (chi phí quãng đường) của một giải pháp
-     * @param solution Giải pháp cần đánh giá
-     * @param warehousing Kho hàng
-     * @return Tổng chi phí quãng đường
+     * Mã hóa thứ tự các mặt hàng của một lời giải thành khóa: mặt hàng ở vị trí p có khóa (p + 0.5) / n
+     * @param solution Lời giải
+     * @param keys Mảng khóa nhận kết quả, theo chỉ số mặt hàng
      */
-    private double evaluateFitness(Solution solution, ArrayList<Merchandise> warehousing) {
-        double totalDistance = 0;
-
-        for (int i = 0; i < solution.getRobotRoutes().size(); i++) {
-            ArrayList<Merchandise> route = solution.getRobotRoutes().get(i);
-            if (route.isEmpty()) continue;
-
-            Robot robot = solution.getRobots().get(i);
-            Position startPosition = robot.getStartPosition();
-
-            // Đặt vị trí hiện tại của robot về vị trí xuất phát
-            robot.setCurrentPosition(startPosition.copy());
-            DistanceCalculator.setCurrentRobotPosition(startPosition);
-
-            for (Merchandise merchandise : route) {
-                // Tìm mặt hàng trong kho
-                Merchandise warehouseItem = findMerchandiseInWarehouse(merchandise, warehousing);
-                if (warehouseItem != null) {
-                    // Tính khoảng cách từ vị trí hiện tại đến mặt hàng này
-                    float distance = DistanceCalculator.calculateDistance(
-                            robot.getCurrentPosition(),
-                            warehouseItem.getPosition()
-                    );
-                    totalDistance += distance;
-
-                    // Lấy vị trí hiện tại từ DistanceCalculator sau khi tính khoảng cách
-                    robot.setCurrentPosition(DistanceCalculator.getCurrentRobotPosition());
-                }
-            }
-
-            // Quay lại vị trí xuất phát
-            float returnDistance = DistanceCalculator.calculateDistance(
-                    robot.getCurrentPosition(),
-                    startPosition
-            );
-            totalDistance += returnDistance;
+    private static void rankKeys(Solution solution, double[] keys) {
+        int n = solution.getItemCount();
+        for (int p = 0; p < n; p++) {
+            keys[solution.tourItem(p)] = (p + 0.5) / n;
         }
+    }
 
-        return totalDistance;
+    /**
+     * Hoán đổi để vị trí p của hoán vị chứa cùng mặt hàng với lời giải dẫn đường
+     * @param tour Hoán vị hiện tại
+     * @param position Vị trí của từng mặt hàng trong hoán vị
+     * @param guide Lời giải dẫn đường
+     * @param p Vị trí cần kéo
+     */
+    private static void pullPosition(int[] tour, int[] position, Solution guide, int p) {
+        int item = guide.tourItem(p);
+        int q = position[item];
+        if (q == p) return;
+        int other = tour[p];
+        tour[p] = item;
+        tour[q] = other;
+        position[item] = p;
+        position[other] = q;
     }
 
     /**
-     * Tìm mặt hàng trong kho dựa trên tên
-     * @param merchandise Mặt hàng cần tìm
-     * @param warehousing Kho hàng
-     * @return Mặt hàng tìm thấy hoặc null nếu không tìm thấy
+     * Lấy một mặt hàng ngẫu nhiên trong tuyến route của lời giải dẫn đường và chuyển nó
+     * vào vị trí ngẫu nhiên của cùng tuyến trong lời giải hiện tại
+     * @param current Lời giải hiện tại
+     * @param guide Lời giải dẫn đường (tốt nhất cá nhân hoặc toàn cục)
+     * @param route Chỉ số tuyến
+     * @param random Bộ sinh số ngẫu nhiên của hạt
      */
-    private Merchandise findMerchandiseInWarehouse(Merchandise merchandise, ArrayList<Merchandise> warehousing) {
-        for (Merchandise item : warehousing) {
-            if (item.getName().equals(merchandise.getName())) {
-                return item;
-            }
-        }
-        return null;
+    private void pullItem(Solution current, Solution guide, int route, RandomGenerator random) {
+        int guideSize = guide.routeSize(route);
+        if (guideSize == 0) return;
+
+        // Lấy một mặt hàng ngẫu nhiên từ lời giải dẫn đường
+        int item = guide.itemAt(route, random.nextInt(guideSize));
+        int fromRoute = current.routeOf(item);
+        if (fromRoute == route) return;
+
+        // Chèn mặt hàng vào vị trí ngẫu nhiên
+        int fromIndex = current.positionOf(item) - current.routeStart(fromRoute);
+        int insertPos = random.nextInt(current.routeSize(route) + 1);
+        current.relocate(fromRoute, fromIndex, route, insertPos);
     }
-}
\ No newline at end of file
+}
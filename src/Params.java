@@ -1,6 +1,4 @@
-import java.io.BufferedReader;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
 
@@ -27,8 +25,10 @@ public class Params {
     static ArrayList<Merchandise> WAREHOUSE;
     // Danh sách mặt hàng cần lấy
     static ArrayList<Merchandise> REQUIRE;
-    // Bản đồ kho hàng
+    // Bản đồ kho hàng (null nếu bản đồ được đọc từ file nén MAP_FILE)
     static int[][] WAREHOUSE_MAP;
+    // Bản đồ kho hàng dạng bitset dùng chung cho mọi thành phần
+    private static WarehouseMap warehouseMap;
 
     /**
      * Tham số cho thuật toán PSO
@@ -43,6 +43,39 @@ public class Params {
     static double PSO_COGNITIVE_COEFFICIENT = 1.5;
     // Hệ số xã hội
     static double PSO_SOCIAL_COEFFICIENT = 1.5;
+    // Số luồng cập nhật và đánh giá các hạt song song (1 = chạy tuần tự)
+    static int PSO_THREADS = 1;
+    // Số đàn (đảo) chạy song song trên các luồng riêng (1 = một đàn duy nhất)
+    static int PSO_ISLANDS = 1;
+    // Số vòng lặp giữa hai lần trao đổi lời giải giữa các đảo
+    static int PSO_MIGRATION_INTERVAL = 10;
+    // Số lời giải tốt nhất mỗi đảo gửi đi trong một lần trao đổi
+    static int PSO_MIGRATION_SIZE = 2;
+    // Cách chọn đảo nhận lời giải
+    static SolverConfig.MigrationTopology PSO_MIGRATION_TOPOLOGY = SolverConfig.MigrationTopology.RING;
+    // Đảo chờ bản chụp của kỳ trước khi đảo nguồn chậm hơn (true = tái lập được với cùng hạt giống,
+    // false = không bao giờ chờ, dùng bản chụp mới nhất đã có hoặc bỏ qua lần trao đổi)
+    static boolean PSO_MIGRATION_WAIT = false;
+    // Tỉ lệ hạt được khởi tạo bằng thuật toán tiết kiệm Clarke-Wright (hạt đầu tiên tất định, các hạt sau ngẫu nhiên hóa)
+    static double PSO_SAVINGS_SEED_FRACTION = 0.2;
+    // Tỉ lệ hạt được khởi tạo từ kế hoạch trước khi giải lại (hạt đầu tiên giữ nguyên, các hạt sau bị xáo trộn)
+    static double PSO_WARM_START_FRACTION = 0.5;
+    // Cách mã hóa vị trí của hạt (tuyến của từng robot hoặc hoán vị toàn bộ mặt hàng)
+    static SolverConfig.ParticleEncoding PSO_PARTICLE_ENCODING = SolverConfig.ParticleEncoding.ROUTES;
+    // Hạt giống ngẫu nhiên của bộ giải; cùng hạt giống cho cùng kết quả với mọi số luồng (0 = chọn mới mỗi lần giải)
+    static long RANDOM_SEED = 0L;
+
+    /**
+     * Tham số gom lô đơn hàng
+     */
+    // Số luồng giải định tuyến các lô đơn hàng song song
+    static int BATCH_THREADS = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Tham số chế độ trực tuyến
+     */
+    // Thời gian tối đa của một lượt VNS chạy nền trên kế hoạch chưa giao (mili giây)
+    static long ONLINE_PASS_MILLIS = 50;
 
     /**
      * Tham số cho thuật toán VNS
@@ -51,178 +84,105 @@ public class Params {
     static int VNS_MAX_ITERATIONS = 30;
     // Số lượng lân cận tối đa
     static int VNS_MAX_NEIGHBORHOODS = 3;
+    // Số láng giềng gần nhất của mỗi mặt hàng khi tìm kiếm cục bộ
+    static int VNS_GRANULAR_NEIGHBORS = 8;
+    // Độ dài đoạn tối đa của lân cận Or-opt
+    static int VNS_OR_OPT_MAX_LENGTH = 3;
+    // Số giải pháp xuất phát khác nhau của VNS chạy song song (1 = chỉ giải pháp tốt nhất toàn cục)
+    static int VNS_STARTS = 1;
+    // In tiến trình của VNS (giải pháp ban đầu, từng lần cải thiện, kết quả) ra màn hình
+    static boolean VNS_VERBOSE = false;
 
     /**
-     * Đọc tham số từ file
+     * Tham số sắp xếp tuyến
      */
-    public static void ReadParams() {
-        String pathname = "src/resources/data_test_small.txt";
-        ArrayList<Merchandise> warehouse = new ArrayList<>();
-        ArrayList<Merchandise> require = new ArrayList<>();
-        try (BufferedReader br = new BufferedReader(new FileReader(pathname))) {
-            String line;
-            String name;
-            int quantity;
+    // Tuyến có không quá số mặt hàng này được sắp xếp tối ưu bằng Held-Karp, dài hơn thì dùng láng giềng gần nhất
+    static int EXACT_SEQUENCING_LIMIT = 8;
+    // Số ô của bảng ghi nhớ chi phí tuyến theo khóa Zobrist (mỗi luồng một bảng, 0 = tắt)
+    static int ROUTE_CACHE_SIZE = 1 << 15;
 
-            // Đọc dòng đầu tiên chứa các tham số
-            line = br.readLine();
-            String[] parts = line.split(" ");
-            if (parts.length > 2) {
-                SHELVES = Integer.parseInt(parts[0]);
-                TIERS = Integer.parseInt(parts[1]);
-                SLOTS = Integer.parseInt(parts[2]);
-                REQUIRE_MACHANDISE = Integer.parseInt(parts[3]);
-                ROBOTS = Integer.parseInt(parts[4]);
-                CAPACITY = Integer.parseInt(parts[5]);
-                COUNT = TIERS * SHELVES * SLOTS;
-            }
-
-            // Đọc bản đồ kho hàng nếu có
-            boolean readingMap = false;
-            boolean readingWarehouse = false;
-            boolean readingRequire = false;
-            ArrayList<int[]> mapRows = new ArrayList<>();
-
-            while ((line = br.readLine()) != null) {
-                // Kiểm tra các phần của file
-                if (line.trim().equals("MAP_START")) {
-                    readingMap = true;
-                    continue;
-                } else if (line.trim().equals("MAP_END")) {
-                    readingMap = false;
-                    continue;
-                } else if (line.trim().equals("WAREHOUSE_START")) {
-                    readingWarehouse = true;
-                    continue;
-                } else if (line.trim().equals("WAREHOUSE_END")) {
-                    readingWarehouse = false;
-                    continue;
-                } else if (line.trim().equals("REQUIRE_START")) {
-                    readingRequire = true;
-                    continue;
-                } else if (line.trim().equals("REQUIRE_END")) {
-                    readingRequire = false;
-                    continue;
-                }
-
-                // Nếu đang đọc bản đồ
-                if (readingMap) {
-                    String[] mapRow = line.trim().split(" ");
-                    int[] row = new int[mapRow.length];
-                    for (int i = 0; i < mapRow.length; i++) {
-                        row[i] = Integer.parseInt(mapRow[i]);
-                    }
-                    mapRows.add(row);
-                }
-                // Nếu đang đọc thông tin kho hàng
-                else if (readingWarehouse) {
-                    parts = line.split(" ");
-                    if (parts.length >= 2) {
-                        name = parts[0];
-                        quantity = Integer.parseInt(parts[1]);
+    // Đường dẫn file dữ liệu mặc định
+    static final String DEFAULT_PATHNAME = "src/resources/data_test_small.txt";
 
-                        // Tạo một mặt hàng mới
-                        Merchandise merchandise = new Merchandise(name, quantity);
-
-                        // Nếu có thông tin vị trí
-                        if (parts.length >= 5) {
-                            int shelf = Integer.parseInt(parts[2]);
-                            int tier = Integer.parseInt(parts[3]);
-                            int slot = Integer.parseInt(parts[4]);
-                            Position position = new Position(shelf, tier, slot);
-                            merchandise.setPosition(position);
-                        }
-
-                        // Kiểm tra xem sản phẩm đã tồn tại chưa
-                        boolean found = false;
-                        for (Merchandise existing : warehouse) {
-                            if (existing.getName().equals(name)) {
-                                // Nếu đã tồn tại, thêm vị trí thay thế
-                                if (merchandise.getPosition() != null) {
-                                    existing.addAlternativePosition(merchandise.getPosition().copy());
-                                }
-                                // Cộng dồn số lượng
-                                existing.setQuantity(existing.getQuantity() + quantity);
-                                found = true;
-                                break;
-                            }
-                        }
-
-                        // Nếu là sản phẩm mới, thêm vào danh sách
-                        if (!found) {
-                            warehouse.add(merchandise);
-                        }
-                    }
-                }
-                // Nếu đang đọc thông tin mặt hàng cần lấy
-                else if (readingRequire) {
-                    parts = line.split(" ");
-                    if (parts.length >= 2) {
-                        name = parts[0];
-                        quantity = Integer.parseInt(parts[1]);
-
-                        // Kiểm tra xem có đủ số lượng không
-                        boolean sufficientQuantity = false;
-                        for (Merchandise item : warehouse) {
-                            if (item.getName().equals(name) && item.getQuantity() >= quantity) {
-                                sufficientQuantity = true;
-                                break;
-                            }
-                        }
+    /**
+     * Đọc tham số từ file mặc định
+     */
+    public static void ReadParams() {
+        ReadParams(DEFAULT_PATHNAME);
+    }
 
-                        if (sufficientQuantity) {
-                            Merchandise merchandise = new Merchandise(name, quantity);
-                            require.add(merchandise);
-                        } else {
-                            System.out.println("Cảnh báo: Không đủ số lượng cho sản phẩm " + name);
-                        }
-                    }
-                }
-            }
+    /**
+     * Đọc tham số từ file bất kỳ bằng InstanceLoader
+     * @param pathname Đường dẫn file dữ liệu
+     */
+    public static void ReadParams(String pathname) {
+        try {
+            apply(InstanceLoader.load(pathname));
+        } catch (FileNotFoundException e) {
+            throw new RuntimeException("Không tìm thấy file: " + pathname, e);
+        } catch (IOException e) {
+            throw new RuntimeException("Lỗi khi đọc file: " + pathname, e);
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Lỗi định dạng số trong file: " + pathname, e);
+        }
+    }
 
-            // Tạo bản đồ kho hàng từ dữ liệu đọc được
-            if (!mapRows.isEmpty()) {
-                int rows = mapRows.size();
-                int cols = mapRows.get(0).length;
-                WAREHOUSE_MAP = new int[rows][cols];
+    /**
+     * Gán dữ liệu đã đọc vào các tham số tĩnh
+     * @param data Dữ liệu bài toán đọc bởi InstanceLoader
+     */
+    public static void apply(InstanceData data) {
+        SHELVES = data.shelves;
+        TIERS = data.tiers;
+        SLOTS = data.slots;
+        ROBOTS = data.robots;
+        CAPACITY = data.capacity;
+        COUNT = TIERS * SHELVES * SLOTS;
 
-                for (int i = 0; i < rows; i++) {
-                    System.arraycopy(mapRows.get(i), 0, WAREHOUSE_MAP[i], 0, cols);
-                }
-            } else {
-                // Nếu không có bản đồ trong file, tạo bản đồ mặc định
-                createDefaultMap();
-            }
+        // Tạo bản đồ kho hàng từ dữ liệu đọc được
+        warehouseMap = data.toWarehouseMap();
+        WAREHOUSE_MAP = data.compactMap == null ? data.toMapMatrix() : null;
+        if (warehouseMap == null) {
+            // Nếu không có bản đồ trong file, tạo bản đồ mặc định
+            createDefaultMap();
+            warehouseMap = new WarehouseMap(WAREHOUSE_MAP);
+        }
 
-            // Kiểm tra số lượng mặt hàng yêu cầu
-            // XÓA CẢNH BÁO VÀ CHỈ CẬP NHẬT THAM SỐ
-            REQUIRE_MACHANDISE = require.size();
-            ROBOTS = Math.max(1, ROBOTS); // Đảm bảo có ít nhất 1 robot
+        WAREHOUSE = data.toWarehouseList();
+        REQUIRE = data.toRequireList();
 
-            WAREHOUSE = warehouse;
-            REQUIRE = require;
+        // Kiểm tra số lượng mặt hàng yêu cầu
+        // XÓA CẢNH BÁO VÀ CHỈ CẬP NHẬT THAM SỐ
+        REQUIRE_MACHANDISE = REQUIRE.size();
+        ROBOTS = Math.max(1, ROBOTS); // Đảm bảo có ít nhất 1 robot
 
-            // In thông tin cấu hình
-            System.out.println("Đã đọc file thành công:");
-            System.out.println("- Số kệ: " + SHELVES);
-            System.out.println("- Số tầng: " + TIERS);
-            System.out.println("- Số ô trên mỗi tầng: " + SLOTS);
-            System.out.println("- Số lượng mặt hàng cần lấy: " + REQUIRE_MACHANDISE);
-            System.out.println("- Số lượng robot: " + ROBOTS);
-            System.out.println("- Sức chứa mỗi robot: " + CAPACITY);
+        // In thông tin cấu hình
+        System.out.println("Đã đọc file thành công:");
+        System.out.println("- Số kệ: " + SHELVES);
+        System.out.println("- Số tầng: " + TIERS);
+        System.out.println("- Số ô trên mỗi tầng: " + SLOTS);
+        System.out.println("- Số lượng mặt hàng cần lấy: " + REQUIRE_MACHANDISE);
+        System.out.println("- Số lượng robot: " + ROBOTS);
+        System.out.println("- Sức chứa mỗi robot: " + CAPACITY);
 
-            // In thông tin bản đồ
-            if (WAREHOUSE_MAP != null) {
-                System.out.println("- Bản đồ kho hàng: " + WAREHOUSE_MAP.length + "x" + WAREHOUSE_MAP[0].length);
-            }
+        // In thông tin bản đồ
+        System.out.println("- Bản đồ kho hàng: " + warehouseMap.getRows() + "x" + warehouseMap.getCols() +
+                (data.compactMap != null ? " (file nén)" : ""));
+        data.printStats();
+    }
 
-        } catch (FileNotFoundException e) {
-            throw new RuntimeException("Không tìm thấy file: " + pathname, e);
-        } catch (IOException e) {
-            throw new RuntimeException("Lỗi khi đọc file: " + pathname, e);
-        } catch (NumberFormatException e) {
-            throw new RuntimeException("Lỗi định dạng số trong file: " + pathname, e);
+    /**
+     * Lấy bản đồ kho hàng dùng chung
+     * Nếu chưa đọc file, bản đồ được dựng từ WAREHOUSE_MAP hoặc từ cấu trúc kệ
+     * @return Bản đồ kho hàng
+     */
+    public static WarehouseMap getWarehouseMap() {
+        if (warehouseMap == null) {
+            warehouseMap = WAREHOUSE_MAP != null
+                    ? new WarehouseMap(WAREHOUSE_MAP)
+                    : WarehouseMap.createMapFromWarehouse(SHELVES, SLOTS);
         }
+        return warehouseMap;
     }
 
     /**
@@ -277,15 +237,16 @@ public class Params {
      * In bản đồ kho hàng
      */
     public static void printWarehouseMap() {
-        if (WAREHOUSE_MAP == null) {
+        if (warehouseMap == null && WAREHOUSE_MAP == null) {
             System.out.println("Bản đồ kho hàng chưa được khởi tạo");
             return;
         }
 
+        WarehouseMap map = getWarehouseMap();
         System.out.println("Bản đồ kho hàng:");
-        for (int i = 0; i < WAREHOUSE_MAP.length; i++) {
-            for (int j = 0; j < WAREHOUSE_MAP[i].length; j++) {
-                if (WAREHOUSE_MAP[i][j] == 0) {
+        for (int i = 0; i < map.getRows(); i++) {
+            for (int j = 0; j < map.getCols(); j++) {
+                if (map.isWalkable(i, j)) {
                     System.out.print("_ "); // Ô đi được
                 } else {
                     System.out.print("■ "); // Kệ hàng
@@ -6,6 +6,11 @@ public class Particle {
     private Solution solution;           // Giải pháp hiện tại
     private Solution bestSolution;       // Giải pháp tốt nhất của hạt
     private double bestFitness;          // Độ thích nghi tốt nhất của hạt
+    private double[] keys;               // Vị trí liên tục (mã hóa khóa ngẫu nhiên), null với mã hóa khác
+    private double[] velocity;           // Vận tốc liên tục
+    private double[] bestKeys;           // Vị trí liên tục ứng với giải pháp tốt nhất
+    private int[] tour;                  // Bộ đệm hoán vị khi cập nhật (mã hóa hoán vị), null với mã hóa khác
+    private int[] tourPositions;         // Vị trí của từng mặt hàng trong bộ đệm hoán vị
 
     /**
      * Khởi tạo một hạt mới
@@ -62,6 +67,68 @@ public class Particle {
         this.bestFitness = bestFitness;
     }
 
+    /**
+     * Lấy vị trí liên tục của hạt: khóa của từng mặt hàng, thứ tự khóa tăng dần là thứ tự mặt hàng
+     * @return Mảng khóa theo chỉ số mặt hàng, null nếu hạt không dùng mã hóa khóa ngẫu nhiên
+     */
+    public double[] getKeys() {
+        return keys;
+    }
+
+    /**
+     * Lấy vận tốc liên tục của hạt
+     * @return Mảng vận tốc theo chỉ số mặt hàng
+     */
+    public double[] getVelocity() {
+        return velocity;
+    }
+
+    /**
+     * Lấy vị trí liên tục ứng với giải pháp tốt nhất của hạt
+     * @return Mảng khóa theo chỉ số mặt hàng
+     */
+    public double[] getBestKeys() {
+        return bestKeys;
+    }
+
+    /**
+     * Đặt các vector liên tục của hạt (mã hóa khóa ngẫu nhiên)
+     * @param keys Vị trí
+     * @param velocity Vận tốc
+     * @param bestKeys Vị trí tốt nhất
+     */
+    public void setKeys(double[] keys, double[] velocity, double[] bestKeys) {
+        this.keys = keys;
+        this.velocity = velocity;
+        this.bestKeys = bestKeys;
+    }
+
+    /**
+     * Lấy bộ đệm hoán vị dùng lại ở mỗi lần cập nhật hạt mã hóa hoán vị
+     * @return Mảng mặt hàng theo vị trí, null nếu hạt không dùng mã hóa hoán vị
+     */
+    public int[] getTour() {
+        return tour;
+    }
+
+    /**
+     * Lấy bộ đệm vị trí đi kèm bộ đệm hoán vị
+     * @return Mảng vị trí theo chỉ số mặt hàng
+     */
+    public int[] getTourPositions() {
+        return tourPositions;
+    }
+
+    /**
+     * Đặt các bộ đệm của mã hóa hoán vị
+     * @param tour Bộ đệm hoán vị
+     * @param tourPositions Bộ đệm vị trí, cùng độ dài
+     */
+    public void setTourBuffers(int[] tour, int[] tourPositions) {
+        this.tour = tour;
+        this.tourPositions = tourPositions;
+    }
+
     /**
      * Cập nhật vị trí tốt nhất của hạt nếu vị trí hiện tại tốt hơn
      * @param currentFitness Độ thích nghi hiện tại
@@ -89,4 +89,24 @@ public class Position {
         result = prime * result + slot;
         return result;
     }
+
+    /**
+     * Tạo khóa 64 bit duy nhất cho vị trí (không bị trùng như hashCode)
+     * Mỗi thành phần shelf, tier, slot chiếm 21 bit
+     * @return Khóa của vị trí
+     */
+    public long packedKey() {
+        return packedKey(shelf, tier, slot);
+    }
+
+    /**
+     * Tạo khóa 64 bit từ shelf, tier, slot mà không cần tạo đối tượng Position
+     * @param shelf Kệ hàng
+     * @param tier Tầng
+     * @param slot Ô
+     * @return Khóa của vị trí
+     */
+    public static long packedKey(int shelf, int tier, int slot) {
+        return ((long) (shelf & 0x1FFFFF) << 42) | ((long) (tier & 0x1FFFFF) << 21) | (slot & 0x1FFFFF);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,680 @@
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lớp ProblemInstance mô tả đầy đủ một bài toán: bản đồ, tồn kho, đơn hàng,
+ * đội robot và cấu hình bộ giải.
+ *
+ * Đối tượng bất biến và được truyền tường minh cho PSO, VNS và Solution thay vì đọc
+ * các biến tĩnh trong Params, nên một tiến trình có thể giải nhiều kho / nhiều đơn hàng
+ * cùng lúc. Các bài toán trên cùng một bản đồ dùng chung một bảng khoảng cách chỉ đọc.
+ */
+public final class ProblemInstance {
+    // Bảng khoảng cách dùng chung theo bản đồ (so sánh theo đối tượng bản đồ). Giá trị là tham chiếu yếu
+    // vì bảng giữ bản đồ (khóa): bảng được thu gom khi không còn bài toán nào dùng, rồi đến lượt khóa
+    private static final Map<WarehouseMap, WeakReference<DistanceTable>> SHARED_TABLES = new WeakHashMap<>();
+    // Bảng dùng chung lớn hơn số lần này số vị trí bài toán cần thì được dựng lại gọn cho bài toán mới
+    private static final int COMPACT_FACTOR = 4;
+    // Hằng số phân biệt khóa Zobrist của điểm xuất phát và điểm kết thúc
+    private static final long START_KEY = 0x5354415254L << 24;
+    private static final long END_KEY = 0x454E44L << 40;
+
+    private final WarehouseMap warehouseMap;
+    private final List<Merchandise> warehousing;
+    private final List<Merchandise> require;
+    private final int robotCount;
+    private final int capacity;
+    private final Position counterPosition;
+    private final SolverConfig config;
+    private final DistanceTable distanceTable;
+    private final InventoryStore inventory;
+    private final int counterLocation;
+    private final int[] warehouseLocations;
+    // Đơn hàng đã được đánh chỉ số: mặt hàng, vị trí, số lượng và khóa Zobrist theo chỉ số mặt hàng cần lấy.
+    // Các mảng có thể dài hơn requireCount và được dùng chung với các bài toán nối thêm mặt hàng
+    // (withItemsAppended); phần [0, requireCount) của một bài toán không bao giờ bị ghi lại
+    private final int requireCount;
+    private final Merchandise[] requireItems;
+    private final int[] requireLocations;
+    private final int[] requireQuantities;
+    private final long[] zobristKeys;
+    // Độ dài đã được một bài toán sử dụng của các mảng trên: chỉ bài toán có requireCount bằng giá trị này
+    // mới được nối tiếp tại chỗ
+    private final AtomicInteger usedLength;
+    // Khóa Zobrist của điểm xuất phát (nút n) và điểm kết thúc (nút n + 1)
+    private final long startKey;
+    private final long endKey;
+    // Bộ sắp xếp chính xác cho tuyến ngắn, ghi nhớ kết quả theo tập mặt hàng
+    private final HeldKarpSequencer sequencer;
+    // Bộ nhớ chi phí tuyến dùng chung với các bài toán dẫn xuất (null nếu tắt)
+    private final RouteCostMemo routeMemo;
+
+    /**
+     * Khởi tạo một bài toán
+     * @param warehouseMap Bản đồ kho hàng (có thể null, khi đó dùng khoảng cách Manhattan)
+     * @param warehousing Danh sách mặt hàng trong kho (có vị trí)
+     * @param require Danh sách mặt hàng cần lấy
+     * @param robotCount Số lượng robot
+     * @param capacity Sức chứa của mỗi robot
+     * @param counterPosition Vị trí counter (xuất phát và kết thúc của mọi robot)
+     * @param config Cấu hình bộ giải
+     */
+    public ProblemInstance(WarehouseMap warehouseMap, List<Merchandise> warehousing, List<Merchandise> require,
+                           int robotCount, int capacity, Position counterPosition, SolverConfig config) {
+        this.warehouseMap = warehouseMap;
+        this.warehousing = Collections.unmodifiableList(copyItems(warehousing));
+        this.robotCount = Math.max(1, robotCount);
+        this.capacity = capacity;
+        this.counterPosition = counterPosition.copy();
+        this.config = config;
+        this.inventory = InventoryStore.fromMerchandise(this.warehousing);
+
+        ArrayList<Position> positions = new ArrayList<>();
+        positions.add(this.counterPosition);
+        for (Merchandise item : this.warehousing) {
+            positions.add(item.getPosition());
+        }
+        this.distanceTable = sharedTable(warehouseMap, positions);
+
+        this.counterLocation = distanceTable.indexOf(this.counterPosition);
+        this.warehouseLocations = new int[this.warehousing.size()];
+        for (int i = 0; i < warehouseLocations.length; i++) {
+            warehouseLocations[i] = distanceTable.indexOf(this.warehousing.get(i).getPosition());
+        }
+
+        // Đánh chỉ số đơn hàng một lần, bộ giải chỉ còn đọc mảng int
+        this.requireItems = copyItems(require).toArray(new Merchandise[0]);
+        this.requireCount = requireItems.length;
+        this.require = requireView();
+        this.requireLocations = new int[requireCount];
+        this.requireQuantities = new int[requireCount];
+        this.zobristKeys = new long[requireCount];
+        this.usedLength = new AtomicInteger(requireCount);
+        indexRequire(0);
+        this.startKey = mixKey(START_KEY ^ counterLocation);
+        this.endKey = mixKey(END_KEY ^ counterLocation);
+        this.sequencer = new HeldKarpSequencer(this, config.getExactSequencingLimit());
+        this.routeMemo = config.getRouteCacheSize() > 0 ? new RouteCostMemo(config.getRouteCacheSize()) : null;
+    }
+
+    /**
+     * Khởi tạo bài toán dùng chung bản đồ, kho hàng và bảng khoảng cách với bài toán khác
+     * nhưng với danh sách mặt hàng cần lấy và số robot khác
+     */
+    private ProblemInstance(ProblemInstance other, List<Merchandise> require, int robotCount) {
+        this.warehouseMap = other.warehouseMap;
+        this.warehousing = other.warehousing;
+        this.robotCount = Math.max(1, robotCount);
+        this.capacity = other.capacity;
+        this.counterPosition = other.counterPosition;
+        this.config = other.config;
+        this.distanceTable = other.distanceTable;
+        this.inventory = other.inventory;
+        this.counterLocation = other.counterLocation;
+        this.warehouseLocations = other.warehouseLocations;
+        this.requireItems = copyItems(require).toArray(new Merchandise[0]);
+        this.requireCount = requireItems.length;
+        this.require = requireView();
+        this.requireLocations = new int[requireCount];
+        this.requireQuantities = new int[requireCount];
+        this.zobristKeys = new long[requireCount];
+        this.usedLength = new AtomicInteger(requireCount);
+        indexRequire(0);
+        this.startKey = other.startKey;
+        this.endKey = other.endKey;
+        this.sequencer = new HeldKarpSequencer(this, config.getExactSequencingLimit());
+        this.routeMemo = other.routeMemo;
+    }
+
+    /**
+     * Khởi tạo bài toán sau một thay đổi tồn kho: cùng đơn hàng, đội robot và cấu hình với bài toán khác nhưng
+     * kho hàng và phiên bản bảng khoảng cách mới. Đơn hàng được đánh chỉ số lại theo kho mới; chỉ số vị trí
+     * không bao giờ được dùng lại giữa các phiên bản bảng nên bộ nhớ chi phí tuyến vẫn dùng chung được
+     */
+    private ProblemInstance(ProblemInstance other, List<Merchandise> warehousing, DistanceTable distanceTable) {
+        this.warehouseMap = other.warehouseMap;
+        this.warehousing = Collections.unmodifiableList(warehousing);
+        this.robotCount = other.robotCount;
+        this.capacity = other.capacity;
+        this.counterPosition = other.counterPosition;
+        this.config = other.config;
+        this.distanceTable = distanceTable;
+        this.inventory = InventoryStore.fromMerchandise(this.warehousing);
+        this.counterLocation = other.counterLocation;
+        this.warehouseLocations = new int[this.warehousing.size()];
+        for (int i = 0; i < warehouseLocations.length; i++) {
+            warehouseLocations[i] = distanceTable.indexOf(this.warehousing.get(i).getPosition());
+        }
+        this.requireItems = copyItems(other.require).toArray(new Merchandise[0]);
+        this.requireCount = requireItems.length;
+        this.require = requireView();
+        this.requireLocations = new int[requireCount];
+        this.requireQuantities = new int[requireCount];
+        this.zobristKeys = new long[requireCount];
+        this.usedLength = new AtomicInteger(requireCount);
+        indexRequire(0);
+        this.startKey = other.startKey;
+        this.endKey = other.endKey;
+        // Thứ tự tối ưu đã ghi nhớ phụ thuộc vị trí mặt hàng nên không dùng lại được
+        this.sequencer = new HeldKarpSequencer(this, config.getExactSequencingLimit());
+        this.routeMemo = other.routeMemo;
+    }
+
+    /**
+     * Khởi tạo bài toán gồm đơn hàng của bài toán khác nối thêm các mặt hàng mới
+     * Mặt hàng cũ giữ chỉ số, vị trí và khóa Zobrist; chỉ các mặt hàng mới được đánh chỉ số. Khi bài toán
+     * khác là bài toán cuối cùng được nối từ các mảng chỉ số và mảng còn chỗ, mặt hàng mới được ghi tiếp
+     * tại chỗ, nếu không các mảng được sao chép với sức chứa gấp đôi
+     */
+    private ProblemInstance(ProblemInstance other, List<Merchandise> added) {
+        this.warehouseMap = other.warehouseMap;
+        this.warehousing = other.warehousing;
+        this.robotCount = other.robotCount;
+        this.capacity = other.capacity;
+        this.counterPosition = other.counterPosition;
+        this.config = other.config;
+        this.distanceTable = other.distanceTable;
+        this.inventory = other.inventory;
+        this.counterLocation = other.counterLocation;
+        this.warehouseLocations = other.warehouseLocations;
+        this.requireCount = other.requireCount + added.size();
+        if (requireCount <= other.requireItems.length
+                && other.usedLength.compareAndSet(other.requireCount, requireCount)) {
+            this.requireItems = other.requireItems;
+            this.requireLocations = other.requireLocations;
+            this.requireQuantities = other.requireQuantities;
+            this.zobristKeys = other.zobristKeys;
+            this.usedLength = other.usedLength;
+        } else {
+            int length = Math.max(requireCount, 2 * other.requireItems.length);
+            this.requireItems = Arrays.copyOf(other.requireItems, length);
+            this.requireLocations = Arrays.copyOf(other.requireLocations, length);
+            this.requireQuantities = Arrays.copyOf(other.requireQuantities, length);
+            this.zobristKeys = Arrays.copyOf(other.zobristKeys, length);
+            this.usedLength = new AtomicInteger(requireCount);
+        }
+        ArrayList<Merchandise> copies = copyItems(added);
+        for (int k = 0; k < copies.size(); k++) {
+            requireItems[other.requireCount + k] = copies.get(k);
+        }
+        this.require = requireView();
+        indexRequire(other.requireCount);
+        this.startKey = other.startKey;
+        this.endKey = other.endKey;
+        this.sequencer = new HeldKarpSequencer(this, other.sequencer);
+        this.routeMemo = other.routeMemo;
+    }
+
+    /**
+     * Danh sách chỉ đọc các mặt hàng cần lấy, không sao chép mảng
+     */
+    private List<Merchandise> requireView() {
+        return Collections.unmodifiableList(Arrays.asList(requireItems).subList(0, requireCount));
+    }
+
+    /**
+     * Đánh chỉ số các mặt hàng cần lấy từ chỉ số from: vị trí, số lượng và khóa Zobrist theo chỉ số
+     * Khóa Zobrist tính từ vị trí trong bảng khoảng cách và chỉ số mặt hàng: hai nút cùng khóa thì cùng vị trí
+     * nên các bài toán dẫn xuất dùng chung được bộ nhớ chi phí tuyến; chỉ số mặt hàng làm các nút trong một
+     * bài toán luôn khác nhau
+     */
+    private void indexRequire(int from) {
+        for (int id = from; id < requireCount; id++) {
+            Merchandise item = requireItems[id];
+            item.setRequireId(id);
+            int index = findInWarehouse(item);
+            // Mặt hàng không có trong kho được coi như nằm tại counter để chi phí
+            // của mọi tuyến chỉ phụ thuộc vào các cạnh giữa hai vị trí liên tiếp
+            requireLocations[id] = index >= 0 ? warehouseLocations[index] : counterLocation;
+            requireQuantities[id] = item.getQuantity();
+            zobristKeys[id] = mixKey(((long) requireLocations[id] << 32) | id);
+        }
+    }
+
+    /**
+     * Hàm trộn splitmix64
+     */
+    private static long mixKey(long z) {
+        z += 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Khởi tạo bài toán dùng chung mọi dữ liệu với bài toán khác nhưng đổi cấu hình
+     */
+    private ProblemInstance(ProblemInstance other, SolverConfig config) {
+        this.warehouseMap = other.warehouseMap;
+        this.warehousing = other.warehousing;
+        this.require = other.require;
+        this.robotCount = other.robotCount;
+        this.capacity = other.capacity;
+        this.counterPosition = other.counterPosition;
+        this.config = config;
+        this.distanceTable = other.distanceTable;
+        this.inventory = other.inventory;
+        this.counterLocation = other.counterLocation;
+        this.warehouseLocations = other.warehouseLocations;
+        this.requireCount = other.requireCount;
+        this.requireItems = other.requireItems;
+        this.requireLocations = other.requireLocations;
+        this.requireQuantities = other.requireQuantities;
+        this.zobristKeys = other.zobristKeys;
+        this.usedLength = other.usedLength;
+        this.startKey = other.startKey;
+        this.endKey = other.endKey;
+        // Dùng lại bộ nhớ của bộ sắp xếp khi giới hạn không đổi
+        this.sequencer = other.sequencer.getMaxSize() == Math.min(config.getExactSequencingLimit(),
+                HeldKarpSequencer.MAX_SUPPORTED_SIZE)
+                ? other.sequencer
+                : new HeldKarpSequencer(this, config.getExactSequencingLimit());
+        int cacheSize = config.getRouteCacheSize();
+        if (cacheSize <= 0) {
+            this.routeMemo = null;
+        } else if (other.routeMemo != null && other.routeMemo.getSize() == cacheSize) {
+            this.routeMemo = other.routeMemo;
+        } else {
+            this.routeMemo = new RouteCostMemo(cacheSize);
+        }
+    }
+
+    /**
+     * Tạo bài toán từ các tham số tĩnh hiện tại trong Params
+     * @param warehousing Kho hàng đã được thiết lập vị trí
+     * @param counterPosition Vị trí counter
+     * @return Bài toán
+     */
+    public static ProblemInstance fromParams(List<Merchandise> warehousing, Position counterPosition) {
+        WarehouseMap map = DistanceCalculator.getWarehouseMap();
+        if (map == null) {
+            map = Params.getWarehouseMap();
+        }
+        return new ProblemInstance(map, warehousing, Params.REQUIRE, Params.ROBOTS, Params.CAPACITY,
+                counterPosition, SolverConfig.fromParams());
+    }
+
+    /**
+     * Lấy bảng khoảng cách dùng chung của bản đồ, bổ sung các vị trí còn thiếu
+     * Khi bảng dùng chung đã lớn hơn nhiều so với số vị trí cần (do các bài toán trước thêm vào), bảng gọn
+     * chỉ gồm các vị trí cần được dựng lại và thay chỗ; các bài toán đang giữ bảng cũ không bị ảnh hưởng
+     * và bảng cũ được thu gom khi chúng không còn được dùng
+     * @param map Bản đồ kho hàng
+     * @param positions Các vị trí bài toán cần
+     * @return Phiên bản bảng khoảng cách chứa đủ các vị trí
+     */
+    private static DistanceTable sharedTable(WarehouseMap map, List<Position> positions) {
+        synchronized (SHARED_TABLES) {
+            WeakReference<DistanceTable> reference = SHARED_TABLES.get(map);
+            DistanceTable table = reference != null ? reference.get() : null;
+            if (table == null || table.size() > COMPACT_FACTOR * positions.size()) {
+                table = DistanceTable.build(map, positions.get(0), positions.subList(1, positions.size()));
+            } else {
+                for (Position position : positions) {
+                    table = table.withLocationAdded(position);
+                }
+            }
+            SHARED_TABLES.put(map, new WeakReference<>(table));
+            return table;
+        }
+    }
+
+    /**
+     * Sao chép danh sách mặt hàng để bài toán không bị ảnh hưởng khi danh sách gốc thay đổi
+     * @param items Danh sách gốc
+     * @return Bản sao
+     */
+    private static ArrayList<Merchandise> copyItems(List<Merchandise> items) {
+        ArrayList<Merchandise> copies = new ArrayList<>();
+        if (items == null) return copies;
+        for (Merchandise item : items) {
+            Merchandise copy = new Merchandise(item.getName(), item.getQuantity(),
+                    item.getPosition() != null ? item.getPosition().copy() : new Position());
+            copy.setAccessPoint(item.getAccessPoint());
+            copies.add(copy);
+        }
+        return copies;
+    }
+
+    /**
+     * Tạo bài toán giống bài toán này nhưng với cấu hình khác
+     * @param config Cấu hình mới
+     * @return Bài toán mới
+     */
+    public ProblemInstance withConfig(SolverConfig config) {
+        return new ProblemInstance(this, config);
+    }
+
+    /**
+     * Tạo bài toán trên cùng kho hàng (dùng chung bảng khoảng cách) cho một danh sách mặt hàng khác,
+     * ví dụ một lô đơn hàng
+     * @param require Danh sách mặt hàng cần lấy
+     * @param robotCount Số robot của bài toán mới
+     * @return Bài toán mới
+     */
+    public ProblemInstance withRequire(List<Merchandise> require, int robotCount) {
+        return new ProblemInstance(this, require, robotCount);
+    }
+
+    /**
+     * Tạo bài toán gồm đơn hàng của bài toán này nối thêm các mặt hàng mới, với chi phí theo số mặt hàng
+     * được thêm: mặt hàng cũ giữ nguyên chỉ số nên lời giải cũ dùng được cho bài toán mới
+     * (Solution(Solution, ProblemInstance)). Bài toán này không bị thay đổi
+     * @param added Các mặt hàng được thêm, nhận chỉ số từ số mặt hàng hiện tại trở đi
+     * @return Bài toán mới
+     */
+    public ProblemInstance withItemsAppended(List<Merchandise> added) {
+        return new ProblemInstance(this, added);
+    }
+
+    /**
+     * Tạo bài toán sau khi nhập hàng vào một ô: dòng kho mới được nối vào cuối kho hàng
+     * Chỉ hàng/cột của vị trí mới được tính thêm trong bảng khoảng cách. Nếu mặt hàng đã có trong kho,
+     * vị trí cũ vẫn là vị trí chính và vị trí mới là vị trí thay thế. Bài toán này không bị thay đổi
+     * @param stock Mặt hàng nhập vào, có vị trí
+     * @return Bài toán mới
+     */
+    public ProblemInstance withLocationAdded(Merchandise stock) {
+        ArrayList<Merchandise> updated = copyItems(warehousing);
+        Merchandise added = copyItems(List.of(stock)).get(0);
+        if (warehouseMap != null) {
+            added.calculateAccessPoint(warehouseMap);
+        }
+        updated.add(added);
+        return new ProblemInstance(this, updated, distanceTable.withLocationAdded(added.getPosition()));
+    }
+
+    /**
+     * Tạo bài toán sau khi mặt hàng được chuyển sang ô khác
+     * Vị trí cũ bị xóa khỏi bảng khoảng cách nếu không còn dòng kho nào ở đó; chỉ vị trí mới được tính
+     * @param name Tên mặt hàng (dòng kho đầu tiên cùng tên được chuyển)
+     * @param to Vị trí mới
+     * @return Bài toán mới, hoặc chính bài toán này nếu không có mặt hàng
+     */
+    public ProblemInstance withLocationMoved(String name, Position to) {
+        int index = indexOfWarehouseLine(name);
+        if (index < 0) return this;
+
+        ArrayList<Merchandise> updated = copyItems(warehousing);
+        Merchandise moved = updated.get(index);
+        Position from = moved.getPosition();
+        moved.setPosition(to.copy());
+        if (warehouseMap != null) {
+            moved.calculateAccessPoint(warehouseMap);
+        }
+        DistanceTable table = isPositionUsed(from, updated)
+                ? distanceTable.withLocationAdded(to)
+                : distanceTable.withLocationMoved(from, to);
+        return new ProblemInstance(this, updated, table);
+    }
+
+    /**
+     * Tạo bài toán sau khi một dòng kho bị gỡ (ô đã hết hàng); mặt hàng của đơn không còn trong kho được
+     * coi như nằm tại counter. Bảng khoảng cách không tính lại gì
+     * @param name Tên mặt hàng (dòng kho đầu tiên cùng tên bị gỡ)
+     * @return Bài toán mới, hoặc chính bài toán này nếu không có mặt hàng
+     */
+    public ProblemInstance withLocationRemoved(String name) {
+        int index = indexOfWarehouseLine(name);
+        if (index < 0) return this;
+
+        ArrayList<Merchandise> updated = copyItems(warehousing);
+        Merchandise removed = updated.remove(index);
+        DistanceTable table = isPositionUsed(removed.getPosition(), updated)
+                ? distanceTable
+                : distanceTable.withLocationRemoved(removed.getPosition());
+        return new ProblemInstance(this, updated, table);
+    }
+
+    private int indexOfWarehouseLine(String name) {
+        for (int i = 0; i < warehousing.size(); i++) {
+            if (warehousing.get(i).getName().equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isPositionUsed(Position position, List<Merchandise> items) {
+        for (Merchandise item : items) {
+            if (item.getPosition().packedKey() == position.packedKey()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Tạo danh sách robot mới cho một lời giải
+     * @return Danh sách robot đặt tại counter
+     */
+    public ArrayList<Robot> createFleet() {
+        ArrayList<Robot> robots = new ArrayList<>();
+        for (int i = 0; i < robotCount; i++) {
+            Robot robot = new Robot(String.valueOf(i + 1), counterPosition.copy());
+            robot.capacity = capacity;
+            robots.add(robot);
+        }
+        return robots;
+    }
+
+    /**
+     * Tìm mặt hàng trong kho theo tên (tra bảng băm của InventoryStore)
+     * @param item Mặt hàng cần tìm
+     * @return Chỉ số trong kho, hoặc -1 nếu không tìm thấy
+     */
+    public int findInWarehouse(Merchandise item) {
+        int sku = inventory.skuId(item.getName());
+        return sku >= 0 ? inventory.getSourceIndex(sku) : -1;
+    }
+
+    /**
+     * Lấy chỉ số vị trí trong bảng khoảng cách của một mặt hàng
+     * Mặt hàng thuộc đơn hàng của bài toán được tra bằng chỉ số, không so sánh tên
+     * @param item Mặt hàng
+     * @return Chỉ số vị trí, hoặc -1 nếu mặt hàng không có trong kho
+     */
+    public int locationOf(Merchandise item) {
+        int id = requireIdOf(item);
+        if (id >= 0) {
+            return requireLocations[id];
+        }
+        int index = findInWarehouse(item);
+        return index >= 0 ? warehouseLocations[index] : -1;
+    }
+
+    /**
+     * Lấy chỉ số của mặt hàng trong đơn hàng của bài toán này
+     * @param item Mặt hàng
+     * @return Chỉ số, hoặc -1 nếu mặt hàng không phải bản sao đơn hàng của bài toán này
+     */
+    public int requireIdOf(Merchandise item) {
+        int id = item.getRequireId();
+        return id >= 0 && id < requireCount && requireItems[id] == item ? id : -1;
+    }
+
+    /**
+     * Lấy chỉ số vị trí của mặt hàng cần lấy
+     * @param requireId Chỉ số trong đơn hàng
+     * @return Chỉ số vị trí (vị trí counter nếu mặt hàng không có trong kho)
+     */
+    public int requireLocation(int requireId) {
+        return requireLocations[requireId];
+    }
+
+    /**
+     * Lấy số lượng của mặt hàng cần lấy
+     * @param requireId Chỉ số trong đơn hàng
+     * @return Số lượng
+     */
+    public int requireQuantity(int requireId) {
+        return requireQuantities[requireId];
+    }
+
+    /**
+     * Chi phí đi giữa hai vị trí theo chỉ số
+     * @param from Chỉ số vị trí bắt đầu
+     * @param to Chỉ số vị trí kết thúc
+     * @return Chi phí quãng đường
+     */
+    public float cost(int from, int to) {
+        return distanceTable.cost(from, to);
+    }
+
+    /**
+     * Số bước đi giữa hai vị trí theo chỉ số (đối xứng, không gồm chi phí lấy hàng)
+     * @param from Chỉ số vị trí bắt đầu
+     * @param to Chỉ số vị trí kết thúc
+     * @return Số bước đi
+     */
+    public float steps(int from, int to) {
+        return distanceTable.steps(from, to);
+    }
+
+    /**
+     * Chi phí lấy hàng tại một vị trí
+     * @param location Chỉ số vị trí
+     * @return Chi phí lấy hàng
+     */
+    public float pickCost(int location) {
+        return distanceTable.pickCost(location);
+    }
+
+    /**
+     * Lấy bộ sắp xếp chính xác cho tuyến ngắn
+     * @return Bộ sắp xếp Held-Karp
+     */
+    public HeldKarpSequencer getSequencer() {
+        return sequencer;
+    }
+
+    /**
+     * Lấy khóa Zobrist của một nút tuyến
+     * @param node Chỉ số mặt hàng, n cho điểm xuất phát, n + 1 cho điểm kết thúc (n là số mặt hàng cần lấy)
+     * @return Khóa 64 bit
+     */
+    public long zobristKey(int node) {
+        if (node < requireCount) return zobristKeys[node];
+        return node == requireCount ? startKey : endKey;
+    }
+
+    /**
+     * Lấy bảng ghi nhớ chi phí tuyến của luồng hiện tại
+     * @return Bảng ghi nhớ, null nếu tắt trong cấu hình
+     */
+    public RouteCostCache routeCostCache() {
+        return routeMemo != null ? routeMemo.get() : null;
+    }
+
+    /**
+     * Tổng số lần tra trúng bộ nhớ chi phí tuyến của mọi luồng (tính chung với các bài toán dẫn xuất)
+     * @return Số lần tra trúng
+     */
+    public long getRouteCacheHits() {
+        return routeMemo != null ? routeMemo.getHits() : 0;
+    }
+
+    /**
+     * Tổng số lần tra trượt bộ nhớ chi phí tuyến của mọi luồng (tính chung với các bài toán dẫn xuất)
+     * @return Số lần tra trượt
+     */
+    public long getRouteCacheMisses() {
+        return routeMemo != null ? routeMemo.getMisses() : 0;
+    }
+
+    /**
+     * Tỉ lệ tra trúng bảng ghi nhớ chi phí tuyến của mọi luồng
+     * @return Tỉ lệ trong [0, 1], 0 nếu chưa tra lần nào
+     */
+    public double getRouteCacheHitRate() {
+        long hits = getRouteCacheHits();
+        long total = hits + getRouteCacheMisses();
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    /**
+     * Tính chi phí của một tuyến đường cho bởi chỉ số mặt hàng cần lấy (chỉ đọc mảng int)
+     * @param requireIds Mảng chỉ số mặt hàng
+     * @param from Vị trí bắt đầu trong mảng
+     * @param to Vị trí kết thúc trong mảng (không bao gồm)
+     * @return Chi phí quãng đường
+     */
+    public double routeCost(int[] requireIds, int from, int to) {
+        if (from >= to) return 0;
+
+        double total = 0;
+        int current = counterLocation;
+        for (int k = from; k < to; k++) {
+            int location = requireLocations[requireIds[k]];
+            total += distanceTable.cost(current, location);
+            current = location;
+        }
+        return total + distanceTable.cost(current, counterLocation);
+    }
+
+    /**
+     * Tính chi phí của một tuyến đường xuất phát và kết thúc tại counter
+     * @param route Tuyến đường
+     * @return Chi phí quãng đường
+     */
+    public double routeCost(List<Merchandise> route) {
+        if (route.isEmpty()) return 0;
+
+        double total = 0;
+        int current = counterLocation;
+        for (Merchandise item : route) {
+            int location = locationOf(item);
+            if (location >= 0) {
+                total += distanceTable.cost(current, location);
+                current = location;
+            }
+        }
+        return total + distanceTable.cost(current, counterLocation);
+    }
+
+    public WarehouseMap getWarehouseMap() {
+        return warehouseMap;
+    }
+
+    public List<Merchandise> getWarehousing() {
+        return warehousing;
+    }
+
+    public List<Merchandise> getRequire() {
+        return require;
+    }
+
+    public int getRobotCount() {
+        return robotCount;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public Position getCounterPosition() {
+        return counterPosition;
+    }
+
+    public SolverConfig getConfig() {
+        return config;
+    }
+
+    public DistanceTable getDistanceTable() {
+        return distanceTable;
+    }
+
+    public InventoryStore getInventory() {
+        return inventory;
+    }
+
+    public int getCounterLocation() {
+        return counterLocation;
+    }
+}
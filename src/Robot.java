@@ -1,4 +1,5 @@
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Lớp Robot đại diện cho một robot trong kho hàng
@@ -118,11 +119,28 @@ public class Robot {
     /**
      * Tính tổng quãng đường đi của robot từ vị trí xuất phát qua tất cả mặt hàng
      * và quay lại vị trí xuất phát
+     * Chỉ mục tên của kho được dựng lại mỗi lần gọi; khi gọi nhiều lần trên cùng một kho, dùng
+     * calculateTotalDistance(ProblemInstance) để tra chỉ mục của bài toán
      * @param warehousing Kho hàng chứa thông tin vị trí
      * @return Tổng quãng đường
      */
     public float calculateTotalDistance(ArrayList<Merchandise> warehousing) {
         if (shoppingCart.isEmpty()) return 0;
+        return calculateTotalDistance(warehousing, InventoryStore.fromMerchandise(warehousing));
+    }
+
+    /**
+     * Tính tổng quãng đường đi của robot qua tất cả mặt hàng, tra vị trí bằng chỉ mục kho đã dựng
+     * sẵn của bài toán
+     * @param instance Bài toán cung cấp kho hàng và chỉ mục tên
+     * @return Tổng quãng đường
+     */
+    public float calculateTotalDistance(ProblemInstance instance) {
+        return calculateTotalDistance(instance.getWarehousing(), instance.getInventory());
+    }
+
+    private float calculateTotalDistance(List<Merchandise> warehousing, InventoryStore inventory) {
+        if (shoppingCart.isEmpty()) return 0;
 
         float totalDistance = 0;
         Position currentPos = startPosition.copy();
@@ -134,7 +152,7 @@ public class Robot {
         // Đi đến từng mặt hàng trong giỏ hàng
         for (Merchandise item : shoppingCart) {
             // Tìm vị trí của mặt hàng trong kho
-            Merchandise warehouseItem = findItemInWarehouse(item, warehousing);
+            Merchandise warehouseItem = findItemInWarehouse(item, warehousing, inventory);
             if (warehouseItem != null) {
                 // Tính khoảng cách đến mặt hàng tiếp theo từ vị trí hiện tại
                 float distance = DistanceCalculator.calculateDistance(
@@ -166,15 +184,13 @@ public class Robot {
      * Tìm mặt hàng trong kho hàng
      * @param item Mặt hàng cần tìm
      * @param warehousing Kho hàng
+     * @param inventory Chỉ mục tên của kho hàng
      * @return Mặt hàng trong kho (có vị trí) hoặc null nếu không tìm thấy
      */
-    private Merchandise findItemInWarehouse(Merchandise item, ArrayList<Merchandise> warehousing) {
-        for (Merchandise warehouseItem : warehousing) {
-            if (warehouseItem.getName().equals(item.getName())) {
-                return warehouseItem;
-            }
-        }
-        return null;
+    private Merchandise findItemInWarehouse(Merchandise item, List<Merchandise> warehousing,
+                                            InventoryStore inventory) {
+        int sku = inventory.skuId(item.getName());
+        return sku >= 0 ? warehousing.get(inventory.getSourceIndex(sku)) : null;
     }
 
     /**
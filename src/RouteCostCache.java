@@ -0,0 +1,93 @@
+/**
+ * Lớp RouteCostCache ghi nhớ chi phí của các tuyến đã tính, theo khóa băm Zobrist của tuyến
+ *
+ * Bảng băm địa chỉ mở kích thước cố định gồm một mảng long (khóa) và một mảng float (chi phí),
+ * không đóng gói đối tượng. Mỗi khóa được dò tối đa MAX_PROBES ô liên tiếp; khi các ô đều bận,
+ * ô đầu tiên bị ghi đè nên bộ nhớ không bao giờ tăng. Mỗi luồng dùng một bảng riêng (không đồng bộ).
+ */
+public final class RouteCostCache {
+    private static final int MAX_PROBES = 4;
+    // Khóa 0 đánh dấu ô trống; khóa thật bằng 0 được đổi thành 1
+    private static final long EMPTY = 0L;
+
+    private final long[] keys;
+    private final float[] costs;
+    private final int mask;
+    private long hits;
+    private long misses;
+
+    /**
+     * Tạo bảng với sức chứa làm tròn lên lũy thừa của 2
+     * @param capacity Số ô tối thiểu
+     */
+    public RouteCostCache(int capacity) {
+        int size = Integer.highestOneBit(Math.max(16, capacity - 1)) << 1;
+        this.keys = new long[size];
+        this.costs = new float[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * Tra chi phí của một tuyến
+     * @param key Khóa băm của tuyến
+     * @return Chi phí, hoặc NaN nếu chưa có trong bảng
+     */
+    public float get(long key) {
+        if (key == EMPTY) key = 1;
+        int slot = (int) key & mask;
+        for (int probe = 0; probe < MAX_PROBES; probe++) {
+            long stored = keys[slot];
+            if (stored == key) {
+                hits++;
+                return costs[slot];
+            }
+            if (stored == EMPTY) break;
+            slot = (slot + 1) & mask;
+        }
+        misses++;
+        return Float.NaN;
+    }
+
+    /**
+     * Ghi chi phí của một tuyến
+     * @param key Khóa băm của tuyến
+     * @param cost Chi phí
+     */
+    public void put(long key, float cost) {
+        if (key == EMPTY) key = 1;
+        int home = (int) key & mask;
+        int slot = home;
+        for (int probe = 0; probe < MAX_PROBES; probe++) {
+            if (keys[slot] == EMPTY || keys[slot] == key) {
+                keys[slot] = key;
+                costs[slot] = cost;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        // Vùng dò đã đầy: ghi đè ô đầu tiên
+        keys[home] = key;
+        costs[home] = cost;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Tỉ lệ tra cứu trúng
+     * @return Tỉ lệ trong [0, 1], 0 nếu chưa tra lần nào
+     */
+    public double getHitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    public int getCapacity() {
+        return keys.length;
+    }
+}
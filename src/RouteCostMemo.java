@@ -0,0 +1,66 @@
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Lớp RouteCostMemo là bộ nhớ chi phí tuyến của một lần giải, dùng chung cho bài toán gốc và mọi bài toán
+ * dẫn xuất từ nó (đổi cấu hình, đổi danh sách mặt hàng, nối thêm mặt hàng)
+ *
+ * Mỗi luồng có một RouteCostCache riêng (không đồng bộ), được cấp phát lần đầu luồng tra cứu. Khóa Zobrist
+ * của một nút phụ thuộc vào vị trí trong bảng khoảng cách (và chỉ số mặt hàng để các nút trong một tuyến
+ * luôn khác nhau), nên cùng khóa nghĩa là cùng dãy vị trí và cùng chi phí dù tuyến thuộc bài toán dẫn xuất nào.
+ * Bài toán dẫn xuất chỉ dùng chung bộ nhớ khi dùng chung bảng khoảng cách.
+ */
+public final class RouteCostMemo {
+    private final int size;
+    private final ThreadLocal<RouteCostCache> caches;
+    private final List<RouteCostCache> allCaches = new CopyOnWriteArrayList<>();
+
+    /**
+     * Tạo bộ nhớ rỗng
+     * @param size Số ô của bảng của mỗi luồng
+     */
+    public RouteCostMemo(int size) {
+        this.size = size;
+        this.caches = ThreadLocal.withInitial(() -> {
+            RouteCostCache cache = new RouteCostCache(size);
+            allCaches.add(cache);
+            return cache;
+        });
+    }
+
+    /**
+     * Lấy bảng của luồng hiện tại
+     * @return Bảng ghi nhớ
+     */
+    public RouteCostCache get() {
+        return caches.get();
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Tổng số lần tra trúng của mọi luồng
+     * @return Số lần tra trúng
+     */
+    public long getHits() {
+        long hits = 0;
+        for (RouteCostCache cache : allCaches) {
+            hits += cache.getHits();
+        }
+        return hits;
+    }
+
+    /**
+     * Tổng số lần tra trượt của mọi luồng
+     * @return Số lần tra trượt
+     */
+    public long getMisses() {
+        long misses = 0;
+        for (RouteCostCache cache : allCaches) {
+            misses += cache.getMisses();
+        }
+        return misses;
+    }
+}
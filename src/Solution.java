@@ -1,295 +1,972 @@
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Random;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.random.RandomGenerator;
 
 /**
  * Lớp Solution đại diện cho một lời giải của bài toán tìm đường đi cho robot
- * Lưu trữ các tuyến đường và tính toán chi phí quãng đường
+ *
+ * Lời giải được mã hóa trong một mảng int duy nhất để sao chép bằng một lần System.arraycopy:
+ * - TOUR: n chỉ số mặt hàng cần lấy, các tuyến nối tiếp nhau (tour khổng lồ)
+ * - POS: vị trí của từng mặt hàng trong TOUR
+ * - START: m + 1 vị trí bắt đầu của từng tuyến trong TOUR (tuyến r là [START[r], START[r + 1]))
+ * - LOAD: tải trọng của từng tuyến
+ * - COST: chi phí quãng đường của từng tuyến (bit của float)
+ * - HASH: khóa Zobrist 64 bit của từng tuyến (hai int), XOR khóa của các cạnh giữa hai nút liên
+ *   tiếp (điểm xuất phát, các mặt hàng, điểm kết thúc). Các thao tác chỉ XOR các cạnh bị thay đổi,
+ *   rồi tra chi phí tuyến trong bảng ghi nhớ của bài toán trước khi phải tính lại
+ *
+ * Mỗi mặt hàng luôn nằm trong đúng một tuyến. Tuyến vượt sức chứa không bị xóa hàng
+ * mà bị phạt theo số đơn vị vượt quá (OVERLOAD_PENALTY).
  */
 public class Solution {
-    private ArrayList<Robot> robots;
-    private ArrayList<ArrayList<Merchandise>> robotRoutes;
+    // Chi phí phạt cho mỗi đơn vị hàng vượt quá sức chứa của robot
+    public static final double OVERLOAD_PENALTY = 1000.0;
+
+    private final ProblemInstance instance;
+    private final int itemCount;
+    private final int routeCount;
+    // Vị trí bắt đầu của từng phần trong mảng data
+    private final int posBase;
+    private final int startBase;
+    private final int loadBase;
+    private final int costBase;
+    private final int hashBase;
+    private final int[] data;
     private double fitness;
-    private Random random;
 
     /**
-     * Khởi tạo một giải pháp từ danh sách robot
-     * @param robots Danh sách robot
+     * Khởi tạo một giải pháp rỗng (mọi mặt hàng nằm ở tuyến đầu tiên theo thứ tự đơn hàng)
+     * @param instance Bài toán mà giải pháp thuộc về
      */
-    public Solution(ArrayList<Robot> robots) {
-        this.robots = new ArrayList<>(robots);
-        this.robotRoutes = new ArrayList<>();
-        for (int i = 0; i < robots.size(); i++) {
-            this.robotRoutes.add(new ArrayList<>());
+    public Solution(ProblemInstance instance) {
+        this.instance = instance;
+        this.itemCount = instance.getRequire().size();
+        this.routeCount = instance.getRobotCount();
+        this.posBase = itemCount;
+        this.startBase = posBase + itemCount;
+        this.loadBase = startBase + routeCount + 1;
+        this.costBase = loadBase + routeCount;
+        this.hashBase = costBase + routeCount;
+        this.data = new int[hashBase + 2 * routeCount];
+
+        int[] order = new int[itemCount];
+        int[] sizes = new int[routeCount];
+        for (int i = 0; i < itemCount; i++) {
+            order[i] = i;
         }
-        this.random = new Random();
-        this.fitness = Double.MAX_VALUE;
+        sizes[0] = itemCount;
+        setRoutes(order, sizes);
     }
 
     /**
-     * Constructor sao chép từ Solution khác
+     * Constructor sao chép từ Solution khác (một lần System.arraycopy)
      * @param other Solution cần sao chép
      */
     public Solution(Solution other) {
-        this.robots = new ArrayList<>(other.robots);
-        this.robotRoutes = new ArrayList<>();
-        for (ArrayList<Merchandise> route : other.robotRoutes) {
-            ArrayList<Merchandise> newRoute = new ArrayList<>();
-            for (Merchandise merchandise : route) {
-                newRoute.add(merchandise);
-            }
-            this.robotRoutes.add(newRoute);
-        }
+        this.instance = other.instance;
+        this.itemCount = other.itemCount;
+        this.routeCount = other.routeCount;
+        this.posBase = other.posBase;
+        this.startBase = other.startBase;
+        this.loadBase = other.loadBase;
+        this.costBase = other.costBase;
+        this.hashBase = other.hashBase;
+        this.data = new int[other.data.length];
+        System.arraycopy(other.data, 0, data, 0, data.length);
         this.fitness = other.fitness;
-        this.random = new Random();
     }
 
     /**
-     * Khởi tạo một giải pháp ngẫu nhiên
-     * @param requiredItems Danh sách các mặt hàng cần lấy
+     * Tạo giải pháp cho bài toán nối thêm mặt hàng (ProblemInstance.withItemsAppended) từ giải pháp của bài
+     * toán trước: các tuyến giữ nguyên, mặt hàng mới được nối vào cuối tuyến cuối theo thứ tự chỉ số.
+     * Các phần của mảng được chép bằng System.arraycopy, chỉ tuyến cuối được tính lại
+     * @param previous Giải pháp của bài toán trước
+     * @param appended Bài toán nối thêm từ bài toán của previous
      */
-    public void initializeRandomSolution(ArrayList<Merchandise> requiredItems) {
-        // Tạo bản sao của danh sách mặt hàng cần lấy để làm việc
-        ArrayList<Merchandise> items = new ArrayList<>();
-        for (Merchandise item : requiredItems) {
-            items.add(item);
+    public Solution(Solution previous, ProblemInstance appended) {
+        this.instance = appended;
+        this.itemCount = appended.getRequire().size();
+        this.routeCount = previous.routeCount;
+        this.posBase = itemCount;
+        this.startBase = posBase + itemCount;
+        this.loadBase = startBase + routeCount + 1;
+        this.costBase = loadBase + routeCount;
+        this.hashBase = costBase + routeCount;
+        this.data = new int[hashBase + 2 * routeCount];
+
+        int oldCount = previous.itemCount;
+        System.arraycopy(previous.data, 0, data, 0, oldCount);
+        System.arraycopy(previous.data, previous.posBase, data, posBase, oldCount);
+        for (int item = oldCount; item < itemCount; item++) {
+            data[item] = item;
+            data[posBase + item] = item;
         }
-        Collections.shuffle(items, random);
-
-        // Phân phối các mặt hàng ngẫu nhiên cho các robot, tôn trọng ràng buộc về sức chứa
-        for (Merchandise item : items) {
-            // Thử tìm một robot có thể lấy mặt hàng này
-            boolean allocated = false;
-            ArrayList<Integer> robotIndices = new ArrayList<>();
-            for (int i = 0; i < robots.size(); i++) {
-                robotIndices.add(i);
-            }
-            Collections.shuffle(robotIndices, random);
-
-            for (int i : robotIndices) {
-                Robot robot = robots.get(i);
-                ArrayList<Merchandise> route = robotRoutes.get(i);
+        System.arraycopy(previous.data, previous.startBase, data, startBase, routeCount);
+        data[startBase + routeCount] = itemCount;
+        // LOAD, COST và HASH nằm liền nhau
+        System.arraycopy(previous.data, previous.loadBase, data, loadBase, 4 * routeCount);
+        updateRoute(routeCount - 1);
+        updateFitness();
+    }
 
-                // Tính toán tải trọng hiện tại
-                int currentLoad = 0;
-                for (Merchandise m : route) {
-                    currentLoad += m.getQuantity();
-                }
+    /**
+     * Chép nội dung của giải pháp khác cùng bài toán vào giải pháp này, không cấp phát bộ nhớ
+     * @param other Giải pháp nguồn
+     */
+    public void copyFrom(Solution other) {
+        System.arraycopy(other.data, 0, data, 0, data.length);
+        this.fitness = other.fitness;
+    }
 
-                // Kiểm tra xem robot này có thể lấy mặt hàng
-                if (currentLoad + item.getQuantity() <= robot.capacity) {
-                    route.add(item);
-                    allocated = true;
+    /**
+     * Khởi tạo một giải pháp ngẫu nhiên, ưu tiên robot còn đủ sức chứa
+     * @param random Bộ sinh số ngẫu nhiên
+     */
+    public void initializeRandomSolution(RandomGenerator random) {
+        int[] items = new int[itemCount];
+        for (int i = 0; i < itemCount; i++) {
+            items[i] = i;
+        }
+        shuffle(items, itemCount, random);
+
+        int[] robotOf = new int[itemCount];
+        int[] loads = new int[routeCount];
+        int[] sizes = new int[routeCount];
+        int[] robotOrder = new int[routeCount];
+        for (int k = 0; k < itemCount; k++) {
+            int item = items[k];
+            int quantity = instance.requireQuantity(item);
+
+            // Thử các robot theo thứ tự ngẫu nhiên
+            for (int r = 0; r < routeCount; r++) {
+                robotOrder[r] = r;
+            }
+            shuffle(robotOrder, routeCount, random);
+            int chosen = -1;
+            for (int r : robotOrder) {
+                if (loads[r] + quantity <= instance.getCapacity()) {
+                    chosen = r;
                     break;
                 }
             }
 
-            // Nếu không robot nào có thể lấy, gán cho robot có tải trọng ít nhất và điều chỉnh sau
-            if (!allocated) {
-                int leastLoadedRobot = findLeastLoadedRobot();
-                robotRoutes.get(leastLoadedRobot).add(item);
+            // Nếu không robot nào đủ chỗ, gán cho robot có tải trọng ít nhất (sẽ bị phạt)
+            if (chosen < 0) {
+                chosen = leastLoaded(loads);
             }
+            robotOf[item] = chosen;
+            loads[chosen] += quantity;
+            sizes[chosen]++;
         }
 
-        // Đảm bảo ràng buộc về sức chứa được tôn trọng
-        for (int i = 0; i < robots.size(); i++) {
-            enforceCapacityConstraint(i);
+        // Xếp các mặt hàng theo robot, giữ thứ tự ngẫu nhiên trong mỗi tuyến
+        int[] next = new int[routeCount];
+        for (int r = 1; r < routeCount; r++) {
+            next[r] = next[r - 1] + sizes[r - 1];
+        }
+        int[] order = new int[itemCount];
+        for (int k = 0; k < itemCount; k++) {
+            int item = items[k];
+            order[next[robotOf[item]]++] = item;
+        }
+        setRoutes(order, sizes);
+    }
+
+    /**
+     * Đặt lại toàn bộ các tuyến
+     * @param order Các mặt hàng theo thứ tự tuyến 0, tuyến 1, ...
+     * @param sizes Số mặt hàng của từng tuyến
+     */
+    public void setRoutes(int[] order, int[] sizes) {
+        System.arraycopy(order, 0, data, 0, itemCount);
+        int start = 0;
+        for (int r = 0; r < routeCount; r++) {
+            data[startBase + r] = start;
+            start += sizes[r];
         }
+        data[startBase + routeCount] = start;
+        for (int p = 0; p < itemCount; p++) {
+            data[posBase + data[p]] = p;
+        }
+        evaluate();
     }
 
     /**
-     * Tìm robot có tải trọng thấp nhất
-     * @return Chỉ số của robot có tải trọng thấp nhất
+     * Đặt các tuyến theo kế hoạch của một lời giải trên bài toán khác (ví dụ đơn hàng trước khi được sửa)
+     * Mặt hàng được ghép theo tên nên giữ nguyên tuyến và thứ tự; mặt hàng không còn trong đơn bị bỏ,
+     * mặt hàng mới được chèn vào vị trí rẻ nhất. Tuyến vượt quá số robot được nối vào robot cuối.
+     * Số lượng của mặt hàng có thể đã đổi nên cuối cùng tuyến vượt sức chứa được sửa (repairCapacity)
+     * @param previous Lời giải trước
      */
-    private int findLeastLoadedRobot() {
-        int minLoad = Integer.MAX_VALUE;
-        int robotIndex = 0;
+    public void adaptFrom(Solution previous) {
+        // Chỉ số mới của các mặt hàng theo tên, theo thứ tự trong đơn hàng
+        Map<String, ArrayDeque<Integer>> byName = new HashMap<>();
+        List<Merchandise> items = instance.getRequire();
+        for (int id = 0; id < itemCount; id++) {
+            byName.computeIfAbsent(items.get(id).getName(), name -> new ArrayDeque<>()).add(id);
+        }
 
-        for (int i = 0; i < robots.size(); i++) {
-            int load = 0;
-            for (Merchandise item : robotRoutes.get(i)) {
-                load += item.getQuantity();
+        List<Merchandise> previousItems = previous.instance.getRequire();
+        int[] order = new int[itemCount];
+        int[] sizes = new int[routeCount];
+        boolean[] placed = new boolean[itemCount];
+        int position = 0;
+        for (int r = 0; r < previous.routeCount; r++) {
+            int route = Math.min(r, routeCount - 1);
+            for (int p = previous.routeStart(r); p < previous.routeEnd(r); p++) {
+                ArrayDeque<Integer> ids = byName.get(previousItems.get(previous.data[p]).getName());
+                Integer id = ids != null ? ids.poll() : null;
+                if (id == null) continue;
+                order[position++] = id;
+                sizes[route]++;
+                placed[id] = true;
+            }
+        }
+        int added = position;
+        for (int id = 0; id < itemCount; id++) {
+            if (!placed[id]) {
+                order[position++] = id;
+                sizes[routeCount - 1]++;
             }
+        }
+        setRoutes(order, sizes);
+        for (int p = added; p < itemCount; p++) {
+            reinsertCheapest(order[p]);
+        }
+        repairCapacity();
+    }
 
-            if (load < minLoad) {
-                minLoad = load;
-                robotIndex = i;
+    /**
+     * Tính lại tải trọng, chi phí từng tuyến và fitness
+     */
+    public void evaluate() {
+        for (int r = 0; r < routeCount; r++) {
+            updateRoute(r);
+        }
+        updateFitness();
+    }
+
+    /**
+     * Tính lại tải trọng, khóa Zobrist và chi phí của một tuyến (không cập nhật fitness)
+     * @param route Chỉ số tuyến
+     */
+    private void updateRoute(int route) {
+        int start = routeStart(route);
+        int end = routeEnd(route);
+        int load = 0;
+        for (int p = start; p < end; p++) {
+            load += instance.requireQuantity(data[p]);
+        }
+        data[loadBase + route] = load;
+
+        long hash = 0;
+        for (int k = 0; k <= end - start; k++) {
+            hash ^= edgeAt(route, k);
+        }
+        setRouteKey(route, hash);
+        updateRouteCost(route);
+    }
+
+    /**
+     * Cập nhật chi phí của một tuyến từ khóa Zobrist đã lưu: tra bảng ghi nhớ, chỉ tính lại khi chưa có
+     * @param route Chỉ số tuyến
+     */
+    private void updateRouteCost(int route) {
+        RouteCostCache cache = instance.routeCostCache();
+        float cost;
+        if (cache == null) {
+            cost = (float) instance.routeCost(data, routeStart(route), routeEnd(route));
+        } else {
+            long key = routeKey(route);
+            cost = cache.get(key);
+            if (Float.isNaN(cost)) {
+                cost = (float) instance.routeCost(data, routeStart(route), routeEnd(route));
+                cache.put(key, cost);
             }
         }
+        data[costBase + route] = Float.floatToRawIntBits(cost);
+    }
 
-        return robotIndex;
+    /**
+     * Nút thứ index của tuyến: -1 là điểm xuất phát (n), size là điểm kết thúc (n + 1)
+     */
+    private int nodeAt(int route, int index) {
+        if (index < 0) return itemCount;
+        if (index >= routeSize(route)) return itemCount + 1;
+        return data[routeStart(route) + index];
     }
 
     /**
-     * Đảm bảo ràng buộc sức chứa cho một robot
-     * @param robotIndex Chỉ số robot cần kiểm tra
+     * Khóa Zobrist của cạnh thứ k của tuyến (nối nút k - 1 và nút k), k trong [0, size]
      */
-    private void enforceCapacityConstraint(int robotIndex) {
-        Robot robot = robots.get(robotIndex);
-        ArrayList<Merchandise> route = robotRoutes.get(robotIndex);
+    private long edgeAt(int route, int k) {
+        return edgeKey(nodeAt(route, k - 1), nodeAt(route, k));
+    }
 
-        int totalQuantity = 0;
-        for (Merchandise item : route) {
-            totalQuantity += item.getQuantity();
+    /**
+     * Khóa Zobrist của cạnh nối hai nút (không phụ thuộc chiều)
+     * Trộn tổng hai khóa nút để XOR của các cạnh kề nhau không triệt tiêu nhau
+     */
+    private long edgeKey(int a, int b) {
+        long z = instance.zobristKey(a) + instance.zobristKey(b);
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private void toggleEdge(int route, int k) {
+        setRouteKey(route, routeKey(route) ^ edgeAt(route, k));
+    }
+
+    private void setRouteKey(int route, long key) {
+        data[hashBase + 2 * route] = (int) (key >>> 32);
+        data[hashBase + 2 * route + 1] = (int) key;
+    }
+
+    /**
+     * Tính lại fitness từ chi phí và tải trọng đã lưu của các tuyến
+     */
+    private void updateFitness() {
+        double total = 0;
+        for (int r = 0; r < routeCount; r++) {
+            total += routeCost(r) + overloadPenalty(data[loadBase + r]);
         }
+        this.fitness = total;
+    }
 
-        // Loại bỏ các mặt hàng từ cuối cho đến khi tôn trọng sức chứa
-        while (totalQuantity > robot.capacity && !route.isEmpty()) {
-            Merchandise removedItem = route.remove(route.size() - 1);
-            totalQuantity -= removedItem.getQuantity();
+    /**
+     * Đảo ngược đoạn [i, j] (chỉ số trong tuyến) của một tuyến
+     * @param route Chỉ số tuyến
+     * @param i Vị trí đầu đoạn
+     * @param j Vị trí cuối đoạn
+     */
+    public void reverse(int route, int i, int j) {
+        // Chỉ hai cạnh ở hai đầu đoạn thay đổi, các cạnh bên trong chỉ đổi chiều
+        toggleEdge(route, i);
+        toggleEdge(route, j + 1);
+        int start = routeStart(route);
+        int a = start + i;
+        int b = start + j;
+        while (a < b) {
+            int temp = data[a];
+            data[a] = data[b];
+            data[b] = temp;
+            data[posBase + data[a]] = a;
+            data[posBase + data[b]] = b;
+            a++;
+            b--;
+        }
+        toggleEdge(route, i);
+        toggleEdge(route, j + 1);
+        updateRouteCost(route);
+        updateFitness();
+    }
 
-            // Thử phân bổ lại cho robot khác
-            reallocateItem(removedItem);
+    /**
+     * Hoán đổi hai mặt hàng (có thể thuộc hai tuyến khác nhau)
+     * @param route1 Tuyến thứ nhất
+     * @param i1 Vị trí trong tuyến thứ nhất
+     * @param route2 Tuyến thứ hai
+     * @param i2 Vị trí trong tuyến thứ hai
+     */
+    public void swap(int route1, int i1, int route2, int i2) {
+        int a = routeStart(route1) + i1;
+        int b = routeStart(route2) + i2;
+        toggleSwapEdges(route1, i1, route2, i2);
+        int temp = data[a];
+        data[a] = data[b];
+        data[b] = temp;
+        data[posBase + data[a]] = a;
+        data[posBase + data[b]] = b;
+        toggleSwapEdges(route1, i1, route2, i2);
+
+        if (route2 != route1) {
+            int change = instance.requireQuantity(data[a]) - instance.requireQuantity(data[b]);
+            data[loadBase + route1] += change;
+            data[loadBase + route2] -= change;
+            updateRouteCost(route2);
         }
+        updateRouteCost(route1);
+        updateFitness();
     }
 
     /**
-     * Thử phân bổ lại một mặt hàng cho robot khác
-     * @param item Mặt hàng cần phân bổ lại
+     * Đảo các cạnh kề hai vị trí được hoán đổi, mỗi cạnh đúng một lần
      */
-    private void reallocateItem(Merchandise item) {
-        for (int i = 0; i < robots.size(); i++) {
-            Robot robot = robots.get(i);
-            ArrayList<Merchandise> route = robotRoutes.get(i);
+    private void toggleSwapEdges(int route1, int i1, int route2, int i2) {
+        toggleEdge(route1, i1);
+        toggleEdge(route1, i1 + 1);
+        boolean sameRoute = route1 == route2;
+        if (!sameRoute || (i2 != i1 && i2 != i1 + 1)) {
+            toggleEdge(route2, i2);
+        }
+        if (!sameRoute || (i2 + 1 != i1 && i2 + 1 != i1 + 1)) {
+            toggleEdge(route2, i2 + 1);
+        }
+    }
 
-            int currentLoad = 0;
-            for (Merchandise m : route) {
-                currentLoad += m.getQuantity();
-            }
+    /**
+     * Chuyển một mặt hàng sang vị trí khác (có thể sang tuyến khác)
+     * @param fromRoute Tuyến nguồn
+     * @param fromIndex Vị trí trong tuyến nguồn
+     * @param toRoute Tuyến đích
+     * @param toIndex Vị trí chèn trong tuyến đích, tính sau khi đã lấy mặt hàng ra
+     */
+    public void relocate(int fromRoute, int fromIndex, int toRoute, int toIndex) {
+        moveSegment(fromRoute, fromIndex, 1, toRoute, toIndex, false);
+    }
 
-            if (currentLoad + item.getQuantity() <= robot.capacity) {
-                route.add(item);
-                return;
+    /**
+     * Chuyển một đoạn liên tiếp các mặt hàng sang vị trí khác (có thể sang tuyến khác)
+     * @param fromRoute Tuyến nguồn
+     * @param fromIndex Vị trí đầu đoạn trong tuyến nguồn
+     * @param length Độ dài đoạn
+     * @param toRoute Tuyến đích
+     * @param toIndex Vị trí chèn trong tuyến đích, tính sau khi đã lấy đoạn ra
+     * @param reversed true nếu đoạn được chèn theo thứ tự ngược lại
+     */
+    public void moveSegment(int fromRoute, int fromIndex, int length, int toRoute, int toIndex, boolean reversed) {
+        updateKeysForMove(fromRoute, fromIndex, length, toRoute, toIndex, reversed);
+        if (toRoute != fromRoute) {
+            int quantity = segmentLoad(fromRoute, fromIndex, length);
+            data[loadBase + fromRoute] -= quantity;
+            data[loadBase + toRoute] += quantity;
+        }
+
+        int from = routeStart(fromRoute) + fromIndex;
+        int[] segment = new int[length];
+        System.arraycopy(data, from, segment, 0, length);
+
+        // Vị trí chèn trong tour sau khi lấy đoạn ra
+        int target = routeStart(toRoute) + toIndex;
+        if (toRoute > fromRoute) {
+            target -= length;
+        }
+
+        // Dịch các phần tử nằm giữa để lấp chỗ trống và mở chỗ mới
+        if (target > from) {
+            System.arraycopy(data, from + length, data, from, target - from);
+        } else if (target < from) {
+            System.arraycopy(data, target, data, target + length, from - target);
+        }
+        for (int k = 0; k < length; k++) {
+            data[target + k] = reversed ? segment[length - 1 - k] : segment[k];
+        }
+        int low = Math.min(from, target);
+        int high = Math.max(from, target) + length;
+        for (int p = low; p < high; p++) {
+            data[posBase + data[p]] = p;
+        }
+
+        // Cập nhật ranh giới các tuyến nằm giữa tuyến nguồn và tuyến đích
+        if (toRoute > fromRoute) {
+            for (int r = fromRoute + 1; r <= toRoute; r++) {
+                data[startBase + r] -= length;
+            }
+        } else if (toRoute < fromRoute) {
+            for (int r = toRoute + 1; r <= fromRoute; r++) {
+                data[startBase + r] += length;
             }
         }
 
-        // Nếu không thể phân bổ lại, xử lý tình huống này
-        // Điều này có thể có nghĩa là một số mặt hàng không được thu thập
-        System.out.println("Cảnh báo: Không thể phân bổ mặt hàng " + item.getName() +
-                " cho bất kỳ robot nào do hạn chế về sức chứa");
+        updateRouteCost(fromRoute);
+        if (toRoute != fromRoute) {
+            updateRouteCost(toRoute);
+        }
+        updateFitness();
     }
 
     /**
-     * Lấy danh sách robot
-     * @return Danh sách robot
+     * Cập nhật khóa Zobrist của tuyến nguồn và tuyến đích cho bước chuyển đoạn, gọi trước khi
+     * thay đổi mảng. Gỡ đoạn: bỏ hai cạnh ở hai đầu đoạn, thêm cạnh nối hai láng giềng của đoạn.
+     * Chèn đoạn: bỏ cạnh tại vị trí chèn (tính sau khi gỡ), thêm hai cạnh nối với hai đầu đoạn
      */
-    public ArrayList<Robot> getRobots() {
-        return robots;
+    private void updateKeysForMove(int fromRoute, int fromIndex, int length, int toRoute, int toIndex,
+                                   boolean reversed) {
+        int prev = nodeAt(fromRoute, fromIndex - 1);
+        int first = nodeAt(fromRoute, fromIndex);
+        int last = nodeAt(fromRoute, fromIndex + length - 1);
+        int next = nodeAt(fromRoute, fromIndex + length);
+        long fromKey = routeKey(fromRoute) ^ edgeKey(prev, first) ^ edgeKey(last, next) ^ edgeKey(prev, next);
+
+        int before;
+        int after;
+        long toKey;
+        if (toRoute == fromRoute) {
+            // Chỉ số sau khi gỡ đoạn được đổi về chỉ số hiện tại; các cạnh bên trong đoạn không đổi
+            int remaining = routeSize(fromRoute) - length;
+            before = toIndex - 1 < 0 ? itemCount
+                    : nodeAt(fromRoute, toIndex - 1 < fromIndex ? toIndex - 1 : toIndex - 1 + length);
+            after = toIndex >= remaining ? itemCount + 1
+                    : nodeAt(fromRoute, toIndex < fromIndex ? toIndex : toIndex + length);
+            toKey = fromKey;
+        } else {
+            // Các cạnh bên trong đoạn chuyển từ tuyến nguồn sang tuyến đích
+            for (int k = fromIndex + 1; k < fromIndex + length; k++) {
+                fromKey ^= edgeAt(fromRoute, k);
+            }
+            setRouteKey(fromRoute, fromKey);
+            toKey = routeKey(toRoute);
+            for (int k = fromIndex + 1; k < fromIndex + length; k++) {
+                toKey ^= edgeAt(fromRoute, k);
+            }
+            before = nodeAt(toRoute, toIndex - 1);
+            after = nodeAt(toRoute, toIndex);
+        }
+
+        int head = reversed ? last : first;
+        int tail = reversed ? first : last;
+        toKey ^= edgeKey(before, after) ^ edgeKey(before, head) ^ edgeKey(tail, after);
+        setRouteKey(toRoute, toKey);
     }
 
     /**
-     * Lấy danh sách các tuyến đường của robot
-     * @return Danh sách các tuyến đường của robot
+     * Vị trí (chỉ số bảng khoảng cách) của nút thứ index trong tuyến, -1 và size là counter
      */
-    public ArrayList<ArrayList<Merchandise>> getRobotRoutes() {
-        return robotRoutes;
+    private int locationAt(int route, int index) {
+        if (index < 0 || index >= routeSize(route)) {
+            return instance.getCounterLocation();
+        }
+        return instance.requireLocation(data[routeStart(route) + index]);
     }
 
     /**
-     * Lấy giá trị fitness (chi phí quãng đường)
-     * @return Giá trị fitness
+     * Thay đổi chi phí khi đảo ngược đoạn [i, j] của một tuyến (2-opt), tính trong O(1)
+     * Số bước đi đối xứng và chi phí lấy hàng không đổi nên chỉ hai cạnh ở hai đầu đoạn thay đổi
+     * @param route Chỉ số tuyến
+     * @param i Vị trí đầu đoạn
+     * @param j Vị trí cuối đoạn
+     * @return Chênh lệch fitness (âm nếu tốt hơn)
      */
-    public double getFitness() {
-        return fitness;
+    public double twoOptDelta(int route, int i, int j) {
+        int prev = locationAt(route, i - 1);
+        int first = locationAt(route, i);
+        int last = locationAt(route, j);
+        int next = locationAt(route, j + 1);
+        return (double) instance.steps(prev, last) + instance.steps(first, next)
+                - instance.steps(prev, first) - instance.steps(last, next);
     }
 
     /**
-     * Đặt giá trị fitness
-     * @param fitness Giá trị fitness mới
+     * Thay đổi chi phí khi chuyển một đoạn (relocate / Or-opt), tính từ các cạnh ở hai đầu đoạn
+     * và tải trọng đã lưu của hai tuyến, không tạo lời giải mới
+     * Chi phí một tuyến = tổng số bước + tổng chi phí lấy hàng của các mặt hàng
+     * + chi phí đến counter nếu tuyến không rỗng, nên chỉ các cạnh và thành viên của tuyến cần xét
+     * @param fromRoute Tuyến nguồn
+     * @param fromIndex Vị trí đầu đoạn trong tuyến nguồn
+     * @param length Độ dài đoạn
+     * @param toRoute Tuyến đích
+     * @param toIndex Vị trí chèn trong tuyến đích, tính sau khi đã lấy đoạn ra
+     * @param reversed true nếu đoạn được chèn theo thứ tự ngược lại
+     * @return Chênh lệch fitness (âm nếu tốt hơn)
      */
-    public void setFitness(double fitness) {
-        this.fitness = fitness;
+    public double moveSegmentDelta(int fromRoute, int fromIndex, int length, int toRoute, int toIndex,
+                                   boolean reversed) {
+        int counter = instance.getCounterLocation();
+        int first = locationAt(fromRoute, fromIndex);
+        int last = locationAt(fromRoute, fromIndex + length - 1);
+        int prev = locationAt(fromRoute, fromIndex - 1);
+        int next = locationAt(fromRoute, fromIndex + length);
+
+        // Gỡ đoạn khỏi tuyến nguồn
+        double delta = instance.steps(prev, next) - instance.steps(prev, first) - instance.steps(last, next);
+
+        // Hai nút kẹp vị trí chèn, đánh số theo tuyến đích sau khi đã gỡ đoạn
+        int before;
+        int after;
+        if (toRoute == fromRoute) {
+            before = toIndex - 1 < fromIndex ? locationAt(toRoute, toIndex - 1) : locationAt(toRoute, toIndex - 1 + length);
+            after = toIndex < fromIndex ? locationAt(toRoute, toIndex) : locationAt(toRoute, toIndex + length);
+        } else {
+            before = locationAt(toRoute, toIndex - 1);
+            after = locationAt(toRoute, toIndex);
+        }
+        int head = reversed ? last : first;
+        int tail = reversed ? first : last;
+        delta += instance.steps(before, head) + instance.steps(tail, after) - instance.steps(before, after);
+
+        if (toRoute != fromRoute) {
+            // Chi phí đến counter khi tuyến rỗng hoặc bắt đầu có hàng
+            if (routeSize(fromRoute) == length) {
+                delta -= instance.pickCost(counter);
+            }
+            if (routeSize(toRoute) == 0) {
+                delta += instance.pickCost(counter);
+            }
+
+            // Chênh lệch phạt vượt sức chứa theo tải trọng đã lưu
+            int quantity = segmentLoad(fromRoute, fromIndex, length);
+            delta += overloadPenalty(routeLoad(fromRoute) - quantity) - overloadPenalty(routeLoad(fromRoute))
+                    + overloadPenalty(routeLoad(toRoute) + quantity) - overloadPenalty(routeLoad(toRoute));
+        }
+        return delta;
     }
 
     /**
-     * Lấy tất cả các mặt hàng cần lấy trong giải pháp
-     * @return Danh sách tất cả các mặt hàng
+     * Tổng số lượng của một đoạn trong tuyến
      */
-    public ArrayList<Merchandise> getAllRequiredItems() {
-        ArrayList<Merchandise> allItems = new ArrayList<>();
-        for (ArrayList<Merchandise> route : robotRoutes) {
-            allItems.addAll(route);
+    public int segmentLoad(int route, int fromIndex, int length) {
+        int start = routeStart(route) + fromIndex;
+        int load = 0;
+        for (int p = start; p < start + length; p++) {
+            load += instance.requireQuantity(data[p]);
         }
-        return allItems;
+        return load;
+    }
+
+    private double overloadPenalty(int load) {
+        int overload = load - instance.getCapacity();
+        return overload > 0 ? overload * OVERLOAD_PENALTY : 0;
     }
 
     /**
-     * Tối ưu thứ tự các mặt hàng trong một tuyến đường sử dụng thuật toán gần nhất
-     * @param robotIndex Chỉ số robot cần tối ưu
-     * @param warehousing Kho hàng
+     * Chuyển bớt hàng của các tuyến vượt sức chứa sang robot còn chỗ
+     * Mặt hàng bị gỡ là mặt hàng tiết kiệm nhiều bước đi nhất khi bỏ khỏi tuyến (trong số các mặt hàng
+     * còn vừa một robot khác) và được chèn vào vị trí rẻ nhất của các tuyến còn đủ chỗ. Tải trọng đọc từ
+     * mảng đã lưu và chênh lệch chi phí tính trong O(1) từ bảng khoảng cách, nên mỗi mặt hàng được chuyển
+     * tốn O(n). Nếu không robot nào còn chỗ, tuyến giữ nguyên và bị phạt
      */
-    public void optimizeRouteOrder(int robotIndex, ArrayList<Merchandise> warehousing) {
-        ArrayList<Merchandise> route = robotRoutes.get(robotIndex);
-        if (route.size() <= 1) return;
+    public void repairCapacity() {
+        int capacity = instance.getCapacity();
+        for (int r = 0; r < routeCount; r++) {
+            while (routeLoad(r) > capacity && routeSize(r) > 0) {
+                // Chỗ trống lớn nhất của các robot khác
+                int room = 0;
+                for (int other = 0; other < routeCount; other++) {
+                    if (other != r) {
+                        room = Math.max(room, capacity - routeLoad(other));
+                    }
+                }
+
+                int index = mostExpensiveItem(r, room);
+                if (index < 0) break;
+
+                // Chèn rẻ nhất vào các tuyến còn đủ chỗ
+                int quantity = instance.requireQuantity(itemAt(r, index));
+                int bestRoute = -1;
+                int bestIndex = -1;
+                double bestDelta = Double.MAX_VALUE;
+                for (int other = 0; other < routeCount; other++) {
+                    if (other == r || routeLoad(other) + quantity > capacity) continue;
+                    for (int k = 0; k <= routeSize(other); k++) {
+                        double delta = moveSegmentDelta(r, index, 1, other, k, false);
+                        if (delta < bestDelta) {
+                            bestDelta = delta;
+                            bestRoute = other;
+                            bestIndex = k;
+                        }
+                    }
+                }
+                relocate(r, index, bestRoute, bestIndex);
+            }
+        }
+    }
 
-        ArrayList<Merchandise> optimizedRoute = new ArrayList<>();
-        ArrayList<Merchandise> remaining = new ArrayList<>(route);
+    /**
+     * Chuyển một mặt hàng đến vị trí chèn rẻ nhất trên mọi tuyến (kể cả vị trí hiện tại)
+     * Chênh lệch gồm cả phạt vượt sức chứa nên tuyến còn chỗ được ưu tiên; mỗi vị trí được đánh giá
+     * trong O(1) nên tổng cộng O(n)
+     * @param item Chỉ số mặt hàng
+     */
+    public void reinsertCheapest(int item) {
+        int route = routeOf(item);
+        int index = positionOf(item) - routeStart(route);
+        int bestRoute = route;
+        int bestIndex = index;
+        double bestDelta = 0;
+        for (int other = 0; other < routeCount; other++) {
+            int positions = other == route ? routeSize(other) - 1 : routeSize(other);
+            for (int k = 0; k <= positions; k++) {
+                double delta = moveSegmentDelta(route, index, 1, other, k, false);
+                if (delta < bestDelta) {
+                    bestDelta = delta;
+                    bestRoute = other;
+                    bestIndex = k;
+                }
+            }
+        }
+        if (bestRoute != route || bestIndex != index) {
+            relocate(route, index, bestRoute, bestIndex);
+        }
+    }
 
-        // Bắt đầu từ vị trí xuất phát của robot
-        Position startPosition = robots.get(robotIndex).getStartPosition();
-        // Đặt vị trí hiện tại của robot
-        DistanceCalculator.setCurrentRobotPosition(startPosition);
+    /**
+     * Tìm mặt hàng có số bước tiết kiệm được lớn nhất khi bỏ khỏi tuyến
+     * @param route Chỉ số tuyến
+     * @param maxQuantity Số lượng tối đa của mặt hàng được xét
+     * @return Vị trí trong tuyến, -1 nếu không mặt hàng nào đủ nhỏ
+     */
+    private int mostExpensiveItem(int route, int maxQuantity) {
+        int best = -1;
+        double bestSaving = -Double.MAX_VALUE;
+        for (int i = 0; i < routeSize(route); i++) {
+            if (instance.requireQuantity(itemAt(route, i)) > maxQuantity) continue;
+            int prev = locationAt(route, i - 1);
+            int location = locationAt(route, i);
+            int next = locationAt(route, i + 1);
+            double saving = (double) instance.steps(prev, location) + instance.steps(location, next)
+                    - instance.steps(prev, next);
+            if (saving > bestSaving) {
+                bestSaving = saving;
+                best = i;
+            }
+        }
+        return best;
+    }
 
-        // Vị trí hiện tại
-        Position currentPos = startPosition;
+    /**
+     * Tối ưu thứ tự các mặt hàng trong một tuyến đường
+     * Tuyến ngắn (không quá giới hạn trong cấu hình) được sắp xếp tối ưu bằng Held-Karp,
+     * tuyến dài hơn dùng thuật toán láng giềng gần nhất
+     * @param robotIndex Chỉ số robot cần tối ưu
+     */
+    public void optimizeRouteOrder(int robotIndex) {
+        int start = routeStart(robotIndex);
+        int end = routeEnd(robotIndex);
+        if (end - start <= 1) return;
+
+        if (instance.getSequencer().sequence(data, start, end - start)) {
+            for (int p = start; p < end; p++) {
+                data[posBase + data[p]] = p;
+            }
+            updateRoute(robotIndex);
+            updateFitness();
+            return;
+        }
 
-        while (!remaining.isEmpty()) {
-            // Tìm mặt hàng gần nhất từ vị trí hiện tại
-            Merchandise closest = null;
+        // Bắt đầu từ counter, khoảng cách lấy từ bảng khoảng cách của bài toán
+        int currentLocation = instance.getCounterLocation();
+        for (int p = start; p < end; p++) {
+            // Tìm mặt hàng gần nhất trong phần còn lại [p, end)
+            int closest = -1;
             float minDistance = Float.MAX_VALUE;
+            for (int q = p; q < end; q++) {
+                float distance = instance.cost(currentLocation, instance.requireLocation(data[q]));
+                if (distance < minDistance) {
+                    minDistance = distance;
+                    closest = q;
+                }
+            }
 
-            for (Merchandise item : remaining) {
-                Merchandise warehouseItem = findInWarehouse(item, warehousing);
-                if (warehouseItem != null) {
-                    // Tính khoảng cách từ vị trí hiện tại đến mặt hàng
-                    float distance = DistanceCalculator.calculateDistance(currentPos, warehouseItem.getPosition());
+            int item = data[closest];
+            data[closest] = data[p];
+            data[p] = item;
+            data[posBase + data[closest]] = closest;
+            data[posBase + item] = p;
+            currentLocation = instance.requireLocation(item);
+        }
 
-                    // Lưu lại vị trí hiện tại của robot
-                    Position tempPosition = DistanceCalculator.getCurrentRobotPosition();
+        updateRoute(robotIndex);
+        updateFitness();
+    }
 
-                    // Đặt lại vị trí hiện tại để tính toán cho mặt hàng tiếp theo
-                    DistanceCalculator.setCurrentRobotPosition(currentPos);
+    /**
+     * Tính tổng chi phí quãng đường của giải pháp (kèm phạt vượt sức chứa)
+     * @return Tổng chi phí quãng đường
+     */
+    public double calculateFitness() {
+        evaluate();
+        return fitness;
+    }
 
-                    if (distance < minDistance) {
-                        minDistance = distance;
-                        closest = item;
-                        // Lưu lại vị trí mới sau khi đến mặt hàng này
-                        currentPos = tempPosition;
-                    }
-                }
+    private static int leastLoaded(int[] loads) {
+        int best = 0;
+        for (int r = 1; r < loads.length; r++) {
+            if (loads[r] < loads[best]) {
+                best = r;
             }
+        }
+        return best;
+    }
+
+    private static void shuffle(int[] values, int length, RandomGenerator random) {
+        for (int i = length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int temp = values[i];
+            values[i] = values[j];
+            values[j] = temp;
+        }
+    }
 
-            if (closest != null) {
-                optimizedRoute.add(closest);
-                remaining.remove(closest);
+    /**
+     * So sánh thứ tự toàn phần giữa hai giải pháp có cùng fitness: so thứ tự mặt hàng rồi đến điểm đầu
+     * các tuyến, để việc chọn giữa các giải pháp bằng nhau không phụ thuộc thứ tự đến của chúng
+     * @param other Giải pháp khác cùng bài toán
+     * @return Âm, 0 hoặc dương như Comparator
+     */
+    public int compareRoutes(Solution other) {
+        int cmp = Arrays.compare(data, 0, posBase, other.data, 0, other.posBase);
+        if (cmp != 0) return cmp;
+        return Arrays.compare(data, startBase, loadBase, other.data, other.startBase, other.loadBase);
+    }
 
-                // Đặt vị trí hiện tại của robot là vị trí sau khi đến mặt hàng gần nhất
-                DistanceCalculator.setCurrentRobotPosition(currentPos);
+    /**
+     * Lấy số tuyến (số robot)
+     * @return Số tuyến
+     */
+    public int getRouteCount() {
+        return routeCount;
+    }
+
+    /**
+     * Lấy số mặt hàng cần lấy
+     * @return Số mặt hàng
+     */
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    public int routeStart(int route) {
+        return data[startBase + route];
+    }
+
+    public int routeEnd(int route) {
+        return data[startBase + route + 1];
+    }
+
+    public int routeSize(int route) {
+        return data[startBase + route + 1] - data[startBase + route];
+    }
+
+    /**
+     * Lấy mặt hàng ở vị trí index của một tuyến
+     * @param route Chỉ số tuyến
+     * @param index Vị trí trong tuyến
+     * @return Chỉ số mặt hàng cần lấy
+     */
+    public int itemAt(int route, int index) {
+        return data[data[startBase + route] + index];
+    }
+
+    /**
+     * Lấy mặt hàng ở vị trí p của tour khổng lồ
+     * @param p Vị trí trong tour
+     * @return Chỉ số mặt hàng cần lấy
+     */
+    public int tourItem(int p) {
+        return data[p];
+    }
+
+    /**
+     * Lấy vị trí của mặt hàng trong tour khổng lồ
+     * @param item Chỉ số mặt hàng cần lấy
+     * @return Vị trí trong tour
+     */
+    public int positionOf(int item) {
+        return data[posBase + item];
+    }
+
+    /**
+     * Tìm tuyến chứa một vị trí của tour khổng lồ (tìm kiếm nhị phân trên START)
+     * @param p Vị trí trong tour
+     * @return Chỉ số tuyến
+     */
+    public int routeOfPosition(int p) {
+        int low = 0;
+        int high = routeCount - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (data[startBase + mid] <= p) {
+                low = mid;
             } else {
-                // Nếu không tìm thấy mặt hàng nào, thoát khỏi vòng lặp
-                break;
+                high = mid - 1;
             }
         }
+        return low;
+    }
+
+    /**
+     * Lấy mặt hàng đứng trước một mặt hàng trong cùng tuyến
+     * @param item Chỉ số mặt hàng cần lấy
+     * @return Chỉ số mặt hàng đứng trước, -1 nếu mặt hàng đứng đầu tuyến
+     */
+    public int previousItem(int item) {
+        int p = positionOf(item);
+        return p > routeStart(routeOfPosition(p)) ? data[p - 1] : -1;
+    }
+
+    /**
+     * Lấy mặt hàng đứng sau một mặt hàng trong cùng tuyến
+     * @param item Chỉ số mặt hàng cần lấy
+     * @return Chỉ số mặt hàng đứng sau, -1 nếu mặt hàng đứng cuối tuyến
+     */
+    public int nextItem(int item) {
+        int p = positionOf(item);
+        return p + 1 < routeEnd(routeOfPosition(p)) ? data[p + 1] : -1;
+    }
+
+    /**
+     * Tìm tuyến chứa một mặt hàng
+     * @param item Chỉ số mặt hàng cần lấy
+     * @return Chỉ số tuyến
+     */
+    public int routeOf(int item) {
+        return routeOfPosition(positionOf(item));
+    }
+
+    /**
+     * Khóa Zobrist của một tuyến: hai tuyến có cùng dãy mặt hàng có cùng khóa
+     * @param route Chỉ số tuyến
+     * @return Khóa 64 bit
+     */
+    public long routeKey(int route) {
+        return ((long) data[hashBase + 2 * route] << 32) | (data[hashBase + 2 * route + 1] & 0xffffffffL);
+    }
 
-        // Cập nhật tuyến đường
-        robotRoutes.set(robotIndex, optimizedRoute);
+    public int routeLoad(int route) {
+        return data[loadBase + route];
+    }
 
-        // Đặt lại vị trí hiện tại về vị trí xuất phát
-        DistanceCalculator.setCurrentRobotPosition(startPosition);
+    public float routeCost(int route) {
+        return Float.intBitsToFloat(data[costBase + route]);
     }
+
     /**
-     * Tìm mặt hàng trong kho
-     * @param item Mặt hàng cần tìm
-     * @param warehousing Kho hàng
-     * @return Mặt hàng trong kho với vị trí, hoặc null nếu không tìm thấy
+     * Lấy các tuyến đường dưới dạng danh sách Merchandise (tạo mới mỗi lần gọi)
+     * @return Danh sách các tuyến đường của robot
      */
-    private Merchandise findInWarehouse(Merchandise item, ArrayList<Merchandise> warehousing) {
-        for (Merchandise w : warehousing) {
-            if (w.getName().equals(item.getName())) {
-                return w;
+    public ArrayList<ArrayList<Merchandise>> getRobotRoutes() {
+        ArrayList<ArrayList<Merchandise>> routes = new ArrayList<>(routeCount);
+        for (int r = 0; r < routeCount; r++) {
+            ArrayList<Merchandise> route = new ArrayList<>(routeSize(r));
+            for (int p = routeStart(r); p < routeEnd(r); p++) {
+                route.add(instance.getRequire().get(data[p]));
             }
+            routes.add(route);
+        }
+        return routes;
+    }
+
+    /**
+     * Lấy tất cả các mặt hàng cần lấy trong giải pháp
+     * @return Danh sách tất cả các mặt hàng theo thứ tự tour
+     */
+    public ArrayList<Merchandise> getAllRequiredItems() {
+        ArrayList<Merchandise> allItems = new ArrayList<>(itemCount);
+        for (int p = 0; p < itemCount; p++) {
+            allItems.add(instance.getRequire().get(data[p]));
         }
-        return null;
+        return allItems;
+    }
+
+    /**
+     * Lấy giá trị fitness (chi phí quãng đường)
+     * @return Giá trị fitness
+     */
+    public double getFitness() {
+        return fitness;
+    }
+
+    /**
+     * Lấy bài toán mà giải pháp thuộc về
+     * @return Bài toán
+     */
+    public ProblemInstance getInstance() {
+        return instance;
     }
 
     @Override
@@ -297,12 +974,10 @@ public class Solution {
         StringBuilder sb = new StringBuilder();
         sb.append("Giải pháp có chi phí quãng đường: ").append(fitness).append("\n");
 
-        for (int i = 0; i < robots.size(); i++) {
-            Robot robot = robots.get(i);
-            ArrayList<Merchandise> route = robotRoutes.get(i);
-
-            sb.append("Robot ").append(robot.nameRobot).append(": ");
-            for (Merchandise item : route) {
+        for (int r = 0; r < routeCount; r++) {
+            sb.append("Robot ").append(r + 1).append(": ");
+            for (int p = routeStart(r); p < routeEnd(r); p++) {
+                Merchandise item = instance.getRequire().get(data[p]);
                 sb.append(item.getName()).append("(").append(item.getQuantity()).append(") ");
             }
             sb.append("\n");
@@ -310,4 +985,4 @@ public class Solution {
 
         return sb.toString();
     }
-}
\ No newline at end of file
+}
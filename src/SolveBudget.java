@@ -0,0 +1,87 @@
+/**
+ * Lớp SolveBudget mô tả giới hạn của một lần giải: hạn chót tính từ lúc tạo và token hủy
+ * Đối tượng bất biến, được chia sẻ giữa các luồng của cùng một lần giải
+ */
+public final class SolveBudget {
+    private static final long UNLIMITED = Long.MAX_VALUE;
+
+    private final long startNanos;
+    private final long budgetNanos;
+    private final CancellationToken token;
+
+    private SolveBudget(long budgetNanos, CancellationToken token) {
+        this.startNanos = System.nanoTime();
+        this.budgetNanos = budgetNanos;
+        this.token = token;
+    }
+
+    /**
+     * Tạo giới hạn không có hạn chót và không thể hủy
+     * @return Giới hạn
+     */
+    public static SolveBudget unlimited() {
+        return new SolveBudget(UNLIMITED, null);
+    }
+
+    /**
+     * Tạo giới hạn với hạn chót tính từ bây giờ
+     * @param budgetMillis Thời gian cho phép (mili giây), giá trị âm nghĩa là không giới hạn
+     * @param token Token hủy, có thể null
+     * @return Giới hạn
+     */
+    public static SolveBudget of(long budgetMillis, CancellationToken token) {
+        return new SolveBudget(budgetMillis < 0 ? UNLIMITED : budgetMillis * 1_000_000L, token);
+    }
+
+    /**
+     * Kiểm tra đã hết thời gian hoặc đã bị hủy
+     * @return true nếu bộ giải phải dừng
+     */
+    public boolean isExhausted() {
+        return stopReason() != SolveResult.StopReason.COMPLETED;
+    }
+
+    /**
+     * Lý do dừng nếu bộ giải dừng tại thời điểm này
+     * @return CANCELLED, DEADLINE hoặc COMPLETED nếu chưa chạm giới hạn nào
+     */
+    public SolveResult.StopReason stopReason() {
+        if (token != null && token.isCancelled()) return SolveResult.StopReason.CANCELLED;
+        if (budgetNanos != UNLIMITED && System.nanoTime() - startNanos >= budgetNanos) {
+            return SolveResult.StopReason.DEADLINE;
+        }
+        return SolveResult.StopReason.COMPLETED;
+    }
+
+    /**
+     * Tạo giới hạn con bắt đầu từ bây giờ, được một phần thời gian còn lại và dùng chung token hủy
+     * (ví dụ cho từng lô khi các lô được giải lần lượt)
+     * @param fraction Phần thời gian còn lại, trong (0, 1]
+     * @return Giới hạn con; không giới hạn nếu giới hạn này không giới hạn
+     */
+    public SolveBudget slice(double fraction) {
+        if (budgetNanos == UNLIMITED) return new SolveBudget(UNLIMITED, token);
+        long remaining = Math.max(0, budgetNanos - (System.nanoTime() - startNanos));
+        return new SolveBudget((long) (remaining * fraction), token);
+    }
+
+    public long elapsedMillis() {
+        return (System.nanoTime() - startNanos) / 1_000_000L;
+    }
+
+    /**
+     * Thời gian cho phép
+     * @return Số mili giây, -1 nếu không giới hạn
+     */
+    public long getBudgetMillis() {
+        return budgetNanos == UNLIMITED ? -1 : budgetNanos / 1_000_000L;
+    }
+
+    /**
+     * Tỉ lệ thời gian đã dùng so với thời gian cho phép
+     * @return Tỉ lệ (có thể lớn hơn 1 một chút), 0 nếu không giới hạn
+     */
+    public double usedFraction() {
+        return budgetNanos == UNLIMITED ? 0.0 : (double) (System.nanoTime() - startNanos) / budgetNanos;
+    }
+}
@@ -0,0 +1,87 @@
+/**
+ * Lớp SolveResult chứa kết quả của một lần giải có giới hạn: lời giải tốt nhất tìm được,
+ * lý do dừng, lượng thời gian đã dùng so với giới hạn và hạt giống ngẫu nhiên để chạy lại
+ */
+public final class SolveResult {
+    /**
+     * Lý do bộ giải dừng
+     */
+    public enum StopReason {
+        COMPLETED,
+        DEADLINE,
+        CANCELLED
+    }
+
+    private final Solution solution;
+    private final StopReason stopReason;
+    private final int iterations;
+    private final long elapsedMillis;
+    private final long budgetMillis;
+    private final double usedFraction;
+    private final long seed;
+
+    /**
+     * Tạo kết quả từ lời giải và trạng thái của giới hạn tại lúc dừng
+     * @param solution Lời giải tốt nhất
+     * @param stopReason Lý do dừng
+     * @param iterations Số vòng lặp PSO đã hoàn thành
+     * @param budget Giới hạn của lần giải
+     * @param seed Hạt giống ngẫu nhiên của lần giải
+     */
+    public SolveResult(Solution solution, StopReason stopReason, int iterations, SolveBudget budget, long seed) {
+        this.solution = solution;
+        this.stopReason = stopReason;
+        this.iterations = iterations;
+        this.elapsedMillis = budget.elapsedMillis();
+        this.budgetMillis = budget.getBudgetMillis();
+        this.usedFraction = budget.usedFraction();
+        this.seed = seed;
+    }
+
+    public Solution getSolution() {
+        return solution;
+    }
+
+    public StopReason getStopReason() {
+        return stopReason;
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * Thời gian cho phép
+     * @return Số mili giây, -1 nếu không giới hạn
+     */
+    public long getBudgetMillis() {
+        return budgetMillis;
+    }
+
+    /**
+     * Tỉ lệ thời gian đã dùng so với thời gian cho phép
+     * @return Tỉ lệ, 0 nếu không giới hạn
+     */
+    public double getUsedFraction() {
+        return usedFraction;
+    }
+
+    /**
+     * Hạt giống ngẫu nhiên của lần giải; đặt vào cấu hình (randomSeed) để chạy lại cho cùng kết quả
+     * @return Hạt giống
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    @Override
+    public String toString() {
+        return "SolveResult{fitness=" + solution.getFitness() + ", stop=" + stopReason +
+                ", iterations=" + iterations + ", elapsed=" + elapsedMillis + "ms" +
+                (budgetMillis >= 0 ? ", budget=" + budgetMillis + "ms" : "") + ", seed=" + seed + "}";
+    }
+}
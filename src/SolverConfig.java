@@ -0,0 +1,460 @@
+import java.util.SplittableRandom;
+
+/**
+ * Lớp SolverConfig chứa các tham số của bộ giải PSO-VNS
+ * Đối tượng bất biến, có thể dùng chung giữa nhiều luồng
+ */
+public final class SolverConfig {
+    /**
+     * Cách chọn đảo nhận lời giải khi các đàn trao đổi lời giải
+     * - RING: đảo i gửi cho đảo i + 1 (vòng tròn)
+     * - RANDOM: mỗi lần trao đổi đảo nhận lấy lời giải từ một đảo khác được chọn ngẫu nhiên
+     */
+    public enum MigrationTopology {
+        RING,
+        RANDOM
+    }
+
+    /**
+     * Cách mã hóa vị trí của hạt PSO
+     * - ROUTES: hạt là các tuyến của từng robot, mặt hàng được kéo giữa các tuyến rồi sửa vi phạm sức chứa
+     * - GIANT_TOUR: hạt là một hoán vị của mọi mặt hàng, được chia tối ưu thành các tuyến bằng SplitDecoder
+     * - RANDOM_KEYS: hạt là vector khóa thực với vận tốc thực theo phương trình PSO chuẩn; sắp xếp khóa
+     *   cho hoán vị, rồi hoán vị được chia thành các tuyến như GIANT_TOUR
+     */
+    public enum ParticleEncoding {
+        ROUTES,
+        GIANT_TOUR,
+        RANDOM_KEYS
+    }
+
+    // Kích thước đàn
+    private final int swarmSize;
+    // Số vòng lặp tối đa của PSO
+    private final int psoMaxIterations;
+    // Trọng số quán tính
+    private final double inertiaWeight;
+    // Hệ số nhận thức
+    private final double cognitiveCoefficient;
+    // Hệ số xã hội
+    private final double socialCoefficient;
+    // Số vòng lặp tối đa của VNS
+    private final int vnsMaxIterations;
+    // Số lượng lân cận tối đa của VNS
+    private final int vnsMaxNeighborhoods;
+    // Số láng giềng gần nhất của mỗi mặt hàng trong tìm kiếm cục bộ dạng hạt (granular)
+    private final int granularNeighbors;
+    // Độ dài đoạn tối đa của lân cận Or-opt
+    private final int orOptMaxLength;
+    // Số luồng cập nhật đàn song song của PSO (1 = tuần tự)
+    private final int psoThreads;
+    // Số đàn (đảo) chạy song song, mỗi đàn trên một luồng (1 = một đàn duy nhất)
+    private final int islandCount;
+    // Số vòng lặp giữa hai lần trao đổi lời giải giữa các đảo
+    private final int migrationInterval;
+    // Số lời giải tốt nhất mỗi đảo gửi đi trong một lần trao đổi
+    private final int migrationSize;
+    // Cách chọn đảo nhận lời giải khi trao đổi
+    private final MigrationTopology migrationTopology;
+    // Đảo chờ bản chụp của kỳ trước khi đảo nguồn chậm hơn, để cùng hạt giống cho cùng kết quả
+    private final boolean migrationWait;
+    // Số giải pháp xuất phát của VNS đa khởi đầu chạy song song (1 = chỉ cải thiện giải pháp tốt nhất)
+    private final int vnsStarts;
+    // In tiến trình của VNS ra màn hình
+    private final boolean vnsVerbose;
+    // Số mặt hàng tối đa của tuyến được sắp xếp chính xác bằng Held-Karp
+    private final int exactSequencingLimit;
+    // Số ô của bảng ghi nhớ chi phí tuyến của mỗi luồng (0 = tắt)
+    private final int routeCacheSize;
+    // Tỉ lệ hạt được khởi tạo bằng Clarke-Wright
+    private final double savingsSeedFraction;
+    // Cách mã hóa vị trí của hạt PSO
+    private final ParticleEncoding particleEncoding;
+    // Hạt giống ngẫu nhiên của bộ giải (0 = chọn mới mỗi lần giải)
+    private final long randomSeed;
+    // Số luồng giải định tuyến các lô đơn hàng song song
+    private final int batchThreads;
+    // Thời gian tối đa của một lượt VNS chạy nền trong chế độ trực tuyến (mili giây)
+    private final long onlinePassMillis;
+    // Tỉ lệ hạt khởi tạo từ kế hoạch trước khi giải lại
+    private final double warmStartFraction;
+
+    private SolverConfig(Builder builder) {
+        this.swarmSize = builder.swarmSize;
+        this.psoMaxIterations = builder.psoMaxIterations;
+        this.inertiaWeight = builder.inertiaWeight;
+        this.cognitiveCoefficient = builder.cognitiveCoefficient;
+        this.socialCoefficient = builder.socialCoefficient;
+        this.vnsMaxIterations = builder.vnsMaxIterations;
+        this.vnsMaxNeighborhoods = builder.vnsMaxNeighborhoods;
+        this.granularNeighbors = builder.granularNeighbors;
+        this.orOptMaxLength = builder.orOptMaxLength;
+        this.psoThreads = builder.psoThreads;
+        this.islandCount = builder.islandCount;
+        this.migrationInterval = builder.migrationInterval;
+        this.migrationSize = builder.migrationSize;
+        this.migrationTopology = builder.migrationTopology;
+        this.migrationWait = builder.migrationWait;
+        this.vnsStarts = builder.vnsStarts;
+        this.vnsVerbose = builder.vnsVerbose;
+        this.exactSequencingLimit = builder.exactSequencingLimit;
+        this.routeCacheSize = builder.routeCacheSize;
+        this.savingsSeedFraction = builder.savingsSeedFraction;
+        this.particleEncoding = builder.particleEncoding;
+        this.randomSeed = builder.randomSeed;
+        this.batchThreads = builder.batchThreads;
+        this.onlinePassMillis = builder.onlinePassMillis;
+        this.warmStartFraction = builder.warmStartFraction;
+    }
+
+    /**
+     * Tạo cấu hình từ các tham số hiện tại trong lớp Params
+     * @return Cấu hình bộ giải
+     */
+    public static SolverConfig fromParams() {
+        return builder().build();
+    }
+
+    /**
+     * Tạo builder với giá trị mặc định lấy từ lớp Params
+     * @return Builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Tạo builder khởi đầu từ cấu hình này
+     * @return Builder
+     */
+    public Builder toBuilder() {
+        Builder builder = new Builder();
+        builder.swarmSize = swarmSize;
+        builder.psoMaxIterations = psoMaxIterations;
+        builder.inertiaWeight = inertiaWeight;
+        builder.cognitiveCoefficient = cognitiveCoefficient;
+        builder.socialCoefficient = socialCoefficient;
+        builder.vnsMaxIterations = vnsMaxIterations;
+        builder.vnsMaxNeighborhoods = vnsMaxNeighborhoods;
+        builder.granularNeighbors = granularNeighbors;
+        builder.orOptMaxLength = orOptMaxLength;
+        builder.psoThreads = psoThreads;
+        builder.islandCount = islandCount;
+        builder.migrationInterval = migrationInterval;
+        builder.migrationSize = migrationSize;
+        builder.migrationTopology = migrationTopology;
+        builder.migrationWait = migrationWait;
+        builder.vnsStarts = vnsStarts;
+        builder.vnsVerbose = vnsVerbose;
+        builder.exactSequencingLimit = exactSequencingLimit;
+        builder.routeCacheSize = routeCacheSize;
+        builder.savingsSeedFraction = savingsSeedFraction;
+        builder.particleEncoding = particleEncoding;
+        builder.randomSeed = randomSeed;
+        builder.batchThreads = batchThreads;
+        builder.onlinePassMillis = onlinePassMillis;
+        builder.warmStartFraction = warmStartFraction;
+        return builder;
+    }
+
+    public int getSwarmSize() {
+        return swarmSize;
+    }
+
+    public int getPsoMaxIterations() {
+        return psoMaxIterations;
+    }
+
+    public double getInertiaWeight() {
+        return inertiaWeight;
+    }
+
+    public double getCognitiveCoefficient() {
+        return cognitiveCoefficient;
+    }
+
+    public double getSocialCoefficient() {
+        return socialCoefficient;
+    }
+
+    public int getVnsMaxIterations() {
+        return vnsMaxIterations;
+    }
+
+    public int getVnsMaxNeighborhoods() {
+        return vnsMaxNeighborhoods;
+    }
+
+    public int getGranularNeighbors() {
+        return granularNeighbors;
+    }
+
+    public int getOrOptMaxLength() {
+        return orOptMaxLength;
+    }
+
+    public int getPsoThreads() {
+        return psoThreads;
+    }
+
+    public int getIslandCount() {
+        return islandCount;
+    }
+
+    public int getMigrationInterval() {
+        return migrationInterval;
+    }
+
+    public int getMigrationSize() {
+        return migrationSize;
+    }
+
+    public MigrationTopology getMigrationTopology() {
+        return migrationTopology;
+    }
+
+    public boolean isMigrationWait() {
+        return migrationWait;
+    }
+
+    public int getVnsStarts() {
+        return vnsStarts;
+    }
+
+    public boolean isVnsVerbose() {
+        return vnsVerbose;
+    }
+
+    public int getExactSequencingLimit() {
+        return exactSequencingLimit;
+    }
+
+    public int getRouteCacheSize() {
+        return routeCacheSize;
+    }
+
+    public double getSavingsSeedFraction() {
+        return savingsSeedFraction;
+    }
+
+    public ParticleEncoding getParticleEncoding() {
+        return particleEncoding;
+    }
+
+    public long getRandomSeed() {
+        return randomSeed;
+    }
+
+    /**
+     * Hạt giống dùng cho một lần giải
+     * @return Hạt giống trong cấu hình, hoặc một hạt giống mới (khác 0) nếu cấu hình để 0
+     */
+    public long resolveSeed() {
+        if (randomSeed != 0) return randomSeed;
+        long seed;
+        do {
+            seed = new SplittableRandom().nextLong();
+        } while (seed == 0);
+        return seed;
+    }
+
+    public int getBatchThreads() {
+        return batchThreads;
+    }
+
+    public long getOnlinePassMillis() {
+        return onlinePassMillis;
+    }
+
+    public double getWarmStartFraction() {
+        return warmStartFraction;
+    }
+
+    @Override
+    public String toString() {
+        return "SolverConfig{swarm=" + swarmSize + ", psoIterations=" + psoMaxIterations +
+                ", w=" + inertiaWeight + ", c1=" + cognitiveCoefficient + ", c2=" + socialCoefficient +
+                ", vnsIterations=" + vnsMaxIterations + ", neighborhoods=" + vnsMaxNeighborhoods +
+                ", granularNeighbors=" + granularNeighbors +
+                ", orOptMaxLength=" + orOptMaxLength +
+                ", psoThreads=" + psoThreads +
+                ", islandCount=" + islandCount +
+                ", migrationInterval=" + migrationInterval +
+                ", migrationSize=" + migrationSize +
+                ", migrationTopology=" + migrationTopology +
+                ", migrationWait=" + migrationWait +
+                ", vnsStarts=" + vnsStarts +
+                ", vnsVerbose=" + vnsVerbose +
+                ", exactSequencingLimit=" + exactSequencingLimit +
+                ", routeCacheSize=" + routeCacheSize +
+                ", savingsSeedFraction=" + savingsSeedFraction +
+                ", particleEncoding=" + particleEncoding +
+                ", randomSeed=" + randomSeed +
+                ", batchThreads=" + batchThreads +
+                ", onlinePassMillis=" + onlinePassMillis +
+                ", warmStartFraction=" + warmStartFraction + "}";
+    }
+
+    /**
+     * Builder cho SolverConfig
+     */
+    public static final class Builder {
+        private int swarmSize = Params.PSO_SWARM_SIZE;
+        private int psoMaxIterations = Params.PSO_MAX_ITERATIONS;
+        private double inertiaWeight = Params.PSO_INERTIA_WEIGHT;
+        private double cognitiveCoefficient = Params.PSO_COGNITIVE_COEFFICIENT;
+        private double socialCoefficient = Params.PSO_SOCIAL_COEFFICIENT;
+        private int vnsMaxIterations = Params.VNS_MAX_ITERATIONS;
+        private int vnsMaxNeighborhoods = Params.VNS_MAX_NEIGHBORHOODS;
+        private int granularNeighbors = Params.VNS_GRANULAR_NEIGHBORS;
+        private int orOptMaxLength = Params.VNS_OR_OPT_MAX_LENGTH;
+        private int psoThreads = Params.PSO_THREADS;
+        private int islandCount = Params.PSO_ISLANDS;
+        private int migrationInterval = Params.PSO_MIGRATION_INTERVAL;
+        private int migrationSize = Params.PSO_MIGRATION_SIZE;
+        private MigrationTopology migrationTopology = Params.PSO_MIGRATION_TOPOLOGY;
+        private boolean migrationWait = Params.PSO_MIGRATION_WAIT;
+        private int vnsStarts = Params.VNS_STARTS;
+        private boolean vnsVerbose = Params.VNS_VERBOSE;
+        private int exactSequencingLimit = Params.EXACT_SEQUENCING_LIMIT;
+        private int routeCacheSize = Params.ROUTE_CACHE_SIZE;
+        private double savingsSeedFraction = Params.PSO_SAVINGS_SEED_FRACTION;
+        private ParticleEncoding particleEncoding = Params.PSO_PARTICLE_ENCODING;
+        private long randomSeed = Params.RANDOM_SEED;
+        private int batchThreads = Params.BATCH_THREADS;
+        private long onlinePassMillis = Params.ONLINE_PASS_MILLIS;
+        private double warmStartFraction = Params.PSO_WARM_START_FRACTION;
+
+        private Builder() {
+        }
+
+        public Builder swarmSize(int swarmSize) {
+            this.swarmSize = swarmSize;
+            return this;
+        }
+
+        public Builder psoMaxIterations(int psoMaxIterations) {
+            this.psoMaxIterations = psoMaxIterations;
+            return this;
+        }
+
+        public Builder inertiaWeight(double inertiaWeight) {
+            this.inertiaWeight = inertiaWeight;
+            return this;
+        }
+
+        public Builder cognitiveCoefficient(double cognitiveCoefficient) {
+            this.cognitiveCoefficient = cognitiveCoefficient;
+            return this;
+        }
+
+        public Builder socialCoefficient(double socialCoefficient) {
+            this.socialCoefficient = socialCoefficient;
+            return this;
+        }
+
+        public Builder vnsMaxIterations(int vnsMaxIterations) {
+            this.vnsMaxIterations = vnsMaxIterations;
+            return this;
+        }
+
+        public Builder vnsMaxNeighborhoods(int vnsMaxNeighborhoods) {
+            this.vnsMaxNeighborhoods = vnsMaxNeighborhoods;
+            return this;
+        }
+
+        public Builder granularNeighbors(int granularNeighbors) {
+            this.granularNeighbors = granularNeighbors;
+            return this;
+        }
+
+        public Builder orOptMaxLength(int orOptMaxLength) {
+            this.orOptMaxLength = orOptMaxLength;
+            return this;
+        }
+
+        public Builder psoThreads(int psoThreads) {
+            this.psoThreads = psoThreads;
+            return this;
+        }
+
+        public Builder islandCount(int islandCount) {
+            this.islandCount = islandCount;
+            return this;
+        }
+
+        public Builder migrationInterval(int migrationInterval) {
+            this.migrationInterval = migrationInterval;
+            return this;
+        }
+
+        public Builder migrationSize(int migrationSize) {
+            this.migrationSize = migrationSize;
+            return this;
+        }
+
+        public Builder migrationTopology(MigrationTopology migrationTopology) {
+            this.migrationTopology = migrationTopology;
+            return this;
+        }
+
+        public Builder migrationWait(boolean migrationWait) {
+            this.migrationWait = migrationWait;
+            return this;
+        }
+
+        public Builder vnsStarts(int vnsStarts) {
+            this.vnsStarts = vnsStarts;
+            return this;
+        }
+
+        public Builder vnsVerbose(boolean vnsVerbose) {
+            this.vnsVerbose = vnsVerbose;
+            return this;
+        }
+
+        public Builder exactSequencingLimit(int exactSequencingLimit) {
+            this.exactSequencingLimit = exactSequencingLimit;
+            return this;
+        }
+
+        public Builder routeCacheSize(int routeCacheSize) {
+            this.routeCacheSize = routeCacheSize;
+            return this;
+        }
+
+        public Builder savingsSeedFraction(double savingsSeedFraction) {
+            this.savingsSeedFraction = savingsSeedFraction;
+            return this;
+        }
+
+        public Builder particleEncoding(ParticleEncoding particleEncoding) {
+            this.particleEncoding = particleEncoding;
+            return this;
+        }
+
+        public Builder randomSeed(long randomSeed) {
+            this.randomSeed = randomSeed;
+            return this;
+        }
+
+        public Builder batchThreads(int batchThreads) {
+            this.batchThreads = batchThreads;
+            return this;
+        }
+
+        public Builder onlinePassMillis(long onlinePassMillis) {
+            this.onlinePassMillis = onlinePassMillis;
+            return this;
+        }
+
+        public Builder warmStartFraction(double warmStartFraction) {
+            this.warmStartFraction = warmStartFraction;
+            return this;
+        }
+
+        public SolverConfig build() {
+            return new SolverConfig(this);
+        }
+    }
+}
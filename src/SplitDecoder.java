@@ -0,0 +1,133 @@
+import java.util.Arrays;
+
+/**
+ * Lớp SplitDecoder chia một hoán vị của mọi mặt hàng (giant tour) thành các tuyến robot tối ưu
+ * bằng quy hoạch động kiểu Prins, có giới hạn sức chứa và số robot
+ *
+ * best[k][j] là chi phí nhỏ nhất để phục vụ j mặt hàng đầu của hoán vị bằng k tuyến (cho phép tuyến rỗng);
+ * mỗi tuyến là một đoạn liên tiếp của hoán vị nên giữ nguyên thứ tự bên trong. Với mỗi điểm cắt i, đoạn
+ * được kéo dài đến khi vượt sức chứa nên độ phức tạp là O(m * n * B) với B là số mặt hàng tối đa của một
+ * tuyến hợp lệ (bị chặn bởi sức chứa). Khi không có cách chia hợp lệ với m robot, quy hoạch động được chạy
+ * lại không giới hạn đoạn với phạt vượt sức chứa như hàm mục tiêu của Solution.
+ * Bảng quy hoạch động được cấp phát sẵn một lần cho mỗi luồng nên đối tượng dùng chung được giữa
+ * nhiều luồng và việc chia không cấp phát bộ nhớ.
+ */
+public final class SplitDecoder {
+    private final ProblemInstance instance;
+    private final ThreadLocal<Tables> tables;
+
+    /**
+     * Bảng quy hoạch động và hoán vị tạm của một luồng
+     */
+    private static final class Tables {
+        final double[] best;
+        final int[] cut;
+        final int[] tour;
+        final int[] sizes;
+
+        Tables(int itemCount, int robotCount) {
+            best = new double[(robotCount + 1) * (itemCount + 1)];
+            cut = new int[(robotCount + 1) * (itemCount + 1)];
+            tour = new int[itemCount];
+            sizes = new int[robotCount];
+        }
+    }
+
+    /**
+     * Tạo bộ chia tuyến cho một bài toán
+     * @param instance Bài toán
+     */
+    public SplitDecoder(ProblemInstance instance) {
+        this.instance = instance;
+        this.tables = ThreadLocal.withInitial(
+                () -> new Tables(instance.getRequire().size(), instance.getRobotCount()));
+    }
+
+    /**
+     * Chia lại các tuyến của một giải pháp theo thứ tự hiện tại của toàn bộ mặt hàng
+     * @param solution Giải pháp cần chia lại (thứ tự các mặt hàng được giữ nguyên)
+     */
+    public void decode(Solution solution) {
+        int[] tour = tables.get().tour;
+        for (int p = 0; p < tour.length; p++) {
+            tour[p] = solution.tourItem(p);
+        }
+        decode(tour, solution);
+    }
+
+    /**
+     * Chia một hoán vị thành các tuyến tối ưu và ghi vào giải pháp
+     * @param tour Hoán vị của mọi mặt hàng
+     * @param solution Giải pháp nhận kết quả
+     */
+    public void decode(int[] tour, Solution solution) {
+        int n = tour.length;
+        int m = solution.getRouteCount();
+        Tables t = tables.get();
+        double[] best = t.best;
+        int[] cut = t.cut;
+
+        if (!split(tour, m, best, cut, true)) {
+            split(tour, m, best, cut, false);
+        }
+
+        // Lần ngược các điểm cắt từ tuyến cuối về tuyến đầu
+        int[] sizes = t.sizes;
+        int j = n;
+        for (int k = m; k >= 1; k--) {
+            int i = cut[k * (n + 1) + j];
+            sizes[k - 1] = j - i;
+            j = i;
+        }
+        solution.setRoutes(tour, sizes);
+    }
+
+    /**
+     * Quy hoạch động chia tuyến
+     * @param capacityBound true để chỉ xét các đoạn không vượt sức chứa
+     * @return true nếu tìm được cách chia phục vụ mọi mặt hàng
+     */
+    private boolean split(int[] tour, int m, double[] best, int[] cut, boolean capacityBound) {
+        int n = tour.length;
+        int counter = instance.getCounterLocation();
+        int capacity = instance.getCapacity();
+        Arrays.fill(best, Double.MAX_VALUE);
+        best[0] = 0;
+
+        for (int k = 1; k <= m; k++) {
+            int previousRow = (k - 1) * (n + 1);
+            int row = k * (n + 1);
+
+            // Tuyến thứ k rỗng
+            for (int j = 0; j <= n; j++) {
+                best[row + j] = best[previousRow + j];
+                cut[row + j] = j;
+            }
+
+            for (int i = 0; i < n; i++) {
+                double base = best[previousRow + i];
+                if (base == Double.MAX_VALUE) continue;
+
+                // Kéo dài đoạn tour[i..j-1], chi phí đi được cộng dần như ProblemInstance.routeCost
+                int load = 0;
+                double travel = 0;
+                int current = counter;
+                for (int j = i + 1; j <= n; j++) {
+                    load += instance.requireQuantity(tour[j - 1]);
+                    if (capacityBound && load > capacity) break;
+                    int location = instance.requireLocation(tour[j - 1]);
+                    travel += instance.cost(current, location);
+                    current = location;
+
+                    double overload = load > capacity ? (load - capacity) * Solution.OVERLOAD_PENALTY : 0;
+                    double value = base + travel + instance.cost(current, counter) + overload;
+                    if (value < best[row + j]) {
+                        best[row + j] = value;
+                        cut[row + j] = i;
+                    }
+                }
+            }
+        }
+        return best[m * (n + 1) + n] != Double.MAX_VALUE;
+    }
+}
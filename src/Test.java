@@ -35,12 +35,7 @@ public class Test {
         }
 
         // Tạo bản đồ kho hàng từ dữ liệu đọc được
-        WarehouseMap warehouseMap;
-        if (Params.WAREHOUSE_MAP != null) {
-            warehouseMap = new WarehouseMap(Params.WAREHOUSE_MAP);
-        } else {
-            warehouseMap = WarehouseMap.createMapFromWarehouse(Params.SHELVES, Params.SLOTS);
-        }
+        WarehouseMap warehouseMap = Params.getWarehouseMap();
 
         // In bản đồ kho hàng
         System.out.println("\n=== BẢN ĐỒ KHO HÀNG ===");
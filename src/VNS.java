@@ -1,54 +1,211 @@
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Random;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.random.RandomGenerator;
 
 /**
  * Lớp VNS (Variable Neighborhood Search) thực hiện thuật toán tìm kiếm lân cận biến đổi
  * để cải thiện giải pháp tìm được từ PSO
+ *
+ * Các phương thức improve có thể được gọi đồng thời từ nhiều luồng: mỗi lần gọi chạy trên một
+ * bản VNS riêng (tạo bởi fork) chứa hàng đợi, bộ sinh số ngẫu nhiên và giới hạn của lần chạy đó,
+ * chỉ dùng chung bài toán, danh sách láng giềng và bộ đếm số lần đánh giá.
  */
 public class VNS {
+    private final ProblemInstance instance;
     private final int MAX_ITERATIONS;
     private final int MAX_NEIGHBORHOODS;
-    private Random random;
+    // Danh sách láng giềng gần nhất dùng cho tìm kiếm cục bộ dạng hạt
+    private final CandidateLists candidates;
+    private final int orOptMaxLength;
+    // Bộ đếm dùng chung giữa mọi lần chạy
+    private final LongAdder moveEvaluations;
+    // Nguồn hạt giống cho các lần chạy không được truyền bộ sinh số ngẫu nhiên (theo hạt giống của cấu hình)
+    private final SplittableRandom seeds;
+    private volatile Consumer<Solution> improvementListener;
+    // Ngưỡng chênh lệch để coi một bước di chuyển là cải thiện (tránh sai số làm tròn)
+    private static final double IMPROVEMENT_EPSILON = 1e-6;
+
+    // Trạng thái riêng của một lần chạy (chỉ dùng trong bản tạo bởi fork)
+    // Hàng đợi vòng các mặt hàng được kích hoạt; queued[u] = false nghĩa là u mang bit "không cần xét"
+    private int[] queue;
+    private boolean[] queued;
+    private int queueHead;
+    private int queueSize;
+    private long queuePops;
+    private long runEvaluations;
+    private long countedEvaluations;
+    private final int[] touched = new int[8];
+    private SolveBudget budget;
+    private RandomGenerator random;
+    private boolean verbose;
 
     /**
-     * Khởi tạo VNS với các tham số mặc định
+     * Khởi tạo VNS cho một bài toán, các tham số lấy từ cấu hình của bài toán
+     * @param instance Bài toán cần giải
      */
-    public VNS() {
-        this.MAX_ITERATIONS = Params.VNS_MAX_ITERATIONS;
-        this.MAX_NEIGHBORHOODS = Params.VNS_MAX_NEIGHBORHOODS;
-        this.random = new Random();
+    public VNS(ProblemInstance instance) {
+        this.instance = instance;
+        this.MAX_ITERATIONS = instance.getConfig().getVnsMaxIterations();
+        this.MAX_NEIGHBORHOODS = instance.getConfig().getVnsMaxNeighborhoods();
+        this.candidates = new CandidateLists(instance, instance.getConfig().getGranularNeighbors());
+        this.orOptMaxLength = instance.getConfig().getOrOptMaxLength();
+        this.moveEvaluations = new LongAdder();
+        this.seeds = new SplittableRandom(instance.getConfig().resolveSeed());
+        this.verbose = instance.getConfig().isVnsVerbose();
+    }
+
+    /**
+     * Tạo bản VNS cho một lần chạy, dùng chung dữ liệu bất biến với bản gốc
+     */
+    private VNS(VNS parent, SolveBudget budget, RandomGenerator random, boolean verbose) {
+        this.instance = parent.instance;
+        this.MAX_ITERATIONS = parent.MAX_ITERATIONS;
+        this.MAX_NEIGHBORHOODS = parent.MAX_NEIGHBORHOODS;
+        this.candidates = parent.candidates;
+        this.orOptMaxLength = parent.orOptMaxLength;
+        this.moveEvaluations = parent.moveEvaluations;
+        this.seeds = parent.seeds;
+        this.improvementListener = parent.improvementListener;
+        this.budget = budget;
+        this.random = random;
+        this.verbose = verbose;
     }
 
     /**
      * Cải thiện một giải pháp sử dụng thuật toán VNS
      * @param initialSolution Giải pháp ban đầu
-     * @param warehousing Kho hàng
      * @return Giải pháp tốt hơn
      */
-    public Solution improve(Solution initialSolution, ArrayList<Merchandise> warehousing) {
-        Solution currentSolution = new Solution(initialSolution);
-        Solution bestSolution = new Solution(initialSolution);
+    public Solution improve(Solution initialSolution) {
+        return improve(initialSolution, SolveBudget.unlimited());
+    }
+
+    /**
+     * Cải thiện một giải pháp trong một giới hạn thời gian
+     * Giới hạn được kiểm tra trước mỗi vòng lặp và trong tìm kiếm cục bộ; khi hết giới hạn,
+     * giải pháp tốt nhất tìm được đến lúc đó được trả về
+     * @param initialSolution Giải pháp ban đầu
+     * @param budget Hạn chót và token hủy
+     * @return Giải pháp tốt hơn hoặc bằng giải pháp ban đầu
+     */
+    public Solution improve(Solution initialSolution, SolveBudget budget) {
+        SplittableRandom random;
+        synchronized (seeds) {
+            random = seeds.split();
+        }
+        return improve(initialSolution, budget, random);
+    }
+
+    /**
+     * Cải thiện một giải pháp trong một giới hạn thời gian với bộ sinh số ngẫu nhiên cho trước,
+     * in tiến trình nếu cấu hình bật vnsVerbose
+     * @param initialSolution Giải pháp ban đầu
+     * @param budget Hạn chót và token hủy
+     * @param random Bộ sinh số ngẫu nhiên riêng của lần chạy
+     * @return Giải pháp tốt hơn hoặc bằng giải pháp ban đầu
+     */
+    public Solution improve(Solution initialSolution, SolveBudget budget, RandomGenerator random) {
+        return improve(initialSolution, budget, random, verbose);
+    }
+
+    /**
+     * Cải thiện một giải pháp với bộ sinh số ngẫu nhiên cho trước, có thể tắt in tiến trình
+     * (dùng khi nhiều lần chạy nhỏ diễn ra đồng thời, ví dụ khi giải các lô đơn hàng)
+     * @param initialSolution Giải pháp ban đầu
+     * @param budget Hạn chót và token hủy
+     * @param random Bộ sinh số ngẫu nhiên riêng của lần chạy
+     * @param verbose true để in tiến trình
+     * @return Giải pháp tốt hơn hoặc bằng giải pháp ban đầu
+     */
+    public Solution improve(Solution initialSolution, SolveBudget budget, RandomGenerator random, boolean verbose) {
+        return new VNS(this, budget, random, verbose).search(initialSolution);
+    }
+
+    /**
+     * Chạy VNS đồng thời từ nhiều giải pháp xuất phát (mỗi giải pháp một tác vụ fork/join với
+     * bộ sinh số ngẫu nhiên độc lập) và giữ kết quả tốt nhất
+     * Các tác vụ chạy không in; kết quả chung được in nếu cấu hình bật vnsVerbose
+     * @param starts Các giải pháp xuất phát, không bị thay đổi
+     * @param budget Hạn chót và token hủy, dùng chung cho mọi tác vụ
+     * @param random Bộ sinh số ngẫu nhiên dùng để tạo hạt giống cho từng tác vụ (theo thứ tự giải pháp
+     *               xuất phát nên kết quả không phụ thuộc thứ tự thực thi của các tác vụ)
+     * @return Giải pháp tốt nhất trong các kết quả (giải pháp đứng trước khi bằng nhau)
+     */
+    public Solution improveMultiStart(List<Solution> starts, SolveBudget budget, RandomGenerator random) {
+        List<RecursiveTask<Solution>> tasks = new ArrayList<>();
+        for (Solution start : starts) {
+            VNS run = new VNS(this, budget, new SplittableRandom(random.nextLong()), false);
+            tasks.add(new RecursiveTask<Solution>() {
+                @Override
+                protected Solution compute() {
+                    return run.search(start);
+                }
+            });
+        }
+        ForkJoinTask.invokeAll(tasks);
+
+        Solution bestSolution = null;
+        for (RecursiveTask<Solution> task : tasks) {
+            Solution solution = task.join();
+            if (bestSolution == null || solution.getFitness() < bestSolution.getFitness()) {
+                bestSolution = solution;
+            }
+        }
+        if (verbose) {
+            System.out.println("  VNS đa khởi đầu từ " + starts.size() + " giải pháp. Chi phí tốt nhất: " +
+                    (bestSolution != null ? bestSolution.getFitness() : Double.NaN));
+        }
+        return bestSolution;
+    }
+
+    /**
+     * Vòng lặp VNS của một lần chạy
+     * @param initialSolution Giải pháp ban đầu
+     * @return Giải pháp tốt hơn hoặc bằng giải pháp ban đầu
+     */
+    private Solution search(Solution initialSolution) {
+        // Tìm kiếm cục bộ đầy đủ một lần; các vòng sau chỉ xét phần bị shake thay đổi
+        Solution currentSolution = localSearch(initialSolution, null);
+        if (currentSolution.getFitness() >= initialSolution.getFitness()) {
+            currentSolution = new Solution(initialSolution);
+        }
+        Solution bestSolution = new Solution(currentSolution);
+        Consumer<Solution> improvementListener = this.improvementListener;
+        if (improvementListener != null && bestSolution.getFitness() < initialSolution.getFitness()) {
+            improvementListener.accept(bestSolution);
+        }
         int k = 1;  // Bắt đầu với lân cận đầu tiên
         int iterations = 0;
 
         // In thông tin khởi tạo
-        System.out.println("  Bắt đầu VNS với chi phí ban đầu: " + bestSolution.getFitness());
+        if (verbose) {
+            System.out.println("  Bắt đầu VNS với chi phí ban đầu: " + bestSolution.getFitness());
+        }
 
-        while (iterations < MAX_ITERATIONS) {
+        while (iterations < MAX_ITERATIONS && !budget.isExhausted()) {
             // Shake - tạo một giải pháp trong lân cận thứ k
             Solution newSolution = shake(currentSolution, k);
 
             // Tìm kiếm cục bộ để cải thiện giải pháp mới
-            Solution localOptimum = localSearch(newSolution, warehousing);
+            Solution localOptimum = localSearch(newSolution, currentSolution);
 
             // Nếu tối ưu cục bộ tốt hơn giải pháp tốt nhất hiện tại
             if (localOptimum.getFitness() < bestSolution.getFitness()) {
                 bestSolution = new Solution(localOptimum);
                 currentSolution = new Solution(localOptimum);
                 k = 1;  // Đặt lại lân cận
-                System.out.println("  VNS - Vòng lặp " + iterations + ": Tìm thấy giải pháp tốt hơn với chi phí " +
-                        bestSolution.getFitness());
+                if (improvementListener != null) {
+                    improvementListener.accept(bestSolution);
+                }
+                if (verbose) {
+                    System.out.println("  VNS - Vòng lặp " + iterations + ": Tìm thấy giải pháp tốt hơn với chi phí " +
+                            bestSolution.getFitness());
+                }
             } else {
                 // Chuyển sang lân cận tiếp theo
                 k = (k % MAX_NEIGHBORHOODS) + 1;
@@ -57,8 +214,11 @@ public class VNS {
             iterations++;
         }
 
-        System.out.println("  VNS hoàn thành sau " + iterations + " vòng lặp. Chi phí tốt nhất: " +
-                bestSolution.getFitness());
+        if (verbose) {
+            System.out.println("  VNS hoàn thành sau " + iterations + " vòng lặp. Chi phí tốt nhất: " +
+                    bestSolution.getFitness() + " (" + runEvaluations + " lần đánh giá bước di chuyển, " +
+                    queuePops + " lần xét mặt hàng)");
+        }
         return bestSolution;
     }
 
@@ -94,32 +254,24 @@ public class VNS {
      * @param solution Giải pháp cần thay đổi
      */
     private void swapItemsBetweenRobots(Solution solution) {
-        if (solution.getRobots().size() < 2) return;
+        if (solution.getRouteCount() < 2) return;
 
         // Chọn hai robot khác nhau
-        int robot1Index = random.nextInt(solution.getRobots().size());
+        int robot1Index = random.nextInt(solution.getRouteCount());
         int robot2Index;
         do {
-            robot2Index = random.nextInt(solution.getRobots().size());
+            robot2Index = random.nextInt(solution.getRouteCount());
         } while (robot1Index == robot2Index);
 
-        ArrayList<Merchandise> route1 = solution.getRobotRoutes().get(robot1Index);
-        ArrayList<Merchandise> route2 = solution.getRobotRoutes().get(robot2Index);
-
-        if (route1.isEmpty() || route2.isEmpty()) return;
+        if (solution.routeSize(robot1Index) == 0 || solution.routeSize(robot2Index) == 0) return;
 
         // Chọn các mặt hàng ngẫu nhiên để hoán đổi
-        int item1Index = random.nextInt(route1.size());
-        int item2Index = random.nextInt(route2.size());
-
-        // Hoán đổi mặt hàng
-        Merchandise temp = route1.get(item1Index);
-        route1.set(item1Index, route2.get(item2Index));
-        route2.set(item2Index, temp);
+        int item1Index = random.nextInt(solution.routeSize(robot1Index));
+        int item2Index = random.nextInt(solution.routeSize(robot2Index));
+        solution.swap(robot1Index, item1Index, robot2Index, item2Index);
 
         // Đảm bảo ràng buộc về sức chứa không bị vi phạm
-        enforceCapacityConstraints(solution, robot1Index);
-        enforceCapacityConstraints(solution, robot2Index);
+        solution.repairCapacity();
     }
 
     /**
@@ -128,25 +280,14 @@ public class VNS {
      */
     private void reverseSubroute(Solution solution) {
         // Chọn một robot ngẫu nhiên
-        if (solution.getRobots().isEmpty()) return;
-
-        int robotIndex = random.nextInt(solution.getRobots().size());
-        ArrayList<Merchandise> route = solution.getRobotRoutes().get(robotIndex);
-
-        if (route.size() < 2) return;
+        int robotIndex = random.nextInt(solution.getRouteCount());
+        int size = solution.routeSize(robotIndex);
+        if (size < 2) return;
 
         // Chọn một đoạn đường con để đảo ngược
-        int start = random.nextInt(route.size() - 1);
-        int end = start + 1 + random.nextInt(route.size() - start - 1);
-
-        // Đảo ngược đoạn đường con
-        while (start < end) {
-            Merchandise temp = route.get(start);
-            route.set(start, route.get(end));
-            route.set(end, temp);
-            start++;
-            end--;
-        }
+        int start = random.nextInt(size - 1);
+        int end = start + 1 + random.nextInt(size - start - 1);
+        solution.reverse(robotIndex, start, end);
     }
 
     /**
@@ -154,308 +295,267 @@ public class VNS {
      * @param solution Giải pháp cần thay đổi
      */
     private void redistributeItems(Solution solution) {
-        // Thu thập tất cả các mặt hàng từ tất cả các robot
-        ArrayList<Merchandise> allItems = new ArrayList<>();
-        for (ArrayList<Merchandise> route : solution.getRobotRoutes()) {
-            allItems.addAll(route);
-            route.clear();
+        // Thu thập và xáo trộn tất cả các mặt hàng
+        int itemCount = solution.getItemCount();
+        int[] items = new int[itemCount];
+        for (int p = 0; p < itemCount; p++) {
+            items[p] = solution.tourItem(p);
+        }
+        for (int i = itemCount - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int temp = items[i];
+            items[i] = items[j];
+            items[j] = temp;
         }
 
-        // Xáo trộn các mặt hàng
-        Collections.shuffle(allItems, random);
+        // Phân phối lại mỗi mặt hàng cho robot có tải trọng ít nhất
+        int routeCount = solution.getRouteCount();
+        int[] loads = new int[routeCount];
+        int[] sizes = new int[routeCount];
+        int[] robotOf = new int[itemCount];
+        for (int k = 0; k < itemCount; k++) {
+            int leastLoadedRobot = 0;
+            for (int r = 1; r < routeCount; r++) {
+                if (loads[r] < loads[leastLoadedRobot]) {
+                    leastLoadedRobot = r;
+                }
+            }
+            robotOf[k] = leastLoadedRobot;
+            loads[leastLoadedRobot] += instance.requireQuantity(items[k]);
+            sizes[leastLoadedRobot]++;
+        }
 
-        // Phân phối lại các mặt hàng cho robot
-        for (Merchandise item : allItems) {
-            // Tìm robot có tải trọng ít nhất
-            int leastLoadedRobot = findLeastLoadedRobot(solution);
-            solution.getRobotRoutes().get(leastLoadedRobot).add(item);
+        int[] next = new int[routeCount];
+        for (int r = 1; r < routeCount; r++) {
+            next[r] = next[r - 1] + sizes[r - 1];
+        }
+        int[] order = new int[itemCount];
+        for (int k = 0; k < itemCount; k++) {
+            order[next[robotOf[k]]++] = items[k];
         }
+        solution.setRoutes(order, sizes);
 
         // Đảm bảo ràng buộc về sức chứa được tôn trọng cho tất cả các robot
-        for (int i = 0; i < solution.getRobots().size(); i++) {
-            enforceCapacityConstraints(solution, i);
-        }
+        solution.repairCapacity();
     }
 
     /**
-     * Tìm robot có tải trọng thấp nhất
-     * @param solution Giải pháp chứa thông tin về robot
-     * @return Chỉ số của robot có tải trọng thấp nhất
+     * Tìm kiếm cục bộ dạng hạt (granular) để cải thiện giải pháp
+     * Chỉ xét các bước 2-opt, relocate và Or-opt tạo ra ít nhất một cạnh nối mặt hàng với
+     * một trong k láng giềng gần nhất của nó. Các bước được đánh giá bằng mô tả Move với
+     * chênh lệch chi phí O(1); lời giải chỉ thay đổi khi một bước được chấp nhận
+     *
+     * Mỗi mặt hàng có một bit "không cần xét" (don't-look bit): mặt hàng chỉ được xét lại khi
+     * nằm trong hàng đợi kích hoạt. Ban đầu chỉ các mặt hàng có láng giềng trong tuyến khác với
+     * lời giải tham chiếu được kích hoạt; sau mỗi bước được chấp nhận, chỉ các mặt hàng ở hai đầu
+     * những cạnh bị thay đổi được đưa lại vào hàng đợi. Khối lượng công việc vì vậy tỉ lệ với
+     * phần lời giải bị thay đổi thay vì với kích thước lời giải
+     * @param solution Giải pháp ban đầu
+     * @param reference Lời giải mà solution được tạo ra từ đó, null để kích hoạt mọi mặt hàng
+     * @return Giải pháp được cải thiện
      */
-    private int findLeastLoadedRobot(Solution solution) {
-        int minLoad = Integer.MAX_VALUE;
-        int robotIndex = 0;
+    private Solution localSearch(Solution solution, Solution reference) {
+        Solution currentSolution = new Solution(solution);
+        Solution newSolution = new Solution(solution);
+        Move move = new Move();
+        int itemCount = currentSolution.getItemCount();
+        ensureQueueCapacity(itemCount);
+
+        // 1. Kích hoạt các mặt hàng có láng giềng thay đổi so với lời giải tham chiếu
+        boolean[] dirtyRoutes = new boolean[currentSolution.getRouteCount()];
+        for (int item = 0; item < itemCount; item++) {
+            if (reference == null
+                    || currentSolution.previousItem(item) != reference.previousItem(item)
+                    || currentSolution.nextItem(item) != reference.nextItem(item)) {
+                activate(item);
+                dirtyRoutes[currentSolution.routeOf(item)] = true;
+            }
+        }
+
+        // 2. Tối ưu hóa thứ tự các mặt hàng trong những tuyến đường bị thay đổi
+        for (int robotIndex = 0; robotIndex < currentSolution.getRouteCount(); robotIndex++) {
+            if (!dirtyRoutes[robotIndex] || currentSolution.routeSize(robotIndex) < 2) continue;
 
-        for (int i = 0; i < solution.getRobots().size(); i++) {
-            Robot robot = solution.getRobots().get(i);
-            ArrayList<Merchandise> route = solution.getRobotRoutes().get(i);
+            // Tối ưu thứ tự bằng thuật toán người láng giềng gần nhất trên bản sao
+            newSolution.copyFrom(currentSolution);
+            newSolution.optimizeRouteOrder(robotIndex);
 
-            int load = 0;
-            for (Merchandise item : route) {
-                load += item.getQuantity();
+            // Nếu tốt hơn, cập nhật giải pháp hiện tại và kích hoạt toàn bộ tuyến
+            if (newSolution.getFitness() < currentSolution.getFitness()) {
+                currentSolution.copyFrom(newSolution);
+                for (int index = 0; index < currentSolution.routeSize(robotIndex); index++) {
+                    activate(currentSolution.itemAt(robotIndex, index));
+                }
             }
+        }
 
-            if (load < minLoad) {
-                minLoad = load;
-                robotIndex = i;
+        // 3. Xét các mặt hàng trong hàng đợi, áp dụng bước 2-opt, relocate, Or-opt cải thiện đầu tiên
+        while (queueSize > 0) {
+            // Kiểm tra giới hạn thời gian sau mỗi 32 lần xét mặt hàng
+            if ((queuePops & 31) == 0 && budget.isExhausted()) break;
+            int item = queue[queueHead];
+            queueHead = (queueHead + 1) % queue.length;
+            queueSize--;
+            queued[item] = false;
+            queuePops++;
+
+            if (findTwoOpt(currentSolution, item, move)
+                    || findSegmentMove(currentSolution, item, 1, 1, move)
+                    || findSegmentMove(currentSolution, item, 2, orOptMaxLength, move)) {
+                int count = move.touchedItems(currentSolution, touched);
+                move.apply(currentSolution);
+                activate(item);
+                for (int t = 0; t < count; t++) {
+                    activate(touched[t]);
+                }
             }
+            // Không tìm thấy bước cải thiện: mặt hàng giữ bit "không cần xét" cho đến khi được kích hoạt lại
         }
 
-        return robotIndex;
+        // Cộng dồn vào bộ đếm dùng chung một lần cho mỗi lần tìm kiếm cục bộ
+        moveEvaluations.add(runEvaluations - countedEvaluations);
+        countedEvaluations = runEvaluations;
+
+        return currentSolution;
     }
 
     /**
-     * Đảm bảo ràng buộc sức chứa cho một robot
-     * @param solution Giải pháp chứa thông tin robot
-     * @param robotIndex Chỉ số robot cần kiểm tra
+     * Đưa một mặt hàng vào hàng đợi kích hoạt nếu nó chưa có trong hàng đợi
+     * @param item Chỉ số mặt hàng cần lấy
      */
-    private void enforceCapacityConstraints(Solution solution, int robotIndex) {
-        Robot robot = solution.getRobots().get(robotIndex);
-        ArrayList<Merchandise> route = solution.getRobotRoutes().get(robotIndex);
+    private void activate(int item) {
+        if (queued[item]) return;
+        queued[item] = true;
+        queue[(queueHead + queueSize) % queue.length] = item;
+        queueSize++;
+    }
 
-        int totalQuantity = 0;
-        for (Merchandise item : route) {
-            totalQuantity += item.getQuantity();
+    /**
+     * Cấp phát hàng đợi vòng chứa được mọi mặt hàng (mỗi mặt hàng có mặt nhiều nhất một lần)
+     * @param itemCount Số mặt hàng cần lấy
+     */
+    private void ensureQueueCapacity(int itemCount) {
+        if (queue == null || queue.length < Math.max(1, itemCount)) {
+            queue = new int[Math.max(1, itemCount)];
+            queued = new boolean[Math.max(1, itemCount)];
         }
+        queueHead = 0;
+        queueSize = 0;
+    }
 
-        // Loại bỏ các mặt hàng từ cuối cho đến khi tôn trọng sức chứa
-        while (totalQuantity > robot.capacity && !route.isEmpty()) {
-            Merchandise removedItem = route.remove(route.size() - 1);
-            totalQuantity -= removedItem.getQuantity();
-
-            // Thử phân bổ lại cho các robot khác
-            boolean reallocated = false;
-            for (int i = 0; i < solution.getRobots().size(); i++) {
-                if (i == robotIndex) continue;
-
-                Robot otherRobot = solution.getRobots().get(i);
-                ArrayList<Merchandise> otherRoute = solution.getRobotRoutes().get(i);
-
-                int otherLoad = 0;
-                for (Merchandise m : otherRoute) {
-                    otherLoad += m.getQuantity();
-                }
-
-                if (otherLoad + removedItem.getQuantity() <= otherRobot.capacity) {
-                    otherRoute.add(removedItem);
-                    reallocated = true;
-                    break;
+    /**
+     * Tìm bước 2-opt cải thiện tạo cạnh nối mặt hàng với một láng giềng cùng tuyến
+     * Với hai mặt hàng ở vị trí a < b, đảo [a+1, b] tạo cạnh (a, b) ở đầu đoạn,
+     * đảo [a, b-1] tạo cạnh (a, b) ở cuối đoạn
+     * @param solution Lời giải hiện tại
+     * @param item Mặt hàng đang xét
+     * @param move Đối tượng nhận mô tả bước di chuyển tìm được
+     * @return true nếu tìm thấy bước cải thiện
+     */
+    private boolean findTwoOpt(Solution solution, int item, Move move) {
+        int route = solution.routeOf(item);
+        int start = solution.routeStart(route);
+        int index = solution.positionOf(item) - start;
+
+        for (int n = 0; n < candidates.count(item); n++) {
+            int neighbor = candidates.neighbor(item, n);
+            int neighborPosition = solution.positionOf(neighbor);
+            if (neighborPosition < start || neighborPosition >= solution.routeEnd(route)) continue;
+
+            int neighborIndex = neighborPosition - start;
+            int a = Math.min(index, neighborIndex);
+            int b = Math.max(index, neighborIndex);
+            if (a + 1 < b) {
+                runEvaluations += 2;
+                if (move.twoOpt(solution, route, a + 1, b) < -IMPROVEMENT_EPSILON
+                        || move.twoOpt(solution, route, a, b - 1) < -IMPROVEMENT_EPSILON) {
+                    return true;
                 }
             }
-
-            // Nếu không thể phân bổ lại, thông báo
-            if (!reallocated) {
-                System.out.println("  Cảnh báo: Mặt hàng " + removedItem.getName() +
-                        " không thể phân bổ do hạn chế về sức chứa");
-            }
         }
+        return false;
     }
 
     /**
-     * Tìm kiếm cục bộ để cải thiện giải pháp
-     * @param solution Giải pháp ban đầu
-     * @param warehousing Kho hàng
-     * @return Giải pháp được cải thiện
+     * Tìm bước chuyển đoạn cải thiện (relocate khi độ dài 1, Or-opt khi dài hơn)
+     * Đoạn có một đầu là mặt hàng đang xét và được chèn kề một láng giềng của nó, ở bất kỳ tuyến nào.
+     * Ràng buộc sức chứa được kiểm tra từ tải trọng đã lưu của tuyến đích
+     * @param solution Lời giải hiện tại
+     * @param item Mặt hàng đang xét
+     * @param minLength Độ dài đoạn nhỏ nhất
+     * @param maxLength Độ dài đoạn lớn nhất
+     * @param move Đối tượng nhận mô tả bước di chuyển tìm được
+     * @return true nếu tìm thấy bước cải thiện
      */
-    private Solution localSearch(Solution solution, ArrayList<Merchandise> warehousing) {
-        Solution currentSolution = new Solution(solution);
-        boolean improved = true;
-        int iterations = 0;
-        final int MAX_LOCAL_ITERATIONS = 20;  // Giới hạn số vòng lặp cục bộ
-
-        while (improved && iterations < MAX_LOCAL_ITERATIONS) {
-            improved = false;
-            iterations++;
-
-            // 1. Tối ưu hóa thứ tự các mặt hàng trong mỗi tuyến đường robot
-            for (int robotIndex = 0; robotIndex < currentSolution.getRobots().size(); robotIndex++) {
-                ArrayList<Merchandise> route = currentSolution.getRobotRoutes().get(robotIndex);
-                if (route.size() < 2) continue;
-
-                // Tạo một bản sao của giải pháp hiện tại
-                Solution newSolution = new Solution(currentSolution);
-
-                // Tối ưu thứ tự bằng thuật toán người láng giềng gần nhất
-                newSolution.optimizeRouteOrder(robotIndex, warehousing);
-
-                // Đánh giá giải pháp mới
-                double oldFitness = currentSolution.getFitness();
-                double newFitness = evaluateFitness(newSolution, warehousing);
-                newSolution.setFitness(newFitness);
-
-                // Nếu tốt hơn, cập nhật giải pháp hiện tại
-                if (newFitness < oldFitness) {
-                    currentSolution = newSolution;
-                    improved = true;
-                }
-            }
-
-            // 2. Thử 2-opt cho mỗi tuyến đường
-            if (!improved) {
-                for (int robotIndex = 0; robotIndex < currentSolution.getRobots().size(); robotIndex++) {
-                    ArrayList<Merchandise> route = currentSolution.getRobotRoutes().get(robotIndex);
-                    if (route.size() < 2) continue;
-
-                    for (int i = 0; i < route.size() - 1; i++) {
-                        for (int j = i + 1; j < route.size(); j++) {
-                            // Tạo một bản sao của giải pháp hiện tại
-                            Solution newSolution = new Solution(currentSolution);
-                            ArrayList<Merchandise> newRoute = newSolution.getRobotRoutes().get(robotIndex);
-
-                            // Thực hiện hoán đổi 2-opt: đảo ngược đoạn [i+1, j]
-                            reverse(newRoute, i + 1, j);
-
-                            // Đánh giá giải pháp mới
-                            double oldFitness = currentSolution.getFitness();
-                            double newFitness = evaluateFitness(newSolution, warehousing);
-                            newSolution.setFitness(newFitness);
-
-                            // Nếu tốt hơn, cập nhật giải pháp hiện tại
-                            if (newFitness < oldFitness) {
-                                currentSolution = newSolution;
-                                improved = true;
-                                break;
-                            }
-                        }
-                        if (improved) break;
+    private boolean findSegmentMove(Solution solution, int item, int minLength, int maxLength, Move move) {
+        int capacity = instance.getCapacity();
+        int route = solution.routeOf(item);
+        int size = solution.routeSize(route);
+        int index = solution.positionOf(item) - solution.routeStart(route);
+
+        for (int length = minLength; length <= maxLength && length <= size; length++) {
+            // Đoạn bắt đầu tại mặt hàng (side = 0) hoặc kết thúc tại mặt hàng (side = 1)
+            for (int side = 0; side < (length == 1 ? 1 : 2); side++) {
+                int segmentStart = side == 0 ? index : index - length + 1;
+                if (segmentStart < 0 || segmentStart + length > size) continue;
+                int quantity = solution.segmentLoad(route, segmentStart, length);
+
+                for (int n = 0; n < candidates.count(item); n++) {
+                    int neighbor = candidates.neighbor(item, n);
+                    int neighborRoute = solution.routeOf(neighbor);
+                    int neighborIndex = solution.positionOf(neighbor) - solution.routeStart(neighborRoute);
+
+                    if (neighborRoute == route) {
+                        // Láng giềng nằm trong đoạn thì không thể chèn kề nó
+                        if (neighborIndex >= segmentStart && neighborIndex < segmentStart + length) continue;
+                        // Vị trí của láng giềng sau khi gỡ đoạn
+                        if (neighborIndex > segmentStart) neighborIndex -= length;
+                    } else if (solution.routeLoad(neighborRoute) + quantity > capacity) {
+                        // Bỏ qua nếu ràng buộc về sức chứa bị vi phạm
+                        continue;
                     }
-                    if (improved) break;
-                }
-            }
 
-            // 3. Thử di chuyển một mặt hàng từ robot này sang robot khác
-            if (!improved) {
-                for (int fromRobot = 0; fromRobot < currentSolution.getRobots().size(); fromRobot++) {
-                    ArrayList<Merchandise> fromRoute = currentSolution.getRobotRoutes().get(fromRobot);
-                    if (fromRoute.isEmpty()) continue;
-
-                    for (int itemIndex = 0; itemIndex < fromRoute.size(); itemIndex++) {
-                        Merchandise item = fromRoute.get(itemIndex);
-
-                        for (int toRobot = 0; toRobot < currentSolution.getRobots().size(); toRobot++) {
-                            if (fromRobot == toRobot) continue;
-
-                            Solution newSolution = new Solution(currentSolution);
-                            ArrayList<Merchandise> newFromRoute = newSolution.getRobotRoutes().get(fromRobot);
-                            ArrayList<Merchandise> newToRoute = newSolution.getRobotRoutes().get(toRobot);
-
-                            // Xóa mặt hàng khỏi robot nguồn
-                            Merchandise movingItem = newFromRoute.remove(itemIndex);
-
-                            // Thử chèn nó ở các vị trí khác nhau trong tuyến đường của robot đích
-                            for (int insertPos = 0; insertPos <= newToRoute.size(); insertPos++) {
-                                // Chèn mặt hàng
-                                newToRoute.add(insertPos, movingItem);
-
-                                // Kiểm tra xem ràng buộc về sức chứa có bị vi phạm không
-                                int totalQuantity = 0;
-                                for (Merchandise m : newToRoute) {
-                                    totalQuantity += m.getQuantity();
-                                }
-
-                                // Nếu hợp lệ, đánh giá giải pháp mới
-                                if (totalQuantity <= newSolution.getRobots().get(toRobot).capacity) {
-                                    double oldFitness = currentSolution.getFitness();
-                                    double newFitness = evaluateFitness(newSolution, warehousing);
-                                    newSolution.setFitness(newFitness);
-
-                                    // Nếu tốt hơn, cập nhật giải pháp hiện tại
-                                    if (newFitness < oldFitness) {
-                                        currentSolution = newSolution;
-                                        improved = true;
-                                        break;
-                                    }
-                                }
-
-                                // Xóa mặt hàng để thử vị trí chèn tiếp theo
-                                newToRoute.remove(insertPos);
-                            }
-
-                            // Nếu không tìm thấy cải thiện, khôi phục giải pháp ban đầu
-                            if (!improved) {
-                                newFromRoute.add(itemIndex, movingItem);
-                            } else {
-                                break;
-                            }
-                        }
-
-                        if (improved) break;
+                    // Chèn sau láng giềng: mặt hàng phải ở đầu đoạn; chèn trước: mặt hàng ở cuối đoạn
+                    boolean reversedAfter = side == 1;
+                    boolean reversedBefore = side == 0 && length > 1;
+                    if (trySegmentMove(solution, move, route, segmentStart, length,
+                            neighborRoute, neighborIndex + 1, reversedAfter)
+                            || trySegmentMove(solution, move, route, segmentStart, length,
+                            neighborRoute, neighborIndex, reversedBefore)) {
+                        return true;
                     }
-
-                    if (improved) break;
                 }
             }
         }
-
-        return currentSolution;
+        return false;
     }
 
     /**
-     * Đảo ngược một đoạn của mảng
-     * @param route Tuyến đường cần đảo ngược
-     * @param start Vị trí bắt đầu
-     * @param end Vị trí kết thúc
+     * Đánh giá một bước chuyển đoạn, bỏ qua bước không làm thay đổi lời giải
+     * @return true nếu bước di chuyển cải thiện lời giải
      */
-    private void reverse(ArrayList<Merchandise> route, int start, int end) {
-        while (start < end) {
-            Merchandise temp = route.get(start);
-            route.set(start, route.get(end));
-            route.set(end, temp);
-            start++;
-            end--;
-        }
+    private boolean trySegmentMove(Solution solution, Move move, int fromRoute, int fromIndex, int length,
+                                   int toRoute, int toIndex, boolean reversed) {
+        if (toRoute == fromRoute && toIndex == fromIndex && !reversed) return false;
+        runEvaluations++;
+        return move.relocate(solution, fromRoute, fromIndex, length, toRoute, toIndex, reversed)
+                < -IMPROVEMENT_EPSILON;
     }
 
     /**
-     * Đánh giá độ thích nghi (chi phí quãng đường) của một giải pháp
-     * @param solution Giải pháp cần đánh giá
-     * @param warehousing Kho hàng
-     * @return Tổng chi phí quãng đường
+     * Đặt hàm được gọi mỗi khi VNS tìm thấy giải pháp tốt hơn
+     * Giải pháp truyền vào không bị VNS thay đổi sau đó
+     * @param improvementListener Hàm nhận giải pháp, null để tắt
      */
-    private double evaluateFitness(Solution solution, ArrayList<Merchandise> warehousing) {
-        double totalDistance = 0;
-
-        for (int i = 0; i < solution.getRobotRoutes().size(); i++) {
-            ArrayList<Merchandise> route = solution.getRobotRoutes().get(i);
-            if (route.isEmpty()) continue;
-
-            Robot robot = solution.getRobots().get(i);
-            Position startPosition = robot.getStartPosition(); // Lấy vị trí xuất phát của robot
-
-            // Bắt đầu từ vị trí xuất phát
-            Position currentPosition = startPosition;
-
-            // Tính khoảng cách cho mỗi mặt hàng trong tuyến đường
-            for (Merchandise merchandise : route) {
-                // Tìm mặt hàng trong kho để lấy vị trí
-                Merchandise warehouseItem = findMerchandiseInWarehouse(merchandise, warehousing);
-                if (warehouseItem != null) {
-                    // Tính khoảng cách từ vị trí hiện tại đến mặt hàng này
-                    float distance = DistanceCalculator.calculateDistance(currentPosition, warehouseItem.getPosition());
-                    totalDistance += distance;
-                    currentPosition = warehouseItem.getPosition();
-                }
-            }
-
-            // Quay lại vị trí xuất phát
-            totalDistance += DistanceCalculator.calculateDistance(currentPosition, startPosition);
-        }
-
-        return totalDistance;
+    public void setImprovementListener(Consumer<Solution> improvementListener) {
+        this.improvementListener = improvementListener;
     }
 
     /**
-     * Tìm mặt hàng trong kho
-     * @param merchandise Mặt hàng cần tìm
-     * @param warehousing Kho hàng
-     * @return Mặt hàng trong kho kèm vị trí, hoặc null nếu không tìm thấy
+     * Số lần đánh giá bước di chuyển trong tìm kiếm cục bộ của mọi lần chạy kể từ khi tạo VNS
+     * @return Số lần đánh giá
      */
-    private Merchandise findMerchandiseInWarehouse(Merchandise merchandise, ArrayList<Merchandise> warehousing) {
-        for (Merchandise item : warehousing) {
-            if (item.getName().equals(merchandise.getName())) {
-                return item;
-            }
-        }
-        return null;
+    public long getMoveEvaluations() {
+        return moveEvaluations.sum();
     }
-}
\ No newline at end of file
+}
@@ -1,4 +1,5 @@
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Lớp WareHousing quản lý kho hàng và vị trí của các mặt hàng trong kho
@@ -10,8 +11,17 @@ public class WareHousing {
      * @return Danh sách mặt hàng trong kho với vị trí
      */
     public static ArrayList<Merchandise> setWareHousing() {
+        return setWareHousing(Params.WAREHOUSE, Params.getWarehouseMap());
+    }
+
+    /**
+     * Thiết lập kho hàng từ danh sách mặt hàng và bản đồ cho trước (không đọc Params)
+     * @param listMerchandise Danh sách mặt hàng đọc từ file
+     * @param warehouseMap Bản đồ kho hàng dùng để tính điểm tiếp cận
+     * @return Danh sách mặt hàng trong kho với vị trí
+     */
+    public static ArrayList<Merchandise> setWareHousing(List<Merchandise> listMerchandise, WarehouseMap warehouseMap) {
         ArrayList<Merchandise> warehousing = new ArrayList<>();
-        ArrayList<Merchandise> listMerchandise = Params.WAREHOUSE;
 
         // Tạo counter tại vị trí 0
         Merchandise counter = new Merchandise("Counter", 0, new Position(1, 1, 1));
@@ -35,13 +45,6 @@ public class WareHousing {
         }
 
         // Tính toán điểm tiếp cận cho tất cả mặt hàng
-        WarehouseMap warehouseMap;
-        if (Params.WAREHOUSE_MAP != null) {
-            warehouseMap = new WarehouseMap(Params.WAREHOUSE_MAP);
-        } else {
-            warehouseMap = WarehouseMap.createMapFromWarehouse(Params.SHELVES, Params.SLOTS);
-        }
-
         for (Merchandise merchandise : warehousing) {
             merchandise.calculateAccessPoint(warehouseMap);
         }
@@ -1,16 +1,18 @@
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.PriorityQueue;
 import java.util.Queue;
 
 /**
  * Lớp WarehouseMap đại diện cho bản đồ cửa hàng/kho hàng
- * Sử dụng ma trận 2 chiều để biểu diễn không gian
+ * Không gian được lưu dưới dạng bitset theo hàng (1 bit mỗi ô)
  * 0: Ô đi được
  * 1: Ô kệ hàng (không đi được)
  */
 public class WarehouseMap {
-    private final int[][] map;
+    // Bit thứ (row * cols + col) bằng 1 nếu ô là kệ hàng
+    private final long[] blocked;
     private final int rows;
     private final int cols;
 
@@ -19,9 +21,67 @@ public class WarehouseMap {
      * @param map Ma trận biểu diễn bản đồ
      */
     public WarehouseMap(int[][] map) {
-        this.map = map;
         this.rows = map.length;
         this.cols = (rows > 0) ? map[0].length : 0;
+        this.blocked = new long[wordCount(rows, cols)];
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                if (map[i][j] != 0) {
+                    int cell = i * cols + j;
+                    blocked[cell >>> 6] |= 1L << cell;
+                }
+            }
+        }
+    }
+
+    /**
+     * Khởi tạo bản đồ trực tiếp từ bitset (dùng khi đọc bản đồ nén)
+     * @param rows Số hàng
+     * @param cols Số cột
+     * @param blocked Bitset các ô kệ hàng, bit thứ row * cols + col
+     */
+    public WarehouseMap(int rows, int cols, long[] blocked) {
+        if (blocked.length < wordCount(rows, cols)) {
+            throw new IllegalArgumentException("Bitset bản đồ quá nhỏ cho kích thước " + rows + "x" + cols);
+        }
+        this.rows = rows;
+        this.cols = cols;
+        this.blocked = blocked;
+    }
+
+    /**
+     * Tạo bản đồ từ mảng ô phẳng (một byte mỗi ô, khác 0 là kệ hàng)
+     * @param rows Số hàng
+     * @param cols Số cột
+     * @param cells Mảng rows * cols ô
+     * @return Bản đồ kho hàng
+     */
+    public static WarehouseMap fromCells(int rows, int cols, byte[] cells) {
+        long[] blocked = new long[wordCount(rows, cols)];
+        for (int cell = 0; cell < rows * cols; cell++) {
+            if (cells[cell] != 0) {
+                blocked[cell >>> 6] |= 1L << cell;
+            }
+        }
+        return new WarehouseMap(rows, cols, blocked);
+    }
+
+    /**
+     * Số phần tử long cần để lưu bitset của bản đồ
+     * @param rows Số hàng
+     * @param cols Số cột
+     * @return Số phần tử long
+     */
+    static int wordCount(int rows, int cols) {
+        return (int) (((long) rows * cols + 63) >>> 6);
+    }
+
+    /**
+     * Lấy bitset các ô kệ hàng (không sao chép, chỉ đọc)
+     * @return Bitset, bit thứ row * cols + col
+     */
+    long[] getBlockedBits() {
+        return blocked;
     }
 
     /**
@@ -32,7 +92,8 @@ public class WarehouseMap {
      */
     public int getCell(int row, int col) {
         if (isValidPosition(row, col)) {
-            return map[row][col];
+            int cell = row * cols + col;
+            return (int) (blocked[cell >>> 6] >>> cell) & 1;
         }
         return 1; // Mặc định là không đi được nếu vị trí không hợp lệ
     }
@@ -195,9 +256,10 @@ public class WarehouseMap {
             return false; // Vị trí không hợp lệ thì không đi được
         }
 
-        // Vị trí hợp lệ, kiểm tra giá trị trong bản đồ
-        // Giá trị 0 là ô đi được, 1 là ô không đi được (kệ hàng)
-        return map[row][col] == 0;
+        // Vị trí hợp lệ, kiểm tra bit trong bản đồ
+        // Bit 0 là ô đi được, 1 là ô không đi được (kệ hàng)
+        int cell = row * cols + col;
+        return (blocked[cell >>> 6] & (1L << cell)) == 0;
     }
 
     /**
@@ -472,6 +534,65 @@ public class WarehouseMap {
     private float heuristic(int row1, int col1, int row2, int col2) {
         return Math.abs(row1 - row2) + Math.abs(col1 - col2);
     }
+
+    /**
+     * Tính số bước đi ngắn nhất từ một ô đến tất cả các ô khác bằng BFS
+     * Một lần BFS cho ra cả một hàng của bảng khoảng cách thay vì gọi A* cho từng cặp
+     * @param startRow Hàng bắt đầu
+     * @param startCol Cột bắt đầu
+     * @return Mảng rows*cols chứa số bước đến mỗi ô (chỉ số row*cols+col), -1 nếu không tới được
+     */
+    public int[] computeStepDistances(int startRow, int startCol) {
+        int[] steps = new int[rows * cols];
+        Arrays.fill(steps, -1);
+        if (!isValidPosition(startRow, startCol) || !isWalkable(startRow, startCol)) {
+            return steps;
+        }
+
+        // Hàng đợi BFS dạng mảng để tránh cấp phát đối tượng cho từng ô
+        int[] queue = new int[rows * cols];
+        int head = 0;
+        int tail = 0;
+        int start = startRow * cols + startCol;
+        steps[start] = 0;
+        queue[tail++] = start;
+
+        int[] dr = {-1, 0, 1, 0};
+        int[] dc = {0, 1, 0, -1};
+        while (head < tail) {
+            int cell = queue[head++];
+            int row = cell / cols;
+            int col = cell % cols;
+            for (int i = 0; i < 4; i++) {
+                int newRow = row + dr[i];
+                int newCol = col + dc[i];
+                if (isWalkable(newRow, newCol)) {
+                    int next = newRow * cols + newCol;
+                    if (steps[next] < 0) {
+                        steps[next] = steps[cell] + 1;
+                        queue[tail++] = next;
+                    }
+                }
+            }
+        }
+        return steps;
+    }
+
+    /**
+     * Lấy số hàng của bản đồ
+     * @return Số hàng
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Lấy số cột của bản đồ
+     * @return Số cột
+     */
+    public int getCols() {
+        return cols;
+    }
     /**
      * Tính khoảng cách thực tế giữa hai vị trí trên bản đồ (theo đường đi thực)
      * @param pos1 Vị trí bắt đầu
@@ -556,7 +677,7 @@ public class WarehouseMap {
         System.out.println("Bản đồ kho hàng (" + rows + "x" + cols + "):");
         for (int i = 0; i < rows; i++) {
             for (int j = 0; j < cols; j++) {
-                if (map[i][j] == 0) {
+                if (isWalkable(i, j)) {
                     System.out.print("  "); // Ô đi được
                 } else {
                     System.out.print("■ "); // Kệ hàng
@@ -576,7 +697,7 @@ public class WarehouseMap {
         // Khởi tạo bản đồ hiển thị
         for (int i = 0; i < rows; i++) {
             for (int j = 0; j < cols; j++) {
-                if (map[i][j] == 0) {
+                if (isWalkable(i, j)) {
                     displayMap[i][j] = ' '; // Ô đi được
                 } else {
                     displayMap[i][j] = '■'; // Kệ hàng
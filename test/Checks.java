@@ -0,0 +1,78 @@
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * Lớp Checks chứa các hàm kiểm tra và dữ liệu mẫu dùng chung cho các bài kiểm tra
+ * Các bài kiểm tra là chương trình Java thuần (không dùng thư viện ngoài), chạy tất cả bằng RunAllTests
+ */
+final class Checks {
+    private Checks() {
+    }
+
+    /**
+     * Báo lỗi nếu điều kiện sai
+     * @param condition Điều kiện phải đúng
+     * @param message Mô tả lỗi
+     */
+    static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+
+    /**
+     * Báo lỗi nếu hai số thực khác nhau quá sai số cho phép
+     * @param expected Giá trị mong đợi
+     * @param actual Giá trị thực tế
+     * @param message Mô tả lỗi
+     */
+    static void checkClose(double expected, double actual, String message) {
+        if (Math.abs(expected - actual) > 1e-3) {
+            throw new AssertionError(message + ": mong đợi " + expected + ", thực tế " + actual);
+        }
+    }
+
+    /**
+     * Tạo một bài toán ngẫu nhiên trên bản đồ 20 kệ x 30 ô
+     * @param items Số mặt hàng cần lấy (mỗi mặt hàng một vị trí riêng trong kho)
+     * @param robots Số robot
+     * @param capacity Sức chứa của mỗi robot
+     * @param seed Hạt giống sinh dữ liệu
+     * @return Bài toán
+     */
+    static ProblemInstance randomInstance(int items, int robots, int capacity, long seed) {
+        return randomInstance(WarehouseMap.createMapFromWarehouse(20, 30), items, robots, capacity, seed,
+                SolverConfig.fromParams());
+    }
+
+    static ProblemInstance randomInstance(WarehouseMap map, int items, int robots, int capacity, long seed,
+                                          SolverConfig config) {
+        Random random = new Random(seed);
+        ArrayList<Merchandise> warehousing = new ArrayList<>();
+        ArrayList<Merchandise> require = new ArrayList<>();
+        for (int i = 0; i < items; i++) {
+            Position position = new Position(1 + random.nextInt(20), 1, 1 + random.nextInt(30));
+            warehousing.add(new Merchandise("SP" + i, 100, position));
+            require.add(new Merchandise("SP" + i, 1 + random.nextInt(5)));
+        }
+        return new ProblemInstance(map, warehousing, require, robots, capacity, new Position(0, 0, 0), config);
+    }
+
+    /**
+     * Kiểm tra tính nhất quán của một lời giải: mỗi mặt hàng đúng một lần, chỉ mục vị trí và fitness khớp
+     * với việc tính lại từ đầu
+     * @param solution Lời giải
+     */
+    static void checkSolution(Solution solution) {
+        boolean[] seen = new boolean[solution.getItemCount()];
+        for (int p = 0; p < solution.getItemCount(); p++) {
+            int item = solution.tourItem(p);
+            check(!seen[item], "mặt hàng " + item + " xuất hiện hai lần");
+            seen[item] = true;
+            check(solution.positionOf(item) == p, "chỉ mục vị trí sai của mặt hàng " + item);
+        }
+        Solution recomputed = new Solution(solution);
+        recomputed.calculateFitness();
+        checkClose(recomputed.getFitness(), solution.getFitness(), "fitness lệch so với tính lại");
+    }
+}
@@ -0,0 +1,25 @@
+/**
+ * Kiểm tra lời giải dựng bằng Clarke-Wright trên các cặp láng giềng gần nhất
+ */
+public class ClarkeWrightTest {
+    public static void main(String[] args) {
+        constructsFeasibleRoutes();
+    }
+
+    /**
+     * Mỗi mặt hàng xuất hiện đúng một lần và không tuyến nào vượt sức chứa khi đội robot đủ chỗ,
+     * kể cả khi số mặt hàng lớn hơn nhiều so với số láng giềng được xét
+     */
+    static void constructsFeasibleRoutes() {
+        for (int items : new int[]{5, 60, 400}) {
+            ProblemInstance instance = Checks.randomInstance(items, 1 + items / 4, 30, items);
+            Solution solution = new Solution(instance);
+            new ClarkeWright(instance).construct(solution, null);
+            Checks.checkSolution(solution);
+            for (int r = 0; r < solution.getRouteCount(); r++) {
+                Checks.check(solution.routeLoad(r) <= instance.getCapacity(),
+                        "tuyến " + r + " vượt sức chứa với " + items + " mặt hàng");
+            }
+        }
+    }
+}
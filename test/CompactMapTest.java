@@ -0,0 +1,70 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Kiểm tra ghi/đọc bản đồ nén với cả hai kiểu mã hóa và việc từ chối file bị cắt cụt
+ */
+public class CompactMapTest {
+    public static void main(String[] args) throws IOException {
+        Path dir = Files.createTempDirectory("wmap");
+        try {
+            // 13 x 37 không chia hết cho 64 nên word cuối của bitset chỉ dùng một phần
+            WarehouseMap map = randomMap(13, 37, 42);
+            for (byte encoding : new byte[]{CompactMap.ENCODING_BITMAP, CompactMap.ENCODING_RLE}) {
+                Path file = dir.resolve("map" + encoding + ".wmap");
+                CompactMap.save(map, file.toString(), encoding);
+                roundTrips(map, file);
+                rejectsTruncated(file);
+            }
+        } finally {
+            try (var files = Files.list(dir)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(dir);
+        }
+    }
+
+    static void roundTrips(WarehouseMap map, Path file) throws IOException {
+        WarehouseMap loaded = CompactMap.load(file.toString());
+        Checks.check(loaded.getRows() == map.getRows() && loaded.getCols() == map.getCols(),
+                "kích thước bản đồ đọc lại sai: " + file.getFileName());
+        for (int row = 0; row < map.getRows(); row++) {
+            for (int col = 0; col < map.getCols(); col++) {
+                Checks.check(loaded.getCell(row, col) == map.getCell(row, col),
+                        "ô (" + row + ", " + col + ") đọc lại sai: " + file.getFileName());
+            }
+        }
+    }
+
+    /**
+     * Mọi độ dài cắt giữa phần đầu và cuối file đều báo IOException kèm tên file, không ném lỗi bộ đệm
+     */
+    static void rejectsTruncated(Path file) throws IOException {
+        byte[] bytes = Files.readAllBytes(file);
+        Path truncated = file.resolveSibling("truncated-" + file.getFileName());
+        for (int length = 16; length < bytes.length; length++) {
+            Files.write(truncated, Arrays.copyOf(bytes, length));
+            try {
+                CompactMap.load(truncated.toString());
+                Checks.check(false, "file cắt còn " + length + " byte không bị từ chối");
+            } catch (IOException e) {
+                Checks.check(e.getMessage().contains(truncated.toString()),
+                        "thông báo thiếu tên file: " + e.getMessage());
+            }
+        }
+    }
+
+    private static WarehouseMap randomMap(int rows, int cols, long seed) {
+        Random random = new Random(seed);
+        byte[] cells = new byte[rows * cols];
+        for (int cell = 0; cell < cells.length; cell++) {
+            cells[cell] = (byte) (random.nextInt(3) == 0 ? 1 : 0);
+        }
+        return WarehouseMap.fromCells(rows, cols, cells);
+    }
+}
@@ -0,0 +1,143 @@
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Kiểm tra bảng khoảng cách dùng chung của ProblemInstance và các thay đổi tồn kho theo phiên bản
+ */
+public class DistanceTableTest {
+    public static void main(String[] args) throws InterruptedException {
+        droppedMapReleasesTable();
+        derivedInstancesShareTable();
+        sharedTableIsCompacted();
+        tableVersionsAreIndependent();
+        inventoryChangesReachInstance();
+    }
+
+    /**
+     * Bảng dùng chung của một bản đồ được thu gom khi bản đồ và mọi bài toán dùng nó không còn được giữ
+     */
+    static void droppedMapReleasesTable() throws InterruptedException {
+        WarehouseMap map = WarehouseMap.createMapFromWarehouse(20, 30);
+        ProblemInstance instance = Checks.randomInstance(map, 40, 2, 20, 1, SolverConfig.fromParams());
+        WeakReference<DistanceTable> table = new WeakReference<>(instance.getDistanceTable());
+        WeakReference<WarehouseMap> mapReference = new WeakReference<>(map);
+        map = null;
+        instance = null;
+
+        for (int attempt = 0; attempt < 50 && (table.get() != null || mapReference.get() != null); attempt++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        Checks.check(table.get() == null, "bảng khoảng cách của bản đồ đã bỏ không được thu gom");
+        Checks.check(mapReference.get() == null, "bản đồ đã bỏ vẫn bị giữ bởi bộ nhớ đệm");
+    }
+
+    /**
+     * Bài toán dẫn xuất và bài toán mới trên cùng bản đồ dùng chung một bảng
+     */
+    static void derivedInstancesShareTable() {
+        WarehouseMap map = WarehouseMap.createMapFromWarehouse(20, 30);
+        ProblemInstance first = Checks.randomInstance(map, 40, 2, 20, 1, SolverConfig.fromParams());
+        ProblemInstance derived = first.withRequire(first.getRequire().subList(0, 10), 1);
+        Checks.check(derived.getDistanceTable() == first.getDistanceTable(), "bài toán dẫn xuất không dùng chung bảng");
+        ProblemInstance second = Checks.randomInstance(map, 40, 2, 20, 1, SolverConfig.fromParams());
+        Checks.check(second.getDistanceTable().size() == first.getDistanceTable().size(),
+                "cùng vị trí nhưng bảng dùng chung bị mở rộng");
+    }
+
+    /**
+     * Bảng dùng chung không tăng mãi theo số bài toán, và bài toán nhỏ không bị kéo theo bảng lớn
+     */
+    static void sharedTableIsCompacted() {
+        WarehouseMap map = WarehouseMap.createMapFromWarehouse(20, 30);
+        ProblemInstance[] large = new ProblemInstance[6];
+        for (int i = 0; i < large.length; i++) {
+            large[i] = Checks.randomInstance(map, 40, 2, 20, 100 + i, SolverConfig.fromParams());
+        }
+        for (ProblemInstance instance : large) {
+            Checks.check(instance.getDistanceTable().size() <= 5 * 41,
+                    "bảng dùng chung tăng không giới hạn: " + instance.getDistanceTable().size() + " vị trí");
+        }
+        ProblemInstance small = Checks.randomInstance(map, 10, 2, 20, 7, SolverConfig.fromParams());
+        Checks.check(small.getDistanceTable().size() <= 5 * 11,
+                "bảng của bài toán nhỏ có " + small.getDistanceTable().size() + " vị trí");
+        Checks.check(large[0].getDistanceTable().size() > 0, "bài toán cũ mất bảng khoảng cách");
+    }
+
+    /**
+     * Thêm, xóa và chuyển vị trí tạo phiên bản mới; phiên bản cũ giữ nguyên, khoảng cách của vị trí mới bằng
+     * khoảng cách của bảng dựng từ đầu
+     */
+    static void tableVersionsAreIndependent() {
+        WarehouseMap map = WarehouseMap.createMapFromWarehouse(20, 30);
+        Position counter = new Position(0, 0, 0);
+        Position a = new Position(2, 1, 3);
+        Position b = new Position(5, 1, 7);
+        Position c = new Position(9, 1, 12);
+        DistanceTable base = DistanceTable.build(map, counter, List.of(a, b));
+        float ab = base.cost(base.indexOf(a), base.indexOf(b));
+
+        DistanceTable added = base.withLocationAdded(c);
+        DistanceTable fresh = DistanceTable.build(map, counter, List.of(a, b, c));
+        Checks.check(base.indexOf(c) < 0 && base.size() == 3, "phiên bản cũ thấy vị trí được thêm");
+        Checks.checkClose(fresh.cost(fresh.indexOf(a), fresh.indexOf(c)), added.cost(added.indexOf(a), added.indexOf(c)),
+                "khoảng cách của vị trí thêm khác bảng dựng từ đầu");
+        Checks.checkClose(fresh.cost(fresh.indexOf(c), 0), added.cost(added.indexOf(c), 0),
+                "khoảng cách về counter của vị trí thêm sai");
+
+        DistanceTable removed = added.withLocationRemoved(b);
+        Checks.check(removed.indexOf(b) < 0, "vị trí đã xóa vẫn tra được");
+        Checks.check(added.indexOf(b) >= 0 && base.indexOf(b) >= 0, "xóa vị trí làm thay đổi phiên bản cũ");
+        Checks.check(removed.withLocationRemoved(counter) == removed, "counter bị xóa khỏi bảng");
+
+        DistanceTable moved = base.withLocationMoved(a, c);
+        Checks.check(moved.indexOf(a) < 0 && moved.indexOf(c) >= 0, "chuyển vị trí không xóa vị trí cũ");
+        Checks.checkClose(fresh.cost(fresh.indexOf(b), fresh.indexOf(c)), moved.cost(moved.indexOf(b), moved.indexOf(c)),
+                "khoảng cách của vị trí mới sau khi chuyển sai");
+        Checks.check(base.indexOf(a) >= 0 && base.indexOf(c) < 0, "chuyển vị trí làm thay đổi phiên bản cũ");
+        Checks.checkClose(ab, base.cost(base.indexOf(a), base.indexOf(b)), "khoảng cách của phiên bản cũ bị ghi đè");
+    }
+
+    /**
+     * Nhập, chuyển và gỡ hàng trên ProblemInstance đổi vị trí mặt hàng của đơn trong bài toán mới,
+     * bài toán cũ (và lời giải đang dùng nó) giữ nguyên
+     */
+    static void inventoryChangesReachInstance() {
+        ProblemInstance instance = Checks.randomInstance(20, 2, 40, 3);
+        Merchandise first = instance.getRequire().get(0);
+        int oldLocation = instance.requireLocation(0);
+        Position oldPosition = instance.getDistanceTable().getLocation(oldLocation);
+        float oldCost = instance.cost(instance.getCounterLocation(), oldLocation);
+        Position target = new Position(17, 1, 28);
+
+        ProblemInstance moved = instance.withLocationMoved(first.getName(), target);
+        Checks.check(moved.getDistanceTable().getLocation(moved.requireLocation(0)).packedKey() == target.packedKey(),
+                "mặt hàng của đơn không theo vị trí mới");
+        Checks.check(instance.requireLocation(0) == oldLocation
+                        && instance.getWarehousing().get(0).getPosition().packedKey() == oldPosition.packedKey(),
+                "chuyển hàng làm thay đổi bài toán cũ");
+        Checks.checkClose(oldCost, instance.cost(instance.getCounterLocation(), oldLocation),
+                "chi phí của bài toán cũ bị thay đổi");
+        DistanceTable fresh = DistanceTable.build(instance.getWarehouseMap(), instance.getCounterPosition(),
+                List.of(target));
+        Checks.checkClose(fresh.cost(0, 1), moved.cost(moved.getCounterLocation(), moved.requireLocation(0)),
+                "chi phí đến vị trí mới sai");
+
+        ProblemInstance removed = moved.withLocationRemoved(first.getName());
+        Checks.check(removed.requireLocation(0) == removed.getCounterLocation(),
+                "mặt hàng đã gỡ khỏi kho không được coi như nằm tại counter");
+        Checks.check(removed.getWarehousing().size() == moved.getWarehousing().size() - 1, "dòng kho không bị gỡ");
+        Checks.check(moved.requireLocation(0) != moved.getCounterLocation(), "gỡ hàng làm thay đổi bài toán trước");
+
+        ProblemInstance restocked = removed.withLocationAdded(new Merchandise(first.getName(), 10, oldPosition));
+        Checks.check(restocked.requireLocation(0) == restocked.getDistanceTable().indexOf(oldPosition),
+                "mặt hàng nhập lại không được dùng cho đơn");
+        Checks.check(removed.requireLocation(0) == removed.getCounterLocation(), "nhập hàng làm thay đổi bài toán trước");
+        Checks.check(instance.withLocationRemoved("KHÔNG CÓ") == instance, "gỡ mặt hàng không có tạo bài toán mới");
+
+        Solution solution = new Solution(restocked);
+        solution.initializeRandomSolution(new Random(2));
+        Checks.checkSolution(solution);
+    }
+}
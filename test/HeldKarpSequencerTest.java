@@ -0,0 +1,105 @@
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Kiểm tra thứ tự tuyến của Held-Karp có số bước bằng thứ tự tốt nhất tìm bằng vét cạn mọi hoán vị
+ */
+public class HeldKarpSequencerTest {
+    public static void main(String[] args) {
+        matchesBruteForce();
+        rejectsRoutesLongerThanLimit();
+    }
+
+    /**
+     * Tuyến ngẫu nhiên dài 1 đến 8 mặt hàng; mỗi tập được sắp xếp lại lần hai từ thứ tự khác để đi qua
+     * bộ nhớ kết quả
+     */
+    static void matchesBruteForce() {
+        ProblemInstance instance = Checks.randomInstance(14, 2, 100, 21);
+        HeldKarpSequencer sequencer = new HeldKarpSequencer(instance, 8);
+        Random random = new Random(8);
+        for (int trial = 0; trial < 60; trial++) {
+            int length = 1 + trial % 8;
+            int[] items = randomRoute(instance.getRequire().size(), length, random);
+            int[] route = new int[length + 2];
+            System.arraycopy(items, 0, route, 1, length);
+            route[0] = -1;
+            route[length + 1] = -1;
+
+            Checks.check(sequencer.sequence(route, 1, length), "tuyến " + length + " mặt hàng không được sắp xếp");
+            Checks.check(route[0] == -1 && route[length + 1] == -1, "ghi ra ngoài đoạn tuyến");
+            int[] sequenced = Arrays.copyOfRange(route, 1, length + 1);
+            int[] sortedResult = sequenced.clone();
+            int[] sortedInput = items.clone();
+            Arrays.sort(sortedResult);
+            Arrays.sort(sortedInput);
+            Checks.check(Arrays.equals(sortedResult, sortedInput), "tuyến sau khi sắp xếp không cùng tập mặt hàng");
+
+            double best = bruteForce(instance, items.clone(), 0);
+            Checks.checkClose(best, steps(instance, sequenced), "Held-Karp không tối ưu với tuyến " +
+                    Arrays.toString(items));
+
+            int[] reversed = new int[length];
+            for (int i = 0; i < length; i++) {
+                reversed[i] = items[length - 1 - i];
+            }
+            sequencer.sequence(reversed, 0, length);
+            Checks.checkClose(best, steps(instance, reversed), "kết quả ghi nhớ không tối ưu với tuyến " +
+                    Arrays.toString(items));
+        }
+    }
+
+    static void rejectsRoutesLongerThanLimit() {
+        ProblemInstance instance = Checks.randomInstance(10, 2, 100, 4);
+        HeldKarpSequencer sequencer = new HeldKarpSequencer(instance, 4);
+        int[] route = {0, 1, 2, 3, 4};
+        Checks.check(!sequencer.sequence(route, 0, 5), "tuyến dài hơn giới hạn vẫn được sắp xếp");
+        Checks.check(Arrays.equals(route, new int[]{0, 1, 2, 3, 4}), "tuyến bị từ chối vẫn bị thay đổi");
+    }
+
+    /**
+     * Số bước nhỏ nhất qua mọi hoán vị của items[from..] (các phần tử trước from giữ cố định)
+     */
+    private static double bruteForce(ProblemInstance instance, int[] items, int from) {
+        if (from == items.length) return steps(instance, items);
+        double best = Double.MAX_VALUE;
+        for (int i = from; i < items.length; i++) {
+            swap(items, from, i);
+            best = Math.min(best, bruteForce(instance, items, from + 1));
+            swap(items, from, i);
+        }
+        return best;
+    }
+
+    /**
+     * Số bước đi từ counter qua các mặt hàng theo thứ tự rồi về counter
+     */
+    private static double steps(ProblemInstance instance, int[] items) {
+        int counter = instance.getCounterLocation();
+        int location = counter;
+        double total = 0;
+        for (int item : items) {
+            int next = instance.requireLocation(item);
+            total += instance.steps(location, next);
+            location = next;
+        }
+        return total + instance.steps(location, counter);
+    }
+
+    private static int[] randomRoute(int itemCount, int length, Random random) {
+        int[] all = new int[itemCount];
+        for (int i = 0; i < itemCount; i++) {
+            all[i] = i;
+        }
+        for (int i = 0; i < length; i++) {
+            swap(all, i, i + random.nextInt(itemCount - i));
+        }
+        return Arrays.copyOf(all, length);
+    }
+
+    private static void swap(int[] array, int i, int j) {
+        int tmp = array[i];
+        array[i] = array[j];
+        array[j] = tmp;
+    }
+}
@@ -0,0 +1,96 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Kiểm tra publisher phát sự kiện cho từng lần giải khi được dùng lại
+ */
+public class IncumbentPublisherTest {
+    public static void main(String[] args) throws InterruptedException, ExecutionException {
+        reusedPublisherEmitsForCostlierSolve();
+        concurrentPublishersDeliverImprovingEvents();
+    }
+
+    /**
+     * Lần giải thứ hai có thêm mặt hàng nên chi phí cao hơn lần đầu, vẫn phải phát sự kiện
+     */
+    static void reusedPublisherEmitsForCostlierSolve() {
+        ProblemInstance instance = Checks.randomInstance(12, 2, 40, 9);
+        instance = instance.withConfig(instance.getConfig().toBuilder().psoMaxIterations(5).vnsMaxIterations(5)
+                .randomSeed(3).build());
+        List<Merchandise> more = new ArrayList<>(instance.getRequire());
+        for (Merchandise item : instance.getRequire()) {
+            more.add(new Merchandise(item.getName(), 1));
+        }
+        ProblemInstance costlier = instance.withRequire(more, instance.getRobotCount());
+
+        List<IncumbentEvent> events = new CopyOnWriteArrayList<>();
+        // Executor chạy ngay trên luồng gọi nên sự kiện đã được giao khi solve trả về
+        try (IncumbentPublisher publisher = new IncumbentPublisher(Runnable::run, 64)) {
+            publisher.listen(events::add);
+            PSO first = new PSO(instance);
+            first.setIncumbentPublisher(publisher);
+            double firstFitness = first.solve(SolveBudget.unlimited()).getSolution().getFitness();
+            int firstEvents = events.size();
+            Checks.check(firstEvents > 0, "lần giải đầu không phát sự kiện");
+
+            PSO second = new PSO(costlier);
+            second.setIncumbentPublisher(publisher);
+            double secondFitness = second.solve(SolveBudget.unlimited()).getSolution().getFitness();
+            Checks.check(secondFitness > firstFitness, "lần giải thứ hai không tốn hơn lần đầu");
+            Checks.check(events.size() > firstEvents, "publisher dùng lại không phát sự kiện cho lần giải thứ hai");
+            Checks.checkClose(secondFitness, events.get(events.size() - 1).getFitness(),
+                    "sự kiện cuối không phải lời giải tốt nhất của lần giải thứ hai");
+        }
+    }
+
+    /**
+     * Nhiều luồng cùng phát các lời giải theo thứ tự ngẫu nhiên: bên nhận chỉ thấy fitness giảm dần
+     */
+    static void concurrentPublishersDeliverImprovingEvents() throws InterruptedException, ExecutionException {
+        ProblemInstance instance = Checks.randomInstance(30, 3, 40, 13);
+        List<Solution> solutions = new ArrayList<>();
+        Random random = new Random(4);
+        for (int i = 0; i < 400; i++) {
+            Solution solution = new Solution(instance);
+            solution.initializeRandomSolution(random);
+            solutions.add(solution);
+        }
+
+        List<Double> received = new CopyOnWriteArrayList<>();
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try (IncumbentPublisher publisher = new IncumbentPublisher(ForkJoinPool.commonPool(), 1024)) {
+            CompletableFuture<Void> done = publisher.listen(event -> received.add(event.getFitness()));
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                List<Solution> shuffled = new ArrayList<>(solutions);
+                Collections.shuffle(shuffled, new Random(t));
+                workers.add(pool.submit(() -> {
+                    for (Solution solution : shuffled) {
+                        publisher.publish(solution, 0, 0, "TEST");
+                    }
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+            publisher.close();
+            done.get();
+        } finally {
+            pool.shutdown();
+        }
+        for (int i = 1; i < received.size(); i++) {
+            Checks.check(received.get(i) < received.get(i - 1), "sự kiện thứ " + i + " tệ hơn sự kiện trước");
+        }
+        double best = solutions.stream().mapToDouble(Solution::getFitness).min().orElse(0);
+        Checks.checkClose(best, received.get(received.size() - 1), "sự kiện cuối không phải lời giải tốt nhất");
+    }
+}
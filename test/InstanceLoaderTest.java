@@ -0,0 +1,52 @@
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Kiểm tra việc đọc và kiểm tra khối bản đồ của InstanceLoader
+ */
+public class InstanceLoaderTest {
+    public static void main(String[] args) throws IOException {
+        readsValidMap();
+        rejectsCellOutsideZeroOne();
+        rejectsRowOfWrongLength();
+    }
+
+    static void readsValidMap() throws IOException {
+        InstanceData data = load("2 1 3 0 1 10\nMAP_START\n0 0 0\n1 1 0\n0 0 0\nMAP_END\n");
+        Checks.check(data.mapRows == 3 && data.mapCols == 3, "kích thước bản đồ sai");
+        Checks.check(data.mapCells[3] == 1 && data.mapCells[5] == 0, "ô bản đồ sai");
+    }
+
+    /**
+     * Ô khác 0 và 1 (kể cả giá trị bị cắt khi ép sang byte như 257) bị từ chối kèm số dòng
+     */
+    static void rejectsCellOutsideZeroOne() throws IOException {
+        for (String cell : new String[]{"2", "257", "-1"}) {
+            try {
+                load("2 1 3 0 1 10\nMAP_START\n0 0 0\n1 " + cell + " 0\nMAP_END\n");
+                Checks.check(false, "ô " + cell + " không bị từ chối");
+            } catch (NumberFormatException e) {
+                Checks.check(e.getMessage().contains("dòng 4"), "thông báo thiếu số dòng: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Hàng ngắn hơn hoặc dài hơn hàng đầu tiên bị từ chối kèm số dòng
+     */
+    static void rejectsRowOfWrongLength() {
+        for (String row : new String[]{"1 1", "1 1 0 0"}) {
+            try {
+                load("2 1 3 0 1 10\nMAP_START\n0 0 0\n0 0 0\n" + row + "\nMAP_END\n");
+                Checks.check(false, "hàng \"" + row + "\" không bị từ chối");
+            } catch (IOException e) {
+                Checks.check(e.getMessage().contains("dòng 5"), "thông báo thiếu số dòng: " + e.getMessage());
+            }
+        }
+    }
+
+    private static InstanceData load(String text) throws IOException {
+        return InstanceLoader.load(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,72 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Kiểm tra tồn kho dạng cột InventoryStore
+ */
+public class InventoryStoreTest {
+    public static void main(String[] args) {
+        merchandiseRoundTrip();
+        robotDistanceUsesInstanceStore();
+    }
+
+    /**
+     * Dựng kho từ danh sách mặt hàng rồi chuyển ngược lại cho đúng tên, số lượng, vị trí chính,
+     * vị trí thay thế và chỉ số trong danh sách gốc; tra theo vị trí tìm được SKU đặt tại đó
+     */
+    static void merchandiseRoundTrip() {
+        Random random = new Random(4);
+        List<Merchandise> items = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            Merchandise item = new Merchandise("SP" + i, 1 + random.nextInt(50),
+                    new Position(1 + random.nextInt(20), 1 + random.nextInt(3), 1 + random.nextInt(30)));
+            for (int k = random.nextInt(3); k > 0; k--) {
+                item.addAlternativePosition(new Position(1 + random.nextInt(20), 1 + random.nextInt(3),
+                        1 + random.nextInt(30)));
+            }
+            items.add(item);
+        }
+
+        InventoryStore store = InventoryStore.fromMerchandise(items);
+        Checks.check(store.getSkuCount() == items.size(), "số SKU sai");
+        for (int i = 0; i < items.size(); i++) {
+            Merchandise original = items.get(i);
+            int sku = store.skuId(original.getName());
+            Checks.check(sku >= 0, "không tìm thấy " + original.getName());
+            Checks.check(store.getSourceIndex(sku) == i, "chỉ số gốc của " + original.getName() + " sai");
+
+            Merchandise copy = store.toMerchandise(sku);
+            Checks.check(copy.getName().equals(original.getName()), "tên sai");
+            Checks.check(copy.getQuantity() == original.getQuantity(), "số lượng của " + original.getName() + " sai");
+            List<Position> expected = original.getAllPositions();
+            List<Position> actual = copy.getAllPositions();
+            Checks.check(actual.size() == expected.size(), "số vị trí của " + original.getName() + " sai");
+            for (int p = 0; p < expected.size(); p++) {
+                Checks.check(actual.get(p).equals(expected.get(p)), "vị trí " + p + " của " + original.getName() + " sai");
+            }
+
+            boolean found = false;
+            for (int at : store.skusAt(original.getPosition())) {
+                found |= at == sku;
+            }
+            Checks.check(found, "tra theo vị trí không thấy " + original.getName());
+        }
+        Checks.check(store.skuId("KHONG_CO") < 0, "tìm thấy mặt hàng không có trong kho");
+    }
+
+    /**
+     * Quãng đường của robot tính bằng chỉ mục của bài toán bằng quãng đường tính khi dựng chỉ mục mới
+     */
+    static void robotDistanceUsesInstanceStore() {
+        ProblemInstance instance = Checks.randomInstance(40, 1, 100, 6);
+        Robot robot = instance.createFleet().get(0);
+        for (int i = 0; i < 10; i++) {
+            robot.shoppingCart.add(instance.getRequire().get(i));
+        }
+        float fromInstance = robot.calculateTotalDistance(instance);
+        float rebuilt = robot.calculateTotalDistance(new ArrayList<>(instance.getWarehousing()));
+        Checks.checkClose(rebuilt, fromInstance, "quãng đường của robot khác nhau");
+        Checks.check(fromInstance > 0, "quãng đường của robot bằng 0");
+    }
+}
@@ -0,0 +1,56 @@
+/**
+ * Kiểm tra mô hình đảo: cùng kết quả khi chạy lại với cùng hạt giống nếu đảo chờ bản chụp của kỳ trước,
+ * và lời giải hợp lệ khi đảo không bao giờ chờ
+ */
+public class IslandPSOTest {
+    public static void main(String[] args) {
+        for (SolverConfig.MigrationTopology topology : SolverConfig.MigrationTopology.values()) {
+            sameSeedGivesSameSolution(topology);
+            nonBlockingMigrationGivesValidSolution(topology);
+        }
+    }
+
+    static void sameSeedGivesSameSolution(SolverConfig.MigrationTopology topology) {
+        ProblemInstance configured = configured(topology, true);
+
+        SolveResult first = new IslandPSO(configured).solve(SolveBudget.unlimited());
+        for (int run = 0; run < 3; run++) {
+            SolveResult again = new IslandPSO(configured).solve(SolveBudget.unlimited());
+            Checks.checkSolution(again.getSolution());
+            Checks.check(again.getSeed() == first.getSeed(), "hạt giống khác nhau giữa hai lần giải");
+            Checks.check(again.getSolution().compareRoutes(first.getSolution()) == 0,
+                    "lời giải khác nhau với cùng hạt giống (" + topology + "): " +
+                            first.getSolution().getFitness() + " và " + again.getSolution().getFitness());
+        }
+    }
+
+    /**
+     * Không chờ đảo nguồn: kết quả tùy tốc độ các đảo nhưng luôn hợp lệ và chạy đủ số vòng lặp
+     */
+    static void nonBlockingMigrationGivesValidSolution(SolverConfig.MigrationTopology topology) {
+        ProblemInstance configured = configured(topology, false);
+        for (int run = 0; run < 3; run++) {
+            SolveResult result = new IslandPSO(configured).solve(SolveBudget.unlimited());
+            Checks.checkSolution(result.getSolution());
+            Checks.check(result.getIterations() == configured.getConfig().getPsoMaxIterations(),
+                    "đảo dừng sau " + result.getIterations() + " vòng lặp");
+        }
+    }
+
+    private static ProblemInstance configured(SolverConfig.MigrationTopology topology, boolean migrationWait) {
+        ProblemInstance instance = Checks.randomInstance(25, 3, 15, 11);
+        // Trao đổi mỗi 2 vòng lặp để có nhiều kỳ, các đảo có thời gian chạy khác nhau theo bộ tham số
+        SolverConfig config = instance.getConfig().toBuilder()
+                .randomSeed(17)
+                .islandCount(4)
+                .swarmSize(8)
+                .psoMaxIterations(12)
+                .migrationInterval(2)
+                .migrationSize(2)
+                .migrationTopology(topology)
+                .migrationWait(migrationWait)
+                .vnsMaxIterations(10)
+                .build();
+        return instance.withConfig(config);
+    }
+}
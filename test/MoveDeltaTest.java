@@ -0,0 +1,66 @@
+import java.util.Random;
+
+/**
+ * Kiểm tra chênh lệch chi phí O(1) của các bước 2-opt và chuyển đoạn (relocate / Or-opt) so với tính lại
+ * toàn bộ lời giải
+ */
+public class MoveDeltaTest {
+    public static void main(String[] args) {
+        twoOptDeltaMatchesRecompute();
+        segmentDeltaMatchesRecompute();
+    }
+
+    /**
+     * Chênh lệch 2-opt bằng chênh lệch fitness sau khi đảo đoạn và tính lại từ đầu
+     */
+    static void twoOptDeltaMatchesRecompute() {
+        ProblemInstance instance = Checks.randomInstance(40, 3, 30, 21);
+        Random random = new Random(1);
+        Solution solution = new Solution(instance);
+        solution.initializeRandomSolution(random);
+        Move move = new Move();
+        for (int trial = 0; trial < 500; trial++) {
+            int route = random.nextInt(solution.getRouteCount());
+            int size = solution.routeSize(route);
+            if (size < 2) continue;
+            int i = random.nextInt(size - 1);
+            int j = i + 1 + random.nextInt(size - i - 1);
+
+            double before = solution.getFitness();
+            double delta = move.twoOpt(solution, route, i, j);
+            move.apply(solution);
+            Checks.checkSolution(solution);
+            Checks.checkClose(solution.getFitness() - before, delta, "chênh lệch 2-opt [" + i + ", " + j + "]");
+        }
+    }
+
+    /**
+     * Chênh lệch chuyển đoạn (cùng tuyến, khác tuyến, đảo chiều, vượt sức chứa) bằng chênh lệch fitness
+     * sau khi chuyển và tính lại từ đầu
+     */
+    static void segmentDeltaMatchesRecompute() {
+        // Sức chứa nhỏ để nhiều bước chuyển làm tuyến vượt sức chứa và bị phạt
+        ProblemInstance instance = Checks.randomInstance(40, 4, 25, 22);
+        Random random = new Random(2);
+        Solution solution = new Solution(instance);
+        solution.initializeRandomSolution(random);
+        Move move = new Move();
+        for (int trial = 0; trial < 1000; trial++) {
+            int fromRoute = random.nextInt(solution.getRouteCount());
+            int size = solution.routeSize(fromRoute);
+            if (size == 0) continue;
+            int length = 1 + random.nextInt(Math.min(3, size));
+            int fromIndex = random.nextInt(size - length + 1);
+            int toRoute = random.nextInt(solution.getRouteCount());
+            int room = toRoute == fromRoute ? size - length : solution.routeSize(toRoute);
+            int toIndex = random.nextInt(room + 1);
+            boolean reversed = random.nextBoolean();
+
+            double before = solution.getFitness();
+            double delta = move.relocate(solution, fromRoute, fromIndex, length, toRoute, toIndex, reversed);
+            move.apply(solution);
+            Checks.checkSolution(solution);
+            Checks.checkClose(solution.getFitness() - before, delta, "chênh lệch của " + move);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Kiểm tra chế độ trực tuyến: tiếp nhận đơn trong khi luồng tối ưu chạy, giao tuyến và đóng bộ điều phối
+ */
+public class OnlineDispatcherTest {
+    private static final int ORDERS = 40;
+
+    public static void main(String[] args) throws InterruptedException {
+        ProblemInstance instance = Checks.randomInstance(30, 3, 50, 6);
+        instance = instance.withConfig(instance.getConfig().toBuilder().onlinePassMillis(5).vnsMaxIterations(10)
+                .randomSeed(2).build());
+        OnlineDispatcher dispatcher = new OnlineDispatcher(instance);
+        dispatcher.start();
+        try {
+            Map<String, Integer> submitted = admitsEveryItemOnce(dispatcher, instance);
+            dispatchRemovesOneRoute(dispatcher, submitted);
+        } finally {
+            closeStopsThreads(dispatcher);
+        }
+    }
+
+    /**
+     * Đơn được đưa vào trong lúc luồng tối ưu chạy: kế hoạch không bao giờ mất mặt hàng (luồng tối ưu không
+     * thay kế hoạch mới hơn bằng kết quả từ bản chụp cũ), mỗi mặt hàng có đúng một lần và độ trễ cỡ mili giây
+     */
+    static Map<String, Integer> admitsEveryItemOnce(OnlineDispatcher dispatcher, ProblemInstance instance)
+            throws InterruptedException {
+        Random random = new Random(12);
+        Map<String, Integer> submitted = new HashMap<>();
+        int submittedItems = 0;
+        int lastSeen = 0;
+        for (int o = 0; o < ORDERS; o++) {
+            List<Merchandise> items = new ArrayList<>();
+            int lines = 1 + random.nextInt(2);
+            for (int k = 0; k < lines; k++) {
+                String name = instance.getWarehousing().get(random.nextInt(instance.getWarehousing().size())).getName();
+                items.add(new Merchandise(name, 1));
+                submitted.merge(name, 1, Integer::sum);
+            }
+            submittedItems += items.size();
+            dispatcher.submit(new Order("DH" + o, items));
+
+            Solution plan = dispatcher.getPlan();
+            Checks.checkSolution(plan);
+            Checks.check(plan.getItemCount() >= lastSeen, "kế hoạch mất mặt hàng: " + plan.getItemCount() +
+                    " sau " + lastSeen);
+            lastSeen = plan.getItemCount();
+            Thread.sleep(2);
+        }
+
+        waitForAdmission(dispatcher, ORDERS);
+        // Để luồng tối ưu chạy thêm vài lượt trên kế hoạch đầy đủ
+        Thread.sleep(50);
+        Solution plan = dispatcher.getPlan();
+        Checks.checkSolution(plan);
+        Checks.check(plan.getItemCount() == submittedItems, "kế hoạch có " + plan.getItemCount() + " mặt hàng thay vì " +
+                submittedItems);
+        Checks.check(countNames(plan.getInstance().getRequire()).equals(submitted), "mặt hàng của kế hoạch khác đơn đã gửi");
+
+        double average = dispatcher.getAverageLatencyMillis();
+        double max = dispatcher.getMaxLatencyMillis();
+        Checks.check(average > 0 && average <= max, "thống kê độ trễ sai: " + average + " / " + max);
+        Checks.check(average < 100, "độ trễ tiếp nhận trung bình " + average + " ms");
+        return submitted;
+    }
+
+    /**
+     * Giao tuyến gỡ đúng tuyến của robot: các mặt hàng được giao cộng các mặt hàng còn lại bằng kế hoạch trước
+     */
+    static void dispatchRemovesOneRoute(OnlineDispatcher dispatcher, Map<String, Integer> submitted) {
+        Solution before = dispatcher.getPlan();
+        int total = before.getItemCount();
+        // Luồng tối ưu có thể dồn hết hàng sang robot khác, nên giao tuyến đang dài nhất
+        int robot = 0;
+        for (int r = 1; r < before.getInstance().getRobotCount(); r++) {
+            if (before.routeSize(r) > before.routeSize(robot)) robot = r;
+        }
+        List<Merchandise> route = dispatcher.dispatch(robot);
+        Solution after = dispatcher.getPlan();
+        Checks.checkSolution(after);
+        Checks.check(after.routeSize(robot) == 0, "tuyến đã giao vẫn còn trong kế hoạch");
+        Checks.check(route.size() + after.getItemCount() == total, "giao tuyến làm mất hoặc nhân đôi mặt hàng");
+
+        Map<String, Integer> combined = countNames(after.getInstance().getRequire());
+        for (Merchandise item : route) {
+            combined.merge(item.getName(), 1, Integer::sum);
+        }
+        Checks.check(combined.equals(submitted), "mặt hàng được giao và còn lại khác đơn đã gửi");
+    }
+
+    /**
+     * close() dừng cả luồng tiếp nhận và luồng tối ưu
+     */
+    static void closeStopsThreads(OnlineDispatcher dispatcher) throws InterruptedException {
+        Thread closer = new Thread(dispatcher::close);
+        closer.start();
+        closer.join(5000);
+        Checks.check(!closer.isAlive(), "close() không kết thúc");
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            Checks.check(!thread.getName().startsWith("online-") || !thread.isAlive(),
+                    "luồng " + thread.getName() + " còn chạy sau close()");
+        }
+    }
+
+    private static void waitForAdmission(OnlineDispatcher dispatcher, int orders) throws InterruptedException {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (dispatcher.getAdmittedOrders() < orders && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        Checks.check(dispatcher.getAdmittedOrders() == orders, "chỉ " + dispatcher.getAdmittedOrders() + " đơn được tiếp nhận");
+    }
+
+    private static Map<String, Integer> countNames(List<Merchandise> items) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (Merchandise item : items) {
+            counts.merge(item.getName(), item.getQuantity(), Integer::sum);
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,54 @@
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Kiểm tra việc gom đơn hàng thành lô
+ */
+public class OrderBatcherTest {
+    public static void main(String[] args) {
+        batchesFitFleetCapacity();
+    }
+
+    /**
+     * Mỗi đơn thuộc đúng một lô, lô nhiều đơn không vượt sức chứa của cả đội robot, đơn quá lớn đứng riêng
+     * và lời giải của mỗi lô hợp lệ
+     */
+    static void batchesFitFleetCapacity() {
+        ProblemInstance instance = Checks.randomInstance(200, 3, 20, 17);
+        instance = instance.withConfig(instance.getConfig().toBuilder().randomSeed(5).vnsMaxIterations(10).build());
+        int batchCapacity = instance.getRobotCount() * instance.getCapacity();
+        Random random = new Random(8);
+        List<Order> orders = new ArrayList<>();
+        for (int o = 0; o < 150; o++) {
+            List<Merchandise> items = new ArrayList<>();
+            for (int i = 1 + random.nextInt(4); i > 0; i--) {
+                Merchandise item = instance.getRequire().get(random.nextInt(200));
+                items.add(new Merchandise(item.getName(), 1 + random.nextInt(6)));
+            }
+            orders.add(new Order("DH" + o, items));
+        }
+        List<Merchandise> oversized = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            oversized.add(new Merchandise(instance.getRequire().get(i).getName(), 5));
+        }
+        orders.add(new Order("LON", oversized));
+
+        BatchingResult result = new OrderBatcher(instance).solve(orders, SolveBudget.of(2000, null));
+        IdentityHashMap<Order, Boolean> seen = new IdentityHashMap<>();
+        for (OrderBatch batch : result.getBatches()) {
+            for (Order order : batch.getOrders()) {
+                Checks.check(seen.put(order, true) == null, "đơn " + order.getId() + " thuộc hai lô");
+            }
+            if (batch.getOrders().size() > 1) {
+                Checks.check(batch.getLoad() <= batchCapacity, "lô " + batch.getOrders() + " vượt sức chứa của đội");
+            } else if (batch.getLoad() > batchCapacity) {
+                Checks.check(batch.getInstance().getRobotCount() * instance.getCapacity() >= batch.getLoad(),
+                        "đơn quá lớn không được cấp đủ robot");
+            }
+            Checks.checkSolution(batch.getSolution());
+        }
+        Checks.check(seen.size() == orders.size(), "có đơn không thuộc lô nào");
+    }
+}
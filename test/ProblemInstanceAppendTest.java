@@ -0,0 +1,67 @@
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Kiểm tra việc nối thêm mặt hàng vào bài toán (ProblemInstance.withItemsAppended) và lời giải nối tiếp
+ */
+public class ProblemInstanceAppendTest {
+    public static void main(String[] args) {
+        appendedMatchesRebuilt();
+        branchingAppendKeepsVersions();
+    }
+
+    /**
+     * Nối từng nhóm mặt hàng cho cùng chỉ số, vị trí và chi phí như dựng lại bài toán với toàn bộ danh sách
+     */
+    static void appendedMatchesRebuilt() {
+        ProblemInstance full = Checks.randomInstance(60, 4, 40, 7);
+        List<Merchandise> items = full.getRequire();
+        ProblemInstance instance = full.withRequire(items.subList(0, 5), 4);
+        Solution solution = new Solution(instance);
+        solution.initializeRandomSolution(new Random(2));
+        for (int from = 5; from < items.size(); from += 5) {
+            ProblemInstance appended = instance.withItemsAppended(items.subList(from, from + 5));
+            Checks.check(appended.getRequire().size() == from + 5, "số mặt hàng sau khi nối sai");
+            Solution next = new Solution(solution, appended);
+            Checks.checkSolution(next);
+            for (int item = from; item < from + 5; item++) {
+                Checks.check(next.routeOf(item) == next.getRouteCount() - 1, "mặt hàng mới không ở tuyến cuối");
+                next.reinsertCheapest(item);
+            }
+            Checks.checkSolution(next);
+
+            ProblemInstance rebuilt = full.withRequire(items.subList(0, from + 5), 4);
+            for (int id = 0; id < from + 5; id++) {
+                Checks.check(appended.requireLocation(id) == rebuilt.requireLocation(id), "vị trí mặt hàng " + id + " sai");
+                Checks.check(appended.requireQuantity(id) == rebuilt.requireQuantity(id), "số lượng mặt hàng " + id + " sai");
+                Checks.check(appended.requireIdOf(appended.getRequire().get(id)) == id, "chỉ số mặt hàng " + id + " sai");
+            }
+            Solution recomputed = new Solution(next);
+            recomputed.evaluate();
+            for (int r = 0; r < next.getRouteCount(); r++) {
+                Checks.check(next.routeKey(r) == recomputed.routeKey(r), "khóa tuyến sai so với tính lại");
+            }
+            instance = appended;
+            solution = next;
+        }
+    }
+
+    /**
+     * Nối hai lần từ cùng một bài toán không làm hỏng mặt hàng của nhánh còn lại
+     */
+    static void branchingAppendKeepsVersions() {
+        ProblemInstance full = Checks.randomInstance(30, 2, 40, 11);
+        List<Merchandise> items = full.getRequire();
+        ProblemInstance base = full.withRequire(items.subList(0, 10), 2).withItemsAppended(items.subList(10, 12));
+        ProblemInstance first = base.withItemsAppended(items.subList(12, 20));
+        ProblemInstance second = base.withItemsAppended(items.subList(20, 30));
+        ProblemInstance firstRebuilt = full.withRequire(items.subList(0, 20), 2);
+        for (int id = 0; id < 20; id++) {
+            Checks.check(first.requireLocation(id) == firstRebuilt.requireLocation(id), "nhánh thứ nhất bị ghi đè");
+            Checks.check(first.getRequire().get(id).getName().equals(firstRebuilt.getRequire().get(id).getName()),
+                    "tên mặt hàng của nhánh thứ nhất bị ghi đè");
+        }
+        Checks.check(second.getRequire().get(12).getName().equals(items.get(20).getName()), "nhánh thứ hai sai");
+        Checks.check(base.getRequire().size() == 12, "bài toán gốc bị thay đổi");
+    }
+}
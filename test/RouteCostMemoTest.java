@@ -0,0 +1,51 @@
+import java.util.Random;
+
+/**
+ * Kiểm tra bộ nhớ chi phí tuyến dùng chung giữa bài toán gốc và các bài toán dẫn xuất
+ */
+public class RouteCostMemoTest {
+    public static void main(String[] args) {
+        derivedInstancesShareMemo();
+        sharedCostsMatchRecompute();
+    }
+
+    /**
+     * Bài toán dẫn xuất bằng withConfig và withRequire tra trúng chi phí tuyến đã tính ở bài toán gốc
+     */
+    static void derivedInstancesShareMemo() {
+        ProblemInstance instance = Checks.randomInstance(30, 3, 40, 5);
+        Solution solution = new Solution(instance);
+        solution.initializeRandomSolution(new Random(1));
+        long misses = instance.getRouteCacheMisses();
+
+        ProblemInstance configured = instance.withConfig(instance.getConfig().toBuilder().swarmSize(7).build());
+        Solution same = new Solution(configured);
+        same.copyFrom(solution);
+        same.calculateFitness();
+        Checks.check(configured.getRouteCacheMisses() == misses, "bài toán đổi cấu hình tính lại chi phí tuyến");
+        Checks.check(configured.getRouteCacheHits() >= solution.getRouteCount(), "bài toán đổi cấu hình không tra trúng");
+
+        ProblemInstance derived = instance.withRequire(instance.getRequire(), instance.getRobotCount());
+        Checks.check(derived.getRouteCacheHits() == configured.getRouteCacheHits(),
+                "bài toán dẫn xuất không dùng chung bộ nhớ");
+    }
+
+    /**
+     * Chi phí tra từ bộ nhớ dùng chung luôn khớp với việc tính lại khi bài toán dẫn xuất có danh sách khác
+     */
+    static void sharedCostsMatchRecompute() {
+        ProblemInstance instance = Checks.randomInstance(40, 4, 30, 9);
+        ProblemInstance noCache = instance.withConfig(instance.getConfig().toBuilder().routeCacheSize(0).build());
+        Random random = new Random(3);
+        for (int round = 0; round < 20; round++) {
+            int size = 5 + random.nextInt(30);
+            ProblemInstance derived = instance.withRequire(instance.getRequire().subList(round % 5, round % 5 + size), 3);
+            Solution cached = new Solution(derived);
+            cached.initializeRandomSolution(new Random(round));
+            Solution plain = new Solution(noCache.withRequire(derived.getRequire(), 3));
+            plain.copyFrom(cached);
+            plain.calculateFitness();
+            Checks.checkClose(plain.getFitness(), cached.getFitness(), "chi phí tra từ bộ nhớ dùng chung sai");
+        }
+    }
+}
@@ -0,0 +1,46 @@
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Chạy mọi bài kiểm tra trong thư mục test, in kết quả từng bài và thoát với mã 1 nếu có bài lỗi
+ *
+ * Biên dịch và chạy từ thư mục gốc:
+ * javac -encoding UTF-8 -d out src/*.java test/*.java && java -cp out RunAllTests
+ */
+public class RunAllTests {
+    private static final Class<?>[] TESTS = {
+            DistanceTableTest.class,
+            RouteCostMemoTest.class,
+            ProblemInstanceAppendTest.class,
+            WarmStartTest.class,
+            ClarkeWrightTest.class,
+            OrderBatcherTest.class,
+            InventoryStoreTest.class,
+            MoveDeltaTest.class,
+            InstanceLoaderTest.class,
+            CompactMapTest.class,
+            IslandPSOTest.class,
+            HeldKarpSequencerTest.class,
+            IncumbentPublisherTest.class,
+            OnlineDispatcherTest.class,
+    };
+
+    public static void main(String[] args) throws Exception {
+        int failures = 0;
+        for (Class<?> test : TESTS) {
+            Method main = test.getMethod("main", String[].class);
+            try {
+                main.invoke(null, (Object) new String[0]);
+                System.out.println("ĐẠT   " + test.getName());
+            } catch (InvocationTargetException e) {
+                failures++;
+                System.out.println("LỖI   " + test.getName() + ": " + e.getCause());
+                e.getCause().printStackTrace(System.out);
+            }
+        }
+        System.out.println(TESTS.length - failures + "/" + TESTS.length + " bài kiểm tra đạt");
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+}
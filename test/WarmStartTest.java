@@ -0,0 +1,94 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Kiểm tra việc giải lại từ kế hoạch trước khi đơn hàng được sửa
+ */
+public class WarmStartTest {
+    public static void main(String[] args) {
+        adaptFromRepairsCapacity();
+        chainedDeltasKeepBothAmendments();
+    }
+
+    /**
+     * Số lượng tăng làm tuyến cũ vượt sức chứa: kế hoạch điều chỉnh được sửa về khả thi khi đội robot còn chỗ
+     */
+    static void adaptFromRepairsCapacity() {
+        ProblemInstance instance = Checks.randomInstance(12, 3, 10, 3);
+        List<Merchandise> single = new ArrayList<>();
+        List<Merchandise> doubled = new ArrayList<>();
+        for (Merchandise item : instance.getRequire()) {
+            single.add(new Merchandise(item.getName(), 1));
+            doubled.add(new Merchandise(item.getName(), 2));
+        }
+        Solution previous = new Solution(instance.withRequire(single, 3));
+        int[] order = new int[12];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        previous.setRoutes(order, new int[]{6, 3, 3});
+
+        Solution adapted = new Solution(instance.withRequire(doubled, 3));
+        adapted.adaptFrom(previous);
+        Checks.checkSolution(adapted);
+        for (int r = 0; r < adapted.getRouteCount(); r++) {
+            Checks.check(adapted.routeLoad(r) <= 10, "tuyến " + r + " vượt sức chứa sau khi điều chỉnh");
+        }
+    }
+
+    /**
+     * Hai lần sửa liên tiếp cùng một đơn: lần sửa thứ hai áp dụng lên đơn đã sửa nên cả hai lần sửa đều còn,
+     * và giỏ hàng của robot luôn khớp với đơn hàng của cá thể
+     */
+    static void chainedDeltasKeepBothAmendments() {
+        ProblemInstance instance = Checks.randomInstance(15, 2, 40, 5);
+        instance = instance.withConfig(instance.getConfig().toBuilder().psoMaxIterations(5).vnsMaxIterations(5)
+                .randomSeed(1).build());
+        List<Merchandise> original = instance.getRequire();
+        Individual individual = new Individual(instance);
+        Solution previous = new Solution(instance);
+        previous.initializeRandomSolution(new Random(1));
+        ArrayList<Merchandise> warehousing = new ArrayList<>(instance.getWarehousing());
+
+        Merchandise firstAdded = new Merchandise(original.get(0).getName(), 1);
+        OrderDelta first = new OrderDelta(List.of(firstAdded), List.of(original.get(1).getName()));
+        SolveResult result = individual.solvePsoVns(previous, first, instance.getCounterPosition(), warehousing,
+                SolveBudget.unlimited());
+        checkCartsMatchOrder(individual);
+
+        Merchandise secondAdded = new Merchandise(original.get(3).getName(), 2);
+        OrderDelta second = new OrderDelta(List.of(secondAdded), List.of(original.get(2).getName()));
+        result = individual.solvePsoVns(result.getSolution(), second, instance.getCounterPosition(), warehousing,
+                SolveBudget.unlimited());
+        checkCartsMatchOrder(individual);
+
+        Checks.check(individual.require.size() == 15, "đơn sau hai lần sửa có " + individual.require.size() + " dòng");
+        Checks.check(individual.require.stream().anyMatch(item -> item == firstAdded)
+                        && individual.require.stream().anyMatch(item -> item == secondAdded),
+                "thiếu dòng được thêm của một lần sửa");
+        for (String removed : List.of(original.get(1).getName(), original.get(2).getName())) {
+            Checks.check(individual.require.stream().noneMatch(item -> item.getName().equals(removed)),
+                    "dòng bị bỏ " + removed + " vẫn còn trong đơn");
+        }
+        Checks.check(result.getSolution().getItemCount() == individual.require.size(),
+                "lời giải không dùng đơn sau hai lần sửa");
+    }
+
+    /**
+     * Giỏ hàng của các robot chứa đúng các dòng của đơn hàng hiện tại của cá thể
+     */
+    private static void checkCartsMatchOrder(Individual individual) {
+        List<String> remaining = new ArrayList<>();
+        for (Merchandise item : individual.require) {
+            remaining.add(item.getName() + " x" + item.getQuantity());
+        }
+        for (Robot robot : individual.robots) {
+            for (Merchandise item : robot.shoppingCart) {
+                String line = item.getName() + " x" + item.getQuantity();
+                Checks.check(remaining.remove(line), "giỏ hàng có dòng " + line + " không thuộc đơn hàng");
+            }
+        }
+        Checks.check(remaining.isEmpty(), "đơn hàng còn " + remaining.size() + " dòng không nằm trong giỏ hàng");
+    }
+}